@@ -0,0 +1,296 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.net.Serde;
+import ch.epfl.tchu.net.Serdes;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Benchmarks of the hot paths of the engine, of the text protocol and of a whole headless game, written as a
+ * baseline that later runs are compared against.
+ * The baseline is a tab separated file, one line per benchmark: its name, its time and its allocations per
+ * operation (the lines starting with # are comments).
+ * When a baseline is given, the benchmarks more than <code>tolerance</code> slower (or allocating more) than it are
+ * reported as regressions, and the exit status is 1.
+ * Usage: BenchmarkSuite [--out file] [--baseline file] [--tolerance 0.25] [--filter prefix]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class BenchmarkSuite {
+    private static final double DEFAULT_TOLERANCE = 0.25;
+    private static final String HEADER = "name\tns_per_op\tbytes_per_op";
+
+    //The benchmarks run, and the prefix of the names of the benchmarks to run
+    private final Map<String, Microbench.Result> results = new LinkedHashMap<>();
+    private final String filter;
+
+    private BenchmarkSuite(String filter) {
+        this.filter = filter;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = options(args);
+        double tolerance = Double.parseDouble(options.getOrDefault("--tolerance", String.valueOf(DEFAULT_TOLERANCE)));
+        BenchmarkSuite suite = new BenchmarkSuite(options.getOrDefault("--filter", ""));
+
+        Fixture fixture = new Fixture();
+        suite.gameState(fixture);
+        suite.sortedBag(fixture);
+        suite.claims(fixture);
+        suite.points(fixture);
+        suite.serdes(fixture);
+        suite.game();
+        System.out.println("(sink " + Microbench.sink() + ")");
+
+        if (options.containsKey("--out")) {
+            suite.write(Path.of(options.get("--out")));
+            System.out.println("Baseline written to " + options.get("--out"));
+        }
+        if (options.containsKey("--baseline")
+                && suite.compare(read(Path.of(options.get("--baseline"))), tolerance) > 0)
+            System.exit(1);
+    }
+
+    private void gameState(Fixture f) {
+        Random rng = new Random(1);
+        run("engine.GameState.initial", () -> GameState.initial(f.tickets, rng).ticketsCount());
+        run("engine.GameState.drawCardsTurn", () -> f.middle
+                .withCardsDeckRecreatedIfNeeded(rng)
+                .withDrawnFaceUpCard(2)
+                .withBlindlyDrawnCard()
+                .forNextTurn().cardState().deckSize());
+        run("engine.GameState.drawTicketsTurn", () -> f.middle
+                .withChosenAdditionalTickets(f.drawnTickets, SortedBag.of(f.drawnTickets.get(0)))
+                .forNextTurn().ticketsCount());
+        run("engine.GameState.claimRouteTurn", () -> f.middle
+                .withClaimedRoute(f.claimed, f.claimCards)
+                .forNextTurn().cardState().discardsSize());
+    }
+
+    private void sortedBag(Fixture f) {
+        List<Card> cards = f.hand.toList();
+        SortedBag<Card> half = SortedBag.of(cards.subList(0, cards.size() / 2));
+        run("sortedBag.of", () -> SortedBag.of(cards).size());
+        run("sortedBag.union", () -> f.hand.union(half).size());
+        run("sortedBag.difference", () -> f.hand.difference(half).size());
+        run("sortedBag.contains", () -> f.hand.contains(half) ? 1 : 0);
+        run("sortedBag.countOf", () -> f.hand.countOf(Card.LOCOMOTIVE));
+        run("sortedBag.subsetsOfSize3", () -> f.hand.subsetsOfSize(3).size());
+    }
+
+    private void claims(Fixture f) {
+        run("engine.Route.possibleClaimCards", () -> f.neutralTunnel.possibleClaimCards().size());
+        run("engine.PlayerState.possibleClaimCards", () -> f.richPlayer.possibleClaimCards(f.neutralTunnel).size());
+        run("engine.PlayerState.possibleAdditionalCards", () -> f.richPlayer
+                .possibleAdditionalCards(2, f.tunnelClaimCards, f.tunnelDrawnCards).size());
+    }
+
+    private void points(Fixture f) {
+        run("engine.PlayerState.ticketPoints", () -> f.endPlayer.ticketPoints());
+        run("engine.Trail.longest", () -> Trail.longest(f.endPlayer.routes()).length());
+    }
+
+    //One benchmark per Serde of Serdes, so that a new Serde can't be forgotten
+    private void serdes(Fixture f) {
+        Map<String, Object> samples = new HashMap<>();
+        samples.put("INTEGER_SERDE", 2021);
+        samples.put("STRING_SERDE", "Charles a pris le tunnel de Lucerne à Zoug");
+        samples.put("PLAYER_ID_SERDE", PlayerId.PLAYER_2);
+        samples.put("TURN_KIND_SERDE", Player.TurnKind.CLAIM_ROUTE);
+        samples.put("CARD_SERDE", Card.LOCOMOTIVE);
+        samples.put("ROUTE_SERDE", f.claimed);
+        samples.put("TICKET_SERDE", f.drawnTickets.get(0));
+        samples.put("LIST_STRING_SERDE", List.of("Ada", "Charles"));
+        samples.put("LIST_CARD_SERDE", f.middle.cardState().faceUpCards());
+        samples.put("LIST_ROUTE_SERDE", f.endPlayer.routes());
+        samples.put("SORTED_BAG_CARD_SERDE", f.hand);
+        samples.put("SORTED_BAG_TICKETS_SERDE", f.endPlayer.tickets());
+        samples.put("LIST_SORTED_BAG_CARD_SERDE", f.neutralTunnel.possibleClaimCards());
+        samples.put("PUBLIC_CARD_STATE_SERDE", f.middle.cardState());
+        samples.put("PUBLIC_PLAYER_STATE_SERDE", f.endPlayer);
+        samples.put("PLAYER_STATE_SERDE", f.endPlayer);
+        samples.put("PUBLIC_GAME_STATE_SERDE", f.middle);
+
+        for (Field field : Serdes.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || !Serde.class.isAssignableFrom(field.getType()))
+                continue;
+            Object sample = samples.get(field.getName());
+            if (sample == null)
+                throw new Error("No sample value for Serdes." + field.getName());
+            try {
+                serde("serdes." + field.getName(), (Serde<?>) field.get(null), sample);
+            } catch (IllegalAccessException e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void serde(String name, Serde<T> serde, Object sample) {
+        T value = (T) sample;
+        String data = serde.serialize(value);
+        //The states have no equals method: compare their serializations
+        if (!serde.serialize(serde.deserialize(data)).equals(data))
+            throw new Error(name + " doesn't deserialize what it serialized");
+        run(name + ".serialize", () -> serde.serialize(value).length());
+        run(name + ".deserialize", () -> serde.deserialize(data).hashCode());
+    }
+
+    private void game() {
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+        Map<PlayerId, String> names = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+        ScriptedPlayer.TurnClock clock = new ScriptedPlayer.TurnClock(latency -> {});
+        long[] seed = new long[1];
+        run("game.Game.play", () -> {
+            long s = seed[0]++;
+            Map<PlayerId, Player> players = Map.of(
+                    PlayerId.PLAYER_1, new ScriptedPlayer(2 * s, clock),
+                    PlayerId.PLAYER_2, new ScriptedPlayer(2 * s + 1, clock));
+            Game.play(players, names, tickets, new Random(s));
+            return s;
+        });
+    }
+
+    //Run the benchmark if its name starts with the filter
+    private void run(String name, LongSupplier operation) {
+        if (name.startsWith(filter))
+            results.put(name, Microbench.run(name, operation));
+    }
+
+    //Write the results as a baseline
+    private void write(Path file) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            w.println("# tCHu benchmarks, java " + System.getProperty("java.version") + ", " + Instant.now());
+            w.println(HEADER);
+            for (Microbench.Result r : results.values())
+                w.println(String.format(Locale.ROOT, "%s\t%.1f\t%.1f", r.name(), r.nsPerOp(), r.bytesPerOp()));
+        }
+    }
+
+    //Read a baseline: the time and the allocations per operation of each benchmark
+    private static Map<String, double[]> read(Path file) throws IOException {
+        Map<String, double[]> baseline = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#") || line.equals(HEADER))
+                continue;
+            String[] columns = line.split("\t");
+            if (columns.length != 3)
+                throw new IOException("Invalid baseline line: " + line);
+            baseline.put(columns[0], new double[]{Double.parseDouble(columns[1]), Double.parseDouble(columns[2])});
+        }
+        return baseline;
+    }
+
+    //Print the results relative to the baseline, and return the amount of regressions
+    private int compare(Map<String, double[]> baseline, double tolerance) {
+        System.out.println("== compared to the baseline (tolerance " + tolerance + ")");
+        int regressions = 0;
+        for (Microbench.Result r : results.values()) {
+            double[] base = baseline.get(r.name());
+            if (base == null) {
+                System.out.printf("%-55s new%n", r.name());
+                continue;
+            }
+            double time = r.nsPerOp() / base[0];
+            double allocations = (base[1] > 0) ? r.bytesPerOp() / base[1] : Double.NaN;
+            //NaN comparisons are false: unknown allocations are never a regression
+            boolean regression = time > 1 + tolerance || allocations > 1 + tolerance;
+            if (regression)
+                ++regressions;
+            System.out.printf(Locale.ROOT, "%-55s time x%.2f allocations x%.2f%s%n",
+                    r.name(), time, allocations, regression ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions + " regression(s)");
+        return regressions;
+    }
+
+    //Options of the command line, as "--name value" pairs
+    private static Map<String, String> options(String[] args) {
+        if (args.length % 2 != 0)
+            throw new IllegalArgumentException("Usage: BenchmarkSuite [--out file] [--baseline file] [--tolerance 0.25] [--filter prefix]");
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2)
+            options.put(args[i], args[i + 1]);
+        return options;
+    }
+
+    //The states and the cards the benchmarks work on, always the same ones
+    private static final class Fixture {
+        private final SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+        //A state in the middle of a game, where the current player can claim a route
+        private final GameState middle;
+        private final Route claimed;
+        private final SortedBag<Card> claimCards;
+        private final SortedBag<Ticket> drawnTickets;
+        private final SortedBag<Card> hand;
+        //The longest neutral tunnel, and a player with many cards claiming it
+        private final Route neutralTunnel;
+        private final PlayerState richPlayer;
+        private final SortedBag<Card> tunnelClaimCards;
+        private final SortedBag<Card> tunnelDrawnCards;
+        //A player at the end of a game, with many routes and tickets
+        private final PlayerState endPlayer;
+
+        private Fixture() {
+            Random rng = new Random(2021);
+            GameState state = GameState.initial(tickets, rng);
+            Route route = findClaimable(state);
+            while (route == null || state.currentPlayerState().carCount() > 25) {
+                state = (route != null)
+                        ? state.withClaimedRoute(route, state.currentPlayerState().possibleClaimCards(route).get(0))
+                        : state.withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard()
+                                .withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard();
+                state = state.forNextTurn();
+                route = findClaimable(state);
+            }
+            middle = state;
+            claimed = route;
+            claimCards = middle.currentPlayerState().possibleClaimCards(claimed).get(0);
+            drawnTickets = middle.topTickets(Constants.IN_GAME_TICKETS_COUNT);
+            hand = middle.currentPlayerState().cards();
+
+            Route tunnel = null;
+            for (Route r : ChMap.routes()) {
+                if (r.level() == Route.Level.UNDERGROUND && r.color() == null
+                        && (tunnel == null || r.length() > tunnel.length()))
+                    tunnel = r;
+            }
+            neutralTunnel = tunnel;
+            SortedBag.Builder<Card> richCards = new SortedBag.Builder<>();
+            for (Card card : Card.ALL)
+                richCards.add(Constants.MAX_ROUTE_LENGTH, card);
+            richPlayer = new PlayerState(SortedBag.of(), richCards.build(), List.of());
+            tunnelClaimCards = SortedBag.of(neutralTunnel.length() - 1, Card.RED, 1, Card.LOCOMOTIVE);
+            tunnelDrawnCards = SortedBag.of(2, Card.RED, 1, Card.LOCOMOTIVE);
+
+            List<Route> routes = new ArrayList<>(ChMap.routes());
+            Collections.shuffle(routes, rng);
+            List<Ticket> allTickets = new ArrayList<>(ChMap.tickets());
+            Collections.shuffle(allTickets, rng);
+            endPlayer = new PlayerState(SortedBag.of(allTickets.subList(0, 10)), SortedBag.of(),
+                    List.copyOf(routes.subList(0, 30)));
+        }
+
+        //A route the current player can claim, null if none
+        private static Route findClaimable(GameState state) {
+            MutableGameState mutable = MutableGameState.of(state);
+            for (Route r : ChMap.routes()) {
+                if (mutable.canClaimRoute(r))
+                    return r;
+            }
+            return null;
+        }
+    }
+}
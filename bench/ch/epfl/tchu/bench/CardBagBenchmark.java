@@ -0,0 +1,87 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare SortedBag&lt;Card&gt; and CardBag on the operations done by the engine on the cards of the players
+ * and on the discard (union, difference, containment, adding a card), then time the engine calls using them.
+ * Usage: CardBagBenchmark
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class CardBagBenchmark {
+    private static final int SAMPLES = 1_024;
+
+    private CardBagBenchmark() {}
+
+    public static void main(String[] args) {
+        //Random hands and claims, as seen in a game
+        Random rng = new Random(2021);
+        List<SortedBag<Card>> hands = new ArrayList<>(SAMPLES);
+        List<SortedBag<Card>> claims = new ArrayList<>(SAMPLES);
+        CardBag[] packedHands = new CardBag[SAMPLES];
+        CardBag[] packedClaims = new CardBag[SAMPLES];
+        PlayerState[] players = new PlayerState[SAMPLES];
+        for (int i = 0; i < SAMPLES; ++i) {
+            hands.add(randomBag(rng, 4));
+            claims.add(randomBag(rng, 1));
+            packedHands[i] = CardBag.of(hands.get(i));
+            packedClaims[i] = CardBag.of(claims.get(i));
+            players[i] = new PlayerState(SortedBag.of(), hands.get(i), List.of());
+        }
+        List<Route> routes = ChMap.routes();
+        int[] index = new int[1];
+
+        System.out.println("== raw operations");
+        Microbench.run("SortedBag.union", () -> hands.get(next(index)).union(claims.get(index[0])).size());
+        Microbench.run("CardBag.union", () -> packedHands[next(index)].union(packedClaims[index[0]]).size());
+        Microbench.run("SortedBag.difference", () -> hands.get(next(index)).difference(claims.get(index[0])).size());
+        Microbench.run("CardBag.difference", () -> packedHands[next(index)].difference(packedClaims[index[0]]).size());
+        Microbench.run("SortedBag.contains(SortedBag)", () -> hands.get(next(index)).contains(claims.get(index[0])) ? 1 : 0);
+        Microbench.run("CardBag.contains(CardBag)", () -> packedHands[next(index)].contains(packedClaims[index[0]]) ? 1 : 0);
+        Microbench.run("SortedBag.Builder add one card", () -> {
+            SortedBag.Builder<Card> builder = new SortedBag.Builder<>();
+            builder.add(hands.get(next(index)));
+            builder.add(Card.LOCOMOTIVE);
+            return builder.build().size();
+        });
+        Microbench.run("CardBag.with", () -> packedHands[next(index)].with(Card.LOCOMOTIVE).size());
+
+        System.out.println("== engine calls");
+        Microbench.run("PlayerState.withAddedCard", () -> players[next(index)].withAddedCard(Card.RED).cardCount());
+        Microbench.run("PlayerState.canClaimRoute (all routes)", () -> {
+            PlayerState player = players[next(index)];
+            long claimable = 0;
+            for (Route route : routes) {
+                if (player.canClaimRoute(route))
+                    ++claimable;
+            }
+            return claimable;
+        });
+        Microbench.run("PlayerState.withClaimedRoute", () -> {
+            PlayerState player = players[next(index)];
+            return player.withClaimedRoute(routes.get(0), player.cards().difference(claims.get(index[0]))).cardCount();
+        });
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+
+    //Next sample index
+    private static int next(int[] index) {
+        index[0] = (index[0] + 1) & (SAMPLES - 1);
+        return index[0];
+    }
+
+    //A bag with up to maxCount cards of each kind
+    private static SortedBag<Card> randomBag(Random rng, int maxCount) {
+        SortedBag.Builder<Card> builder = new SortedBag.Builder<>();
+        for (Card c : Card.ALL)
+            builder.add(rng.nextInt(maxCount + 1), c);
+        return builder.build();
+    }
+}
@@ -0,0 +1,47 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Time the draws done on the decks of a GameState (tickets and cards), and measure the bytes allocated
+ * by a whole game played in process between two scripted players.
+ * Usage: DeckBenchmark
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class DeckBenchmark {
+    private DeckBenchmark() {}
+
+    public static void main(String[] args) {
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+        GameState initial = GameState.initial(tickets, new Random(2021));
+
+        Microbench.run("GameState.withoutTopTickets(3)", () -> initial.withoutTopTickets(3).ticketsCount());
+        Microbench.run("GameState.withBlindlyDrawnCard", () -> initial.withBlindlyDrawnCard().cardState().deckSize());
+        Microbench.run("GameState.withDrawnFaceUpCard", () -> initial.withDrawnFaceUpCard(0).cardState().deckSize());
+        Microbench.run("Deck draw all the cards one by one", () -> {
+            GameState state = initial;
+            while (!state.cardState().isDeckEmpty())
+                state = state.withBlindlyDrawnCard();
+            return state.cardState().deckSize();
+        });
+
+        Map<PlayerId, String> names = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+        long[] game = new long[1];
+        Microbench.run("Whole game (scripted players)", () -> {
+            long seed = game[0]++;
+            ScriptedPlayer.TurnClock clock = new ScriptedPlayer.TurnClock(latency -> {});
+            Map<PlayerId, Player> players = Map.of(
+                    PlayerId.PLAYER_1, new ScriptedPlayer(2 * seed, clock),
+                    PlayerId.PLAYER_2, new ScriptedPlayer(2 * seed + 1, clock));
+            new GameSession(players, names, tickets, new Random(seed)).play();
+            return seed;
+        });
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+}
@@ -0,0 +1,80 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.net.GameServer;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Load test of the GameServer: play N concurrent sessions between scripted players
+ * and report the throughput (games/s) and the p99 of the turn latency.
+ * Usage: GameServerLoadTest [sessions] [threads]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameServerLoadTest {
+    private GameServerLoadTest() {}
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int sessionCount = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000;
+        int threadCount = (args.length > 1)
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+        Map<PlayerId, String> names = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+        List<LatencyRecorder> recorders = new ArrayList<>(sessionCount);
+
+        long start = System.nanoTime();
+        try (GameServer server = new GameServer(threadCount)) {
+            List<Future<?>> futures = new ArrayList<>(sessionCount);
+            for (int i = 0; i < sessionCount; ++i) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                ScriptedPlayer.TurnClock clock = new ScriptedPlayer.TurnClock(recorder::record);
+                Map<PlayerId, Player> players = Map.of(
+                        PlayerId.PLAYER_1, new ScriptedPlayer(2L * i, clock),
+                        PlayerId.PLAYER_2, new ScriptedPlayer(2L * i + 1, clock));
+                GameSession session = new GameSession(players, names, tickets, new Random(i));
+                futures.add(server.submit(session));
+            }
+            for (Future<?> f : futures)
+                f.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] latencies = recorders.stream()
+                .flatMapToLong(r -> Arrays.stream(r.values, 0, r.size))
+                .sorted()
+                .toArray();
+        System.out.printf("sessions=%d threads=%d time=%.2fs%n", sessionCount, threadCount, seconds);
+        System.out.printf("throughput=%.1f games/s%n", sessionCount / seconds);
+        System.out.printf("turns=%d p50=%.1fus p99=%.1fus max=%.1fus%n",
+                latencies.length,
+                percentile(latencies, 0.50) / 1e3,
+                percentile(latencies, 0.99) / 1e3,
+                latencies[latencies.length - 1] / 1e3);
+    }
+
+    //the value of the given percentile of sorted values
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    //records the latencies of one session, always from the thread playing it
+    //(read once the session is over, the future provides the happens-before)
+    private static final class LatencyRecorder {
+        private long[] values = new long[256];
+        private int size;
+
+        private void record(long latency) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = latency;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare the transitions of the immutable GameState with the moves applied and undone on a MutableGameState,
+ * from the same state in the middle of a game, and print the transitions per second of both.
+ * Usage: GameStateBenchmark
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameStateBenchmark {
+    //The transitions of each operation
+    private static final int DRAW_TURN_TRANSITIONS = 4;
+    private static final int CLAIM_TURN_TRANSITIONS = 2;
+
+    private GameStateBenchmark() {}
+
+    public static void main(String[] args) {
+        //A state in the middle of a game, where the current player can claim a route
+        Random rng = new Random(2021);
+        GameState state = GameState.initial(SortedBag.of(ChMap.tickets()), rng);
+        Route route = findClaimable(state);
+        while (route == null || state.currentPlayerState().carCount() > 25) {
+            state = (route != null)
+                    ? state.withClaimedRoute(route, state.currentPlayerState().possibleClaimCards(route).get(0))
+                    : state.withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard()
+                            .withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard();
+            state = state.forNextTurn();
+            route = findClaimable(state);
+        }
+        GameState middle = state;
+        Route claimed = route;
+        SortedBag<Card> claimCards = middle.currentPlayerState().possibleClaimCards(claimed).get(0);
+        CardBag claimCardBag = CardBag.of(claimCards);
+        Random shuffle = new Random(1);
+        System.out.println("State: " + middle.currentPlayerState().carCount() + " cars, deck " + middle.cardState().deckSize()
+                + ", claiming " + claimed.id());
+
+        Microbench.Result immutableDraw = Microbench.run("GameState draw turn", () -> middle
+                .withCardsDeckRecreatedIfNeeded(shuffle)
+                .withDrawnFaceUpCard(2)
+                .withBlindlyDrawnCard()
+                .forNextTurn().cardState().deckSize());
+        MutableGameState mutable = MutableGameState.of(middle);
+        Microbench.Result mutableDraw = Microbench.run("MutableGameState draw turn + undo", () -> {
+            mutable.recreateDeckIfNeeded(shuffle);
+            mutable.drawFaceUpCard(2);
+            mutable.drawBlindCard();
+            mutable.nextTurn();
+            int deckSize = mutable.deckSize();
+            mutable.undoTo(0);
+            return deckSize;
+        });
+
+        Microbench.Result immutableClaim = Microbench.run("GameState claim turn", () -> middle
+                .withClaimedRoute(claimed, claimCards)
+                .forNextTurn().cardState().discardsSize());
+        Microbench.Result mutableClaim = Microbench.run("MutableGameState claim turn + undo", () -> {
+            mutable.claimRoute(claimed, claimCardBag);
+            mutable.nextTurn();
+            int discardsSize = mutable.discardsSize();
+            mutable.undoTo(0);
+            return discardsSize;
+        });
+        Microbench.Result toGameState = Microbench.run("MutableGameState.toGameState", () -> mutable.toGameState().ticketsCount());
+        Microbench.Result ofGameState = Microbench.run("MutableGameState.of", () -> MutableGameState.of(middle).deckSize());
+
+        System.out.println("== transitions per second");
+        for (Microbench.Result result : List.of(immutableDraw, mutableDraw))
+            printRate(result, DRAW_TURN_TRANSITIONS);
+        for (Microbench.Result result : List.of(immutableClaim, mutableClaim))
+            printRate(result, CLAIM_TURN_TRANSITIONS);
+        System.out.printf("conversions: of %.0f ns, toGameState %.0f ns%n", ofGameState.nsPerOp(), toGameState.nsPerOp());
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+
+    private static void printRate(Microbench.Result result, int transitions) {
+        System.out.printf("%-45s %12.1f M transitions/s%n", result.name(), transitions * 1e3 / result.nsPerOp());
+    }
+
+    //A route the current player can claim, null if none
+    private static Route findClaimable(GameState state) {
+        MutableGameState mutable = MutableGameState.of(state);
+        for (Route r : ChMap.routes()) {
+            if (mutable.canClaimRoute(r))
+                return r;
+        }
+        return null;
+    }
+}
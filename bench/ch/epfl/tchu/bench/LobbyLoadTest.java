@@ -0,0 +1,56 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.net.LobbyServer;
+import ch.epfl.tchu.net.RemotePlayerClient;
+import ch.epfl.tchu.net.WireFormat;
+import ch.epfl.tchu.sim.RandomBot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load test of the LobbyServer: N remote clients (random bots) connect over the loopback at the same time,
+ * are paired and play their matches. Print the time to play all of them and the counters of the lobby.
+ * Usage: LobbyLoadTest [clients]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class LobbyLoadTest {
+    private LobbyLoadTest() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clientCount = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+
+        try (LobbyServer lobby = new LobbyServer(0, 0)) {
+            long start = System.nanoTime();
+            List<Thread> clients = new ArrayList<>(clientCount);
+            for (int i = 0; i < clientCount; ++i) {
+                long seed = i;
+                Thread client = new Thread(() -> {
+                    try {
+                        new RemotePlayerClient(new RandomBot(seed), "localhost", lobby.gamePort(), lobby.chatPort(),
+                                "Player" + seed, WireFormat.BINARY_PIPELINED).runGame();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, "client");
+                client.setDaemon(true);
+                client.start();
+                clients.add(client);
+            }
+            long connected = System.nanoTime();
+            for (Thread client : clients)
+                client.join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("clients=%d started in %.2fs, all games over in %.2fs (%.1f games/s)%n",
+                    clientCount, (connected - start) / 1e9, seconds, lobby.matchesStarted() / seconds);
+            System.out.printf("matches=%d completed=%d failed=%d queue=%d averageWait=%.1fms maxWait=%.1fms%n",
+                    lobby.matchesStarted(), lobby.completedGames(), lobby.failedGames(), lobby.queueLength(),
+                    lobby.averageWaitMillis(), lobby.maxWaitMillis());
+        }
+    }
+}
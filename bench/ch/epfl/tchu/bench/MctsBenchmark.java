@@ -0,0 +1,48 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.ai.MctsPlayer;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.GreedyBot;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Play games of an MctsPlayer against a GreedyBot, and print the random games (rollouts) played per second
+ * and per thread by the searches, and the results of the games.
+ * Usage: MctsBenchmark [threads [budgetMillis [games]]]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class MctsBenchmark {
+    private static final Map<PlayerId, String> PLAYER_NAMES = Map.of(
+            PlayerId.PLAYER_1, "Mcts",
+            PlayerId.PLAYER_2, "Greedy");
+
+    private MctsBenchmark() {}
+
+    public static void main(String[] args) {
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 1;
+        long budgetMillis = (args.length > 1) ? Long.parseLong(args[1]) : 100;
+        int games = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+
+        int wins = 0;
+        for (int game = 0; game < games; ++game) {
+            try (MctsPlayer mcts = new MctsPlayer(threads, budgetMillis, Integer.MAX_VALUE, game)) {
+                Map<PlayerId, Player> players = Map.of(PlayerId.PLAYER_1, mcts, PlayerId.PLAYER_2, new GreedyBot(game));
+                GameSession session = new GameSession(players, PLAYER_NAMES, SortedBag.of(ChMap.tickets()), new Random(game), false);
+                session.play();
+                GameResult result = session.result();
+                if (result.winner() == PlayerId.PLAYER_1)
+                    ++wins;
+
+                double seconds = mcts.searchNanos() / 1e9;
+                System.out.printf("game %d: %s, %d rollouts in %.1f s: %.0f rollouts/s/thread%n",
+                        game, result, mcts.iterations(), seconds, mcts.iterations() / seconds / threads);
+            }
+        }
+        System.out.printf("Mcts won %d of %d games%n", wins, games);
+    }
+}
@@ -0,0 +1,120 @@
+package ch.epfl.tchu.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal microbenchmark harness (the project has no JMH dependency): each operation is warmed up,
+ * then timed in several batches; the median time per operation and the bytes allocated per operation are reported.
+ * The value returned by the operation is consumed, so that the JIT can't remove it.
+ * The durations can be changed with the system properties bench.warmupMs, bench.measureMs and bench.batches.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class Microbench {
+    private static final long WARMUP_NS = Long.getLong("bench.warmupMs", 300) * 1_000_000;
+    private static final long MEASURE_NS = Long.getLong("bench.measureMs", 200) * 1_000_000;
+    private static final int BATCHES = Integer.getInteger("bench.batches", 5);
+
+    //Consumes the results of the operations
+    private static long sink;
+
+    private Microbench() {}
+
+    /**
+     * The measures of an operation.
+     */
+    public static final class Result {
+        private final String name;
+        private final double nsPerOp;
+        private final double bytesPerOp;
+
+        private Result(String name, double nsPerOp, double bytesPerOp) {
+            this.name = name;
+            this.nsPerOp = nsPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        /**
+         * @return the name of the operation (String)
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the median time of an operation, in nanoseconds (double)
+         */
+        public double nsPerOp() {
+            return nsPerOp;
+        }
+
+        /**
+         * @return the bytes allocated by an operation, NaN if the JVM can't tell (double)
+         */
+        public double bytesPerOp() {
+            return bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-45s %12.1f ns/op %12.1f B/op", name, nsPerOp, bytesPerOp);
+        }
+    }
+
+    /**
+     * Measure the given operation and print the result.
+     *
+     * @param name      the name of the operation
+     * @param operation the operation, its result is consumed
+     * @return the measures (Result)
+     */
+    public static Result run(String name, LongSupplier operation) {
+        //Warm up, and estimate the amount of operations of a batch
+        long operations = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < WARMUP_NS) {
+            sink += operation.getAsLong();
+            ++operations;
+        }
+        long batchSize = Math.max(1, operations * MEASURE_NS / Math.max(1, System.nanoTime() - start));
+
+        double[] times = new double[BATCHES];
+        long allocatedBefore = allocatedBytes();
+        for (int b = 0; b < BATCHES; ++b) {
+            long t0 = System.nanoTime();
+            for (long i = 0; i < batchSize; ++i)
+                sink += operation.getAsLong();
+            times[b] = (double) (System.nanoTime() - t0) / batchSize;
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+        Arrays.sort(times);
+
+        Result result = new Result(name, times[BATCHES / 2],
+                (allocatedBefore < 0) ? Double.NaN : (double) allocated / (batchSize * BATCHES));
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * The value accumulated from the results of the operations (print it to be sure nothing was optimized away).
+     *
+     * @return the accumulated value (long)
+     */
+    public static long sink() {
+        return sink;
+    }
+
+    //Bytes allocated by the current thread so far, -1 if the JVM doesn't support it
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported())
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
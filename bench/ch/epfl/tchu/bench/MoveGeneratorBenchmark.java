@@ -0,0 +1,84 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare the enumeration of the legal moves of the current player by the MoveGenerator with the enumeration
+ * from the methods of PlayerState and a scan of the routes for the double routes (as the GUI does),
+ * from states in the middle of games, and print the moves enumerated per second.
+ * Usage: MoveGeneratorBenchmark
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class MoveGeneratorBenchmark {
+    private static final int SAMPLES = 16;
+
+    private MoveGeneratorBenchmark() {}
+
+    public static void main(String[] args) {
+        //States in the middle of games
+        Random rng = new Random(2021);
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        List<GameState> states = new ArrayList<>();
+        List<MutableGameState> mutableStates = new ArrayList<>();
+        int totalMoves = 0;
+        while (states.size() < SAMPLES) {
+            GameState state = GameState.initial(SortedBag.of(ChMap.tickets()), rng);
+            for (int turn = 0; turn < 40; ++turn) {
+                int count = generator.generate(state, moves);
+                int move = moves[rng.nextInt(count)];
+                if (MoveGenerator.kind(move) == MoveGenerator.CLAIM_ROUTE)
+                    state = state.withClaimedRoute(MoveGenerator.route(move), MoveGenerator.claimCards(move));
+                else if (state.canDrawCards())
+                    state = state.withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard();
+                state = state.forNextTurn();
+            }
+            states.add(state);
+            mutableStates.add(MutableGameState.of(state));
+            totalMoves += generator.generate(state, moves);
+        }
+        double movesPerState = (double) totalMoves / SAMPLES;
+        System.out.printf("%.1f legal moves per state%n", movesPerState);
+
+        int[] index = new int[1];
+        List<Microbench.Result> results = List.of(
+                Microbench.run("PlayerState methods + route scan", () -> naiveMoveCount(states.get(next(index)))),
+                Microbench.run("MoveGenerator on GameState", () -> generator.generate(states.get(next(index)), moves)),
+                Microbench.run("MoveGenerator on MutableGameState", () -> generator.generate(mutableStates.get(next(index)), moves)));
+        System.out.println("== moves per second");
+        for (Microbench.Result result : results)
+            System.out.printf("%-45s %10.1f M moves/s%n", result.name(), movesPerState * 1e3 / result.nsPerOp());
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+
+    //The amount of legal moves, from the methods of the states, the other route of a double route found by a scan
+    private static int naiveMoveCount(GameState state) {
+        int count = (state.canDrawTickets() ? 1 : 0) + (state.canDrawCards() ? Constants.FACE_UP_CARDS_COUNT + 1 : 0);
+        List<Route> claimed = new ArrayList<>(state.playerState(PlayerId.PLAYER_1).routes());
+        claimed.addAll(state.playerState(PlayerId.PLAYER_2).routes());
+        PlayerState player = state.currentPlayerState();
+        for (Route route : ChMap.routes()) {
+            Route neighbor = null;
+            for (Route r : ChMap.routes()) {
+                if (r != route && r.stations().equals(route.stations()))
+                    neighbor = r;
+            }
+            if (!claimed.contains(route) && !claimed.contains(neighbor) && player.canClaimRoute(route))
+                count += player.possibleClaimCards(route).size();
+        }
+        return count;
+    }
+
+    //Next sample index
+    private static int next(int[] index) {
+        index[0] = (index[0] + 1) % SAMPLES;
+        return index[0];
+    }
+}
@@ -0,0 +1,76 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.net.RemotePlayerClient;
+import ch.epfl.tchu.net.RemotePlayerProxy;
+import ch.epfl.tchu.net.WireFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Play games between a local scripted player and a remote one, connected over the loopback through a
+ * RemotePlayerProxy and a RemotePlayerClient, and print the messages sent by the proxy, its writes on the socket
+ * (before the notifications were batched, each message was a write) and the time per game, for each format.
+ * Usage: PipelineBenchmark [games]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class PipelineBenchmark {
+    private PipelineBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int gameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+        for (WireFormat format : WireFormat.ALL) {
+            //the first games are the warm-up
+            play(format, Math.max(1, gameCount / 5));
+            long[] counts = new long[2];
+            long start = System.nanoTime();
+            for (int i = 0; i < gameCount; ++i) {
+                long[] game = play(format, i);
+                counts[0] += game[0];
+                counts[1] += game[1];
+            }
+            double elapsed = System.nanoTime() - start;
+            System.out.printf("%-16s messages=%.0f/game writes=%.0f/game (%.1f messages/write) %.1f ms/game%n",
+                    format, (double) counts[0] / gameCount, (double) counts[1] / gameCount,
+                    (double) counts[0] / counts[1], elapsed / gameCount / 1e6);
+        }
+    }
+
+    //Play a game over the loopback, returning the messages sent by the proxy and its writes
+    private static long[] play(WireFormat format, long seed) throws Exception {
+        Map<PlayerId, String> names = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+        ScriptedPlayer.TurnClock clock = new ScriptedPlayer.TurnClock(latency -> {});
+        try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread client = new Thread(() -> {
+                try {
+                    new RemotePlayerClient(new ScriptedPlayer(2 * seed + 1, clock), "localhost",
+                            gameServer.getLocalPort(), chatServer.getLocalPort(), "Charles", format).runGame();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            client.start();
+            try (Socket gameSocket = gameServer.accept(); Socket chatSocket = chatServer.accept()) {
+                RemotePlayerProxy proxy = new RemotePlayerProxy(gameSocket, chatSocket);
+                proxy.receivePlayerName();
+                Map<PlayerId, Player> players = Map.of(
+                        PlayerId.PLAYER_1, new ScriptedPlayer(2 * seed, clock),
+                        PlayerId.PLAYER_2, proxy);
+                new GameSession(players, names, SortedBag.of(ChMap.tickets()), new Random(seed)).play();
+                proxy.gameChannel().close();
+                client.join();
+                return new long[]{proxy.gameChannel().messages(), proxy.gameChannel().flushes()};
+            }
+        }
+    }
+}
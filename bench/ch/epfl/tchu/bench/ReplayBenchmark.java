@@ -0,0 +1,94 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.replay.GameArchive;
+import ch.epfl.tchu.replay.GameRecord;
+import ch.epfl.tchu.replay.GameReplayer;
+import ch.epfl.tchu.replay.RecordingPlayer;
+import ch.epfl.tchu.sim.GreedyBot;
+import ch.epfl.tchu.sim.RandomBot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Record games between a greedy and a random bot, then time their replay (on the mutable state only, up to the
+ * final GameState, and with every GameState rebuilt) and the scan of an archive of these records,
+ * and print the size of the records and the games per second.
+ * Usage: ReplayBenchmark [games]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class ReplayBenchmark {
+    private static final Map<PlayerId, String> PLAYER_NAMES = Map.of(
+            PlayerId.PLAYER_1, "Bot 1",
+            PlayerId.PLAYER_2, "Bot 2");
+
+    private ReplayBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000;
+
+        List<GameRecord> records = new ArrayList<>();
+        long bytes = 0;
+        for (long seed = 0; seed < games; ++seed) {
+            Map<PlayerId, Player> players = Map.of(
+                    PlayerId.PLAYER_1, new GreedyBot(seed + 1),
+                    PlayerId.PLAYER_2, new RandomBot(seed + 2));
+            GameRecord record = RecordingPlayer.record(players, PLAYER_NAMES, seed, false);
+            records.add(record);
+            bytes += record.size();
+        }
+        System.out.printf("%d games recorded, %.1f bytes of decisions per game%n", games, (double) bytes / games);
+
+        int[] next = new int[1];
+        Microbench.Result replayMutable = Microbench.run("GameReplayer.replayMutable", () -> {
+            GameRecord record = records.get(next[0]++ % records.size());
+            return GameReplayer.replayMutable(record, state -> {}).ticketsCount();
+        });
+        Microbench.Result replay = Microbench.run("GameReplayer.replay (final GameState)", () -> {
+            GameRecord record = records.get(next[0]++ % records.size());
+            return GameReplayer.replay(record).ticketsCount();
+        });
+        Microbench.Result replayAll = Microbench.run("GameReplayer.replay (every GameState)", () -> {
+            GameRecord record = records.get(next[0]++ % records.size());
+            long[] states = new long[1];
+            GameReplayer.replay(record, state -> ++states[0]);
+            return states[0];
+        });
+        System.out.printf("replay: %.0f games/s (mutable), %.0f games/s (final GameState), %.0f games/s (every GameState)%n",
+                1e9 / replayMutable.nsPerOp(), 1e9 / replay.nsPerOp(), 1e9 / replayAll.nsPerOp());
+
+        Path path = Files.createTempFile("tchu", ".games");
+        try {
+            try (GameArchive.Writer writer = GameArchive.append(path)) {
+                for (GameRecord record : records)
+                    writer.append(record);
+            }
+            Microbench.Result scan = Microbench.run("GameArchive.forEach (" + games + " records)",
+                    () -> scan(path));
+            System.out.printf("archive scan: %.1f M records/s (%d bytes)%n", games * 1e3 / scan.nsPerOp(), Files.size(path));
+        } finally {
+            Files.delete(path);
+        }
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+
+    //The sum of the seeds of the records of the archive
+    private static long scan(Path path) {
+        long[] seeds = new long[1];
+        try {
+            GameArchive.forEach(path, record -> seeds[0] += record.seed());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return seeds[0];
+    }
+}
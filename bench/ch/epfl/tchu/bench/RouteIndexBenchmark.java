@@ -0,0 +1,42 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.game.*;
+
+import java.util.List;
+
+/**
+ * Time the lookup of the neighbor of every route, as done on each state update of the GUI:
+ * by a scan of the routes of ChMap (as ObservableGameState used to do) and by the RouteIndex.
+ * Usage: RouteIndexBenchmark
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class RouteIndexBenchmark {
+    private RouteIndexBenchmark() {}
+
+    public static void main(String[] args) {
+        List<Route> routes = ChMap.routes();
+        Microbench.run("neighbors of all routes, scan", () -> {
+            int found = 0;
+            for (Route route : routes) {
+                for (Route r : routes) {
+                    if (r.station1() == route.station1() && r.station2() == route.station2() && r != route) {
+                        ++found;
+                        break;
+                    }
+                }
+            }
+            return found;
+        });
+        Microbench.run("neighbors of all routes, RouteIndex", () -> {
+            int found = 0;
+            for (Route route : routes) {
+                if (RouteIndex.neighbor(route) != null)
+                    ++found;
+            }
+            return found;
+        });
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+}
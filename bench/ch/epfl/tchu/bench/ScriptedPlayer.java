@@ -0,0 +1,158 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/**
+ * In process player playing simple but legal moves, used to drive the engine without any GUI or socket.
+ * It claims the first route it can afford, else draws cards.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class ScriptedPlayer implements Player {
+    //Safety net against a game that never ends
+    private static final int TURN_LIMIT = 1_000;
+
+    private final Random rng;
+    //Receives the time elapsed between two turns of the session (in ns)
+    private final TurnClock clock;
+
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+    private int turnCount;
+
+    //Decision taken in nextTurn, used by the next calls
+    private Route routeToClaim;
+    private SortedBag<Card> claimCards;
+
+    /**
+     * Create a scripted player.
+     *
+     * @param seed  the seed of its random decisions
+     * @param clock the clock shared by the two players of a session
+     */
+    public ScriptedPlayer(long seed, TurnClock clock) {
+        this.rng = new Random(seed);
+        this.clock = clock;
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {}
+
+    @Override
+    public void receiveChat(String chat) {}
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        initialTickets = tickets;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return SortedBag.of(initialTickets.toList().subList(0, Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT));
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        clock.tick();
+        if (++turnCount > TURN_LIMIT)
+            throw new Error("Too many turns played");
+
+        List<Route> claimed = gameState.claimedRoutes();
+        List<Route> claimable = new ArrayList<>();
+        for (Route r : ChMap.routes()) {
+            if (!claimed.contains(r) && !neighborClaimed(r, claimed) && ownState.canClaimRoute(r))
+                claimable.add(r);
+        }
+
+        if (!claimable.isEmpty()) {
+            routeToClaim = claimable.get(rng.nextInt(claimable.size()));
+            claimCards = ownState.possibleClaimCards(routeToClaim).get(0);
+            return TurnKind.CLAIM_ROUTE;
+        }
+        return (!gameState.canDrawCards() && gameState.canDrawTickets())
+                ? TurnKind.DRAW_TICKETS
+                : TurnKind.DRAW_CARDS;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return SortedBag.of(options.get(0));
+    }
+
+    @Override
+    public int drawSlot() {
+        return rng.nextInt(Constants.FACE_UP_CARDS_COUNT + 1) - 1;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return routeToClaim;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return claimCards;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return options.get(0);
+    }
+
+    @Override
+    public String receivePlayerName() {
+        return null;
+    }
+
+    //true iff the other route between the same stations has already been claimed
+    private static boolean neighborClaimed(Route route, List<Route> claimed) {
+        for (Route r : claimed) {
+            if (r.station1() == route.station1() && r.station2() == route.station2())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Clock shared by the two players of a session, measuring the time elapsed between two consecutive turns.
+     */
+    public static final class TurnClock {
+        private final LongConsumer latencies;
+        private long lastTurn = -1;
+
+        /**
+         * Create a clock.
+         *
+         * @param latencies receives each measured turn latency (in ns)
+         */
+        public TurnClock(LongConsumer latencies) {
+            this.latencies = latencies;
+        }
+
+        //called at the beginning of each turn
+        private void tick() {
+            long now = System.nanoTime();
+            if (lastTurn >= 0)
+                latencies.accept(now - lastTurn);
+            lastTurn = now;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.GameSession;
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.net.NioEventLoop;
+import ch.epfl.tchu.net.SpectatorBroadcast;
+import ch.epfl.tchu.sim.RandomBot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Play games between random bots watched by a growing amount of remote spectators, connected over the loopback,
+ * and print the time per game: the events are serialized once, whatever the amount of spectators.
+ * Usage: SpectatorBenchmark [games]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class SpectatorBenchmark {
+    private SpectatorBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int gameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+        for (int spectatorCount : new int[]{0, 0, 1, 10, 100}) {
+            try (NioEventLoop loop = new NioEventLoop();
+                 ServerSocketChannel server = ServerSocketChannel.open()) {
+                server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                //bots play much faster than humans: the spectators are not dropped, to measure the whole fan-out
+                SpectatorBroadcast broadcast = new SpectatorBroadcast(loop, Integer.MAX_VALUE);
+                for (int i = 0; i < spectatorCount; ++i) {
+                    Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+                    broadcast.add(server.accept());
+                    startReading(client);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < gameCount; ++i) {
+                    GameSession session = new GameSession(
+                            Map.of(PlayerId.PLAYER_1, new RandomBot(2L * i), PlayerId.PLAYER_2, new RandomBot(2L * i + 1)),
+                            Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles"),
+                            SortedBag.of(ChMap.tickets()), new Random(i));
+                    if (spectatorCount > 0)
+                        session.addSpectator(broadcast);
+                    session.play();
+                }
+                double elapsed = System.nanoTime() - start;
+                System.out.printf("spectators=%-4d %.2f ms/game dropped=%d%n",
+                        spectatorCount, elapsed / gameCount / 1e6, broadcast.droppedSpectators());
+            }
+        }
+    }
+
+    //Read and discard what a spectator receives, on a daemon thread
+    private static void startReading(Socket client) {
+        Thread reader = new Thread(() -> {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = client.getInputStream()) {
+                while (in.read(buffer) >= 0) {
+                    //discard
+                }
+            } catch (IOException e) {
+                if (!client.isClosed())
+                    throw new UncheckedIOException(e);
+            }
+        }, "spectator");
+        reader.setDaemon(true);
+        reader.start();
+    }
+}
@@ -0,0 +1,65 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Time StationPartition.Builder on maps with thousands of stations (a line of stations, connected in order,
+ * and random connections), and the ticket points of a player owning many routes of such a map.
+ * Usage: StationPartitionBenchmark [stationCount]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class StationPartitionBenchmark {
+    private static final int TICKETS = 20;
+
+    private StationPartitionBenchmark() {}
+
+    public static void main(String[] args) {
+        int stationCount = (args.length > 0) ? Integer.parseInt(args[0]) : 4_000;
+        Random rng = new Random(2021);
+        List<Station> stations = new ArrayList<>();
+        for (int s = 0; s < stationCount; ++s)
+            stations.add(new Station(s, "S" + s));
+
+        //The line: each station connected to the next one
+        Microbench.run("Builder, line of " + stationCount + " stations", () -> {
+            StationPartition.Builder builder = new StationPartition.Builder(stationCount);
+            for (int s = 0; s + 1 < stationCount; ++s)
+                builder.connect(stations.get(s), stations.get(s + 1));
+            return builder.build().connected(stations.get(0), stations.get(stationCount - 1)) ? 1 : 0;
+        });
+
+        //As many random connections as stations
+        int[] randomPairs = new int[2 * stationCount];
+        for (int i = 0; i < randomPairs.length; ++i)
+            randomPairs[i] = rng.nextInt(stationCount);
+        Microbench.run("Builder, " + stationCount + " random connections", () -> {
+            StationPartition.Builder builder = new StationPartition.Builder(stationCount);
+            for (int i = 0; i < randomPairs.length; i += 2)
+                builder.connect(stations.get(randomPairs[i]), stations.get(randomPairs[i + 1]));
+            return builder.build().connected(stations.get(0), stations.get(1)) ? 1 : 0;
+        });
+
+        //A player owning a route between each station and the next one, with random tickets
+        SortedBag.Builder<Ticket> tickets = new SortedBag.Builder<>();
+        for (int t = 0; t < TICKETS; ++t) {
+            int from = rng.nextInt(stationCount - 1);
+            tickets.add(new Ticket(stations.get(from), stations.get(from + 1 + rng.nextInt(stationCount - from - 1)), 10));
+        }
+        PlayerState player = new PlayerState(tickets.build(), SortedBag.of(), List.of());
+        for (int s = 0; s + 1 < stationCount; ++s)
+            player = player.withClaimedRoute(new Route("R" + s, stations.get(s), stations.get(s + 1), 1, Route.Level.OVERGROUND, null), SortedBag.of());
+        PlayerState finalPlayer = player;
+        Microbench.run("PlayerState.ticketPoints, " + (stationCount - 1) + " routes", finalPlayer::ticketPoints);
+        Route lastRoute = new Route("R", stations.get(0), stations.get(stationCount - 1), 1, Route.Level.OVERGROUND, null);
+        Microbench.run("PlayerState.withClaimedRoute, " + (stationCount - 1) + " routes",
+                () -> finalPlayer.withClaimedRoute(lastRoute, SortedBag.of()).routes().size());
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+}
@@ -0,0 +1,64 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compare the recursive enumeration of the sub-multisets of a SortedBag (through difference, union and a HashSet,
+ * as SortedBag.subsetsOfSize used to do) with the iterative one, from the bags of the game to large bags,
+ * then time PlayerState.possibleAdditionalCards which uses it on every tunnel.
+ * Usage: SubsetsBenchmark
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class SubsetsBenchmark {
+    private SubsetsBenchmark() {}
+
+    public static void main(String[] args) {
+        SortedBag<Card> tunnel = SortedBag.of(4, Card.RED, 5, Card.LOCOMOTIVE);
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets().subList(0, Constants.INITIAL_TICKETS_COUNT));
+        SortedBag.Builder<Card> largeBuilder = new SortedBag.Builder<>();
+        for (Card card : Card.ALL.subList(0, 6))
+            largeBuilder.add(4, card);
+        SortedBag<Card> large = largeBuilder.build();
+
+        compare("tunnel options (4 red, 5 locomotives), size 3", tunnel, 3);
+        compare("initial tickets (5 tickets), size 3", tickets, 3);
+        compare("large bag (6 kinds x 4), size 5", large, 5);
+
+        PlayerState player = new PlayerState(SortedBag.of(), SortedBag.of(5, Card.RED, 5, Card.LOCOMOTIVE), List.of());
+        SortedBag<Card> initialCards = SortedBag.of(2, Card.RED);
+        SortedBag<Card> drawnCards = SortedBag.of(2, Card.RED, 1, Card.LOCOMOTIVE);
+        Microbench.run("PlayerState.possibleAdditionalCards (3 cards)",
+                () -> player.possibleAdditionalCards(3, initialCards, drawnCards).size());
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+
+    private static <E extends Comparable<E>> void compare(String name, SortedBag<E> bag, int size) {
+        System.out.println("== " + name + ": " + bag.subsetsOfSize(size).size() + " subsets");
+        Microbench.run("recursive", () -> recursiveSubsets(bag, size).size());
+        Microbench.run("iterative", () -> {
+            int count = 0;
+            for (var iterator = bag.subsetsOfSizeIterator(size); iterator.hasNext(); iterator.next())
+                ++count;
+            return count;
+        });
+    }
+
+    //The previous implementation of SortedBag.subsetsOfSize
+    private static <E extends Comparable<E>> Set<SortedBag<E>> recursiveSubsets(SortedBag<E> bag, int size) {
+        if (size == 0)
+            return Set.of(SortedBag.of());
+        Set<SortedBag<E>> result = new HashSet<>();
+        for (E e1 : bag.toSet()) {
+            SortedBag<E> s1 = SortedBag.of(e1);
+            recursiveSubsets(bag.difference(s1), size - 1).forEach(e -> result.add(s1.union(e)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Time Trail.longest on random subsets of the routes of ChMap, from the routes of a player at the end of a game
+ * to a large part of the map, and on random dense maps (many routes between few stations).
+ * The search is deeply recursive and slow to be compiled by the JIT: use a long warm up (-Dbench.warmupMs=6000).
+ * Usage: TrailBenchmark [maxChMapRoutes [denseStations denseRoutes]]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class TrailBenchmark {
+    private static final int SAMPLES = 16;
+
+    private TrailBenchmark() {}
+
+    public static void main(String[] args) {
+        int maxChMapRoutes = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+        int denseStations = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int denseRoutes = (args.length > 2) ? Integer.parseInt(args[2]) : 24;
+        Random rng = new Random(2021);
+        int[] index = new int[1];
+
+        for (int routeCount = 10; routeCount <= maxChMapRoutes; routeCount += 10) {
+            List<List<Route>> subsets = new ArrayList<>();
+            for (int i = 0; i < SAMPLES; ++i)
+                subsets.add(randomSubset(rng, ChMap.routes(), routeCount));
+            Microbench.run("Trail.longest (" + routeCount + " routes of ChMap)",
+                    () -> Trail.longest(subsets.get(next(index))).length());
+        }
+
+        List<List<Route>> denseMaps = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; ++i)
+            denseMaps.add(denseMap(rng, denseStations, denseRoutes));
+        Microbench.run("Trail.longest (" + denseStations + " stations, " + denseRoutes + " routes)",
+                () -> Trail.longest(denseMaps.get(next(index))).length());
+        System.out.println("(sink " + Microbench.sink() + ")");
+    }
+
+    //Next sample index
+    private static int next(int[] index) {
+        index[0] = (index[0] + 1) % SAMPLES;
+        return index[0];
+    }
+
+    //Random routes of the given ones
+    private static List<Route> randomSubset(Random rng, List<Route> routes, int count) {
+        List<Route> subset = new ArrayList<>(routes);
+        Collections.shuffle(subset, rng);
+        return List.copyOf(subset.subList(0, count));
+    }
+
+    //Random map with the given amount of stations and routes, of length 1 to 6
+    private static List<Route> denseMap(Random rng, int stationCount, int routeCount) {
+        List<Station> stations = new ArrayList<>();
+        for (int s = 0; s < stationCount; ++s)
+            stations.add(new Station(s, "S" + s));
+        List<Route> routes = new ArrayList<>();
+        while (routes.size() < routeCount) {
+            int s1 = rng.nextInt(stationCount), s2 = rng.nextInt(stationCount);
+            if (s1 != s2)
+                routes.add(new Route("R" + routes.size(), stations.get(s1), stations.get(s2),
+                        1 + rng.nextInt(6), Route.Level.OVERGROUND, null));
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,286 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.net.*;
+
+import java.util.*;
+
+/**
+ * Compare the text protocol (Serdes) with the binary one (BinarySerdes):
+ * bytes sent per game in both directions, and time to encode and decode an UPDATE_STATE message.
+ * Also compare the size of the UPDATE_STATE messages sent as full states and as deltas (BINARY_DELTA).
+ * Usage: WireFormatBenchmark [games] [iterations]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class WireFormatBenchmark {
+    private WireFormatBenchmark() {}
+
+    public static void main(String[] args) {
+        int gameCount = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+        Map<PlayerId, String> names = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+        ScriptedPlayer.TurnClock clock = new ScriptedPlayer.TurnClock(latency -> {});
+
+        //Play the games, measuring what would have been sent to each player
+        ByteCounter counter = new ByteCounter();
+        for (int i = 0; i < gameCount; ++i) {
+            MeasuredPlayer player1 = new MeasuredPlayer(new ScriptedPlayer(2L * i, clock), counter);
+            MeasuredPlayer player2 = new MeasuredPlayer(new ScriptedPlayer(2L * i + 1, clock), counter);
+            Map<PlayerId, Player> players = Map.of(PlayerId.PLAYER_1, player1, PlayerId.PLAYER_2, player2);
+            new GameSession(players, names, tickets, new Random(i)).play();
+            player1.endGame();
+            player2.endGame();
+        }
+        System.out.printf("games=%d messages=%d%n", gameCount, counter.messages);
+        System.out.printf("text:   %.0f bytes/game%n", (double) counter.textBytes / gameCount);
+        System.out.printf("binary: %.0f bytes/game (%.1f%% of text)%n",
+                (double) counter.binaryBytes / gameCount, 100.0 * counter.binaryBytes / counter.textBytes);
+        System.out.printf("binary with deltas: %.0f bytes/game%n",
+                (double) (counter.binaryBytes - counter.fullUpdateBytes + counter.deltaUpdateBytes) / gameCount);
+        System.out.printf("UPDATE_STATE full:  %.1f bytes/msg, last quarter of the game %.1f bytes/msg%n",
+                (double) counter.fullUpdateBytes / counter.states.size(), counter.lateFull.average());
+        System.out.printf("UPDATE_STATE delta: %.1f bytes/msg, last quarter of the game %.1f bytes/msg%n",
+                (double) counter.deltaUpdateBytes / counter.states.size(), counter.lateDelta.average());
+
+        //Encode and decode the UPDATE_STATE messages of the games
+        List<PublicGameState> states = counter.states;
+        List<PlayerState> ownStates = counter.ownStates;
+        long sink = 0;
+        long textEncode = 0, textDecode = 0, binaryEncode = 0, binaryDecode = 0;
+        BinaryWriter writer = new BinaryWriter();
+        for (int it = 0; it < iterations; ++it) {
+            for (int i = 0; i < states.size(); ++i) {
+                long t0 = System.nanoTime();
+                String gameText = Serdes.PUBLIC_GAME_STATE_SERDE.serialize(states.get(i));
+                String ownText = Serdes.PLAYER_STATE_SERDE.serialize(ownStates.get(i));
+                long t1 = System.nanoTime();
+                sink += Serdes.PUBLIC_GAME_STATE_SERDE.deserialize(gameText).ticketsCount();
+                sink += Serdes.PLAYER_STATE_SERDE.deserialize(ownText).ticketCount();
+                long t2 = System.nanoTime();
+                byte[] bytes = writer.reset()
+                        .write(BinarySerdes.PUBLIC_GAME_STATE_SERDE, states.get(i))
+                        .write(BinarySerdes.PLAYER_STATE_SERDE, ownStates.get(i))
+                        .toByteArray();
+                long t3 = System.nanoTime();
+                BinaryReader reader = new BinaryReader(bytes);
+                sink += reader.read(BinarySerdes.PUBLIC_GAME_STATE_SERDE).ticketsCount();
+                sink += reader.read(BinarySerdes.PLAYER_STATE_SERDE).ticketCount();
+                long t4 = System.nanoTime();
+                //the first iteration is the warm-up
+                if (it > 0) {
+                    textEncode += t1 - t0;
+                    textDecode += t2 - t1;
+                    binaryEncode += t3 - t2;
+                    binaryDecode += t4 - t3;
+                }
+            }
+        }
+        double measured = (double) states.size() * (iterations - 1);
+        System.out.printf("UPDATE_STATE text:   encode=%.0fns/msg decode=%.0fns/msg%n",
+                textEncode / measured, textDecode / measured);
+        System.out.printf("UPDATE_STATE binary: encode=%.0fns/msg decode=%.0fns/msg%n",
+                binaryEncode / measured, binaryDecode / measured);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    //Sizes of the messages in both formats, and the UPDATE_STATE messages seen
+    private static final class ByteCounter {
+        private final BinaryWriter writer = new BinaryWriter();
+        private final List<PublicGameState> states = new ArrayList<>();
+        private final List<PlayerState> ownStates = new ArrayList<>();
+        private long messages;
+        private long textBytes;
+        private long binaryBytes;
+        //UPDATE_STATE content only, as full states and as deltas
+        private long fullUpdateBytes;
+        private long deltaUpdateBytes;
+        private final Average lateFull = new Average();
+        private final Average lateDelta = new Average();
+
+        //count a message given its serialized text arguments, and its binary content (without the id)
+        private void count(MessageId id, BinaryWriter binary, String... textArgs) {
+            ++messages;
+            //"ID arg1 arg2\n"
+            long text = id.name().length() + 1;
+            for (String arg : textArgs)
+                text += arg.length() + 1;
+            textBytes += text;
+            //varint length, id, content
+            int content = 1 + binary.size();
+            binaryBytes += content + ((content < 128) ? 1 : (content < 16384) ? 2 : 3);
+        }
+
+        //count an answer of the client
+        private void countAnswer(String text, BinaryWriter binary) {
+            textBytes += text.length() + 1;
+            int content = binary.size();
+            binaryBytes += content + ((content < 128) ? 1 : (content < 16384) ? 2 : 3);
+        }
+
+        private BinaryWriter binary() {
+            return writer.reset();
+        }
+    }
+
+    //Average of some sizes
+    private static final class Average {
+        private long sum;
+        private long count;
+
+        private void add(long value) {
+            sum += value;
+            ++count;
+        }
+
+        private double average() {
+            return (double) sum / count;
+        }
+    }
+
+    //Decorator measuring what a RemotePlayerProxy would send and receive for the given player
+    private static final class MeasuredPlayer implements Player {
+        private final Player player;
+        private final ByteCounter counter;
+        private StateDeltaEncoder deltaEncoder;
+        private final BinaryWriter deltaWriter = new BinaryWriter();
+        //sizes of the UPDATE_STATE messages of the game, full and delta
+        private final List<int[]> updateSizes = new ArrayList<>();
+
+        private MeasuredPlayer(Player player, ByteCounter counter) {
+            this.player = player;
+            this.counter = counter;
+        }
+
+        @Override
+        public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+            List<String> list = List.of(playerNames.get(PlayerId.PLAYER_1), playerNames.get(PlayerId.PLAYER_2));
+            counter.count(MessageId.INIT_PLAYERS,
+                    counter.binary().write(BinarySerdes.PLAYER_ID_SERDE, ownId).write(BinarySerdes.LIST_STRING_SERDE, list),
+                    Serdes.PLAYER_ID_SERDE.serialize(ownId), Serdes.LIST_STRING_SERDE.serialize(list));
+            deltaEncoder = new StateDeltaEncoder(ownId);
+            player.initPlayers(ownId, playerNames);
+        }
+
+        @Override
+        public void receiveChat(String chat) {
+            player.receiveChat(chat);
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            counter.count(MessageId.RECEIVE_INFO,
+                    counter.binary().write(BinarySerdes.STRING_SERDE, info),
+                    Serdes.STRING_SERDE.serialize(info));
+            player.receiveInfo(info);
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            counter.count(MessageId.UPDATE_STATE,
+                    counter.binary().write(BinarySerdes.PUBLIC_GAME_STATE_SERDE, newState)
+                            .write(BinarySerdes.PLAYER_STATE_SERDE, ownState),
+                    Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState), Serdes.PLAYER_STATE_SERDE.serialize(ownState));
+            int full = counter.writer.size();
+            deltaEncoder.write(newState, ownState, deltaWriter.reset());
+            counter.fullUpdateBytes += full;
+            counter.deltaUpdateBytes += deltaWriter.size();
+            updateSizes.add(new int[]{full, deltaWriter.size()});
+            counter.states.add(newState);
+            counter.ownStates.add(ownState);
+            player.updateState(newState, ownState);
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            counter.count(MessageId.SET_INITIAL_TICKETS,
+                    counter.binary().write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, tickets),
+                    Serdes.SORTED_BAG_TICKETS_SERDE.serialize(tickets));
+            player.setInitialTicketChoice(tickets);
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseInitialTickets() {
+            counter.count(MessageId.CHOOSE_INITIAL_TICKETS, counter.binary());
+            SortedBag<Ticket> answer = player.chooseInitialTickets();
+            counter.countAnswer(Serdes.SORTED_BAG_TICKETS_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public TurnKind nextTurn() {
+            counter.count(MessageId.NEXT_TURN, counter.binary());
+            TurnKind answer = player.nextTurn();
+            counter.countAnswer(Serdes.TURN_KIND_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.TURN_KIND_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+            counter.count(MessageId.CHOOSE_TICKETS,
+                    counter.binary().write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, options),
+                    Serdes.SORTED_BAG_TICKETS_SERDE.serialize(options));
+            SortedBag<Ticket> answer = player.chooseTickets(options);
+            counter.countAnswer(Serdes.SORTED_BAG_TICKETS_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public int drawSlot() {
+            counter.count(MessageId.DRAW_SLOT, counter.binary());
+            int answer = player.drawSlot();
+            counter.countAnswer(Serdes.INTEGER_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.INTEGER_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public Route claimedRoute() {
+            counter.count(MessageId.ROUTE, counter.binary());
+            Route answer = player.claimedRoute();
+            counter.countAnswer(Serdes.ROUTE_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.ROUTE_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            counter.count(MessageId.CARDS, counter.binary());
+            SortedBag<Card> answer = player.initialClaimCards();
+            counter.countAnswer(Serdes.SORTED_BAG_CARD_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.SORTED_BAG_CARD_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            counter.count(MessageId.CHOOSE_ADDITIONAL_CARDS,
+                    counter.binary().write(BinarySerdes.LIST_SORTED_BAG_CARD_SERDE, options),
+                    Serdes.LIST_SORTED_BAG_CARD_SERDE.serialize(options));
+            SortedBag<Card> answer = player.chooseAdditionalCards(options);
+            counter.countAnswer(Serdes.SORTED_BAG_CARD_SERDE.serialize(answer),
+                    counter.binary().write(BinarySerdes.SORTED_BAG_CARD_SERDE, answer));
+            return answer;
+        }
+
+        @Override
+        public String receivePlayerName() {
+            return player.receivePlayerName();
+        }
+
+        //called at the end of the game, the last quarter of its updates is the late game
+        private void endGame() {
+            for (int[] sizes : updateSizes.subList(updateSizes.size() * 3 / 4, updateSizes.size())) {
+                counter.lateFull.add(sizes[0]);
+                counter.lateDelta.add(sizes[1]);
+            }
+        }
+    }
+}
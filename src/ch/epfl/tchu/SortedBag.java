@@ -2,6 +2,7 @@ package ch.epfl.tchu;
 
 import java.util.*;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Multiensemble trié et immuable.
@@ -173,25 +174,46 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
     /**
      * Retourne tous les sous-ensembles du multiensemble ayant une taille donnée.
      * @param size la taille des sous-ensembles à retourner
-     * @return l'ensemble des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @return l'ensemble des sous-ensembles de <code>this</code> de taille <code>size</code>,
+     * dans l'ordre de {@link #subsetsOfSizeIterator(int)}
      * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
      * la taille du multiensemble
      */
     public Set<SortedBag<E>> subsetsOfSize(int size) {
-        Preconditions.checkArgument(0 <= size && size <= size());
-        if (size == 0)
-            return Set.of(SortedBag.of());
-
-        var result = new HashSet<SortedBag<E>>();
-        for (var e1 : elements.keySet()) {
-            var s1 = SortedBag.of(e1);
-            this.difference(s1)
-                    .subsetsOfSize(size - 1)
-                    .forEach(e -> result.add(s1.union(e)));
-        }
+        var result = new LinkedHashSet<SortedBag<E>>();
+        subsetsOfSizeIterator(size).forEachRemaining(result::add);
         return result;
     }
 
+    /**
+     * Retourne un itérateur sur les sous-ensembles du multiensemble ayant une taille donnée.
+     * Chaque sous-ensemble distinct n'est construit qu'une seule fois, au moment où il est demandé :
+     * les multiplicités sont énumérées de manière itérative, de la plus grande à la plus petite
+     * dans l'ordre lexicographique (les plus petits éléments d'abord).
+     * @param size la taille des sous-ensembles à retourner
+     * @return un itérateur sur les sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Iterator<SortedBag<E>> subsetsOfSizeIterator(int size) {
+        Preconditions.checkArgument(0 <= size && size <= size());
+        return new SubsetIterator<>(elements, size);
+    }
+
+    /**
+     * Retourne un flot des sous-ensembles du multiensemble ayant une taille donnée,
+     * dans l'ordre de {@link #subsetsOfSizeIterator(int)}.
+     * @param size la taille des sous-ensembles à retourner
+     * @return un flot des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et
+     * la taille du multiensemble
+     */
+    public Stream<SortedBag<E>> subsetsOfSizeStream(int size) {
+        var iterator = subsetsOfSizeIterator(size);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
     /**
      * Retourne une liste contenant les éléments du multiensemble, dans l'ordre.
      * @return une liste contenant les éléments de <code>this</code>
@@ -270,6 +292,70 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
         return j.toString();
     }
 
+    // Itérateur sur les sous-ensembles d'une taille donnée : les multiplicités courantes sont décrémentées
+    // comme un compteur, sans jamais construire deux fois le même sous-ensemble.
+    private static final class SubsetIterator<E extends Comparable<E>> implements Iterator<SortedBag<E>> {
+        private final List<E> keys;
+        private final int[] counts;
+        private final int[] multiplicities;
+        private boolean hasNext;
+
+        private SubsetIterator(SortedMap<E, Integer> elements, int size) {
+            keys = new ArrayList<>(elements.keySet());
+            counts = new int[keys.size()];
+            multiplicities = new int[keys.size()];
+            var i = 0;
+            for (var count : elements.values())
+                counts[i++] = count;
+            // Le premier sous-ensemble prend le plus possible des plus petits éléments
+            fill(0, size);
+            hasNext = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public SortedBag<E> next() {
+            if (!hasNext)
+                throw new NoSuchElementException();
+            var subset = new TreeMap<E, Integer>();
+            for (var i = 0; i < keys.size(); ++i) {
+                if (multiplicities[i] > 0)
+                    subset.put(keys.get(i), multiplicities[i]);
+            }
+            hasNext = advance();
+            return new SortedBag<>(subset);
+        }
+
+        // Passe aux multiplicités suivantes : la dernière position i dont un élément peut être déplacé
+        // plus loin perd un élément, et tous les éléments après elle sont redistribués le plus tôt possible.
+        private boolean advance() {
+            var moved = 0;
+            var room = 0;
+            for (var i = keys.size() - 1; i >= 0; --i) {
+                if (multiplicities[i] > 0 && room > 0) {
+                    multiplicities[i] -= 1;
+                    fill(i + 1, moved + 1);
+                    return true;
+                }
+                moved += multiplicities[i];
+                room += counts[i] - multiplicities[i];
+            }
+            return false;
+        }
+
+        // Répartit n éléments à partir de la position from, le plus possible sur les premières
+        private void fill(int from, int n) {
+            for (var i = from; i < keys.size(); ++i) {
+                multiplicities[i] = Math.min(counts[i], n);
+                n -= multiplicities[i];
+            }
+        }
+    }
+
     /**
      * Bâtisseur de multiensemble.
      * @param <E> le type des éléments du multiensemble à bâtir.
@@ -0,0 +1,304 @@
+package ch.epfl.tchu.ai;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.MutableGameState;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Information set Monte Carlo tree search of a decision of a player.
+ * Each iteration plays on a new determinization of the game (the hidden cards and tickets are sampled),
+ * so the tree is shared by all the determinizations and the moves of a node are the ones available
+ * in at least one of them (the statistics of a move count the iterations where it was available).
+ * The search is parallelized at the root: each thread grows its own tree, and the visits of the root
+ * moves are summed at the end.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+final class Mcts {
+    //The exploration constant of UCB1, for rewards between 0 and 1
+    private static final double EXPLORATION = 0.7;
+    //The maximum amount of turns of a rollout, the game is cut after
+    private static final int MAX_ROLLOUT_TURNS = 400;
+
+    /**
+     * A move of the root: it plays the rest of the current turn of the player who decides.
+     */
+    @FunctionalInterface
+    interface RootMove {
+        /**
+         * Play the move on the state.
+         *
+         * @param state the state
+         * @param rng   the random number generator of the decks
+         * @return true iff the game is over after the move (boolean)
+         */
+        boolean play(MutableGameState state, Random rng);
+    }
+
+    /**
+     * The result of a search.
+     */
+    static final class Result {
+        private final int bestMove;
+        private final long iterations;
+
+        private Result(int bestMove, long iterations) {
+            this.bestMove = bestMove;
+            this.iterations = iterations;
+        }
+
+        /**
+         * The index of the root move chosen: the most visited one.
+         *
+         * @return the index of the move (int)
+         */
+        int bestMove() {
+            return bestMove;
+        }
+
+        /**
+         * The amount of iterations (one rollout each) of all the threads.
+         *
+         * @return the amount of iterations (long)
+         */
+        long iterations() {
+            return iterations;
+        }
+    }
+
+    //Vars
+    private final ExecutorService executor;
+    private final int threads;
+    private final long budgetNanos;
+    private final int maxIterations;
+
+    /**
+     * Construct a search.
+     *
+     * @param executor      the executor of the threads, null to search in the calling thread only
+     * @param threads       the amount of trees searched in parallel
+     * @param budgetNanos   the time given to a decision
+     * @param maxIterations the maximum amount of iterations of each thread
+     * @throws IllegalArgumentException if an argument isn't strictly positive,
+     *                                  or if there are many threads but no executor
+     */
+    Mcts(ExecutorService executor, int threads, long budgetNanos, int maxIterations) {
+        Preconditions.checkArgument(threads > 0 && budgetNanos > 0 && maxIterations > 0);
+        Preconditions.checkArgument(executor != null || threads == 1);
+
+        //Init vars
+        this.executor = executor;
+        this.threads = threads;
+        this.budgetNanos = budgetNanos;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Search the best root move of the player.
+     *
+     * @param playerId  the player who decides
+     * @param rootMoves the moves the player can choose from
+     * @param sampler   gives a new determinization of the game before the root moves
+     * @param seed      the seed of the random number generators of the threads
+     * @return the result of the search (Result)
+     * @throws IllegalArgumentException if there is no root move
+     */
+    Result search(PlayerId playerId, List<RootMove> rootMoves,
+                  Function<Random, MutableGameState> sampler, long seed) {
+        Preconditions.checkArgument(!rootMoves.isEmpty());
+        if (rootMoves.size() == 1)
+            return new Result(0, 0);
+
+        long deadline = System.nanoTime() + budgetNanos;
+        List<Tree> trees = new ArrayList<>(threads);
+        for (int t = 0; t < threads; ++t)
+            trees.add(new Tree(playerId, rootMoves, sampler, new Random(seed + t)));
+
+        if (threads == 1) {
+            trees.get(0).grow(deadline, maxIterations);
+        } else {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (Tree tree : trees)
+                futures.add(executor.submit(() -> tree.grow(deadline, maxIterations)));
+            try {
+                for (Future<?> future : futures)
+                    future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        //Sum the visits of the root moves
+        long[] visits = new long[rootMoves.size()];
+        double[] rewards = new double[rootMoves.size()];
+        long iterations = 0;
+        for (Tree tree : trees) {
+            iterations += tree.iterations;
+            for (Node child : tree.root.children) {
+                visits[child.move] += child.visits;
+                rewards[child.move] += child.reward;
+            }
+        }
+        int best = 0;
+        for (int m = 1; m < visits.length; ++m) {
+            if (visits[m] > visits[best] || (visits[m] == visits[best] && rewards[m] > rewards[best]))
+                best = m;
+        }
+        return new Result(best, iterations);
+    }
+
+    //A node of a tree: the statistics of the move played from its parent, for the player who played it
+    private static final class Node {
+        private final Node parent;
+        private final int move;
+        private final PlayerId player;
+        private final List<Node> children = new ArrayList<>(4);
+        private int visits;
+        private int availability;
+        private double reward;
+
+        private Node(Node parent, int move, PlayerId player) {
+            this.parent = parent;
+            this.move = move;
+            this.player = player;
+        }
+
+        private Node child(int move) {
+            for (Node child : children) {
+                if (child.move == move)
+                    return child;
+            }
+            return null;
+        }
+
+        private double ucb() {
+            return reward / visits + EXPLORATION * Math.sqrt(Math.log(availability) / visits);
+        }
+    }
+
+    //The tree of a thread
+    private static final class Tree {
+        private final PlayerId playerId;
+        private final List<RootMove> rootMoves;
+        private final Function<Random, MutableGameState> sampler;
+        private final Random rng;
+        private final Node root = new Node(null, -1, null);
+        //Buffers of the moves
+        private final int[] moves = new int[Moves.MAX_MOVES];
+        private final int[] untried = new int[Moves.MAX_MOVES];
+        private long iterations;
+
+        private Tree(PlayerId playerId, List<RootMove> rootMoves,
+                     Function<Random, MutableGameState> sampler, Random rng) {
+            this.playerId = playerId;
+            this.rootMoves = rootMoves;
+            this.sampler = sampler;
+            this.rng = rng;
+        }
+
+        private void grow(long deadline, int maxIterations) {
+            while (iterations < maxIterations && System.nanoTime() < deadline) {
+                iterate();
+                ++iterations;
+            }
+        }
+
+        //Select a path of the tree on a new determinization, expand one node, play a rollout and back up its result
+        private void iterate() {
+            MutableGameState state = sampler.apply(rng);
+
+            //The root moves are all available in each determinization
+            Node node = root;
+            root.visits++;
+            if (root.children.size() < rootMoves.size()) {
+                node = new Node(root, root.children.size(), playerId);
+                root.children.add(node);
+            } else {
+                node = select(root.children, root.children.size());
+            }
+            for (Node child : root.children)
+                child.availability++;
+            boolean over = rootMoves.get(node.move).play(state, rng);
+
+            boolean expanded = node.visits == 0;
+            while (!over && !expanded) {
+                int count = Moves.legalMoves(state, moves);
+                int untriedCount = 0;
+                for (int i = 0; i < count; ++i) {
+                    Node child = node.child(moves[i]);
+                    if (child == null)
+                        untried[untriedCount++] = moves[i];
+                    else
+                        child.availability++;
+                }
+
+                PlayerId player = state.currentPlayerId();
+                if (untriedCount > 0) {
+                    Node child = new Node(node, untried[rng.nextInt(untriedCount)], player);
+                    child.availability++;
+                    node.children.add(child);
+                    node = child;
+                    expanded = true;
+                } else {
+                    node = selectAvailable(node, count);
+                }
+                over = Moves.playTurn(state, node.move, rng);
+            }
+
+            PlayerId winner = rollout(state, over);
+            for (Node n = node; n != root; n = n.parent) {
+                n.visits++;
+                n.reward += (winner == null) ? 0.5 : (winner == n.player) ? 1 : 0;
+            }
+        }
+
+        //The child with the best UCB1 value among the given ones
+        private Node select(List<Node> children, int count) {
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; ++i) {
+                Node child = children.get(i);
+                double value = child.ucb();
+                if (value > bestValue) {
+                    best = child;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        //The child with the best UCB1 value among the available ones, which are the moves of the buffer
+        private Node selectAvailable(Node node, int count) {
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; ++i) {
+                Node child = node.child(moves[i]);
+                double value = child.ucb();
+                if (value > bestValue) {
+                    best = child;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        //Play the game to the end with the rollout policy, and give the winner
+        private PlayerId rollout(MutableGameState state, boolean over) {
+            for (int turn = 0; !over && turn < MAX_ROLLOUT_TURNS; ++turn)
+                over = Moves.playTurn(state, Moves.rolloutMove(state, moves, rng), rng);
+            return Moves.winner(state);
+        }
+    }
+}
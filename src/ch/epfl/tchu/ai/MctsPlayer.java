@@ -0,0 +1,279 @@
+package ch.epfl.tchu.ai;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Player taking its decisions by a Monte Carlo tree search: each decision is given a time budget,
+ * during which random games are played from the states compatible with what the player knows,
+ * and the decision leading to the most wins is taken.
+ * The searches can use several threads, which are stopped once the player is closed.
+ * The infos and the chat are ignored.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class MctsPlayer implements Player, AutoCloseable {
+    //All the tickets of the game
+    private static final SortedBag<Ticket> ALL_TICKETS = SortedBag.of(ChMap.tickets());
+
+    //The search, its threads (null if it uses the thread of the player) and the random number generator of its seeds
+    private final Mcts mcts;
+    private final ExecutorService executor;
+    private final Random rng;
+
+    //The known state of the game
+    private PlayerId ownId;
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+
+    //Decision taken in nextTurn, used by the next calls
+    private Route routeToClaim;
+    private SortedBag<Card> claimCards;
+    private int firstDrawSlot;
+    private boolean firstDraw;
+
+    //Statistics of the searches
+    private long iterations;
+    private long searchNanos;
+
+    /**
+     * Create a player.
+     *
+     * @param threads       the amount of threads searching each decision
+     * @param budgetMillis  the time given to each decision, in milliseconds
+     * @param maxIterations the maximum amount of random games played by each thread for a decision
+     * @param seed          the seed of the random games
+     * @throws IllegalArgumentException if an argument (except the seed) isn't strictly positive
+     */
+    public MctsPlayer(int threads, long budgetMillis, int maxIterations, long seed) {
+        Preconditions.checkArgument(threads > 0 && budgetMillis > 0 && maxIterations > 0);
+        this.executor = (threads > 1) ? Executors.newFixedThreadPool(threads, MctsPlayer::newSearchThread) : null;
+        this.mcts = new Mcts(executor, threads, TimeUnit.MILLISECONDS.toNanos(budgetMillis), maxIterations);
+        this.rng = new Random(seed);
+    }
+
+    /**
+     * The amount of random games played by the searches so far.
+     *
+     * @return the amount of random games (long)
+     */
+    public long iterations() {
+        return iterations;
+    }
+
+    /**
+     * The time spent searching so far.
+     *
+     * @return the time, in nanoseconds (long)
+     */
+    public long searchNanos() {
+        return searchNanos;
+    }
+
+    /**
+     * Stop the threads of the searches, the player can't take any decision afterwards.
+     */
+    @Override
+    public void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        this.ownId = ownId;
+    }
+
+    @Override
+    public void receiveChat(String chat) {}
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        initialTickets = tickets;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        //The options are on the top of the deck, as in GameSession the other player chooses from the same ones
+        //(at random in the simulations), then the next five tickets are removed
+        List<SortedBag<Ticket>> choices = subsets(initialTickets,
+                Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+        List<Mcts.RootMove> moves = new ArrayList<>(choices.size());
+        for (SortedBag<Ticket> chosen : choices) {
+            moves.add((state, rng) -> {
+                state.chooseInitialTickets(ownId, chosen);
+                state.removeTopTickets(Constants.INITIAL_TICKETS_COUNT);
+                if (state.ticketCount(ownId.next()) == 0) {
+                    state.chooseInitialTickets(ownId.next(), choices.get(rng.nextInt(choices.size())));
+                    state.removeTopTickets(Constants.INITIAL_TICKETS_COUNT);
+                }
+                return false;
+            });
+        }
+        return choices.get(search(moves, initialTickets, ALL_TICKETS.difference(initialTickets)));
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        List<SortedBag<Ticket>> choices = subsets(options, 1);
+        List<Mcts.RootMove> moves = new ArrayList<>(choices.size());
+        for (SortedBag<Ticket> chosen : choices) {
+            moves.add((state, rng) -> {
+                boolean lastTurn = state.lastPlayer() == ownId;
+                state.chooseAdditionalTickets(options, chosen);
+                state.nextTurn();
+                return lastTurn;
+            });
+        }
+        return choices.get(search(moves, options, hiddenTickets().difference(options)));
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        //The moves don't depend on the hidden cards, any determinization gives them
+        MutableGameState sample = MutableGameState.sampled(gameState, ownId, ownState,
+                SortedBag.of(), hiddenTickets(), rng);
+        int[] buffer = new int[Moves.MAX_MOVES];
+        int count = Moves.legalMoves(sample, buffer);
+        List<Mcts.RootMove> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            int move = buffer[i];
+            moves.add((state, rng) -> Moves.playTurn(state, move, rng));
+        }
+        int move = buffer[search(moves, SortedBag.of(), hiddenTickets())];
+
+        if (move < Moves.ROUTES.size()) {
+            routeToClaim = Moves.ROUTES.get(move);
+            claimCards = Moves.claimCards(sample, routeToClaim).toSortedBag();
+            return TurnKind.CLAIM_ROUTE;
+        }
+        if (move == Moves.TICKETS)
+            return TurnKind.DRAW_TICKETS;
+        //Passing is drawing cards when they can't be drawn
+        firstDraw = true;
+        firstDrawSlot = (move == Moves.PASS) ? Constants.DECK_SLOT : Moves.slotOf(sample, move);
+        return TurnKind.DRAW_CARDS;
+    }
+
+    @Override
+    public int drawSlot() {
+        if (firstDraw) {
+            firstDraw = false;
+            return firstDrawSlot;
+        }
+
+        //The second card: a face up card of each kind, or the deck
+        List<Integer> draws = new ArrayList<>();
+        for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+            int move = Moves.DRAW + gameState.cardState().faceUpCard(slot).ordinal();
+            if (!draws.contains(move))
+                draws.add(move);
+        }
+        draws.add(Moves.DECK);
+        List<Mcts.RootMove> moves = new ArrayList<>(draws.size());
+        for (int move : draws) {
+            moves.add((state, rng) -> {
+                boolean lastTurn = state.lastPlayer() == ownId;
+                Moves.drawCard(state, move, rng);
+                state.nextTurn();
+                return lastTurn;
+            });
+        }
+        int move = draws.get(search(moves, SortedBag.of(), hiddenTickets()));
+        if (move == Moves.DECK)
+            return Constants.DECK_SLOT;
+        return gameState.cardState().faceUpCards().indexOf(Card.ALL.get(move - Moves.DRAW));
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return routeToClaim;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return claimCards;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        //Each option, or give up the route (the last move)
+        List<Mcts.RootMove> moves = new ArrayList<>(options.size() + 1);
+        for (SortedBag<Card> option : options) {
+            SortedBag<Card> cards = claimCards.union(option);
+            moves.add((state, rng) -> {
+                boolean lastTurn = state.lastPlayer() == ownId;
+                state.claimRoute(routeToClaim, cards);
+                state.nextTurn();
+                return lastTurn;
+            });
+        }
+        moves.add((state, rng) -> {
+            boolean lastTurn = state.lastPlayer() == ownId;
+            state.nextTurn();
+            return lastTurn;
+        });
+        int move = search(moves, SortedBag.of(), hiddenTickets());
+        return (move < options.size()) ? options.get(move) : SortedBag.of();
+    }
+
+    @Override
+    public String receivePlayerName() {
+        return null;
+    }
+
+    //Search the best root move, on determinizations of the last state received
+    private int search(List<Mcts.RootMove> moves, SortedBag<Ticket> drawnTickets, SortedBag<Ticket> hiddenTickets) {
+        PublicGameState state = gameState;
+        PlayerState player = ownState;
+        Function<Random, MutableGameState> sampler =
+                r -> MutableGameState.sampled(state, ownId, player, drawnTickets, hiddenTickets, r);
+
+        long start = System.nanoTime();
+        Mcts.Result result = mcts.search(ownId, moves, sampler, rng.nextLong());
+        searchNanos += System.nanoTime() - start;
+        iterations += result.iterations();
+        return result.bestMove();
+    }
+
+    //The tickets the player can't see: in the deck or held by the other player
+    private SortedBag<Ticket> hiddenTickets() {
+        return ALL_TICKETS.difference(ownState.tickets());
+    }
+
+    //The subsets of the tickets with at least minCount tickets
+    private static List<SortedBag<Ticket>> subsets(SortedBag<Ticket> tickets, int minCount) {
+        List<SortedBag<Ticket>> subsets = new ArrayList<>();
+        for (int size = minCount; size <= tickets.size(); ++size)
+            tickets.subsetsOfSizeIterator(size).forEachRemaining(subsets::add);
+        return subsets;
+    }
+
+    //Create a daemon thread, so that a search never keeps the JVM alive
+    private static Thread newSearchThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "tchu-mcts");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,272 @@
+package ch.epfl.tchu.ai;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The turns of the search, played on a MutableGameState as GameSession plays them.
+ * A turn is chosen as a single move: claim a route, draw a first card (the second one is chosen by a simple policy),
+ * draw tickets (one is kept) or pass; the other choices of the turn (cards to use, additional cards) are made
+ * by simple rules. A move is an int:
+ * the index of the route in ChMap.routes() to claim it, DRAW + the index of a card to draw a face up card
+ * of this kind, DECK, TICKETS or PASS.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+final class Moves {
+    static final List<Route> ROUTES = ChMap.routes();
+    static final int DRAW = 1_000;
+    static final int DECK = DRAW + Card.COUNT;
+    static final int TICKETS = 2_000;
+    static final int PASS = 3_000;
+    /**
+     * An upper bound of the amount of moves of a turn.
+     */
+    static final int MAX_MOVES = ROUTES.size() + Card.COUNT + 3;
+
+    //The cards, in an array to go through them without an iterator
+    private static final Card[] CARDS = Card.ALL.toArray(new Card[0]);
+    private static final int LOCOMOTIVE = Card.LOCOMOTIVE.ordinal();
+
+    //this class is non instantiable
+    private Moves() {}
+
+    /**
+     * Put the moves the current player can play in the buffer.
+     *
+     * @param state  the state
+     * @param buffer the buffer, of at least MAX_MOVES ints
+     * @return the amount of moves (int)
+     */
+    static int legalMoves(MutableGameState state, int[] buffer) {
+        int count = MoveGenerator.claimableRoutes(state, buffer);
+        if (state.canDrawCards()) {
+            //Only one move per kind of face up card
+            int seen = 0;
+            for (int slot = 0; slot < Constants.FACE_UP_CARDS_COUNT; ++slot) {
+                int card = state.faceUpCard(slot).ordinal();
+                if ((seen & 1 << card) == 0) {
+                    seen |= 1 << card;
+                    buffer[count++] = DRAW + card;
+                }
+            }
+            buffer[count++] = DECK;
+        }
+        if (state.canDrawTickets())
+            buffer[count++] = TICKETS;
+        if (count == 0)
+            buffer[count++] = PASS;
+        return count;
+    }
+
+    /**
+     * Choose the move of a rollout: mostly claim a route (preferring the long ones), else draw cards.
+     *
+     * @param state  the state
+     * @param buffer a buffer of at least MAX_MOVES ints
+     * @param rng    the random number generator
+     * @return the move (int)
+     */
+    static int rolloutMove(MutableGameState state, int[] buffer, Random rng) {
+        int claimable = MoveGenerator.claimableRoutes(state, buffer);
+        boolean canDrawCards = state.canDrawCards();
+        if (claimable > 0 && (!canDrawCards || rng.nextInt(4) != 0)) {
+            int r1 = buffer[rng.nextInt(claimable)];
+            int r2 = buffer[rng.nextInt(claimable)];
+            return (ROUTES.get(r1).length() >= ROUTES.get(r2).length()) ? r1 : r2;
+        }
+        if (canDrawCards) {
+            return rng.nextBoolean()
+                    ? DECK
+                    : DRAW + state.faceUpCard(rng.nextInt(Constants.FACE_UP_CARDS_COUNT)).ordinal();
+        }
+        return state.canDrawTickets() ? TICKETS : PASS;
+    }
+
+    /**
+     * Play a whole turn of the current player, then go to the next turn.
+     *
+     * @param state the state
+     * @param move  the move of the turn
+     * @param rng   the random number generator of the decks
+     * @return true iff it was the last turn of the game (boolean)
+     */
+    static boolean playTurn(MutableGameState state, int move, Random rng) {
+        boolean lastTurn = state.lastPlayer() == state.currentPlayerId();
+        if (move < ROUTES.size()) {
+            claimRoute(state, ROUTES.get(move), rng);
+        } else if (move == TICKETS) {
+            SortedBag<Ticket> drawn = state.topTickets(Math.min(Constants.IN_GAME_TICKETS_COUNT, state.ticketsCount()));
+            state.chooseAdditionalTickets(drawn, SortedBag.of(drawn.get(rng.nextInt(drawn.size()))));
+        } else if (move != PASS) {
+            drawCard(state, move, rng);
+            drawCard(state, secondDraw(state), rng);
+        }
+        state.nextTurn();
+        return lastTurn;
+    }
+
+    /**
+     * Draw a card as GameSession does (the deck is recreated if needed), if cards can be drawn.
+     *
+     * @param state the state
+     * @param move  DECK, or DRAW + a kind of face up card
+     * @param rng   the random number generator of the deck
+     */
+    static void drawCard(MutableGameState state, int move, Random rng) {
+        if (!state.canDrawCards())
+            return;
+        state.recreateDeckIfNeeded(rng);
+        int slot = slotOf(state, move);
+        if (slot == Constants.DECK_SLOT)
+            state.drawBlindCard();
+        else
+            state.drawFaceUpCard(slot);
+    }
+
+    /**
+     * The slot of a draw move.
+     *
+     * @param state the state
+     * @param move  DECK, or DRAW + a kind of face up card
+     * @return the slot of the first face up card of this kind, DECK_SLOT for the deck or if there is none (int)
+     */
+    static int slotOf(MutableGameState state, int move) {
+        if (move != DECK) {
+            for (int slot = 0; slot < Constants.FACE_UP_CARDS_COUNT; ++slot) {
+                if (state.faceUpCard(slot).ordinal() == move - DRAW)
+                    return slot;
+            }
+        }
+        return Constants.DECK_SLOT;
+    }
+
+    /**
+     * The policy of the second card drawn: a locomotive, else the face up card of the kind the player has the most,
+     * else the deck.
+     *
+     * @param state the state
+     * @return the draw move (int)
+     */
+    static int secondDraw(MutableGameState state) {
+        PlayerId id = state.currentPlayerId();
+        int best = DECK;
+        int bestCount = 0;
+        for (int slot = 0; slot < Constants.FACE_UP_CARDS_COUNT; ++slot) {
+            Card card = state.faceUpCard(slot);
+            int count = (card == Card.LOCOMOTIVE) ? Integer.MAX_VALUE : state.cardCount(id, card);
+            if (count > bestCount) {
+                best = DRAW + card.ordinal();
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The cards the current player uses to claim the route: as few locomotives as possible,
+     * and the kind of cars the player has the least of among the ones that are enough.
+     *
+     * @param state the state
+     * @param route a route the current player can claim
+     * @return the claim cards (CardBag)
+     */
+    static CardBag claimCards(MutableGameState state, Route route) {
+        PlayerId id = state.currentPlayerId();
+        int length = route.length();
+        int bestCard = -1;
+        int bestCount = 0;
+        for (int c = 0; c < LOCOMOTIVE; ++c) {
+            if (route.color() != null && CARDS[c].color() != route.color())
+                continue;
+            int count = state.cardCount(id, CARDS[c]);
+            if (count == 0)
+                continue;
+            boolean better;
+            if (bestCard < 0)
+                better = true;
+            else if (count >= length)
+                better = bestCount < length || count < bestCount;
+            else
+                better = bestCount < length && count > bestCount;
+            if (better) {
+                bestCard = c;
+                bestCount = count;
+            }
+        }
+        if (bestCard < 0)
+            return CardBag.of(length, Card.LOCOMOTIVE);
+        int cars = Math.min(bestCount, length);
+        return CardBag.of(cars, CARDS[bestCard]).union(CardBag.of(length - cars, Card.LOCOMOTIVE));
+    }
+
+    /**
+     * The current player claims the route as GameSession does: for a tunnel, three cards are drawn,
+     * and the additional cards are paid with cars of the same kind first, else the route isn't claimed.
+     *
+     * @param state the state
+     * @param route a route the current player can claim
+     * @param rng   the random number generator of the deck
+     */
+    static void claimRoute(MutableGameState state, Route route, Random rng) {
+        CardBag cards = claimCards(state, route);
+        if (route.level() == Route.Level.OVERGROUND) {
+            state.claimRoute(route, cards);
+            return;
+        }
+
+        //The kind of cars of the claim, LOCOMOTIVE if only locomotives are used
+        int claimCar = LOCOMOTIVE;
+        for (int c = 0; c < LOCOMOTIVE; ++c) {
+            if (cards.countOf(CARDS[c]) > 0)
+                claimCar = c;
+        }
+
+        //Draw the three cards
+        CardBag drawn = CardBag.EMPTY;
+        int additional = 0;
+        for (int i = 0; i < Constants.ADDITIONAL_TUNNEL_CARDS && state.canDrawCards(); ++i) {
+            state.recreateDeckIfNeeded(rng);
+            Card card = state.topDeckCard();
+            state.removeTopDeckCard();
+            drawn = drawn.with(card);
+            if (card.ordinal() == LOCOMOTIVE || card.ordinal() == claimCar)
+                ++additional;
+        }
+
+        //Pay the additional cards, cars first
+        PlayerId id = state.currentPlayerId();
+        int cars = (claimCar == LOCOMOTIVE) ? 0
+                : Math.min(additional, state.cardCount(id, CARDS[claimCar]) - cards.countOf(CARDS[claimCar]));
+        int locomotives = additional - cars;
+        if (locomotives <= state.cardCount(id, Card.LOCOMOTIVE) - cards.countOf(Card.LOCOMOTIVE)) {
+            CardBag additionalCards = CardBag.of(locomotives, Card.LOCOMOTIVE);
+            if (cars > 0)
+                additionalCards = additionalCards.union(CardBag.of(cars, CARDS[claimCar]));
+            state.claimRoute(route, cards.union(additionalCards));
+        }
+        state.discardCards(drawn);
+    }
+
+    /**
+     * Tells who won the game, from the points of the routes and of the tickets
+     * (the bonus of the longest trail is left out, it is too slow to compute in a rollout).
+     *
+     * @param state the state at the end of the game
+     * @return the winner, null in case of a draw (PlayerId)
+     */
+    static PlayerId winner(MutableGameState state) {
+        int difference = 0;
+        for (PlayerId id : PlayerId.ALL) {
+            int points = state.claimPoints(id) + state.ticketPoints(id);
+            difference += (id == PlayerId.PLAYER_1) ? points : -points;
+        }
+        if (difference == 0)
+            return null;
+        return (difference > 0) ? PlayerId.PLAYER_1 : PlayerId.PLAYER_2;
+    }
+}
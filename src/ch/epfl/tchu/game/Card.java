@@ -64,11 +64,7 @@ public enum Card {
      * @return the card corresponding to <code>color</code> (Card)
      */
     public static Card of(Color color) {
-        Card correspondingCard = null;
-        for (Card crd : ALL) {
-            if (crd.color() == color)
-                correspondingCard = crd;
-        }
-        return correspondingCard;
+        //The cars are declared in the order of their colors
+        return (color == null) ? LOCOMOTIVE : CARS.get(color.ordinal());
     }
 }
@@ -0,0 +1,234 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+/**
+ * A multiset of cards, specialized for the Card enum: the count of each kind of card is packed in a single long,
+ * so that the union, the difference and the containment are done in a few arithmetic operations, without allocation
+ * of tree nodes or boxed counts as SortedBag&lt;Card&gt; does. It can be converted from and to a SortedBag&lt;Card&gt;.
+ * Each kind of card uses 7 bits: 6 bits of count (at most MAX_COUNT cards of a kind) and a guard bit,
+ * always 0, that catches the overflows and underflows of the operations.
+ * It is public, final and immutable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class CardBag {
+    /**
+     * The maximal count of a kind of card in a CardBag.
+     */
+    public static final int MAX_COUNT = (1 << 6) - 1;
+
+    //Bits of a kind of card, and mask of the guard bits of all the kinds
+    private static final int BITS_PER_CARD = 7;
+    private static final long GUARD_BITS;
+    static {
+        long guards = 0;
+        for (Card c : Card.ALL)
+            guards |= 1L << (shift(c) + BITS_PER_CARD - 1);
+        GUARD_BITS = guards;
+    }
+
+    /**
+     * The empty CardBag.
+     */
+    public static final CardBag EMPTY = new CardBag(0);
+
+    //The counts of the cards, 7 bits per kind in the order of Card.ALL
+    private final long packed;
+
+    //Private constructor, use the static methods
+    private CardBag(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * A CardBag containing the given card once.
+     *
+     * @param card the card
+     * @return the new CardBag (CardBag)
+     */
+    public static CardBag of(Card card) {
+        return new CardBag(1L << shift(card));
+    }
+
+    /**
+     * A CardBag containing the given card the given amount of times.
+     *
+     * @param count the amount of cards
+     * @param card  the card
+     * @return the new CardBag (CardBag)
+     * @throws IllegalArgumentException if <code>count</code> is not between 0 and MAX_COUNT
+     */
+    public static CardBag of(int count, Card card) {
+        Preconditions.checkArgument(0 <= count && count <= MAX_COUNT);
+        return new CardBag((long) count << shift(card));
+    }
+
+    /**
+     * A CardBag containing the same cards as the given SortedBag.
+     *
+     * @param cards the cards
+     * @return the new CardBag (CardBag)
+     * @throws IllegalArgumentException if the bag contains more than MAX_COUNT cards of a kind
+     */
+    public static CardBag of(SortedBag<Card> cards) {
+        long packed = 0;
+        for (Card c : cards.toSet()) {
+            int count = cards.countOf(c);
+            Preconditions.checkArgument(count <= MAX_COUNT);
+            packed |= (long) count << shift(c);
+        }
+        return new CardBag(packed);
+    }
+
+    /**
+     * The CardBag whose counts are packed in the given long, as returned by <code>packed()</code>.
+     *
+     * @param packed the packed counts
+     * @return the new CardBag (CardBag)
+     * @throws IllegalArgumentException if a guard bit or a bit above the cards is set
+     */
+    public static CardBag ofPacked(long packed) {
+        Preconditions.checkArgument((packed & GUARD_BITS) == 0 && (packed >>> (Card.COUNT * BITS_PER_CARD)) == 0);
+        return new CardBag(packed);
+    }
+
+    /**
+     * The counts of the cards packed in a long, 7 bits per kind of card in the order of Card.ALL.
+     *
+     * @return the packed counts (long)
+     */
+    public long packed() {
+        return packed;
+    }
+
+    /**
+     * The amount of the given card in the bag.
+     *
+     * @param card the card
+     * @return the count of the card (int)
+     */
+    public int countOf(Card card) {
+        return (int) (packed >>> shift(card)) & MAX_COUNT;
+    }
+
+    /**
+     * The amount of cards in the bag.
+     *
+     * @return the size of the bag (int)
+     */
+    public int size() {
+        int size = 0;
+        for (long p = packed; p != 0; p >>>= BITS_PER_CARD)
+            size += (int) p & MAX_COUNT;
+        return size;
+    }
+
+    /**
+     * Used to know if the bag is empty.
+     *
+     * @return true iff the bag contains no card (boolean)
+     */
+    public boolean isEmpty() {
+        return packed == 0;
+    }
+
+    /**
+     * Used to know if the bag contains the given card.
+     *
+     * @param card the card
+     * @return true iff the card is at least once in the bag (boolean)
+     */
+    public boolean contains(Card card) {
+        return countOf(card) > 0;
+    }
+
+    /**
+     * Used to know if the bag contains all the cards of the given one (counts included).
+     *
+     * @param that the other bag
+     * @return true iff <code>that</code> is included in <code>this</code> (boolean)
+     */
+    public boolean contains(CardBag that) {
+        //a count of that bigger than the one of this borrows its guard bit
+        return (((packed | GUARD_BITS) - that.packed) & GUARD_BITS) == GUARD_BITS;
+    }
+
+    /**
+     * The union of this bag and the given one (counts are added).
+     *
+     * @param that the other bag
+     * @return the union of the bags (CardBag)
+     * @throws IllegalArgumentException if a count exceeds MAX_COUNT
+     */
+    public CardBag union(CardBag that) {
+        long sum = packed + that.packed;
+        Preconditions.checkArgument((sum & GUARD_BITS) == 0);
+        return new CardBag(sum);
+    }
+
+    /**
+     * This bag with the given card once more.
+     *
+     * @param card the card to add
+     * @return the new bag (CardBag)
+     * @throws IllegalArgumentException if the count of the card exceeds MAX_COUNT
+     */
+    public CardBag with(Card card) {
+        long sum = packed + (1L << shift(card));
+        Preconditions.checkArgument((sum & GUARD_BITS) == 0);
+        return new CardBag(sum);
+    }
+
+    /**
+     * The difference between this bag and the given one (counts are subtracted, without going below zero).
+     *
+     * @param that the bag to remove
+     * @return the difference of the bags (CardBag)
+     */
+    public CardBag difference(CardBag that) {
+        if (contains(that))
+            return new CardBag(packed - that.packed);
+        long difference = 0;
+        for (Card c : Card.ALL)
+            difference |= (long) Math.max(countOf(c) - that.countOf(c), 0) << shift(c);
+        return new CardBag(difference);
+    }
+
+    /**
+     * Convert the bag to a SortedBag.
+     *
+     * @return a SortedBag with the same cards (SortedBag)
+     */
+    public SortedBag<Card> toSortedBag() {
+        SortedBag.Builder<Card> builder = new SortedBag.Builder<>();
+        for (Card c : Card.ALL) {
+            int count = countOf(c);
+            if (count > 0)
+                builder.add(count, c);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        return that instanceof CardBag && ((CardBag) that).packed == packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+
+    @Override
+    public String toString() {
+        return toSortedBag().toString();
+    }
+
+    //Position of the count of the card in the packed long
+    private static int shift(Card card) {
+        return card.ordinal() * BITS_PER_CARD;
+    }
+}
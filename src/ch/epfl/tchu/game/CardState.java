@@ -20,10 +20,10 @@ public final class CardState extends PublicCardState {
     //The deck of the game
     private final Deck<Card> deck;
     //The discard of the game
-    private final SortedBag<Card> discard;
+    private final CardBag discard;
 
-    //Create a game state
-    private CardState(List<Card> faceUpCards, Deck<Card> deck, SortedBag<Card> discard) {
+    //Create a card state (also used by MutableGameState)
+    CardState(List<Card> faceUpCards, Deck<Card> deck, CardBag discard) {
         super(faceUpCards, deck.size(), discard.size());
         //Init vars
         this.deck = deck;
@@ -46,7 +46,7 @@ public final class CardState extends PublicCardState {
         //Generate the facedUpCards (for the ordering we can't use deck.topCards(...))
         List<Card> facedUpCards = deck.topCards(Constants.FACE_UP_CARDS_COUNT).toList();
 
-        return new CardState(facedUpCards, deck.withoutTopCards(Constants.FACE_UP_CARDS_COUNT), SortedBag.of());
+        return new CardState(facedUpCards, deck.withoutTopCards(Constants.FACE_UP_CARDS_COUNT), CardBag.EMPTY);
     }
 
     /**
@@ -102,7 +102,17 @@ public final class CardState extends PublicCardState {
         //Check correctness of argument
         Preconditions.checkArgument(deck.isEmpty());
 
-        return new CardState(super.faceUpCards(), Deck.of(discard, rng), SortedBag.of());
+        return new CardState(super.faceUpCards(), Deck.of(discard.toSortedBag(), rng), CardBag.EMPTY);
+    }
+
+    //The deck, for MutableGameState
+    Deck<Card> deck() {
+        return deck;
+    }
+
+    //The discard, for MutableGameState
+    CardBag discard() {
+        return discard;
     }
 
     /**
@@ -113,6 +123,6 @@ public final class CardState extends PublicCardState {
      */
     public CardState withMoreDiscardedCards(SortedBag<Card> additionalDiscards) {
 
-        return new CardState(faceUpCards(), deck, additionalDiscards.union(discard));
+        return new CardState(faceUpCards(), deck, discard.union(CardBag.of(additionalDiscards)));
     }
 }
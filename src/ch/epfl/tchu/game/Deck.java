@@ -10,6 +10,8 @@ import java.util.Random;
 
 /**
  * generic class representing a deck of cards, immutable
+ * The cards are in an array shared by all the decks obtained by removing top cards,
+ * each deck only knows the index of its top card, so removing cards doesn't copy anything.
  *
  * @author Selien Wicki (314357)
  * @author Theo Vasarino (313191)
@@ -18,17 +20,23 @@ import java.util.Random;
 public final class Deck<C extends Comparable<C>> {
 
     /**
-     * the cards in the deck
+     * the cards of the deck, shared, never modified (the ones before top have been removed)
      */
-    private final List<C> cards;
+    private final Object[] cards;
+    /**
+     * the index of the top card in cards
+     */
+    private final int top;
 
     /**
      * private constructor
      *
-     * @param cards in the deck
+     * @param cards the shared cards
+     * @param top   the index of the top card
      */
-    private Deck(List<C> cards) {
+    private Deck(Object[] cards, int top) {
         this.cards = cards;
+        this.top = top;
     }
 
     /**
@@ -43,7 +51,18 @@ public final class Deck<C extends Comparable<C>> {
         //Shuffle the cards of the deck
         List<C> shuffleList = cards.toList();
         Collections.shuffle(shuffleList, rng);
-        return new Deck<>(shuffleList);
+        return new Deck<>(shuffleList.toArray(), 0);
+    }
+
+    /**
+     * Create a deck holding the given cards in the given order, the first one on top.
+     *
+     * @param cards the cards, from the top of the deck
+     * @param <C>   type
+     * @return a new deck with the cards in this order
+     */
+    static <C extends Comparable<C>> Deck<C> ofOrdered(List<C> cards) {
+        return new Deck<>(cards.toArray(), 0);
     }
 
     /**
@@ -52,7 +71,7 @@ public final class Deck<C extends Comparable<C>> {
      * @return true if the deck is empty
      */
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return size() == 0;
     }
 
     /**
@@ -62,8 +81,8 @@ public final class Deck<C extends Comparable<C>> {
      */
     public C topCard() {
         //Check correctness of the argument
-        Preconditions.checkArgument(!cards.isEmpty());
-        return cards.get(0);
+        Preconditions.checkArgument(!isEmpty());
+        return card(top);
     }
 
     /**
@@ -79,7 +98,7 @@ public final class Deck<C extends Comparable<C>> {
         //Get the top cards in a new SortedBag
         SortedBag.Builder<C> builder = new SortedBag.Builder<>();
         for (int i = 0; i < count; i++)
-            builder.add(cards.get(i));
+            builder.add(card(top + i));
 
         return builder.build();
     }
@@ -94,12 +113,8 @@ public final class Deck<C extends Comparable<C>> {
         //Check correctness of the argument
         Preconditions.checkArgument(countIsGood(count));
 
-        //Generate the new cards without the topCards
-        List<C> newCards = new ArrayList<>();
-        for (int i = count; i < cards.size(); ++i)
-            newCards.add(cards.get(i));
-
-        return new Deck<>(newCards);
+        //Share the cards, the new top is count cards further
+        return (count == 0) ? this : new Deck<>(cards, top + count);
     }
 
     /**
@@ -118,7 +133,19 @@ public final class Deck<C extends Comparable<C>> {
      * @return the size of the deck
      */
     public int size() {
-        return cards.size();
+        return cards.length - top;
+    }
+
+    /**
+     * Getter for the cards of the deck in their order
+     *
+     * @return the cards, from the top of the deck
+     */
+    List<C> toList() {
+        List<C> list = new ArrayList<>(size());
+        for (int i = top; i < cards.length; ++i)
+            list.add(card(i));
+        return list;
     }
 
     /**
@@ -128,6 +155,17 @@ public final class Deck<C extends Comparable<C>> {
      * @return true if the count is within the range
      */
     private boolean countIsGood(int count) {
-        return count >= 0 && count <= cards.size();
+        return count >= 0 && count <= size();
+    }
+
+    /**
+     * The card at the given index of the shared array (only cards of type C are put in it)
+     *
+     * @param index the index in cards
+     * @return the card
+     */
+    @SuppressWarnings("unchecked")
+    private C card(int index) {
+        return (C) cards[index];
     }
 }
@@ -0,0 +1,90 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The result of a played session: the final points of each player (longest trail bonus included),
+ * the length of their longest trail and the amount of turns played.
+ * It is public, final and immutable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameResult {
+    //The final points of each player
+    private final Map<PlayerId, Integer> points;
+    //The length of the longest trail of each player
+    private final Map<PlayerId, Integer> longestTrailLengths;
+    //The amount of turns played
+    private final int turnCount;
+
+    /**
+     * Construct the result of a game.
+     *
+     * @param points              the final points of each player
+     * @param longestTrailLengths the length of the longest trail of each player
+     * @param turnCount           the amount of turns played
+     * @throws IllegalArgumentException if a map doesn't contain exactly the two players,
+     *                                  or if <code>turnCount</code> is negative
+     */
+    public GameResult(Map<PlayerId, Integer> points, Map<PlayerId, Integer> longestTrailLengths, int turnCount) {
+        //Check correctness of the arguments
+        Preconditions.checkArgument(points.size() == PlayerId.COUNT);
+        Preconditions.checkArgument(longestTrailLengths.size() == PlayerId.COUNT);
+        Preconditions.checkArgument(turnCount >= 0);
+
+        //Init vars
+        this.points = new EnumMap<>(points);
+        this.longestTrailLengths = new EnumMap<>(longestTrailLengths);
+        this.turnCount = turnCount;
+    }
+
+    /**
+     * The final points of the given player, longest trail bonus included.
+     *
+     * @param playerId the player
+     * @return the points of the player (int)
+     */
+    public int points(PlayerId playerId) {
+        return points.get(playerId);
+    }
+
+    /**
+     * The length of the longest trail of the given player.
+     *
+     * @param playerId the player
+     * @return the length of the longest trail (int)
+     */
+    public int longestTrailLength(PlayerId playerId) {
+        return longestTrailLengths.get(playerId);
+    }
+
+    /**
+     * The amount of turns played in the game.
+     *
+     * @return the amount of turns (int)
+     */
+    public int turnCount() {
+        return turnCount;
+    }
+
+    /**
+     * The winner of the game.
+     *
+     * @return the player with the most points, null if the game ended in a draw (PlayerId)
+     */
+    public PlayerId winner() {
+        int difference = points(PlayerId.PLAYER_1) - points(PlayerId.PLAYER_2);
+        if (difference == 0)
+            return null;
+        return (difference > 0) ? PlayerId.PLAYER_1 : PlayerId.PLAYER_2;
+    }
+
+    @Override
+    public String toString() {
+        return "GameResult" + points + " trails=" + longestTrailLengths + " turns=" + turnCount;
+    }
+}
@@ -0,0 +1,370 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.gui.Info;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Represent a single match of tCHu between two players.
+ * Each session owns its own state, so that many sessions can be played at the same time in the same JVM.
+ * A session can only be played once.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameSession {
+    //The two players of the game
+    private final Map<PlayerId, Player> players;
+    //The name of the players
+    private final Map<PlayerId, String> playerNames;
+    //The information that will be sent to the players during the game
+    private final Map<PlayerId, Info> infos;
+    //true iff the infos are generated and sent to the players
+    private final boolean sendInfos;
+    //The spectators following the game, they may join at any time
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    //The random number generator used to shuffle the decks
+    private final Random rng;
+    //The state of the game
+    private GameState gameState;
+    //true once the session has been played
+    private boolean played;
+    //The amount of turns played
+    private int turnCount;
+    //The result of the game, once played
+    private GameResult result;
+
+    /**
+     * Create a new session of the game, ready to be played.
+     *
+     * @param players     the two players of the game
+     * @param playerNames the names of the two players
+     * @param tickets     the initial tickets in the games
+     * @param rng         the random number to generate a shuffles deck
+     * @throws IllegalArgumentException if the <code>players</code> and <code>playerNames</code>
+     *                                  does not contain exactly 2 players
+     */
+    public GameSession(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames, SortedBag<Ticket> tickets, Random rng) {
+        this(players, playerNames, tickets, rng, true);
+    }
+
+    /**
+     * Create a new session of the game, ready to be played, choosing if the infos are sent to the players.
+     * Without infos (for simulations between programs) the texts of the game are not even generated.
+     *
+     * @param players     the two players of the game
+     * @param playerNames the names of the two players
+     * @param tickets     the initial tickets in the games
+     * @param rng         the random number to generate a shuffles deck
+     * @param sendInfos   true iff the players receive the infos of the game
+     * @throws IllegalArgumentException if the <code>players</code> and <code>playerNames</code>
+     *                                  does not contain exactly 2 players
+     */
+    public GameSession(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames, SortedBag<Ticket> tickets, Random rng, boolean sendInfos) {
+        //Check correctness of the arguments
+        Preconditions.checkArgument(players.size() == PlayerId.COUNT);
+        Preconditions.checkArgument(playerNames.size() == PlayerId.COUNT);
+
+        //Init vars from parameters
+        this.players = new EnumMap<>(players);
+        this.playerNames = new EnumMap<>(playerNames);
+        this.rng = Objects.requireNonNull(rng);
+        this.sendInfos = sendInfos;
+        this.gameState = GameState.initial(tickets, rng);
+
+        infos = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL)
+            infos.put(id, new Info(playerNames.get(id)));
+    }
+
+    /**
+     * Loop of the game that will make the session run until the end of the game.
+     *
+     * @throws IllegalStateException if the session has already been played
+     */
+    public void play() {
+        if (played)
+            throw new IllegalStateException();
+        played = true;
+
+        //Init the game
+        initGame();
+
+        //Play the game
+        boolean endGame = false;
+        while (!endGame) {
+            if (gameState.lastPlayer() == gameState.currentPlayerId())
+                endGame = true;
+            playTurn();
+        }
+
+        endGame();
+    }
+
+    /**
+     * The result of the session.
+     *
+     * @return the points of the players and the other statistics of the game (GameResult)
+     * @throws IllegalStateException if the session hasn't been played yet
+     */
+    public GameResult result() {
+        if (result == null)
+            throw new IllegalStateException();
+        return result;
+    }
+
+    /**
+     * Getter for the names of the players of the session.
+     *
+     * @return the names of the two players (Map)
+     */
+    public Map<PlayerId, String> playerNames() {
+        return Collections.unmodifiableMap(playerNames);
+    }
+
+    /**
+     * Add a spectator to the session, it receives the public state and the infos of the game from now on.
+     * A spectator can be added while the session is played.
+     *
+     * @param spectator the spectator following the game
+     */
+    public void addSpectator(Spectator spectator) {
+        spectators.add(Objects.requireNonNull(spectator));
+    }
+
+    //Initialize the game
+    private void initGame() {
+        //Init the players
+        for (PlayerId id : PlayerId.ALL)
+            players.get(id).initPlayers(id, playerNames);
+
+        //Inform who will play first
+        receiveInfo(() -> infos.get(gameState.currentPlayerId()).willPlayFirst());
+
+        //Give initial tickets choice to the players
+        updateState();
+        for (PlayerId id : PlayerId.ALL)
+            players.get(id).setInitialTicketChoice(gameState.topTickets(Constants.INITIAL_TICKETS_COUNT));
+
+        //handle the tickets choice of the player (put them in their hand)
+        updateState();
+        EnumMap<PlayerId, SortedBag<Ticket>> chosenTicketsPlayer = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL){
+            chosenTicketsPlayer.put(id ,players.get(id).chooseInitialTickets());
+            gameState = gameState.withInitiallyChosenTickets(id, chosenTicketsPlayer.get(id));
+            gameState = gameState.withoutTopTickets(Constants.INITIAL_TICKETS_COUNT);
+        }
+
+        //Give info about chosen tickets (first the info about the current player)
+        for (PlayerId id: PlayerId.ALL)
+            receiveInfo(() -> infos.get(id).keptTickets(chosenTicketsPlayer.get(id).size()));
+    }
+
+    //Make the current player play a turn
+    private void playTurn() {
+        ++turnCount;
+        PlayerId id = gameState.currentPlayerId();
+        Info info = infos.get(id);
+
+        //Send info that the player can play --> turn begins
+        receiveInfo(() -> info.canPlay());
+
+        //Update
+        updateState();
+
+        //Next turn
+        switch (players.get(id).nextTurn()) {
+            case DRAW_TICKETS:
+                //Send info that the player drew tickets
+                receiveInfo(() -> info.drewTickets(Constants.IN_GAME_TICKETS_COUNT));
+
+                //chose tickets
+                SortedBag<Ticket> drawnTickets = gameState.topTickets(Constants.IN_GAME_TICKETS_COUNT);
+                SortedBag<Ticket> keptTickets = players.get(id).chooseTickets(drawnTickets);
+                gameState = gameState.withChosenAdditionalTickets(drawnTickets, keptTickets);
+
+                //Send info that the player kept some tickets
+                receiveInfo(() -> info.keptTickets(keptTickets.size()));
+                break;
+            case DRAW_CARDS:
+                //Ask twice which card the current player wants
+                for (int i = 0; i < 2 && gameState.canDrawCards(); ++i) {
+                    //Update
+                    if (i == 1)
+                        updateState();
+
+                    //Recreate the deck from discard if needed
+                    gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
+
+                    //Player draw from faced up cards or deck
+                    int cardSlot = players.get(id).drawSlot();
+                    if (cardSlot == Constants.DECK_SLOT) {
+                        //Send info that the player drew from deck
+                        receiveInfo(() -> info.drewBlindCard());
+                        gameState = gameState.withBlindlyDrawnCard();
+                    } else {
+                        //Send info that the player drew from faced up cards
+                        receiveInfo(() -> info.drewVisibleCard(gameState.cardState().faceUpCard(cardSlot)));
+                        gameState = gameState.withDrawnFaceUpCard(cardSlot);
+                    }
+                }
+                break;
+            case CLAIM_ROUTE:
+                Route claimRoute = players.get(id).claimedRoute();
+                SortedBag<Card> claimCards = players.get(id).initialClaimCards();
+
+                if (claimCards.size() > 0) {
+                    if (claimRoute.level().equals(Route.Level.OVERGROUND)) {
+                        gameState = gameState.withClaimedRoute(claimRoute, claimCards);
+                        //Send info that the player toke a route
+                        receiveInfo(() -> info.claimedRoute(claimRoute, claimCards));
+                    } else {
+                        //Send info that the player attempts to take an underground route
+                        receiveInfo(() -> info.attemptsTunnelClaim(claimRoute, claimCards));
+
+                        //Take the three first cards of the deck
+                        SortedBag.Builder<Card> drawnCardsBuilder = new SortedBag.Builder<>();
+                        for (int i = 0; i < Constants.ADDITIONAL_TUNNEL_CARDS && gameState.canDrawCards(); ++i) {
+                            //Recreate deck from discard if needed
+                            gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
+                            //Take top cards and add it to the drawn cards
+                            drawnCardsBuilder.add(gameState.topCard());
+                            gameState = gameState.withoutTopCard();
+                        }
+
+                        //Handle the additional cards to play
+                        SortedBag<Card> drawnCards = drawnCardsBuilder.build();
+                        int additionalCardsCount = (drawnCards.size() > 0)
+                                ? claimRoute.additionalClaimCardsCount(claimCards, drawnCards)
+                                : 0;
+
+                        //Send message to inform which card has been drawn
+                        receiveInfo(() -> info.drewAdditionalCards(drawnCards, additionalCardsCount));
+
+                        //Determine all possibilities to play additional cards (if needed)
+                        List<SortedBag<Card>> possibleAddCards = (additionalCardsCount > 0)
+                                ? gameState.currentPlayerState().possibleAdditionalCards(additionalCardsCount, claimCards, drawnCards)
+                                : List.of();
+
+                        //Chose cards to play if he can
+                        SortedBag<Card> additionalCardsPlayed = (possibleAddCards.size() > 0)
+                                ? players.get(id).chooseAdditionalCards(possibleAddCards)
+                                : SortedBag.of();
+
+                        //If player decides to play, else send a message that he does not want to play
+                        if (additionalCardsPlayed.size() > 0 || additionalCardsCount == 0) {
+                            //Update all the cards he used to claim route
+                            SortedBag.Builder<Card> claimCardsBuilder = new SortedBag.Builder<>();
+                            claimCardsBuilder.add(claimCards);
+                            claimCardsBuilder.add(additionalCardsPlayed);
+                            SortedBag<Card> allClaimCards = claimCardsBuilder.build();
+                            gameState = gameState.withClaimedRoute(claimRoute, allClaimCards);
+
+                            //Send info that the player toke a route
+                            receiveInfo(() -> info.claimedRoute(claimRoute, allClaimCards));
+
+                        } else {
+                            //Send info that the player did not take a route
+                            receiveInfo(() -> info.didNotClaimRoute(claimRoute));
+                        }
+
+
+                        //Put the drawn cards in the discard
+                        gameState = gameState.withMoreDiscardedCards(drawnCards);
+                    }
+                }
+                break;
+            default:
+                break; //do nothing
+        }
+
+        //If last turn begins draw message
+        if (gameState.lastTurnBegins())
+            receiveInfo(() -> info.lastTurnBegins(gameState.currentPlayerState().carCount()));
+
+        //Game state for the next turn
+        gameState = gameState.forNextTurn();
+    }
+
+    //End the game (send infos, count points...)
+    private void endGame() {
+        //Update
+        updateState();
+
+        //Get the final points of the players
+        int finalPointsCountPlayer1 = gameState.playerState(PlayerId.PLAYER_1).finalPoints();
+        int finalPointsCountPlayer2 = gameState.playerState(PlayerId.PLAYER_2).finalPoints();
+
+        //Generate bonus for longest trail
+        Trail longestTrailPlayer1 = Trail.longest(gameState.playerState(PlayerId.PLAYER_1).routes());
+        Trail longestTrailPlayer2 = Trail.longest(gameState.playerState(PlayerId.PLAYER_2).routes());
+
+        //Send info for the bonus of the longest trail
+        if (longestTrailPlayer1.length() > longestTrailPlayer2.length() ||
+                longestTrailPlayer1.length() == longestTrailPlayer2.length()) {
+
+            receiveInfo(() -> infos.get(PlayerId.PLAYER_1).getsLongestTrailBonus(longestTrailPlayer1));
+            finalPointsCountPlayer1 += Constants.LONGEST_TRAIL_BONUS_POINTS;
+        }
+        if (longestTrailPlayer2.length() > longestTrailPlayer1.length() ||
+                longestTrailPlayer1.length() == longestTrailPlayer2.length()) {
+
+            receiveInfo(() -> infos.get(PlayerId.PLAYER_2).getsLongestTrailBonus(longestTrailPlayer2));
+            finalPointsCountPlayer2 += Constants.LONGEST_TRAIL_BONUS_POINTS;
+        }
+
+        //Send info for the winner
+        int points1 = finalPointsCountPlayer1;
+        int points2 = finalPointsCountPlayer2;
+        if (points1 > points2)
+            receiveInfo(() -> infos.get(PlayerId.PLAYER_1).won(points1, points2));
+        else if (points2 > points1)
+            receiveInfo(() -> infos.get(PlayerId.PLAYER_2).won(points2, points1));
+        else receiveInfo(() -> Info.draw(new ArrayList<>(playerNames.values()), points1));
+
+        result = new GameResult(
+                Map.of(PlayerId.PLAYER_1, points1, PlayerId.PLAYER_2, points2),
+                Map.of(PlayerId.PLAYER_1, longestTrailPlayer1.length(), PlayerId.PLAYER_2, longestTrailPlayer2.length()),
+                turnCount);
+
+    }
+
+    //make the two player of the game receive an info, only generated if the infos are sent
+    private void receiveInfo(Supplier<String> info) {
+        if (!sendInfos)
+            return;
+        String text = info.get();
+        players.get(PlayerId.PLAYER_1).receiveInfo(text);
+        players.get(PlayerId.PLAYER_2).receiveInfo(text);
+        for (Spectator spectator : spectators)
+            spectator.receiveInfo(text);
+    }
+
+    //Update the state of the game
+    private void updateState() {
+        players.get(PlayerId.PLAYER_1).updateState(gameState, gameState.playerState(PlayerId.PLAYER_1));
+        players.get(PlayerId.PLAYER_2).updateState(gameState, gameState.playerState(PlayerId.PLAYER_2));
+        if (!spectators.isEmpty()) {
+            PublicGameState publicState = publicState();
+            for (Spectator spectator : spectators)
+                spectator.updateState(publicState);
+        }
+    }
+
+    //Copy of the public part of the state of the game, the spectators can't cast it to see the private one
+    private PublicGameState publicState() {
+        PublicCardState cardState = gameState.cardState();
+        Map<PlayerId, PublicPlayerState> playerStates = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL) {
+            PublicPlayerState playerState = gameState.playerState(id);
+            playerStates.put(id, new PublicPlayerState(playerState.ticketCount(), playerState.cardCount(), playerState.routes()));
+        }
+        return new PublicGameState(gameState.ticketsCount(),
+                new PublicCardState(cardState.faceUpCards(), cardState.deckSize(), cardState.discardsSize()),
+                gameState.currentPlayerId(), playerStates, gameState.lastPlayer());
+    }
+}
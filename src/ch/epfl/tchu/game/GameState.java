@@ -21,9 +21,11 @@ public final class GameState extends PublicGameState {
     //The state of the two player of the game
     private final Map<PlayerId, PlayerState> playerState;
 
-    //Create a GameState
+    //Create a GameState (also used by MutableGameState)
     //throw nullPointer if cardState or tickets are null
-    private GameState(Deck<Ticket> ticketDeck, CardState cardState, Map<PlayerId, PlayerState> playerState, PlayerId currentPlayerId, PlayerId lastPlayer) {
+    //Map.copyOf returns its argument if it is already immutable: the states built here only give immutable maps,
+    //so the map of the players is never copied
+    GameState(Deck<Ticket> ticketDeck, CardState cardState, Map<PlayerId, PlayerState> playerState, PlayerId currentPlayerId, PlayerId lastPlayer) {
         super(ticketDeck.size(), cardState, currentPlayerId, Map.copyOf(playerState), lastPlayer);
 
         this.ticketDeck = Objects.requireNonNull(ticketDeck);
@@ -51,11 +53,9 @@ public final class GameState extends PublicGameState {
         CardState cardState = CardState.of(allCardsDeck.withoutTopCards(Constants.INITIAL_CARDS_COUNT * PlayerId.COUNT));
 
         //initialise the playerStates and create the Map
-        Map<PlayerId, PlayerState> playerStateMap = new EnumMap<>(PlayerId.class);
-        PlayerState playerState1 = PlayerState.initial(cardsForPlayer1);
-        PlayerState playerState2 = PlayerState.initial(cardsForPlayer2);
-        playerStateMap.put(PlayerId.PLAYER_1, playerState1);
-        playerStateMap.put(PlayerId.PLAYER_2, playerState2);
+        Map<PlayerId, PlayerState> playerStateMap = Map.of(
+                PlayerId.PLAYER_1, PlayerState.initial(cardsForPlayer1),
+                PlayerId.PLAYER_2, PlayerState.initial(cardsForPlayer2));
 
         //initialise the currentPlayer (last player is null)
         PlayerId currentPlayer = PlayerId.ALL.get(rng.nextInt(PlayerId.COUNT));
@@ -252,11 +252,21 @@ public final class GameState extends PublicGameState {
     }
 
 
+    //The deck of tickets, for MutableGameState
+    Deck<Ticket> ticketDeck() {
+        return ticketDeck;
+    }
+
+    //The private state of the cards, for MutableGameState
+    CardState privateCardState() {
+        return cardState;
+    }
+
     //Modify the map of the player
-    //Only the given player will be modified
+    //Only the given player will be modified, the new map is immutable
     private Map<PlayerId, PlayerState> generateNewPlayerMap(PlayerState player, PlayerId id) {
-        Map<PlayerId, PlayerState> newMap = new EnumMap<>(playerState);
-        newMap.replace(id, player);
-        return newMap;
+        return (id == PlayerId.PLAYER_1)
+                ? Map.of(PlayerId.PLAYER_1, player, PlayerId.PLAYER_2, playerState.get(PlayerId.PLAYER_2))
+                : Map.of(PlayerId.PLAYER_1, playerState.get(PlayerId.PLAYER_1), PlayerId.PLAYER_2, player);
     }
 }
@@ -0,0 +1,249 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enumerates the legal moves of the current player, with the same rules as PlayerState.canClaimRoute,
+ * PlayerState.possibleClaimCards, GameState.canDrawCards and GameState.canDrawTickets, and only one route of
+ * a double route can be claimed.
+ * The moves are written as ints in a buffer given by the caller, so that nothing is allocated per move:
+ * drawing tickets, drawing a card from a slot, or claiming a route with given cards (a kind of cars
+ * and an amount of locomotives). The static methods decode them.
+ * It is public, final and not thread safe (it keeps work arrays): use one generator per thread.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class MoveGenerator {
+    /**
+     * The kinds of moves.
+     */
+    public static final int DRAW_TICKETS = 0;
+    public static final int DRAW_CARD = 1;
+    public static final int CLAIM_ROUTE = 2;
+
+    //The routes of the map, and their length, the index of their kind of cars (-1 if neutral) and their level
+    private static final List<Route> ROUTES = ChMap.routes();
+    private static final int[] ROUTE_LENGTH = new int[ROUTES.size()];
+    private static final int[] ROUTE_CAR = new int[ROUTES.size()];
+    private static final boolean[] ROUTE_UNDERGROUND = new boolean[ROUTES.size()];
+    private static final int LOCOMOTIVE = Card.LOCOMOTIVE.ordinal();
+    private static final Card[] CARDS = Card.ALL.toArray(new Card[0]);
+
+    /**
+     * An upper bound of the amount of legal moves: all the ways to claim each route, all the slots and the tickets.
+     */
+    public static final int MAX_MOVES;
+
+    static {
+        int maxMoves = Constants.FACE_UP_CARDS_COUNT + 2;
+        for (int r = 0; r < ROUTES.size(); ++r) {
+            Route route = ROUTES.get(r);
+            ROUTE_LENGTH[r] = route.length();
+            ROUTE_CAR[r] = (route.color() == null) ? -1 : Card.of(route.color()).ordinal();
+            ROUTE_UNDERGROUND[r] = route.level() == Route.Level.UNDERGROUND;
+            maxMoves += route.possibleClaimCards().size();
+        }
+        MAX_MOVES = maxMoves;
+    }
+
+    //Layout of a move: kind, then route, then kind of cars, then locomotives (or slot + 1 for DRAW_CARD)
+    private static final int KIND_SHIFT = 24;
+    private static final int ROUTE_SHIFT = 8;
+    private static final int CAR_SHIFT = 4;
+    private static final int NIBBLE_MASK = 0xF;
+
+    //Work arrays: the routes that can't be claimed anymore, and the count of each kind of card of the player
+    private final boolean[] blockedRoutes = new boolean[ROUTES.size()];
+    private final int[] cards = new int[Card.COUNT];
+
+    /**
+     * Write the legal moves of the current player in the buffer.
+     *
+     * @param state       the public state of the game
+     * @param playerState the state of the current player
+     * @param moves       the buffer, of at least MAX_MOVES ints
+     * @return the amount of moves written (int)
+     * @throws IllegalArgumentException if a route of the players isn't a route of ChMap
+     */
+    public int generate(PublicGameState state, PlayerState playerState, int[] moves) {
+        Arrays.fill(blockedRoutes, false);
+        for (PlayerId id : PlayerId.ALL) {
+            for (Route route : state.playerState(id).routes())
+                block(RouteIndex.indexOf(route));
+        }
+        CardBag cardBag = playerState.cardBag();
+        for (Card card : CARDS)
+            cards[card.ordinal()] = cardBag.countOf(card);
+        return generate(cards, playerState.carCount(), state.canDrawCards(), state.canDrawTickets(), moves);
+    }
+
+    /**
+     * Write the legal moves of the current player in the buffer.
+     *
+     * @param state the state of the game
+     * @param moves the buffer, of at least MAX_MOVES ints
+     * @return the amount of moves written (int)
+     * @throws IllegalArgumentException if a route of the players isn't a route of ChMap
+     */
+    public int generate(GameState state, int[] moves) {
+        return generate(state, state.currentPlayerState(), moves);
+    }
+
+    /**
+     * Write the legal moves of the current player in the buffer.
+     *
+     * @param state the state of the game
+     * @param moves the buffer, of at least MAX_MOVES ints
+     * @return the amount of moves written (int)
+     */
+    public int generate(MutableGameState state, int[] moves) {
+        for (int r = 0; r < ROUTES.size(); ++r)
+            blockedRoutes[r] = !state.isRouteFree(r);
+        return generate(state.currentPlayerCards(), state.carCount(state.currentPlayerId()),
+                state.canDrawCards(), state.canDrawTickets(), moves);
+    }
+
+    /**
+     * Write the indexes (in ChMap.routes()) of the routes the current player can claim in the buffer,
+     * without enumerating the cards.
+     *
+     * @param state  the state of the game
+     * @param routes the buffer, of at least ChMap.routes().size() ints
+     * @return the amount of routes written (int)
+     */
+    public static int claimableRoutes(MutableGameState state, int[] routes) {
+        int[] playerCards = state.currentPlayerCards();
+        int cars = state.carCount(state.currentPlayerId());
+        int count = 0;
+        for (int r = 0; r < ROUTES.size(); ++r) {
+            if (ROUTE_LENGTH[r] <= cars && state.isRouteFree(r) && canPay(r, playerCards))
+                routes[count++] = r;
+        }
+        return count;
+    }
+
+    /**
+     * The kind of the move.
+     *
+     * @param move the move
+     * @return DRAW_TICKETS, DRAW_CARD or CLAIM_ROUTE (int)
+     */
+    public static int kind(int move) {
+        return move >>> KIND_SHIFT;
+    }
+
+    /**
+     * The slot of a DRAW_CARD move.
+     *
+     * @param move the move
+     * @return the slot, Constants.DECK_SLOT for the deck (int)
+     * @throws IllegalArgumentException if the move isn't a DRAW_CARD move
+     */
+    public static int slot(int move) {
+        Preconditions.checkArgument(kind(move) == DRAW_CARD);
+        return (move & NIBBLE_MASK) - 1;
+    }
+
+    /**
+     * The index in ChMap.routes() of the route of a CLAIM_ROUTE move.
+     *
+     * @param move the move
+     * @return the index of the route (int)
+     * @throws IllegalArgumentException if the move isn't a CLAIM_ROUTE move
+     */
+    public static int routeIndex(int move) {
+        Preconditions.checkArgument(kind(move) == CLAIM_ROUTE);
+        return (move >>> ROUTE_SHIFT) & 0xFFFF;
+    }
+
+    /**
+     * The route of a CLAIM_ROUTE move.
+     *
+     * @param move the move
+     * @return the route (Route)
+     * @throws IllegalArgumentException if the move isn't a CLAIM_ROUTE move
+     */
+    public static Route route(int move) {
+        return ROUTES.get(routeIndex(move));
+    }
+
+    /**
+     * The cards of a CLAIM_ROUTE move.
+     *
+     * @param move the move
+     * @return the claim cards (CardBag)
+     * @throws IllegalArgumentException if the move isn't a CLAIM_ROUTE move
+     */
+    public static CardBag claimCardBag(int move) {
+        int locomotives = move & NIBBLE_MASK;
+        int cars = ROUTE_LENGTH[routeIndex(move)] - locomotives;
+        CardBag claimCards = CardBag.of(locomotives, Card.LOCOMOTIVE);
+        return (cars == 0) ? claimCards : claimCards.union(CardBag.of(cars, CARDS[(move >>> CAR_SHIFT) & NIBBLE_MASK]));
+    }
+
+    /**
+     * The cards of a CLAIM_ROUTE move.
+     *
+     * @param move the move
+     * @return the claim cards (SortedBag< Card >)
+     * @throws IllegalArgumentException if the move isn't a CLAIM_ROUTE move
+     */
+    public static SortedBag<Card> claimCards(int move) {
+        return claimCardBag(move).toSortedBag();
+    }
+
+    //Enumerate the moves from the blocked routes and the cards of the player, in the order of Route.possibleClaimCards
+    private int generate(int[] playerCards, int cars, boolean canDrawCards, boolean canDrawTickets, int[] moves) {
+        int count = 0;
+        if (canDrawTickets)
+            moves[count++] = DRAW_TICKETS << KIND_SHIFT;
+        if (canDrawCards) {
+            for (int slot = Constants.DECK_SLOT; slot < Constants.FACE_UP_CARDS_COUNT; ++slot)
+                moves[count++] = DRAW_CARD << KIND_SHIFT | (slot + 1);
+        }
+
+        int locomotives = playerCards[LOCOMOTIVE];
+        for (int r = 0; r < ROUTES.size(); ++r) {
+            int length = ROUTE_LENGTH[r];
+            if (blockedRoutes[r] || length > cars || !canPay(r, playerCards))
+                continue;
+            int move = CLAIM_ROUTE << KIND_SHIFT | r << ROUTE_SHIFT;
+            int maxLocomotives = ROUTE_UNDERGROUND[r] ? Math.min(length - 1, locomotives) : 0;
+            for (int l = 0; l <= maxLocomotives; ++l) {
+                for (int c = 0; c < LOCOMOTIVE; ++c) {
+                    if ((ROUTE_CAR[r] < 0 || ROUTE_CAR[r] == c) && playerCards[c] >= length - l)
+                        moves[count++] = move | c << CAR_SHIFT | l;
+                }
+            }
+            if (ROUTE_UNDERGROUND[r] && locomotives >= length)
+                moves[count++] = move | LOCOMOTIVE << CAR_SHIFT | length;
+        }
+        return count;
+    }
+
+    //Tells if the cards are enough to claim the route, same rule as Route.canBeClaimedWith
+    private static boolean canPay(int route, int[] playerCards) {
+        int maxCarCount = 0;
+        if (ROUTE_CAR[route] >= 0) {
+            maxCarCount = playerCards[ROUTE_CAR[route]];
+        } else {
+            for (int c = 0; c < LOCOMOTIVE; ++c)
+                maxCarCount = Math.max(maxCarCount, playerCards[c]);
+        }
+        if (ROUTE_UNDERGROUND[route])
+            maxCarCount += playerCards[LOCOMOTIVE];
+        return maxCarCount >= ROUTE_LENGTH[route];
+    }
+
+    //Block the route and the other route between the same stations
+    private void block(int route) {
+        blockedRoutes[route] = true;
+        if (RouteIndex.neighborIndex(route) != RouteIndex.NO_ROUTE)
+            blockedRoutes[RouteIndex.neighborIndex(route)] = true;
+    }
+}
@@ -0,0 +1,797 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.util.*;
+
+/**
+ * Represent the private state of a game of tCHu, modified in place.
+ * It is the fast counterpart of {@link GameState} for searches and simulations: the moves are applied on arrays
+ * of primitives without allocating anything, and each move is recorded so that it can be undone.
+ * The moves behave exactly as the transitions of GameState (the deck is recreated with the same shuffle),
+ * the state can be converted from and to a GameState.
+ * The routes must be the routes of ChMap.
+ * It is public, final and not thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class MutableGameState {
+    //The routes of the map
+    private static final List<Route> ROUTES = ChMap.routes();
+    //The cards, in an array to go through them without an iterator
+    private static final Card[] CARDS = Card.ALL.toArray(new Card[0]);
+
+    //The kinds of moves recorded in the journal
+    private static final int DRAW_BLIND_CARD = 0;
+    private static final int DRAW_FACE_UP_CARD = 1;
+    private static final int CLAIM_ROUTE = 2;
+    private static final int RECREATE_DECK = 3;
+    private static final int TAKE_TICKETS = 4;
+    private static final int NEXT_TURN = 5;
+    private static final int REMOVE_TOP_CARD = 6;
+    private static final int DISCARD_CARDS = 7;
+    //Bits used to pack the count of each kind of card in a long
+    private static final int BITS_PER_CARD = 7;
+    private static final long CARD_MASK = (1L << BITS_PER_CARD) - 1;
+    //No player
+    private static final int NOBODY = -1;
+
+    //The deck of tickets, from the top (the ones before ticketTop have been drawn)
+    private final Ticket[] ticketDeck;
+    private int ticketTop;
+    //The deck of cards, the top card is at deckSize - 1
+    private final int[] deck;
+    private int deckSize;
+    //The face up cards, the count of each kind of card in the discard and their total
+    private final int[] faceUpCards;
+    private final int[] discard;
+    private int discardSize;
+    //For each player: the tickets, the count of each kind of card, the cars and the claimed routes
+    private final Ticket[][] tickets;
+    private final int[] ticketCount;
+    private final int[][] cards;
+    private final int[] carCount;
+    private final int[][] routes;
+    private final int[] routeCount;
+    //The owner of each route
+    private final int[] routeOwner;
+    //The current player and the last player
+    private int currentPlayer;
+    private int lastPlayer;
+
+    //The moves applied, two longs per move: the kind and its arguments, then the cards it moved
+    private long[] journal;
+    private int moveCount;
+    //Work array of the shuffles
+    private final int[] shuffled;
+
+    //Create a state without cards, tickets nor routes, with room for the given amount of tickets in the deck
+    private MutableGameState(int ticketsCount) {
+        ticketDeck = new Ticket[ticketsCount];
+        deck = new int[Constants.TOTAL_CARDS_COUNT];
+        faceUpCards = new int[Constants.FACE_UP_CARDS_COUNT];
+        discard = new int[Card.COUNT];
+        shuffled = new int[Constants.TOTAL_CARDS_COUNT];
+        tickets = new Ticket[PlayerId.COUNT][];
+        ticketCount = new int[PlayerId.COUNT];
+        cards = new int[PlayerId.COUNT][];
+        carCount = new int[PlayerId.COUNT];
+        routes = new int[PlayerId.COUNT][ROUTES.size()];
+        routeCount = new int[PlayerId.COUNT];
+        routeOwner = new int[ROUTES.size()];
+        Arrays.fill(routeOwner, NOBODY);
+        journal = new long[64];
+    }
+
+    /**
+     * Create a mutable state equal to the given state.
+     *
+     * @param state the state of the game
+     * @return a new mutable state (MutableGameState)
+     * @throws IllegalArgumentException if a route of the players isn't a route of ChMap
+     */
+    public static MutableGameState of(GameState state) {
+        List<Ticket> ticketList = state.ticketDeck().toList();
+        MutableGameState mutable = new MutableGameState(ticketList.size());
+        ticketList.toArray(mutable.ticketDeck);
+
+        //Cards
+        CardState cardState = state.privateCardState();
+        List<Card> deckList = cardState.deck().toList();
+        mutable.deckSize = deckList.size();
+        for (int i = 0; i < mutable.deckSize; ++i)
+            mutable.deck[mutable.deckSize - 1 - i] = deckList.get(i).ordinal();
+        mutable.setCommonCards(state);
+        for (Card card : Card.ALL)
+            mutable.discard[card.ordinal()] = cardState.discard().countOf(card);
+        mutable.discardSize = cardState.discardsSize();
+
+        //Players
+        for (PlayerId id : PlayerId.ALL) {
+            PlayerState playerState = state.playerState(id);
+            mutable.setPlayer(id.ordinal(), playerState.tickets().toList(), counts(playerState.cardBag()), playerState.routes());
+        }
+        return mutable;
+    }
+
+    /**
+     * Create the initial state of a game, same as {@link GameState#initial(SortedBag, Random)}
+     * (the same random number generator gives the same state).
+     *
+     * @param tickets the tickets of the game
+     * @param rng     the random number generator of the shuffles
+     * @return a new mutable state (MutableGameState)
+     */
+    public static MutableGameState initial(SortedBag<Ticket> tickets, Random rng) {
+        //Same shuffles as Deck.of, the first ticket and card of the shuffled lists are on top
+        List<Ticket> ticketList = tickets.toList();
+        Collections.shuffle(ticketList, rng);
+        MutableGameState mutable = new MutableGameState(ticketList.size());
+        ticketList.toArray(mutable.ticketDeck);
+        int size = mutable.shuffle(counts(CardBag.of(Constants.ALL_CARDS)), rng);
+
+        //Deal the cards of the players, then the face up cards (sorted, as in CardState.of), the rest is the deck
+        int dealt = 0;
+        for (PlayerId id : PlayerId.ALL) {
+            int[] playerCards = new int[Card.COUNT];
+            for (int i = 0; i < Constants.INITIAL_CARDS_COUNT; ++i)
+                ++playerCards[mutable.shuffled[dealt++]];
+            mutable.setPlayer(id.ordinal(), List.of(), playerCards, List.of());
+        }
+        System.arraycopy(mutable.shuffled, dealt, mutable.faceUpCards, 0, Constants.FACE_UP_CARDS_COUNT);
+        Arrays.sort(mutable.faceUpCards);
+        dealt += Constants.FACE_UP_CARDS_COUNT;
+        mutable.deckSize = size - dealt;
+        for (int i = 0; i < mutable.deckSize; ++i)
+            mutable.deck[mutable.deckSize - 1 - i] = mutable.shuffled[dealt + i];
+
+        mutable.currentPlayer = rng.nextInt(PlayerId.COUNT);
+        mutable.lastPlayer = NOBODY;
+        return mutable;
+    }
+
+    /**
+     * Create a state compatible with what the given player knows of the game: the cards and the tickets
+     * the player can't see (the ones of the other player, of the decks and of the discard) are dealt at random.
+     * Used to search the best decisions of the player in the possible states of the game.
+     *
+     * @param state         the public state of the game
+     * @param ownId         the player
+     * @param ownState      the state of the player
+     * @param drawnTickets  the tickets the player drew and must choose from, on the top of the deck of tickets (can be empty)
+     * @param hiddenTickets the tickets the player can't see (held by the other player or in the deck,
+     *                      the ones not needed to fill them are left out)
+     * @param rng           the random number generator of the deal
+     * @return a new mutable state (MutableGameState)
+     * @throws IllegalArgumentException if there are not enough hidden tickets, or if the amounts of cards don't match
+     */
+    public static MutableGameState sampled(PublicGameState state, PlayerId ownId, PlayerState ownState,
+                                           SortedBag<Ticket> drawnTickets, SortedBag<Ticket> hiddenTickets, Random rng) {
+        PlayerId otherId = ownId.next();
+        PublicPlayerState otherState = state.playerState(otherId);
+        int otherTicketCount = otherState.ticketCount();
+        Preconditions.checkArgument(drawnTickets.size() <= state.ticketsCount()
+                && drawnTickets.size() + hiddenTickets.size() >= state.ticketsCount() + otherTicketCount);
+        MutableGameState mutable = new MutableGameState(state.ticketsCount());
+
+        //Tickets: the drawn ones on top, then the hidden ones at random
+        List<Ticket> hidden = hiddenTickets.toList();
+        Collections.shuffle(hidden, rng);
+        int top = 0;
+        for (Ticket ticket : drawnTickets)
+            mutable.ticketDeck[top++] = ticket;
+        int dealt = 0;
+        while (top < mutable.ticketDeck.length)
+            mutable.ticketDeck[top++] = hidden.get(dealt++);
+        List<Ticket> otherTickets = hidden.subList(dealt, dealt + otherTicketCount);
+
+        //Cards: the ones the player can't see are shuffled, then dealt to the other player, the discard and the deck
+        mutable.setCommonCards(state);
+        int[] unseen = counts(CardBag.of(Constants.ALL_CARDS).difference(ownState.cardBag()));
+        for (int card : mutable.faceUpCards)
+            --unseen[card];
+        int size = mutable.shuffle(unseen, rng);
+        Preconditions.checkArgument(size == otherState.cardCount() + state.cardState().discardsSize() + state.cardState().deckSize());
+        int[] otherCards = new int[Card.COUNT];
+        int dealtCards = 0;
+        for (int i = 0; i < otherState.cardCount(); ++i)
+            ++otherCards[mutable.shuffled[dealtCards++]];
+        for (int i = 0; i < state.cardState().discardsSize(); ++i)
+            ++mutable.discard[mutable.shuffled[dealtCards++]];
+        mutable.discardSize = state.cardState().discardsSize();
+        while (dealtCards < size)
+            mutable.deck[mutable.deckSize++] = mutable.shuffled[dealtCards++];
+
+        mutable.setPlayer(ownId.ordinal(), ownState.tickets().toList(), counts(ownState.cardBag()), ownState.routes());
+        mutable.setPlayer(otherId.ordinal(), otherTickets, otherCards, otherState.routes());
+        return mutable;
+    }
+
+    //Set the face up cards and the players (current and last)
+    private void setCommonCards(PublicGameState state) {
+        for (int slot : Constants.FACE_UP_CARD_SLOTS)
+            faceUpCards[slot] = state.cardState().faceUpCard(slot).ordinal();
+        currentPlayer = state.currentPlayerId().ordinal();
+        lastPlayer = (state.lastPlayer() == null) ? NOBODY : state.lastPlayer().ordinal();
+    }
+
+    //Set the tickets, cards, cars and routes of a player
+    private void setPlayer(int p, List<Ticket> playerTickets, int[] playerCards, List<Route> playerRoutes) {
+        tickets[p] = Arrays.copyOf(playerTickets.toArray(new Ticket[0]), playerTickets.size() + ticketDeck.length);
+        ticketCount[p] = playerTickets.size();
+        cards[p] = playerCards;
+        carCount[p] = Constants.INITIAL_CAR_COUNT;
+        for (Route route : playerRoutes) {
+            int index = RouteIndex.indexOf(route);
+            routes[p][routeCount[p]++] = index;
+            routeOwner[index] = p;
+            carCount[p] -= route.length();
+        }
+    }
+
+    /**
+     * The immutable state equal to this state.
+     *
+     * @return a new game state (GameState)
+     */
+    public GameState toGameState() {
+        List<Ticket> ticketList = Arrays.asList(ticketDeck).subList(ticketTop, ticketDeck.length);
+        List<Card> deckList = new ArrayList<>(deckSize);
+        for (int i = deckSize - 1; i >= 0; --i)
+            deckList.add(Card.ALL.get(deck[i]));
+        List<Card> faceUpList = new ArrayList<>(Constants.FACE_UP_CARDS_COUNT);
+        for (int card : faceUpCards)
+            faceUpList.add(Card.ALL.get(card));
+
+        CardState cardState = new CardState(faceUpList, Deck.ofOrdered(deckList), cardBag(discard));
+        return new GameState(Deck.ofOrdered(ticketList), cardState,
+                Map.of(PlayerId.PLAYER_1, playerState(PlayerId.PLAYER_1), PlayerId.PLAYER_2, playerState(PlayerId.PLAYER_2)),
+                currentPlayerId(), lastPlayer());
+    }
+
+    /**
+     * The state of the given player, as an immutable state.
+     *
+     * @param playerId the player
+     * @return a new state of the player (PlayerState)
+     */
+    public PlayerState playerState(PlayerId playerId) {
+        int p = playerId.ordinal();
+        return new PlayerState(SortedBag.of(Arrays.asList(tickets[p]).subList(0, ticketCount[p])),
+                cardBag(cards[p]).toSortedBag(), routes(playerId));
+    }
+
+    /**
+     * @return the id of the current player (PlayerId)
+     */
+    public PlayerId currentPlayerId() {
+        return PlayerId.ALL.get(currentPlayer);
+    }
+
+    /**
+     * @return the id of the last player, null if the last turn hasn't begun (PlayerId)
+     */
+    public PlayerId lastPlayer() {
+        return (lastPlayer == NOBODY) ? null : PlayerId.ALL.get(lastPlayer);
+    }
+
+    /**
+     * @return the amount of tickets in the deck of tickets (int)
+     */
+    public int ticketsCount() {
+        return ticketDeck.length - ticketTop;
+    }
+
+    /**
+     * @return true iff tickets can be drawn (boolean)
+     */
+    public boolean canDrawTickets() {
+        return ticketTop < ticketDeck.length;
+    }
+
+    /**
+     * @return true iff cards can be drawn (boolean)
+     */
+    public boolean canDrawCards() {
+        return deckSize + discardSize >= Constants.MINIMAL_DECK_SIZE_FOR_DRAW_CARDS;
+    }
+
+    /**
+     * @return the amount of cards in the deck (int)
+     */
+    public int deckSize() {
+        return deckSize;
+    }
+
+    /**
+     * @return the amount of cards in the discard (int)
+     */
+    public int discardsSize() {
+        return discardSize;
+    }
+
+    /**
+     * The face up card of the given slot.
+     *
+     * @param slot the slot
+     * @return the card (Card)
+     * @throws IndexOutOfBoundsException if the slot isn't a slot of the face up cards
+     */
+    public Card faceUpCard(int slot) {
+        return Card.ALL.get(faceUpCards[Objects.checkIndex(slot, Constants.FACE_UP_CARDS_COUNT)]);
+    }
+
+    /**
+     * Gives the given amount of tickets from the top of the ticket deck.
+     *
+     * @param count the amount of tickets
+     * @return the top tickets (SortedBag< Ticket >)
+     * @throws IllegalArgumentException if <code>count</code> is not between 0 and the size of the tickets deck (included)
+     */
+    public SortedBag<Ticket> topTickets(int count) {
+        Preconditions.checkArgument(count >= 0 && count <= ticketsCount());
+        return SortedBag.of(Arrays.asList(ticketDeck).subList(ticketTop, ticketTop + count));
+    }
+
+    /**
+     * @param playerId the player
+     * @return the amount of cars of the player (int)
+     */
+    public int carCount(PlayerId playerId) {
+        return carCount[playerId.ordinal()];
+    }
+
+    /**
+     * @param playerId the player
+     * @return the amount of tickets of the player (int)
+     */
+    public int ticketCount(PlayerId playerId) {
+        return ticketCount[playerId.ordinal()];
+    }
+
+    /**
+     * @param playerId the player
+     * @param card     the kind of card
+     * @return the amount of cards of this kind the player has (int)
+     */
+    public int cardCount(PlayerId playerId, Card card) {
+        return cards[playerId.ordinal()][card.ordinal()];
+    }
+
+    /**
+     * @param playerId the player
+     * @return the cards of the player (CardBag)
+     */
+    public CardBag cards(PlayerId playerId) {
+        return cardBag(cards[playerId.ordinal()]);
+    }
+
+    /**
+     * @param playerId the player
+     * @return the routes claimed by the player, in the order they were claimed (List< Route >)
+     */
+    public List<Route> routes(PlayerId playerId) {
+        int p = playerId.ordinal();
+        List<Route> list = new ArrayList<>(routeCount[p]);
+        for (int i = 0; i < routeCount[p]; ++i)
+            list.add(ROUTES.get(routes[p][i]));
+        return list;
+    }
+
+    /**
+     * The owner of the given route.
+     *
+     * @param route the route
+     * @return the player who claimed the route, null if nobody did (PlayerId)
+     * @throws IllegalArgumentException if the route isn't a route of ChMap
+     */
+    public PlayerId routeOwner(Route route) {
+        int owner = routeOwner[RouteIndex.indexOf(route)];
+        return (owner == NOBODY) ? null : PlayerId.ALL.get(owner);
+    }
+
+    /**
+     * Tells if the current player can claim the given route: neither the route nor the other route
+     * between the same stations is claimed, and the player has the cars and cards needed.
+     *
+     * @param route the route
+     * @return true iff the current player can claim the route (boolean)
+     * @throws IllegalArgumentException if the route isn't a route of ChMap
+     */
+    public boolean canClaimRoute(Route route) {
+        if (!isRouteFree(RouteIndex.indexOf(route)))
+            return false;
+        if (route.length() > carCount[currentPlayer])
+            return false;
+
+        //Same rule as Route.canBeClaimedWith, on the counts of the cards
+        int[] playerCards = cards[currentPlayer];
+        int maxCarCount = 0;
+        if (route.color() != null) {
+            maxCarCount = playerCards[Card.of(route.color()).ordinal()];
+        } else {
+            for (int c = 0; c < Card.LOCOMOTIVE.ordinal(); ++c)
+                maxCarCount = Math.max(maxCarCount, playerCards[c]);
+        }
+        if (route.level() == Route.Level.UNDERGROUND)
+            maxCarCount += playerCards[Card.LOCOMOTIVE.ordinal()];
+        return maxCarCount >= route.length();
+    }
+
+    /**
+     * The points of the routes claimed by the given player.
+     *
+     * @param playerId the player
+     * @return the claim points (int)
+     */
+    public int claimPoints(PlayerId playerId) {
+        int p = playerId.ordinal();
+        int points = 0;
+        for (int i = 0; i < routeCount[p]; ++i)
+            points += ROUTES.get(routes[p][i]).claimPoints();
+        return points;
+    }
+
+    /**
+     * The points of the tickets of the given player (can be negative), same as {@link PlayerState#ticketPoints()}.
+     *
+     * @param playerId the player
+     * @return the ticket points (int)
+     */
+    public int ticketPoints(PlayerId playerId) {
+        int p = playerId.ordinal();
+        StationPartition.Builder builder = new StationPartition.Builder(ChMap.stations().size());
+        for (int i = 0; i < routeCount[p]; ++i) {
+            Route route = ROUTES.get(routes[p][i]);
+            builder.connect(route.station1(), route.station2());
+        }
+        StationPartition connectivity = builder.build();
+        int points = 0;
+        for (int i = 0; i < ticketCount[p]; ++i)
+            points += tickets[p][i].points(connectivity);
+        return points;
+    }
+
+    /**
+     * Method to know if the last turn begins, same as {@link GameState#lastTurnBegins()}.
+     *
+     * @return true if the current player has 2 cars or less and the lastPlayer is unknown (boolean)
+     */
+    public boolean lastTurnBegins() {
+        return lastPlayer == NOBODY && carCount[currentPlayer] <= Constants.END_GAME_CARS_COUNT;
+    }
+
+    /**
+     * Give the top card of the deck to the current player, same as {@link GameState#withBlindlyDrawnCard()}.
+     *
+     * @throws IllegalArgumentException if the deck is empty
+     */
+    public void drawBlindCard() {
+        Preconditions.checkArgument(deckSize > 0);
+        int card = deck[--deckSize];
+        ++cards[currentPlayer][card];
+        record(DRAW_BLIND_CARD, card, 0, 0, 0);
+    }
+
+    /**
+     * Gives the top card of the deck, same as {@link GameState#topCard()}.
+     *
+     * @return the top card of the deck (Card)
+     * @throws IllegalArgumentException if the deck is empty
+     */
+    public Card topDeckCard() {
+        Preconditions.checkArgument(deckSize > 0);
+        return CARDS[deck[deckSize - 1]];
+    }
+
+    /**
+     * Remove the top card of the deck, same as {@link GameState#withoutTopCard()}.
+     *
+     * @throws IllegalArgumentException if the deck is empty
+     */
+    public void removeTopDeckCard() {
+        Preconditions.checkArgument(deckSize > 0);
+        --deckSize;
+        record(REMOVE_TOP_CARD, deck[deckSize], 0, 0, 0);
+    }
+
+    /**
+     * Put the given cards in the discard, same as {@link GameState#withMoreDiscardedCards(SortedBag)}.
+     *
+     * @param discardedCards the cards
+     */
+    public void discardCards(CardBag discardedCards) {
+        long packedCards = pack(discardedCards);
+        for (int card = 0; card < Card.COUNT; ++card)
+            discard[card] += count(packedCards, card);
+        discardSize += discardedCards.size();
+        record(DISCARD_CARDS, 0, 0, 0, packedCards);
+    }
+
+    /**
+     * Give a face up card to the current player, same as {@link GameState#withDrawnFaceUpCard(int)}.
+     *
+     * @param slot the slot of the face up card, replaced by the top card of the deck
+     * @throws IllegalArgumentException  if the deck is empty
+     * @throws IndexOutOfBoundsException if the slot isn't a slot of the face up cards
+     */
+    public void drawFaceUpCard(int slot) {
+        Preconditions.checkArgument(deckSize > 0);
+        int card = faceUpCards[Objects.checkIndex(slot, Constants.FACE_UP_CARDS_COUNT)];
+        faceUpCards[slot] = deck[--deckSize];
+        ++cards[currentPlayer][card];
+        record(DRAW_FACE_UP_CARD, slot, card, 0, 0);
+    }
+
+    /**
+     * Recreate the deck from the discard if it is empty, same as {@link GameState#withCardsDeckRecreatedIfNeeded(Random)}
+     * (the same random number generator gives the same deck).
+     *
+     * @param rng the random number generator of the shuffle
+     */
+    public void recreateDeckIfNeeded(Random rng) {
+        if (deckSize > 0)
+            return;
+
+        //Same shuffle as Deck.of, the first card of the shuffled list is the top card
+        int size = shuffle(discard, rng);
+        for (int i = 0; i < size; ++i)
+            deck[size - 1 - i] = shuffled[i];
+
+        record(RECREATE_DECK, 0, 0, 0, pack(discard));
+        deckSize = size;
+        discardSize = 0;
+        Arrays.fill(discard, 0);
+    }
+
+    /**
+     * The current player claims the given route with the given cards, which are discarded,
+     * same as {@link GameState#withClaimedRoute(Route, SortedBag)}.
+     *
+     * @param route      the route
+     * @param claimCards the cards used to claim the route
+     * @throws IllegalArgumentException if the route isn't a route of ChMap
+     */
+    public void claimRoute(Route route, SortedBag<Card> claimCards) {
+        claimRoute(route, CardBag.of(claimCards));
+    }
+
+    /**
+     * Same as {@link #claimRoute(Route, SortedBag)} with packed cards.
+     *
+     * @param route      the route
+     * @param claimCards the cards used to claim the route
+     * @throws IllegalArgumentException if the route isn't a route of ChMap
+     */
+    public void claimRoute(Route route, CardBag claimCards) {
+        int index = RouteIndex.indexOf(route);
+        long packedCards = pack(claimCards);
+        int[] playerCards = cards[currentPlayer];
+        for (int card = 0; card < Card.COUNT; ++card) {
+            int count = count(packedCards, card);
+            playerCards[card] -= count;
+            discard[card] += count;
+            discardSize += count;
+        }
+        carCount[currentPlayer] -= route.length();
+        routeOwner[index] = currentPlayer;
+        routes[currentPlayer][routeCount[currentPlayer]++] = index;
+        record(CLAIM_ROUTE, index, 0, 0, packedCards);
+    }
+
+    /**
+     * Give the initially chosen tickets to the given player, same as
+     * {@link GameState#withInitiallyChosenTickets(PlayerId, SortedBag)}.
+     *
+     * @param playerId      the player
+     * @param chosenTickets the tickets chosen by the player
+     * @throws IllegalArgumentException if the player already has at least one ticket
+     */
+    public void chooseInitialTickets(PlayerId playerId, SortedBag<Ticket> chosenTickets) {
+        Preconditions.checkArgument(ticketCount[playerId.ordinal()] == 0);
+        takeTickets(playerId.ordinal(), 0, chosenTickets);
+    }
+
+    /**
+     * The current player draws tickets and keeps some of them, same as
+     * {@link GameState#withChosenAdditionalTickets(SortedBag, SortedBag)}.
+     *
+     * @param drawnTickets  the tickets drawn from the top of the deck
+     * @param chosenTickets the tickets kept
+     * @throws IllegalArgumentException if the <code>chosenTickets</code> are not included in the <code>drawnTickets</code>
+     */
+    public void chooseAdditionalTickets(SortedBag<Ticket> drawnTickets, SortedBag<Ticket> chosenTickets) {
+        Preconditions.checkArgument(drawnTickets.contains(chosenTickets));
+        takeTickets(currentPlayer, drawnTickets.size(), chosenTickets);
+    }
+
+    /**
+     * Remove tickets from the top of the deck, same as {@link GameState#withoutTopTickets(int)}.
+     *
+     * @param count the amount of tickets
+     * @throws IllegalArgumentException if <code>count</code> is not between 0 and the size of the tickets deck (included)
+     */
+    public void removeTopTickets(int count) {
+        Preconditions.checkArgument(count >= 0 && count <= ticketsCount());
+        takeTickets(currentPlayer, count, SortedBag.of());
+    }
+
+    /**
+     * End the turn of the current player, same as {@link GameState#forNextTurn()}.
+     */
+    public void nextTurn() {
+        record(NEXT_TURN, lastPlayer, 0, 0, 0);
+        if (lastTurnBegins())
+            lastPlayer = currentPlayer;
+        currentPlayer = 1 - currentPlayer;
+    }
+
+    /**
+     * The amount of moves applied since the state was created (and not undone).
+     *
+     * @return the amount of moves (int)
+     */
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Undo the last move.
+     *
+     * @throws IllegalStateException if no move has been applied
+     */
+    public void undo() {
+        if (moveCount == 0)
+            throw new IllegalStateException();
+
+        --moveCount;
+        long move = journal[2 * moveCount];
+        long movedCards = journal[2 * moveCount + 1];
+        int kind = (int) (move & 0xFF);
+        int a = (int) (move >> 8 & 0xFFFF) - 1;
+        int b = (int) (move >> 24 & 0xFFFF);
+        int c = (int) (move >>> 40);
+        switch (kind) {
+            case DRAW_BLIND_CARD:
+                --cards[currentPlayer][a];
+                deck[deckSize++] = a;
+                break;
+            case DRAW_FACE_UP_CARD:
+                deck[deckSize++] = faceUpCards[a];
+                faceUpCards[a] = b;
+                --cards[currentPlayer][b];
+                break;
+            case CLAIM_ROUTE:
+                int[] playerCards = cards[currentPlayer];
+                for (int card = 0; card < Card.COUNT; ++card) {
+                    int count = count(movedCards, card);
+                    playerCards[card] += count;
+                    discard[card] -= count;
+                    discardSize -= count;
+                }
+                carCount[currentPlayer] += ROUTES.get(a).length();
+                routeOwner[a] = NOBODY;
+                --routeCount[currentPlayer];
+                break;
+            case RECREATE_DECK:
+                for (int card = 0; card < Card.COUNT; ++card) {
+                    discard[card] = count(movedCards, card);
+                    discardSize += discard[card];
+                }
+                deckSize = 0;
+                break;
+            case REMOVE_TOP_CARD:
+                deck[deckSize++] = a;
+                break;
+            case DISCARD_CARDS:
+                for (int card = 0; card < Card.COUNT; ++card) {
+                    int count = count(movedCards, card);
+                    discard[card] -= count;
+                    discardSize -= count;
+                }
+                break;
+            case TAKE_TICKETS:
+                ticketCount[a] -= c;
+                ticketTop -= b;
+                break;
+            case NEXT_TURN:
+                currentPlayer = 1 - currentPlayer;
+                lastPlayer = a;
+                break;
+            default:
+                throw new Error();
+        }
+    }
+
+    /**
+     * Undo the moves applied after the given amount of moves.
+     *
+     * @param count the amount of moves to keep
+     * @throws IllegalArgumentException if <code>count</code> is negative or greater than the amount of moves
+     */
+    public void undoTo(int count) {
+        Preconditions.checkArgument(count >= 0 && count <= moveCount);
+        while (moveCount > count)
+            undo();
+    }
+
+    //Put the cards of the given counts in the shuffled array, in the order of the cards, and shuffle them
+    //as Collections.shuffle does. Returns the amount of cards
+    private int shuffle(int[] counts, Random rng) {
+        int size = 0;
+        for (int c = 0; c < Card.COUNT; ++c) {
+            for (int i = 0; i < counts[c]; ++i)
+                shuffled[size++] = c;
+        }
+        for (int i = size; i > 1; --i) {
+            int j = rng.nextInt(i);
+            int swapped = shuffled[i - 1];
+            shuffled[i - 1] = shuffled[j];
+            shuffled[j] = swapped;
+        }
+        return size;
+    }
+
+    //Take the top drawnCount tickets of the deck, and give the chosen ones to the player
+    private void takeTickets(int player, int drawnCount, SortedBag<Ticket> chosenTickets) {
+        Preconditions.checkArgument(drawnCount <= ticketsCount());
+        for (Ticket ticket : chosenTickets)
+            tickets[player][ticketCount[player]++] = ticket;
+        ticketTop += drawnCount;
+        record(TAKE_TICKETS, player, drawnCount, chosenTickets.size(), 0);
+    }
+
+    //Record a move in the journal: its kind, three small arguments (a can be NOBODY) and the packed cards it moved
+    private void record(int kind, int a, int b, int c, long movedCards) {
+        if (2 * moveCount + 1 >= journal.length)
+            journal = Arrays.copyOf(journal, 2 * journal.length);
+        journal[2 * moveCount] = kind | (long) (a + 1) << 8 | (long) b << 24 | (long) c << 40;
+        journal[2 * moveCount + 1] = movedCards;
+        ++moveCount;
+    }
+
+    private static long pack(int[] counts) {
+        long packed = 0;
+        for (int card = 0; card < Card.COUNT; ++card)
+            packed |= (long) counts[card] << (card * BITS_PER_CARD);
+        return packed;
+    }
+
+    private static long pack(CardBag bag) {
+        long packed = 0;
+        for (Card card : CARDS)
+            packed |= (long) bag.countOf(card) << (card.ordinal() * BITS_PER_CARD);
+        return packed;
+    }
+
+    private static int count(long packed, int card) {
+        return (int) (packed >>> (card * BITS_PER_CARD) & CARD_MASK);
+    }
+
+    private static int[] counts(CardBag bag) {
+        int[] counts = new int[Card.COUNT];
+        for (Card card : Card.ALL)
+            counts[card.ordinal()] = bag.countOf(card);
+        return counts;
+    }
+
+    private static CardBag cardBag(int[] counts) {
+        CardBag bag = CardBag.EMPTY;
+        for (Card card : Card.ALL)
+            bag = bag.union(CardBag.of(counts[card.ordinal()], card));
+        return bag;
+    }
+
+    //Tells if neither the route of the given index nor the other route between the same stations is claimed
+    boolean isRouteFree(int index) {
+        int neighbor = RouteIndex.neighborIndex(index);
+        return routeOwner[index] == NOBODY && (neighbor == RouteIndex.NO_ROUTE || routeOwner[neighbor] == NOBODY);
+    }
+
+    //The count of each kind of card of the current player, not to be modified
+    int[] currentPlayerCards() {
+        return cards[currentPlayer];
+    }
+}
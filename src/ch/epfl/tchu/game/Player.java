@@ -4,6 +4,7 @@ import ch.epfl.tchu.SortedBag;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Represent a player in tCHu.
@@ -22,11 +23,14 @@ public interface Player {
     void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames);
 
     /**
-     * get the lastChat that the player send.
+     * Give the player the function to call with each chat he sends, the chat is then pushed to the other participants.
+     * By default the player doesn't chat.
      *
-     * @return the chat. (String)
+     * @param chatSender the function receiving the chats of the player
      */
-    String lastChat();
+    default void connectChat(Consumer<String> chatSender) {
+        //do nothing, the player doesn't chat
+    }
 
     /**
      * used to inform the player he receive a new chat.
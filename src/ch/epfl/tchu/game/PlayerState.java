@@ -6,6 +6,7 @@ import ch.epfl.tchu.SortedBag;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * This class represent the whole state of a player.
@@ -17,8 +18,10 @@ import java.util.List;
 public final class PlayerState extends PublicPlayerState {
     //the tickets of the player
     private final SortedBag<Ticket> tickets;
-    //the cards of the player
-    private final SortedBag<Card> cards;
+    //the cards of the player, packed so that the operations on them don't allocate
+    private final CardBag cards;
+    //the connectivity of the routes of the player, extended at each claimed route
+    private final StationPartition connectivity;
 
     /**
      * Construct a new PlayerState, with tickets, given cards and given routes.
@@ -28,9 +31,15 @@ public final class PlayerState extends PublicPlayerState {
      * @param routes  the routes of the player (that he already claimed).
      */
     public PlayerState(SortedBag<Ticket> tickets, SortedBag<Card> cards, List<Route> routes) {
+        this(tickets, CardBag.of(cards), routes, connectivity(routes));
+    }
+
+    //Construct a new PlayerState from packed cards and the connectivity of the routes
+    private PlayerState(SortedBag<Ticket> tickets, CardBag cards, List<Route> routes, StationPartition connectivity) {
         super(tickets.size(), cards.size(), routes);
         this.cards = cards;
         this.tickets = tickets;
+        this.connectivity = connectivity;
     }
 
     /**
@@ -66,7 +75,7 @@ public final class PlayerState extends PublicPlayerState {
         newTicketsBuilder.add(tickets);
         newTicketsBuilder.add(newTickets);
 
-        return new PlayerState(newTicketsBuilder.build(), cards, routes());
+        return new PlayerState(newTicketsBuilder.build(), cards, routes(), connectivity);
     }
 
     /**
@@ -75,7 +84,16 @@ public final class PlayerState extends PublicPlayerState {
      * @return the cards of the player. (SortedBag)
      */
     public SortedBag<Card> cards() {
-        return SortedBag.of(cards);
+        return cards.toSortedBag();
+    }
+
+    /**
+     * The cards of the player, packed (cheaper than <code>cards()</code>).
+     *
+     * @return the cards of the player. (CardBag)
+     */
+    public CardBag cardBag() {
+        return cards;
     }
 
     /**
@@ -85,11 +103,7 @@ public final class PlayerState extends PublicPlayerState {
      * @return a PlayerState with the added card. (PlayerState)
      */
     public PlayerState withAddedCard(Card card) {
-        SortedBag.Builder<Card> newCardsBuilder = new SortedBag.Builder<>();
-        newCardsBuilder.add(cards);
-        newCardsBuilder.add(card);
-
-        return new PlayerState(tickets, newCardsBuilder.build(), routes());
+        return new PlayerState(tickets, cards.with(card), routes(), connectivity);
     }
     /**
      * Determine if the player can claim a route depending on his state.
@@ -103,10 +117,7 @@ public final class PlayerState extends PublicPlayerState {
             return false;
 
         //Sufficient  cards
-        for (SortedBag<Card> l : route.possibleClaimCards())
-            if (cards.contains(l))
-                return true;
-        return false;
+        return route.canBeClaimedWith(cards);
     }
 
     /**
@@ -120,10 +131,12 @@ public final class PlayerState extends PublicPlayerState {
         //Check correctness of the argument
         Preconditions.checkArgument(route.length() <= carCount());
         //Check if the player has the required cards
+        List<SortedBag<Card>> allClaimCards = route.possibleClaimCards();
+        List<CardBag> allClaimCardBags = route.possibleClaimCardBags();
         List<SortedBag<Card>> possibleClaimCards = new ArrayList<>();
-        for (SortedBag<Card> cardList : route.possibleClaimCards()) {
-            if (cards.contains(cardList))
-                possibleClaimCards.add(cardList);
+        for (int i = 0; i < allClaimCards.size(); ++i) {
+            if (cards.contains(allClaimCardBags.get(i)))
+                possibleClaimCards.add(allClaimCards.get(i));
         }
         return possibleClaimCards;
     }
@@ -150,7 +163,7 @@ public final class PlayerState extends PublicPlayerState {
 
         //Variables required to list the additional cards
         SortedBag.Builder<Card> playableCards = new SortedBag.Builder<>();
-        SortedBag<Card> newCards = cards.difference(initialCards);
+        CardBag newCards = cards.difference(CardBag.of(initialCards));
         SortedBag.Builder<Card> additionalCard = new SortedBag.Builder<>();
 
         //Determine which cards can be played as additional cards
@@ -160,16 +173,19 @@ public final class PlayerState extends PublicPlayerState {
                     additionalCard.add(c2);
             }
         }
-        for (Card c : newCards) {
+        for (Card c : Card.ALL) {
             for (Card c2 : additionalCard.build().toSet()) {
-                if (c.equals(c2) || c.equals(Card.LOCOMOTIVE))
-                    playableCards.add(c);
+                //Each kind of card is added once, even if it matches several kinds of additional cards
+                if (c.equals(c2) || c.equals(Card.LOCOMOTIVE)) {
+                    playableCards.add(newCards.countOf(c), c);
+                    break;
+                }
             }
         }
 
         //Construct a list containing all possible set of card that can be played as additional cards
         List<SortedBag<Card>> options = (additionalCardsCount <= playableCards.size())
-                ? new ArrayList<>(playableCards.build().subsetsOfSize(additionalCardsCount))
+                ? playableCards.build().subsetsOfSizeStream(additionalCardsCount).collect(Collectors.toList())
                 : new ArrayList<>();
 
         //Sort the List of possible additional cards depending on the amount of locomotives
@@ -187,12 +203,13 @@ public final class PlayerState extends PublicPlayerState {
      */
     public PlayerState withClaimedRoute(Route route, SortedBag<Card> claimCards) {
         //Set the new cards of the player
-        SortedBag<Card> newCards = cards.difference(claimCards);
+        CardBag newCards = cards.difference(CardBag.of(claimCards));
         //Add the route to the list of routes
         List<Route> newRoutes = new ArrayList<>(routes());
         newRoutes.add(route);
 
-        return new PlayerState(tickets, newCards, newRoutes);
+        return new PlayerState(tickets, newCards, newRoutes,
+                connectivity.withConnected(route.station1(), route.station2()));
     }
 
     /**
@@ -201,23 +218,10 @@ public final class PlayerState extends PublicPlayerState {
      * @return The amount of points of the tickets. (int)
      */
     public int ticketPoints() {
-        //Get the biggest id
-        int maxId = 0;
-        for (Route r : routes()) {
-            maxId = Math.max(r.station1().id(), maxId);
-            maxId = Math.max(r.station2().id(), maxId);
-        }
-
-        //Create the partition of the connectivity
-        StationPartition.Builder partitionBuilder = new StationPartition.Builder(maxId + 1);
-        for (Route r : routes())
-            partitionBuilder.connect(r.station1(), r.station2());
-
         //Calculate the total points given by the ticket
-        StationPartition partition = partitionBuilder.build();
         int totalTicketsPoints = 0;
         for (Ticket t : tickets)
-            totalTicketsPoints += t.points(partition);
+            totalTicketsPoints += t.points(connectivity);
 
         return totalTicketsPoints;
     }
@@ -230,4 +234,19 @@ public final class PlayerState extends PublicPlayerState {
     public int finalPoints() {
         return claimPoints() + ticketPoints();
     }
+
+    //Create the partition of the connectivity of the given routes
+    private static StationPartition connectivity(List<Route> routes) {
+        //Get the biggest id
+        int maxId = 0;
+        for (Route r : routes) {
+            maxId = Math.max(r.station1().id(), maxId);
+            maxId = Math.max(r.station2().id(), maxId);
+        }
+
+        StationPartition.Builder partitionBuilder = new StationPartition.Builder(maxId + 1);
+        for (Route r : routes)
+            partitionBuilder.connect(r.station1(), r.station2());
+        return partitionBuilder.build();
+    }
 }
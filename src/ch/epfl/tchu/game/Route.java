@@ -14,6 +14,8 @@ import java.util.*;
  * @author Selien Wicki (314357)
  */
 public final class Route {
+    //The cars, in an array to go through them without an iterator
+    private static final Card[] CARS = Card.CARS.toArray(new Card[0]);
 
     //First station of the route
     private final Station station1;
@@ -27,6 +29,9 @@ public final class Route {
     private final Level level;
     //The color of the route (null if no color)
     private final Color color;
+    //The sets of cards that can claim the route, computed once (the route is immutable)
+    private final List<SortedBag<Card>> possibleClaimCards;
+    private final List<CardBag> possibleClaimCardBags;
 
 
     /**
@@ -66,6 +71,13 @@ public final class Route {
         //Init vars length color
         this.length = length;
         this.color = color;
+
+        //Init the claim cards
+        this.possibleClaimCards = computePossibleClaimCards();
+        List<CardBag> cardBags = new ArrayList<>(possibleClaimCards.size());
+        for (SortedBag<Card> claimCards : possibleClaimCards)
+            cardBags.add(CardBag.of(claimCards));
+        this.possibleClaimCardBags = List.copyOf(cardBags);
     }
 
     /**
@@ -148,30 +160,60 @@ public final class Route {
 
     /**
      * Gives all the possible sets of cards a player could play to claim the route.
+     * The list is computed once and shared, it is immutable.
      *
      * @return a list of all the possible sets of cards to claim the route (List< SortedBag< Card >>)
      */
     public List<SortedBag<Card>> possibleClaimCards() {
-        //List using SortedBag.Builder to creat a list of a list of all possible ClaimCards
+        return possibleClaimCards;
+    }
+
+    /**
+     * Same as <code>possibleClaimCards()</code>, in the same order, with packed sets of cards.
+     *
+     * @return a list of all the possible sets of cards to claim the route (List< CardBag >)
+     */
+    public List<CardBag> possibleClaimCardBags() {
+        return possibleClaimCardBags;
+    }
+
+    /**
+     * Used to know if the given cards are enough to claim the route,
+     * answered from the count of each kind of card without going through the possible claim cards.
+     *
+     * @param cards the cards of a player
+     * @return true iff one of the possible claim cards is contained in <code>cards</code> (boolean)
+     */
+    public boolean canBeClaimedWith(CardBag cards) {
+        //the cars of the route (all of them if it has no color)
+        int maxCarCount = (color != null) ? cards.countOf(Card.of(color)) : 0;
+        if (color == null) {
+            for (Card card : CARS)
+                maxCarCount = Math.max(maxCarCount, cards.countOf(card));
+        }
+        //only the tunnels accept locomotives
+        return (level == Level.UNDERGROUND)
+                ? maxCarCount + cards.countOf(Card.LOCOMOTIVE) >= length
+                : maxCarCount >= length;
+    }
+
+    //Generate the list of all possible sets of playable cards
+    private List<SortedBag<Card>> computePossibleClaimCards() {
         List<SortedBag<Card>> allPossibleClaimCards = new ArrayList<>();
-        //SortedBag.Builder singlePossibleClaimCards = new SortedBag.Builder();
         List<Card> listOfPlayableCars = (color != null) ? Collections.singletonList(Card.of(color)) : Card.CARS;
 
-        //Generate a list of a list of all possible sets of playable cards
-            for (int numberOfLoco = 0; numberOfLoco <= length; ++numberOfLoco) {
-                for (Card card : listOfPlayableCars) {
-                    if(level.equals(Level.UNDERGROUND)){
-                        allPossibleClaimCards.add(SortedBag.of(length - numberOfLoco, card, numberOfLoco, Card.LOCOMOTIVE));
-                        //get out of the loop when we have added full loco
-                        if (numberOfLoco == length)
-                            break;
-                    }else{
-                            if(!allPossibleClaimCards.contains(SortedBag.of(length, card)))
-                            allPossibleClaimCards.add(SortedBag.of(length, card));
-                    }
-                }
+        if (level.equals(Level.UNDERGROUND)) {
+            for (int numberOfLoco = 0; numberOfLoco < length; ++numberOfLoco) {
+                for (Card card : listOfPlayableCars)
+                    allPossibleClaimCards.add(SortedBag.of(length - numberOfLoco, card, numberOfLoco, Card.LOCOMOTIVE));
             }
-        return allPossibleClaimCards;
+            //full loco only once
+            allPossibleClaimCards.add(SortedBag.of(length, Card.LOCOMOTIVE));
+        } else {
+            for (Card card : listOfPlayableCars)
+                allPossibleClaimCards.add(SortedBag.of(length, card));
+        }
+        return List.copyOf(allPossibleClaimCards);
     }
 
 
@@ -203,6 +245,32 @@ public final class Route {
         return additionalClaimCardsCount;
     }
 
+    /**
+     * Same as {@link #additionalClaimCardsCount(SortedBag, SortedBag)} with packed cards.
+     *
+     * @param claimCards the cards the player has played
+     * @param drawnCards the 3 top cards of the deck
+     * @return the additional cards the player must play to claim the route (int)
+     * @throws IllegalArgumentException if the level of the route is underground
+     *                                  and if the size of <code>drawnCards</code> is not equal 3
+     */
+    public int additionalClaimCardsCount(CardBag claimCards, CardBag drawnCards) {
+        //Check if the route is indeed an underground route
+        Preconditions.checkArgument(level.equals(Level.UNDERGROUND));
+        Preconditions.checkArgument(drawnCards.size() == Constants.ADDITIONAL_TUNNEL_CARDS);
+        //If the player has more or less cards in front than possible
+        Preconditions.checkArgument(claimCards.size() >= Constants.MIN_ROUTE_LENGTH &&
+                claimCards.size() <= Constants.MAX_ROUTE_LENGTH);
+
+        //Count the number of the additional card
+        int additionalClaimCardsCount = 0;
+        for (Card d : Card.ALL) {
+            if (claimCards.contains(d) || d.equals(Card.LOCOMOTIVE))
+                additionalClaimCardsCount += drawnCards.countOf(d);
+        }
+        return additionalClaimCardsCount;
+    }
+
     /**
      * Return the amount of point given by the route.
      *
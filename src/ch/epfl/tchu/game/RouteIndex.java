@@ -0,0 +1,152 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the routes of ChMap, computed once: the index of each route in ChMap.routes(), the other route
+ * between the same stations (the neighbor of a double route), the routes of each station and the routes of
+ * each color and level, all given in constant time.
+ * It is public, final and non instantiable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class RouteIndex {
+    /**
+     * The index of no route.
+     */
+    public static final int NO_ROUTE = -1;
+
+    //The routes, the index of each one and the index of its neighbor
+    private static final List<Route> ROUTES = ChMap.routes();
+    private static final Map<Route, Integer> INDEXES = new HashMap<>();
+    private static final int[] NEIGHBORS = new int[ROUTES.size()];
+    //The routes of each station, by id
+    private static final List<List<Route>> STATION_ROUTES = new ArrayList<>();
+    //The routes of each color (neutral first) and level
+    private static final List<List<Route>> COLOR_LEVEL_ROUTES = new ArrayList<>();
+
+    static {
+        Map<List<Station>, Integer> firstOfStations = new HashMap<>();
+        Arrays.fill(NEIGHBORS, NO_ROUTE);
+        for (int i = 0; i < ROUTES.size(); ++i) {
+            Route route = ROUTES.get(i);
+            INDEXES.put(route, i);
+            Integer neighbor = firstOfStations.putIfAbsent(route.stations(), i);
+            if (neighbor != null) {
+                NEIGHBORS[i] = neighbor;
+                NEIGHBORS[neighbor] = i;
+            }
+        }
+
+        int stationCount = 0;
+        for (Station station : ChMap.stations())
+            stationCount = Math.max(stationCount, station.id() + 1);
+        List<List<Route>> stationRoutes = new ArrayList<>();
+        for (int s = 0; s < stationCount; ++s)
+            stationRoutes.add(new ArrayList<>());
+        List<List<Route>> colorLevelRoutes = new ArrayList<>();
+        for (int c = 0; c < (Color.COUNT + 1) * Route.Level.values().length; ++c)
+            colorLevelRoutes.add(new ArrayList<>());
+        for (Route route : ROUTES) {
+            stationRoutes.get(route.station1().id()).add(route);
+            stationRoutes.get(route.station2().id()).add(route);
+            colorLevelRoutes.get(colorLevelIndex(route.color(), route.level())).add(route);
+        }
+        stationRoutes.forEach(routes -> STATION_ROUTES.add(List.copyOf(routes)));
+        colorLevelRoutes.forEach(routes -> COLOR_LEVEL_ROUTES.add(List.copyOf(routes)));
+    }
+
+    //this class is non instantiable
+    private RouteIndex() {}
+
+    /**
+     * The index of the route in ChMap.routes().
+     *
+     * @param route the route
+     * @return the index of the route (int)
+     * @throws IllegalArgumentException if the route isn't a route of ChMap
+     */
+    public static int indexOf(Route route) {
+        Integer index = INDEXES.get(route);
+        Preconditions.checkArgument(index != null);
+        return index;
+    }
+
+    /**
+     * The route of the given index in ChMap.routes().
+     *
+     * @param index the index
+     * @return the route (Route)
+     * @throws IndexOutOfBoundsException if the index is not between 0 (included) and the amount of routes (excluded)
+     */
+    public static Route route(int index) {
+        return ROUTES.get(index);
+    }
+
+    /**
+     * The amount of routes of ChMap.
+     *
+     * @return the amount of routes (int)
+     */
+    public static int count() {
+        return ROUTES.size();
+    }
+
+    /**
+     * The index of the other route between the same stations.
+     *
+     * @param index the index of a route
+     * @return the index of its neighbor, NO_ROUTE if the route is simple (int)
+     * @throws IndexOutOfBoundsException if the index is not between 0 (included) and the amount of routes (excluded)
+     */
+    public static int neighborIndex(int index) {
+        return NEIGHBORS[index];
+    }
+
+    /**
+     * The other route between the same stations.
+     *
+     * @param route a route of ChMap
+     * @return its neighbor, null if the route is simple (Route)
+     * @throws IllegalArgumentException if the route isn't a route of ChMap
+     */
+    public static Route neighbor(Route route) {
+        int neighbor = NEIGHBORS[indexOf(route)];
+        return (neighbor == NO_ROUTE) ? null : ROUTES.get(neighbor);
+    }
+
+    /**
+     * The routes of ChMap linked to the given station, in the order of ChMap.routes().
+     *
+     * @param station the station
+     * @return the routes of the station, immutable (List< Route >)
+     * @throws IllegalArgumentException if the id of the station isn't the id of a station of ChMap
+     */
+    public static List<Route> routesOf(Station station) {
+        Preconditions.checkArgument(station.id() >= 0 && station.id() < STATION_ROUTES.size());
+        return STATION_ROUTES.get(station.id());
+    }
+
+    /**
+     * The routes of ChMap of the given color and level, in the order of ChMap.routes().
+     *
+     * @param color the color, null for the neutral routes
+     * @param level the level
+     * @return the routes of this color and level, immutable (List< Route >)
+     */
+    public static List<Route> routesOf(Color color, Route.Level level) {
+        return COLOR_LEVEL_ROUTES.get(colorLevelIndex(color, level));
+    }
+
+    private static int colorLevelIndex(Color color, Route.Level level) {
+        int colorIndex = (color == null) ? 0 : color.ordinal() + 1;
+        return colorIndex * Route.Level.values().length + level.ordinal();
+    }
+}
@@ -0,0 +1,26 @@
+package ch.epfl.tchu.game;
+
+/**
+ * Represent an observer of a game in tCHu: it follows the public state of the game and its infos,
+ * but never sees the private state of a player.
+ * Its methods are called by the thread playing the game, they must return quickly.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public interface Spectator {
+
+    /**
+     * used to inform the spectator of an info of the game.
+     *
+     * @param info the info of the game
+     */
+    void receiveInfo(String info);
+
+    /**
+     * used to inform the spectator of the new public state of the game.
+     *
+     * @param newState the new public state of the game (never a GameState)
+     */
+    void updateState(PublicGameState newState);
+}
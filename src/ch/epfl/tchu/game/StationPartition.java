@@ -2,6 +2,8 @@ package ch.epfl.tchu.game;
 
 import ch.epfl.tchu.Preconditions;
 
+import java.util.Arrays;
+
 /**
  * This class represent the connectivity network of the player,
  * in the form of a partition of stations,
@@ -15,10 +17,36 @@ public final class StationPartition implements StationConnectivity {
     //the partition of the network.
     private final int[] partition;
 
-    //Creates a station partition
+    //Creates a station partition, the array isn't copied
     private StationPartition(int[] partition) {
-        //copy of the tab by values
-        this.partition = partition.clone();
+        this.partition = partition;
+    }
+
+    /**
+     * Gives the partition with the given stations connected, to extend the partition of a player by one route
+     * without building it again from all the routes. The partition grows if a station isn't in it.
+     *
+     * @param s1 the first station to connect.
+     * @param s2 the second station to connect.
+     * @return the new StationPartition, or this one if the stations are already connected. (StationPartition)
+     */
+    public StationPartition withConnected(Station s1, Station s2) {
+        if (connected(s1, s2))
+            return this;
+
+        //copy of the partition, the new stations have themselves for representative
+        int[] newPartition = Arrays.copyOf(partition, Math.max(partition.length, Math.max(s1.id(), s2.id()) + 1));
+        for (int i = partition.length; i < newPartition.length; ++i)
+            newPartition[i] = i;
+
+        //the stations represented by the representative of s1 take the representative of s2
+        int s1Representative = newPartition[s1.id()];
+        int s2Representative = newPartition[s2.id()];
+        for (int i = 0; i < newPartition.length; ++i) {
+            if (newPartition[i] == s1Representative)
+                newPartition[i] = s2Representative;
+        }
+        return new StationPartition(newPartition);
     }
 
     @Override
@@ -41,8 +69,10 @@ public final class StationPartition implements StationConnectivity {
      */
     public static final class Builder {
 
-        //the first version of the partition
+        //the first version of the partition (a forest, each station points to its parent)
         private final int[] builderPartition;
+        //the rank of each representative (bounds the height of its tree)
+        private final byte[] ranks;
 
         /**
          * Construct a Builder with a certain number of Stations.
@@ -59,6 +89,7 @@ public final class StationPartition implements StationConnectivity {
             for (int i = 0; i < stationCount; ++i) {
                 builderPartition[i] = i;
             }
+            ranks = new byte[stationCount];
         }
 
         /**
@@ -68,13 +99,22 @@ public final class StationPartition implements StationConnectivity {
          * @param s2 the second station we want to connect.
          * @return the current instance of the builder,
          * with the two station connected
-         * (indeed the representative of one is setup like the representative of the other). (Builder)
+         * (indeed the representative of the lower tree gets the representative of the other). (Builder)
          */
         public Builder connect(Station s1, Station s2) {
             int s1RepresentativeIndex = representative(s1.id());
             int s2RepresentativeIndex = representative(s2.id());
-            builderPartition[s1RepresentativeIndex] = s2RepresentativeIndex;
-
+            if (s1RepresentativeIndex == s2RepresentativeIndex)
+                return this;
+
+            //union by rank, so that the trees stay flat
+            if (ranks[s1RepresentativeIndex] > ranks[s2RepresentativeIndex]) {
+                builderPartition[s2RepresentativeIndex] = s1RepresentativeIndex;
+            } else {
+                builderPartition[s1RepresentativeIndex] = s2RepresentativeIndex;
+                if (ranks[s1RepresentativeIndex] == ranks[s2RepresentativeIndex])
+                    ++ranks[s2RepresentativeIndex];
+            }
             return this;
         }
 
@@ -85,19 +125,22 @@ public final class StationPartition implements StationConnectivity {
          * @return the new StationPartition. (StationPartition)
          */
         public StationPartition build() {
+            int[] partition = new int[builderPartition.length];
             for (int i = 0; i < builderPartition.length; ++i) {
-                builderPartition[i] = representative(i);
+                partition[i] = representative(i);
             }
-            return new StationPartition(builderPartition);
+            return new StationPartition(partition);
         }
 
 
-        //Find and return the index of the representative of a given station id.
+        //Find and return the index of the representative of a given station id,
+        //each visited station is linked to its grandparent (path halving) to shorten the next searches.
         private int representative(int id) {
             int representativeIndex = id;
 
             while (builderPartition[representativeIndex]
                     != representativeIndex) {
+                builderPartition[representativeIndex] = builderPartition[builderPartition[representativeIndex]];
                 representativeIndex = builderPartition[representativeIndex];
             }
             return representativeIndex;
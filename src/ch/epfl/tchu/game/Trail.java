@@ -38,49 +38,340 @@ public final class Trail {
 
     /**
      * Gives the longest possible trail.
+     * The trails are explored depth first on the graph of the stations, the trails that can't become longer
+     * than the longest one found are cut early, and the Trail is only built for the longest one.
      *
      * @param routes the list of all possible routes
      * @return the longest trail of multiple routes (Trail)
      */
     public static Trail longest(List<Route> routes) {
-        //longestTrail, will be set and returned at the end
-        Trail longestTrail = new Trail(new ArrayList<>(), new ArrayList<>());
-
-        //Create a list of all Trails of singles roads and generate list with trails of single roads
-        List<Trail> trails = new ArrayList<>();
-        for (Route r : routes) {
-            //Two possible directions of a trail
-            trails.add(new Trail(Collections.singletonList(r), Arrays.asList(r.station1(), r.station2())));
-            trails.add(new Trail(Collections.singletonList(r), Arrays.asList(r.station2(), r.station1())));
-        }
-
-        //Find longest trail
-        while (!trails.isEmpty()) {
-            //New list of trails that will extend the already existing trails
-            List<Trail> extendedTrails = new ArrayList<>();
-
-            for (Trail trail : trails) {
-                //Set longest trail
-                if (longestTrail.length < trail.length)
-                    longestTrail = new Trail(trail.routes, trail.stations);
-
-                //Find trail extensions
-                for (Route route : routes) {
-                    if ((route.station2().equals(trail.lastStation) || route.station1().equals(trail.lastStation)) && !trail.contains(route)) {
-                        //Set the new extended roads of the trail
-                        List<Route> extendedTrailRoute = new ArrayList<>(trail.routes);
-                        List<Station> extendedStations = new ArrayList<>(trail.stations);
-                        extendedTrailRoute.add(route);
-                        extendedStations.add(route.stationOpposite(trail.lastStation));
-                        extendedTrails.add(new Trail(extendedTrailRoute, extendedStations));
+        LongestTrailSearch search = new LongestTrailSearch(routes);
+        search.run();
+
+        //Build the longest trail
+        List<Route> trailRoutes = new ArrayList<>(search.bestDepth);
+        List<Station> trailStations = new ArrayList<>(search.bestDepth + 1);
+        if (search.bestDepth > 0) {
+            Station station = search.stations.get(search.bestStart);
+            trailStations.add(station);
+            for (int i = 0; i < search.bestDepth; ++i) {
+                Route route = routes.get(search.edgeRoute[search.bestPath[i]]);
+                station = route.stationOpposite(station);
+                trailRoutes.add(route);
+                trailStations.add(station);
+            }
+        }
+        return new Trail(trailRoutes, trailStations);
+    }
+
+    //Depth first search of the longest trail on the graph of the stations.
+    //The edges of the graph are the pairs of linked stations: a trail can only take one of the routes of
+    //a double route, so only the longest of them is kept.
+    //A longest trail can always be chosen so that it can't be extended at its ends: it then uses all the edges
+    //of its first and last stations, which have an odd degree unless the trail is closed.
+    private static final class LongestTrailSearch {
+        //The stations of the routes
+        private final List<Station> stations = new ArrayList<>();
+        //The stations, length and route of each edge
+        private final int[] edgeStation1;
+        private final int[] edgeStation2;
+        private final int[] edgeLength;
+        private final int[] edgeRoute;
+        //The edges of each station, longest first
+        private final int[][] adjacency;
+        //The length of the shortest edge of each station
+        private final int[] minEdgeLength;
+        //The amount of unused edges of each station
+        private final int[] remainingDegree;
+        //The edges in the current trail
+        private final long[] usedEdges;
+        //The current trail
+        private final int[] path;
+        private int depth;
+        private int pathLength;
+        //The longest trail found
+        private final int[] bestPath;
+        private int bestDepth;
+        private int bestStart;
+        private int bestLength;
+        //Work arrays of the bound
+        private final int[] queue;
+        private final int[] visited;
+        private final int[] deadEndNeighbour;
+        private int visit;
+        //The states (station and used edges) already explored: the end of a trail doesn't depend on the order
+        //of its edges, so a state reached again in another order is skipped
+        private final ExploredStates exploredStates;
+
+        private LongestTrailSearch(List<Route> routes) {
+            //Index the stations, and keep one route per pair of stations
+            Map<Station, Integer> stationIndex = new HashMap<>();
+            List<Integer> routeOfEdge = new ArrayList<>();
+            for (int i = 0; i < routes.size(); ++i) {
+                Route route = routes.get(i);
+                indexOf(stationIndex, route.station1());
+                indexOf(stationIndex, route.station2());
+                int edge = 0;
+                while (edge < routeOfEdge.size() && !routes.get(routeOfEdge.get(edge)).stations().containsAll(route.stations()))
+                    ++edge;
+                if (edge == routeOfEdge.size())
+                    routeOfEdge.add(i);
+                else if (routes.get(routeOfEdge.get(edge)).length() < route.length())
+                    routeOfEdge.set(edge, i);
+            }
+
+            //Init the edges
+            int edgeCount = routeOfEdge.size();
+            int stationCount = stations.size();
+            edgeStation1 = new int[edgeCount];
+            edgeStation2 = new int[edgeCount];
+            edgeLength = new int[edgeCount];
+            edgeRoute = new int[edgeCount];
+            remainingDegree = new int[stationCount];
+            minEdgeLength = new int[stationCount];
+            Arrays.fill(minEdgeLength, Integer.MAX_VALUE);
+            for (int e = 0; e < edgeCount; ++e) {
+                Route route = routes.get(routeOfEdge.get(e));
+                edgeRoute[e] = routeOfEdge.get(e);
+                edgeStation1[e] = stationIndex.get(route.station1());
+                edgeStation2[e] = stationIndex.get(route.station2());
+                edgeLength[e] = route.length();
+                for (int s : new int[]{edgeStation1[e], edgeStation2[e]}) {
+                    ++remainingDegree[s];
+                    minEdgeLength[s] = Math.min(minEdgeLength[s], route.length());
+                }
+            }
+
+            //Index the edges of each station, longest first to find long trails early
+            adjacency = new int[stationCount][];
+            int[] degree = new int[stationCount];
+            for (int s = 0; s < stationCount; ++s)
+                adjacency[s] = new int[remainingDegree[s]];
+            for (int e = 0; e < edgeCount; ++e) {
+                for (int s : new int[]{edgeStation1[e], edgeStation2[e]}) {
+                    int i = degree[s]++;
+                    for (; i > 0 && edgeLength[adjacency[s][i - 1]] < edgeLength[e]; --i)
+                        adjacency[s][i] = adjacency[s][i - 1];
+                    adjacency[s][i] = e;
+                }
+            }
+
+            usedEdges = new long[(edgeCount + Long.SIZE - 1) / Long.SIZE];
+            path = new int[edgeCount];
+            bestPath = new int[edgeCount];
+            queue = new int[stationCount];
+            visited = new int[stationCount];
+            deadEndNeighbour = new int[stationCount];
+            exploredStates = new ExploredStates(usedEdges.length + 1);
+        }
+
+        //Explore the trails starting from the stations of odd degree,
+        //and from the first station of each part of the graph where all the degrees are even (closed trails)
+        private void run() {
+            boolean[] reached = new boolean[stations.size()];
+            for (int s = 0; s < stations.size(); ++s) {
+                boolean evenPart = false;
+                if (!reached[s]) {
+                    evenPart = true;
+                    int reachedCount = reachableStations(s);
+                    for (int i = 0; i < reachedCount; ++i) {
+                        reached[queue[i]] = true;
+                        evenPart &= remainingDegree[queue[i]] % 2 == 0;
+                    }
+                }
+                if (remainingDegree[s] % 2 == 1 || evenPart)
+                    extend(s, s);
+            }
+        }
+
+        //Extend the current trail (from start to station) with every unused edge of station
+        private void extend(int start, int station) {
+            if (pathLength > bestLength) {
+                bestLength = pathLength;
+                bestDepth = depth;
+                bestStart = start;
+                System.arraycopy(path, 0, bestPath, 0, depth);
+            }
+            if (!exploredStates.add(usedEdges, station) || pathLength + maxRemainingLength(station) <= bestLength)
+                return;
+
+            for (int edge : adjacency[station]) {
+                if (isUsed(edge))
+                    continue;
+                int next = opposite(edge, station);
+
+                usedEdges[edge >>> 6] |= 1L << edge;
+                path[depth++] = edge;
+                pathLength += edgeLength[edge];
+                --remainingDegree[station];
+                --remainingDegree[next];
+
+                extend(start, next);
+
+                ++remainingDegree[next];
+                ++remainingDegree[station];
+                pathLength -= edgeLength[edge];
+                --depth;
+                usedEdges[edge >>> 6] &= ~(1L << edge);
+            }
+        }
+
+        //Upper bound of the length the trail can still gain from station: the unused edges reachable from it,
+        //minus the edges that must stay unused. Except station and the last station of the trail, a station with
+        //one unused edge (a dead end) leaves it unused, and a station with an odd amount of unused edges leaves at
+        //least one of them unused, which can be shared with another station.
+        private int maxRemainingLength(int station) {
+            //Unused edges reachable from station (each one is seen from both its stations)
+            int doubleLength = 0;
+            int reached = reachableStations(station);
+            for (int i = 0; i < reached; ++i) {
+                for (int edge : adjacency[queue[i]]) {
+                    if (!isUsed(edge))
+                        doubleLength += edgeLength[edge];
+                }
+            }
+
+            //Dead ends, their neighbours don't need another unused edge
+            int deadEndLength = 0, maxDeadEndLength = 0;
+            for (int i = 1; i < reached; ++i) {
+                int s = queue[i];
+                if (remainingDegree[s] == 1) {
+                    for (int edge : adjacency[s]) {
+                        if (!isUsed(edge)) {
+                            deadEndLength += edgeLength[edge];
+                            maxDeadEndLength = Math.max(maxDeadEndLength, edgeLength[edge]);
+                            deadEndNeighbour[opposite(edge, s)] = visit;
+                        }
                     }
                 }
             }
-            //Set the new extended trails
-            trails.clear();
-            trails.addAll(extendedTrails);
+
+            //Other stations with an odd amount of unused edges
+            int oddLength = 0, maxOddLength = 0;
+            for (int i = 1; i < reached; ++i) {
+                int s = queue[i];
+                if (remainingDegree[s] % 2 == 1 && remainingDegree[s] > 1 && deadEndNeighbour[s] != visit) {
+                    oddLength += minEdgeLength[s];
+                    maxOddLength = Math.max(maxOddLength, minEdgeLength[s]);
+                }
+            }
+
+            //The last station of the trail is the one saving the most (lengths are doubled to share the edges)
+            int doubleUnusedLength = 2 * deadEndLength + oddLength - Math.max(2 * maxDeadEndLength, maxOddLength);
+            return (doubleLength - doubleUnusedLength) / 2;
+        }
+
+        //Put the stations reachable from station by unused edges in the queue, station first, return their amount
+        private int reachableStations(int station) {
+            ++visit;
+            int head = 0, tail = 0;
+            queue[tail++] = station;
+            visited[station] = visit;
+            while (head < tail) {
+                int s = queue[head++];
+                for (int edge : adjacency[s]) {
+                    int next = opposite(edge, s);
+                    if (!isUsed(edge) && visited[next] != visit) {
+                        visited[next] = visit;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            return tail;
+        }
+
+        private boolean isUsed(int edge) {
+            return (usedEdges[edge >>> 6] & (1L << edge)) != 0;
+        }
+
+        //The other station of the edge
+        private int opposite(int edge, int station) {
+            return (edgeStation1[edge] == station) ? edgeStation2[edge] : edgeStation1[edge];
+        }
+
+        //Index of the station, added to the stations if needed
+        private int indexOf(Map<Station, Integer> stationIndex, Station station) {
+            Integer index = stationIndex.get(station);
+            if (index == null) {
+                index = stations.size();
+                stationIndex.put(station, index);
+                stations.add(station);
+            }
+            return index;
+        }
+    }
+
+    //Open addressing hash set of the states of the search (the used edges and a station), packed in longs.
+    //It stops growing at MAX_STATES states: the states not added are explored again, which is only slower.
+    private static final class ExploredStates {
+        private static final int MAX_STATES = 1 << 20;
+        //Longs per state, the states (the one of a slot starts at slot * width) and the used slots
+        private final int width;
+        private long[] table;
+        private boolean[] usedSlots;
+        private int size;
+
+        private ExploredStates(int width) {
+            this.width = width;
+            this.table = new long[16 * width];
+            this.usedSlots = new boolean[16];
+        }
+
+        //Add the state, false if it was already there
+        private boolean add(long[] usedEdges, int station) {
+            int mask = usedSlots.length - 1;
+            for (int slot = hash(usedEdges, station) & mask; usedSlots[slot]; slot = (slot + 1) & mask) {
+                if (isAt(slot, usedEdges, station))
+                    return false;
+            }
+            if (size >= MAX_STATES)
+                return true;
+            if (2 * (size + 1) > usedSlots.length)
+                grow();
+            put(usedEdges, station);
+            ++size;
+            return true;
+        }
+
+        private void put(long[] usedEdges, int station) {
+            int mask = usedSlots.length - 1;
+            int slot = hash(usedEdges, station) & mask;
+            while (usedSlots[slot])
+                slot = (slot + 1) & mask;
+            usedSlots[slot] = true;
+            System.arraycopy(usedEdges, 0, table, slot * width, width - 1);
+            table[slot * width + width - 1] = station;
+        }
+
+        private void grow() {
+            long[] oldTable = table;
+            boolean[] oldUsedSlots = usedSlots;
+            table = new long[2 * oldTable.length];
+            usedSlots = new boolean[2 * oldUsedSlots.length];
+            long[] usedEdges = new long[width - 1];
+            for (int slot = 0; slot < oldUsedSlots.length; ++slot) {
+                if (oldUsedSlots[slot]) {
+                    System.arraycopy(oldTable, slot * width, usedEdges, 0, width - 1);
+                    put(usedEdges, (int) oldTable[slot * width + width - 1]);
+                }
+            }
+        }
+
+        private boolean isAt(int slot, long[] usedEdges, int station) {
+            int offset = slot * width;
+            for (int i = 0; i < width - 1; ++i) {
+                if (table[offset + i] != usedEdges[i])
+                    return false;
+            }
+            return table[offset + width - 1] == station;
+        }
+
+        private static int hash(long[] usedEdges, int station) {
+            long h = station;
+            for (long word : usedEdges)
+                h = (h + word) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
         }
-        return longestTrail;
     }
 
     /**
@@ -111,18 +402,6 @@ public final class Trail {
         return lastStation;
     }
 
-    //Check if a road is contained in the trail
-    //Needed for double route type to avoid duplications, exp. : Lausanne - Fribourg.
-    //If we used the methode contains(Obj) of the class Collection, then the trail could
-    //take twice the same route.
-    private boolean contains(Route route) {
-        for (Route r : routes) {
-            if (r.stations().contains(route.station1()) && r.stations().contains(route.station2()))
-                return true;
-        }
-        return false;
-    }
-
     //Calculate the length of the trail.
     private int generateLength() {
         int finalLength = 0;
@@ -2,6 +2,7 @@ package ch.epfl.tchu.gui;
 
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.net.RemotePlayerClient;
+import ch.epfl.tchu.net.WireFormat;
 import javafx.application.Application;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -37,7 +38,8 @@ public class ClientMain{
                                                                 hostName,
                                                                 serverGamePort,
                                                                 serverChatPort,
-                                                                playerName);
+                                                                playerName,
+                                                                WireFormat.BINARY_PIPELINED);
             // start the thread
             new Thread(client::runGame).start();
             new Thread(client::runChat).start();
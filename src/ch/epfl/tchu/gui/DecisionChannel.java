@@ -0,0 +1,102 @@
+package ch.epfl.tchu.gui;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This class hands the decisions of the player over from the JavaFX thread to the game thread.
+ * A decision is asked by a prompt run on the JavaFX thread, with the callback completing it: the JavaFX thread
+ * never blocks, and only the game thread waits for the decision. Each decision has its own typed future,
+ * completed once (the later calls of the callback are ignored).
+ * It measures the time between the display of each prompt and the decision of the player.
+ * It is public, final and thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class DecisionChannel {
+    //Runs a prompt on the JavaFX thread (FxDispatcher::post)
+    private final Consumer<Runnable> fxExecutor;
+
+    //Counters of the latency between the prompts and the decisions, in ns
+    private final AtomicLong decisions = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Create a channel.
+     *
+     * @param fxExecutor runs the given prompt on the JavaFX thread (FxDispatcher::post)
+     */
+    public DecisionChannel(Consumer<Runnable> fxExecutor) {
+        this.fxExecutor = Objects.requireNonNull(fxExecutor);
+    }
+
+    /**
+     * Ask a decision to the player, without waiting for it.
+     *
+     * @param prompt shows the request to the player, on the JavaFX thread, with the callback receiving the decision
+     * @param <T>    the type of the decision
+     * @return the future decision of the player, completed on the JavaFX thread (CompletableFuture)
+     */
+    public <T> CompletableFuture<T> ask(Consumer<Consumer<T>> prompt) {
+        Objects.requireNonNull(prompt);
+        CompletableFuture<T> decision = new CompletableFuture<>();
+        fxExecutor.accept(() -> {
+            long shown = System.nanoTime();
+            prompt.accept(value -> {
+                if (decision.complete(value))
+                    record(System.nanoTime() - shown);
+            });
+        });
+        return decision;
+    }
+
+    /**
+     * Ask a decision to the player and wait for it (the calling thread is parked until the player decides).
+     *
+     * @param prompt shows the request to the player, on the JavaFX thread, with the callback receiving the decision
+     * @param <T>    the type of the decision
+     * @return the decision of the player (T)
+     */
+    public <T> T decide(Consumer<Consumer<T>> prompt) {
+        return ask(prompt).join();
+    }
+
+    /**
+     * The amount of decisions taken by the player.
+     *
+     * @return the number of decisions (long)
+     */
+    public long decisions() {
+        return decisions.get();
+    }
+
+    /**
+     * The average time between the display of a prompt and the decision of the player.
+     *
+     * @return the average latency in milliseconds, 0 if no decision was taken yet (double)
+     */
+    public double averageLatencyMillis() {
+        long count = decisions.get();
+        return (count == 0) ? 0 : totalLatencyNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * The longest time between the display of a prompt and the decision of the player.
+     *
+     * @return the maximal latency in milliseconds (double)
+     */
+    public double maxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    //Record the latency of a decision
+    private void record(long latencyNanos) {
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        decisions.incrementAndGet();
+    }
+}
@@ -0,0 +1,175 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.game.PlayerState;
+import ch.epfl.tchu.game.PublicGameState;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * This class sends the work of the game thread to the JavaFX thread, coalescing it so that a burst of messages
+ * doesn't flood the event queue of JavaFX:
+ * the tasks are run in their order in a single pulse (one Platform.runLater for all the tasks posted until it runs),
+ * a state replaces the state not shown yet (the older one is dropped, the latest one is shown where the first one
+ * was posted), and the infos not shown yet are shown together in the same pulse.
+ * It keeps counters of its queue, of the pulses and of the dropped states.
+ * It is public, final and thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class FxDispatcher {
+    //Runs a pulse on the JavaFX thread (Platform::runLater)
+    private final Consumer<Runnable> fxExecutor;
+    //Show a state and an info
+    private final BiConsumer<PublicGameState, PlayerState> stateHandler;
+    private final Consumer<String> infoHandler;
+
+    //The tasks to run in order, and whether a pulse will run them
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean pulseScheduled = new AtomicBoolean();
+    //The state and the infos not shown yet, and whether a task will show the infos
+    private final AtomicReference<StateUpdate> pendingState = new AtomicReference<>();
+    private final Queue<String> pendingInfos = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean infosScheduled = new AtomicBoolean();
+
+    //Counters
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong pulses = new AtomicLong();
+    private final AtomicLong droppedStates = new AtomicLong();
+
+    /**
+     * Create a dispatcher.
+     *
+     * @param fxExecutor   runs the given runnable on the JavaFX thread (Platform::runLater)
+     * @param stateHandler shows a new state, called on the JavaFX thread
+     * @param infoHandler  shows an info, called on the JavaFX thread
+     */
+    public FxDispatcher(Consumer<Runnable> fxExecutor, BiConsumer<PublicGameState, PlayerState> stateHandler,
+                        Consumer<String> infoHandler) {
+        this.fxExecutor = Objects.requireNonNull(fxExecutor);
+        this.stateHandler = Objects.requireNonNull(stateHandler);
+        this.infoHandler = Objects.requireNonNull(infoHandler);
+    }
+
+    /**
+     * Run the task on the JavaFX thread, after the tasks already posted.
+     *
+     * @param task the task (an input request, a chat...)
+     */
+    public void post(Runnable task) {
+        enqueue(Objects.requireNonNull(task));
+    }
+
+    /**
+     * Show the state on the JavaFX thread: if a state is still waiting to be shown, it is dropped
+     * and this one is shown in its place.
+     *
+     * @param gameState   the public state of the game
+     * @param playerState the state of the player
+     */
+    public void postState(PublicGameState gameState, PlayerState playerState) {
+        if (pendingState.getAndSet(new StateUpdate(gameState, playerState)) == null)
+            enqueue(this::showState);
+        else
+            droppedStates.incrementAndGet();
+    }
+
+    /**
+     * Show the info on the JavaFX thread, with the other infos not shown yet.
+     *
+     * @param info the info
+     */
+    public void postInfo(String info) {
+        pendingInfos.add(Objects.requireNonNull(info));
+        if (infosScheduled.compareAndSet(false, true))
+            enqueue(this::showInfos);
+    }
+
+    /**
+     * The amount of tasks waiting for the JavaFX thread.
+     *
+     * @return the depth of the queue (int)
+     */
+    public int queueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * The largest amount of tasks that waited for the JavaFX thread at the same time.
+     *
+     * @return the maximal depth of the queue (int)
+     */
+    public int maxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * The amount of pulses run on the JavaFX thread, one Platform.runLater each.
+     *
+     * @return the number of pulses (long)
+     */
+    public long pulses() {
+        return pulses.get();
+    }
+
+    /**
+     * The amount of states replaced by a newer one before being shown.
+     *
+     * @return the number of dropped states (long)
+     */
+    public long droppedStates() {
+        return droppedStates.get();
+    }
+
+    //Add the task to the queue, and schedule a pulse if none will run it
+    private void enqueue(Runnable task) {
+        tasks.add(task);
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+        if (pulseScheduled.compareAndSet(false, true))
+            fxExecutor.accept(this::pulse);
+    }
+
+    //Run all the tasks posted (on the JavaFX thread), the ones posted while running included
+    private void pulse() {
+        pulseScheduled.set(false);
+        pulses.incrementAndGet();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            queueDepth.decrementAndGet();
+            task.run();
+        }
+    }
+
+    private void showState() {
+        StateUpdate update = pendingState.getAndSet(null);
+        if (update != null)
+            stateHandler.accept(update.gameState, update.playerState);
+    }
+
+    private void showInfos() {
+        infosScheduled.set(false);
+        String info;
+        while ((info = pendingInfos.poll()) != null)
+            infoHandler.accept(info);
+    }
+
+    //A state to show
+    private static final class StateUpdate {
+        private final PublicGameState gameState;
+        private final PlayerState playerState;
+
+        private StateUpdate(PublicGameState gameState, PlayerState playerState) {
+            this.gameState = gameState;
+            this.playerState = playerState;
+        }
+    }
+}
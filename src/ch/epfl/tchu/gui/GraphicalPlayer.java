@@ -55,7 +55,7 @@ public final class GraphicalPlayer {
     private final Stage mainWindow;
     private Stage choiceWindow;
     //Chat
-    private String lastChat = "";
+    private final ActionHandler.sendChatHandler chatHandler;
     private ObservableChat chat;
     private SimpleBooleanProperty isChatDisplayed;
 
@@ -65,14 +65,16 @@ public final class GraphicalPlayer {
      *
      * @param playerId the Id of the player
      * @param playerNames the names of the two player that are playing
+     * @param chatHandler called with each chat the player sends
      */
-    public GraphicalPlayer(PlayerId playerId, Map<PlayerId, String> playerNames) {
+    public GraphicalPlayer(PlayerId playerId, Map<PlayerId, String> playerNames, ActionHandler.sendChatHandler chatHandler) {
         //Check if on thread of javaFX
         assert Platform.isFxApplicationThread();
 
         //Init player attributes
         this.playerId = playerId;
         this.playerNames = Map.copyOf(playerNames);
+        this.chatHandler = chatHandler;
 
         //Init observable
         this.obsGameState = new ObservableGameState(playerId);
@@ -93,15 +95,6 @@ public final class GraphicalPlayer {
         choiceWindow = new Stage();
     }
 
-    /**
-     * To get the last chat send by the player.
-     *
-     * @return the last chat send by the player. (String)
-     */
-    public String lastChat(){
-        return lastChat;
-    }
-
     /**
      * To inform the player he receive a new chat.
      *
@@ -396,6 +389,6 @@ public final class GraphicalPlayer {
     //send a chat
     private void sendChat(String chat){
         this.chat.addNewChat(true, chat);
-        lastChat = chat;
+        chatHandler.sendChat(chat);
     }
 }
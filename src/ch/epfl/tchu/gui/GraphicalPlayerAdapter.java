@@ -6,11 +6,12 @@ import javafx.application.Platform;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * This class adapt a graphicalPlayer to the interface Player, implements Player.
+ * The decisions of the player are handed over from the JavaFX thread to the game thread by a DecisionChannel.
  *
  * @author Théo Vasarino (313191)
  * @author Selien Wicki (314357)
@@ -18,121 +19,127 @@ import java.util.concurrent.BlockingQueue;
  *
  */
 public class GraphicalPlayerAdapter implements Player {
-    //Constant
-    private final int BLOCKING_QUEUE_CAPACITY = 1;
-
     //Attributes
     private GraphicalPlayer graphicalPlayer;
-    private final BlockingQueue<SortedBag<Ticket>> ticketsQueue;
-    private final BlockingQueue<SortedBag<Card>> claimCardQueue;
-    private final BlockingQueue<TurnKind> turnKindQueue;
-    private final BlockingQueue<Integer> cardSlotQueue;
-    private final BlockingQueue<Route> claimRouteQueue;
-    private final BlockingQueue<String> lastChatQueue;
+    //sends the work to the JavaFX thread, coalescing the states and the infos
+    private final FxDispatcher dispatcher;
+    //hands the decisions of the player over to the game thread
+    private final DecisionChannel decisions;
+    //receives the chats of the player, set by connectChat (before or during the game)
+    private volatile Consumer<String> chatSender = chat -> {};
+    //the initial tickets chosen by the player, asked by setInitialTicketChoice (game thread only)
+    private CompletableFuture<SortedBag<Ticket>> initialTickets;
+    //the choice of the player at the beginning of the current turn (game thread only)
+    private TurnChoice turnChoice;
 
     /**
-     * constructs a new GraphicalPlayerAdapter and initialize all the different queue.
+     * constructs a new GraphicalPlayerAdapter.
      */
     public GraphicalPlayerAdapter(){
-        ticketsQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
-        claimCardQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
-        turnKindQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
-        cardSlotQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
-        claimRouteQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
-        lastChatQueue = new ArrayBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
+        dispatcher = new FxDispatcher(Platform::runLater,
+                (newState, ownState) -> graphicalPlayer.setState(newState, ownState),
+                info -> graphicalPlayer.receiveInfo(info));
+        decisions = new DecisionChannel(dispatcher::post);
+    }
+
+    /**
+     * The dispatcher sending the work to the JavaFX thread, to read its counters (queue depth, dropped states...).
+     *
+     * @return the dispatcher (FxDispatcher)
+     */
+    public FxDispatcher dispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * The channel of the decisions of the player, to read its counters (latency between a prompt and the decision).
+     *
+     * @return the decision channel (DecisionChannel)
+     */
+    public DecisionChannel decisions() {
+        return decisions;
     }
 
     @Override
     public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
-        Platform.runLater(() -> graphicalPlayer = new GraphicalPlayer(ownId, playerNames));
+        dispatcher.post(() -> graphicalPlayer = new GraphicalPlayer(ownId, playerNames, chat -> chatSender.accept(chat)));
     }
 
     /**
-     * get the lastChat that the player send.
+     * Set the function receiving the chats of the player, called on the JavaFX thread when he sends one.
      *
-     * @return the chat. (String)
+     * @param chatSender the function receiving the chats of the player
      */
     @Override
-    public String lastChat() {
-        Platform.runLater(() -> putTryCatch(lastChatQueue, graphicalPlayer.lastChat()));
-        return takeTryCatch(lastChatQueue);
+    public void connectChat(Consumer<String> chatSender) {
+        this.chatSender = chatSender;
     }
 
     @Override
     public void receiveChat(String chat) {
-        Platform.runLater(() -> graphicalPlayer.receiveChat(chat));
+        dispatcher.post(() -> graphicalPlayer.receiveChat(chat));
     }
 
     @Override
     public void receiveInfo(String info) {
-        Platform.runLater(() -> graphicalPlayer.receiveInfo(info));
+        dispatcher.postInfo(info);
     }
 
     @Override
     public void updateState(PublicGameState newState, PlayerState ownState) {
-        Platform.runLater(() -> graphicalPlayer.setState(newState, ownState));
+        dispatcher.postState(newState, ownState);
     }
 
     @Override
     public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
-        Platform.runLater(() ->
-            graphicalPlayer.chooseTickets(tickets, ticketChoice -> putTryCatch(ticketsQueue, ticketChoice))
-        );
+        initialTickets = decisions.ask(choice -> graphicalPlayer.chooseTickets(tickets, choice::accept));
     }
 
     @Override
     public SortedBag<Ticket> chooseInitialTickets() {
-        return takeTryCatch(ticketsQueue);
+        return initialTickets.join();
     }
 
     @Override
     public TurnKind nextTurn() {
-        Platform.runLater(() ->
-            graphicalPlayer.startTurn(
-                () -> putTryCatch(turnKindQueue, TurnKind.DRAW_TICKETS),
-                i -> {
-                    putTryCatch(turnKindQueue, TurnKind.DRAW_CARDS);
-                    putTryCatch(cardSlotQueue, i);
-                },
-                (r, c) ->{
-                    putTryCatch(claimCardQueue, c);
-                    putTryCatch(claimRouteQueue, r);
-                    putTryCatch(turnKindQueue, TurnKind.CLAIM_ROUTE);
-                }
-            )
-        );
-        return takeTryCatch(turnKindQueue);
+        turnChoice = decisions.decide(choice -> graphicalPlayer.startTurn(
+                () -> choice.accept(TurnChoice.DRAW_TICKETS),
+                slot -> choice.accept(TurnChoice.drawCards(slot)),
+                (route, cards) -> choice.accept(new TurnChoice(TurnKind.CLAIM_ROUTE, Constants.DECK_SLOT, route, cards))));
+        return turnChoice.kind;
     }
 
     @Override
     public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
-        Platform.runLater(() ->
-            graphicalPlayer.chooseTickets(options, ticketChoice -> putTryCatch(ticketsQueue, ticketChoice))
-        );
-        return  takeTryCatch(ticketsQueue);
+        return decisions.decide(choice -> graphicalPlayer.chooseTickets(options, choice::accept));
     }
 
     @Override
     public int drawSlot() {
-        if (cardSlotQueue.isEmpty())
-            Platform.runLater(() -> graphicalPlayer.drawCard((i) -> putTryCatch(cardSlotQueue, i)));
-        return takeTryCatch(cardSlotQueue);
+        //the first card is chosen with the turn, the second one is asked
+        if (turnChoice != null && turnChoice.kind == TurnKind.DRAW_CARDS) {
+            int slot = turnChoice.slot;
+            turnChoice = null;
+            return slot;
+        }
+        TurnChoice choice = decisions.decide(slotChoice ->
+                graphicalPlayer.drawCard(slot -> slotChoice.accept(TurnChoice.drawCards(slot))));
+        return choice.slot;
     }
 
     @Override
     public Route claimedRoute() {
-        return takeTryCatch(claimRouteQueue);
+        return turnChoice.route;
     }
 
     @Override
     public SortedBag<Card> initialClaimCards() {
-        return takeTryCatch(claimCardQueue);
+        return turnChoice.cards;
     }
 
     @Override
     public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
-        Platform.runLater(() -> graphicalPlayer.chooseAdditionalCards(options, (cards) -> putTryCatch(claimCardQueue, cards)));
-        return takeTryCatch(claimCardQueue);
+        return decisions.decide(choice -> graphicalPlayer.chooseAdditionalCards(options, choice::accept));
     }
 
     @Override
@@ -140,21 +147,32 @@ public class GraphicalPlayerAdapter implements Player {
         return null;
     }
 
-    //Generic try catch for to handle the method ".put" for BlockingQueue
-    private <E> void putTryCatch(BlockingQueue<E> queue, E element){
-        try {
-            queue.put(element);
-        } catch (InterruptedException e) {
-            throw new Error();
+    //The choice of the player at the beginning of a turn, with the slot of the card or the route and cards chosen
+    //(the choices without route are shared, choosing them allocates nothing)
+    private static final class TurnChoice {
+        private static final TurnChoice DRAW_TICKETS = new TurnChoice(TurnKind.DRAW_TICKETS, Constants.DECK_SLOT, null, null);
+        //the choices of a card, by slot (the deck first)
+        private static final TurnChoice[] DRAW_CARDS = new TurnChoice[Constants.FACE_UP_CARDS_COUNT + 1];
+        static {
+            for (int i = 0; i < DRAW_CARDS.length; ++i)
+                DRAW_CARDS[i] = new TurnChoice(TurnKind.DRAW_CARDS, i + Constants.DECK_SLOT, null, null);
+        }
+
+        private final TurnKind kind;
+        private final int slot;
+        private final Route route;
+        private final SortedBag<Card> cards;
+
+        private TurnChoice(TurnKind kind, int slot, Route route, SortedBag<Card> cards) {
+            this.kind = kind;
+            this.slot = slot;
+            this.route = route;
+            this.cards = cards;
         }
-    }
 
-    //Generic try catch for to handle the method ".take" for BlockingQueue
-    private <E> E takeTryCatch(BlockingQueue<E> queue){
-        try {
-            return queue.take();
-        } catch (InterruptedException e) {
-            throw new Error();
+        //The choice of the card in the given slot (or the deck)
+        private static TurnChoice drawCards(int slot) {
+            return DRAW_CARDS[slot - Constants.DECK_SLOT];
         }
     }
 }
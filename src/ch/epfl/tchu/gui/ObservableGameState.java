@@ -69,49 +69,65 @@ public final class ObservableGameState {
     }
 
     /**
-     * Set all properties given a new PublicGameState and a new PlayerState
+     * Set all properties given a new PublicGameState and a new PlayerState.
+     * Only the properties whose value changed are touched, and the claimable routes are only computed again
+     * when the cards or the cars of the player, the current player or the owners of the routes changed.
      *
      * @param gameState, the new PublicGameState
      * @param playerState, the new PlayerState
      */
     public void setState(PublicGameState gameState, PlayerState playerState){
+        PlayerState previousPlayerState = this.playerState;
+        PublicGameState previousGameState = this.gameState;
         this.gameState = gameState;
         this.playerState = playerState;
         List<PlayerId> allPlayers = List.of(player, otherPlayer);
 
-        ticketsOfPlayer.setAll(playerState.tickets().toList());
-        for(Card c : Card.ALL)
-            numberOfCardsForEachType.get(c).set(playerState.cards().countOf(c));
+        //set the tickets and the cards of the player, if they changed
+        if (previousPlayerState == null || !previousPlayerState.tickets().equals(playerState.tickets()))
+            ticketsOfPlayer.setAll(playerState.tickets().toList());
+        boolean cardsChanged = previousPlayerState == null || !previousPlayerState.cardBag().equals(playerState.cardBag());
+        if (cardsChanged) {
+            for (Card c : Card.ALL)
+                numberOfCardsForEachType.get(c).set(playerState.cardBag().countOf(c));
+        }
 
-        //set the percents of the cards and tickets
+        //set the percents of the cards and tickets (a property doesn't notify its listeners if its value is the same)
         restingTicketsPercents.setValue(generatePercents(gameState.ticketsCount(), ChMap.tickets().size()));
         restingCardsPercents.setValue(generatePercents(gameState.cardState().deckSize(), Constants.ALL_CARDS.size()));
 
-        //set states for all players
-        allPlayers.forEach((plr)->{
-            numberTicketsForEachPlayer.get(plr).set(gameState.playerState(plr).ticketCount());
-            numberCardsForEachPlayer.get(plr).set(gameState.playerState(plr).cardCount());
-            numberCarsForEachPlayer.get(plr).set(gameState.playerState(plr).carCount());
-            numberConstructsPointsForEachPlayer.get(plr).set(gameState.playerState(plr).claimPoints());
-        });
-
-        //set the owner of each route
-        gameState.playerState(player).routes().forEach((r) -> ownersOfEachRoutes.get(r).set(player));
-        gameState.playerState(otherPlayer).routes().forEach((r) -> ownersOfEachRoutes.get(r).set(otherPlayer));
+        //set states for all players, and the owners of their routes if they claimed new ones
+        boolean ownersChanged = false;
+        for (PlayerId plr : allPlayers) {
+            PublicPlayerState plrState = gameState.playerState(plr);
+            numberTicketsForEachPlayer.get(plr).set(plrState.ticketCount());
+            numberCardsForEachPlayer.get(plr).set(plrState.cardCount());
+            numberCarsForEachPlayer.get(plr).set(plrState.carCount());
+            if (previousGameState == null || previousGameState.playerState(plr).routes().size() != plrState.routes().size()) {
+                //the routes may be in any order (the network sends them in the order of the map)
+                numberConstructsPointsForEachPlayer.get(plr).set(plrState.claimPoints());
+                plrState.routes().forEach((r) -> ownersOfEachRoutes.get(r).set(plr));
+                ownersChanged = true;
+            }
+        }
 
-        //set which routes are now claimable
+        //set which routes are now claimable, if it may have changed
         //a route is claimable by the player if : - the player have the cards and have sufficient cars.
         //                                        - the player is the current player.
         //                                        - the route and her neighbor (if there's one) don't have already an owner.
-        claimableRoutes.forEach((route, isClaimable) -> {
-            if (playerState.canClaimRoute(route)
-                    && player == gameState.currentPlayerId()
+        boolean claimabilityChanged = cardsChanged || ownersChanged
+                || previousGameState.currentPlayerId() != gameState.currentPlayerId()
+                || previousPlayerState.carCount() != playerState.carCount();
+        if (claimabilityChanged) {
+            boolean isCurrentPlayer = player == gameState.currentPlayerId();
+            claimableRoutes.forEach((route, isClaimable) -> {
+                Route neighbor = RouteIndex.neighbor(route);
+                isClaimable.set(isCurrentPlayer
                         && ownersOfEachRoutes.get(route).get() == null
-                            && ownersOfEachRoutes.get(getRouteNeighbor(route, ChMap.routes())).get() == null)
-                claimableRoutes.get(route).set(true);
-
-            else claimableRoutes.get(route).set(false);
-        });
+                            && (neighbor == null || ownersOfEachRoutes.get(neighbor).get() == null)
+                                && playerState.canClaimRoute(route));
+            });
+        }
 
         //set the faceUpCards
         for (int slot : Constants.FACE_UP_CARD_SLOTS) {
@@ -293,19 +309,6 @@ public final class ObservableGameState {
         return map;
     }
 
-    //return the neighbor route if there is one, return the current Route if there's not
-    private Route getRouteNeighbor(Route route, List<Route> map) {
-        Route neighbor = route;
-        for (Route r : map) {
-            //twos neighbors routes will have the same stations
-            if (r.station1() == route.station1() && r.station2() == route.station2() && r != route) {
-                neighbor = r;
-                break;
-            }
-        }
-        return neighbor;
-    }
-
         //generate percents given two numbers, in int (always between 0 and 100).
         private int generatePercents ( int number, int total){
             int percent = (int) Math
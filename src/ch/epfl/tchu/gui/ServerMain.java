@@ -2,19 +2,24 @@ package ch.epfl.tchu.gui;
 
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.ai.MctsPlayer;
 import ch.epfl.tchu.game.*;
-import ch.epfl.tchu.net.Chat;
+import ch.epfl.tchu.net.ChatRoom;
+import ch.epfl.tchu.net.GameServer;
 import ch.epfl.tchu.net.RemotePlayerProxy;
+import ch.epfl.tchu.net.SessionRegistry;
 import javafx.application.Application;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 
 import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
@@ -24,13 +29,21 @@ import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
  * This class represent the server used to run the game and to communicate with the different clients, extends from a javaFX application.
  */
 public class ServerMain{
+    //The name of the optional fourth parameter letting the search play the local player
+    private static final String MCTS_PLAYER = "mcts";
+    //The time given to each decision of the search
+    private static final long MCTS_BUDGET_MILLIS = 2_000;
+
+    //the server playing the sessions hosted by this application
+    private static final GameServer GAME_SERVER = new GameServer();
 
     // public static void main(String[] args) throws IOException { run(args); }
 
     public static void run(String[] parameters, SimpleBooleanProperty isConnected, SimpleBooleanProperty isTryingToHost){
 
         // Check correctness of the argument
-        Preconditions.checkArgument(parameters.length == 3);
+        Preconditions.checkArgument(parameters.length == 3
+                || (parameters.length == 4 && parameters[3].equals(MCTS_PLAYER)));
 
         // Is trying to host
         isTryingToHost.setValue(true);
@@ -41,15 +54,30 @@ public class ServerMain{
         int serverChatPort = Integer.parseInt(parameters[2]);
 
         // wait the connection and initialize the game if it's the case
-        try (ServerSocket gameServerSocket = new ServerSocket(serverGamePort);
-             ServerSocket chatServerSocket = new ServerSocket(serverChatPort)) {
+        ServerSocket gameServerSocket = null;
+        ServerSocket chatServerSocket = null;
+        try {
+            gameServerSocket = new ServerSocket(serverGamePort);
+            chatServerSocket = new ServerSocket(serverChatPort);
+            SessionRegistry sessions = new SessionRegistry();
 
-            Socket gameSocket = gameServerSocket.accept();
-            Socket chatSocket = chatServerSocket.accept();
+            // the first client asking to play (a client giving an unknown session token or a malformed handshake is disconnected)
+            Optional<RemotePlayerProxy> newPlayer = Optional.empty();
+            while (newPlayer.isEmpty()) {
+                Socket gameSocket = gameServerSocket.accept();
+                Socket chatSocket = chatServerSocket.accept();
+                try {
+                    newPlayer = sessions.accept(gameSocket, chatSocket);
+                } catch (IOException e) {
+                    // the client left or didn't send its first line in time, the next one is waited for
+                }
+            }
 
             // the players
-            Player localPlayer = new GraphicalPlayerAdapter();
-            Player distantPlayer = new RemotePlayerProxy(gameSocket, chatSocket);
+            Player localPlayer = (parameters.length == 4)
+                    ? new MctsPlayer(Runtime.getRuntime().availableProcessors(), MCTS_BUDGET_MILLIS, Integer.MAX_VALUE, System.nanoTime())
+                    : new GraphicalPlayerAdapter();
+            Player distantPlayer = newPlayer.get();
             String distantPlayerName = distantPlayer.receivePlayerName();
 
             // playerNames
@@ -63,13 +91,56 @@ public class ServerMain{
             player.put(PLAYER_1, localPlayer);
             player.put(PLAYER_2, distantPlayer);
 
-            // launch the game
-            new Thread(() -> Game
-                    .play(player, playerNames, SortedBag.of(ChMap.tickets()), new Random()))
-                    .start();
+            // launch the game and the chat, the distant player can come back until the game is over
+            ServerSocket[] serverSockets = {gameServerSocket, chatServerSocket};
+            GAME_SERVER.submit(new GameSession(player, playerNames, SortedBag.of(ChMap.tickets()), new Random()), () -> {
+                closeQuietly(serverSockets);
+                // the threads of the searches of the local bot are stopped with the game
+                if (localPlayer instanceof MctsPlayer)
+                    ((MctsPlayer) localPlayer).close();
+            });
+            acceptReturningPlayers(gameServerSocket, chatServerSocket, sessions);
+            ChatRoom chatRoom = new ChatRoom();
+            chatRoom.join(localPlayer);
+            chatRoom.join(distantPlayer);
             isConnected.setValue(true);
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
+            // the server sockets can't be opened, or the client left while answering its handshake
+            closeQuietly(gameServerSocket, chatServerSocket);
             isTryingToHost.setValue(false);
         }
     }
+
+    // accept the clients coming back after the loss of their connection, on a daemon thread, until the sockets are closed
+    private static void acceptReturningPlayers(ServerSocket gameServerSocket, ServerSocket chatServerSocket, SessionRegistry sessions) {
+        Thread acceptor = new Thread(() -> {
+            while (!gameServerSocket.isClosed()) {
+                try {
+                    Socket gameSocket = gameServerSocket.accept();
+                    Socket chatSocket = chatServerSocket.accept();
+                    // the game is already full
+                    if (sessions.accept(gameSocket, chatSocket).isPresent()) {
+                        gameSocket.close();
+                        chatSocket.close();
+                    }
+                } catch (IOException e) {
+                    // the client left or stayed silent, or the game is over and the sockets are closed
+                }
+            }
+        }, "tchu-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // close server sockets that may be null or already closed
+    private static void closeQuietly(ServerSocket... serverSockets) {
+        for (ServerSocket serverSocket : serverSockets) {
+            try {
+                if (serverSocket != null)
+                    serverSocket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+    }
 }
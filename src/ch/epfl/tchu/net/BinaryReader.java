@@ -0,0 +1,131 @@
+package ch.epfl.tchu.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Cursor over the bytes of a message of the binary protocol.
+ * It is public, final and not thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class BinaryReader {
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+
+    /**
+     * Create a reader over the given bytes (not copied).
+     *
+     * @param bytes the bytes to read
+     */
+    public BinaryReader(byte[] bytes) {
+        this.bytes = bytes;
+        this.end = bytes.length;
+    }
+
+    /**
+     * Read one frame (a varint length followed by the bytes) from the given stream.
+     *
+     * @param in the stream to read from
+     * @return a reader over the content of the frame (BinaryReader)
+     * @throws EOFException if the stream ends before a whole frame is read
+     * @throws IOException  if the stream fails
+     */
+    public static BinaryReader readFrameFrom(InputStream in) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException();
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                break;
+        }
+        byte[] content = in.readNBytes(length);
+        if (content.length < length)
+            throw new EOFException();
+        return new BinaryReader(content);
+    }
+
+    /**
+     * Read a single byte.
+     *
+     * @return the byte read, between 0 and 255 (int)
+     * @throws IllegalArgumentException if there is no more byte to read
+     */
+    public int readByte() {
+        checkRemaining(1);
+        return bytes[position++] & 0xFF;
+    }
+
+    /**
+     * Read a varint written with <code>BinaryWriter.writeVarInt</code>.
+     *
+     * @return the value read (int)
+     * @throws IllegalArgumentException if the varint is truncated
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    /**
+     * Read a zigzag varint written with <code>BinaryWriter.writeZigZag</code>.
+     *
+     * @return the value read (int)
+     * @throws IllegalArgumentException if the varint is truncated
+     */
+    public int readZigZag() {
+        int zigzag = readVarInt();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Read the given amount of bytes.
+     *
+     * @param count the amount of bytes to read
+     * @return a copy of the bytes read (byte[])
+     * @throws IllegalArgumentException if there is not enough bytes left
+     */
+    public byte[] readBytes(int count) {
+        checkRemaining(count);
+        byte[] b = Arrays.copyOfRange(bytes, position, position + count);
+        position += count;
+        return b;
+    }
+
+    /**
+     * Read a value with the given serde.
+     *
+     * @param serde the serde used to decode the value
+     * @param <E>   the type of the value
+     * @return the value read (E)
+     */
+    public <E> E read(BinarySerde<E> serde) {
+        return serde.read(this);
+    }
+
+    /**
+     * The amount of bytes not read yet.
+     *
+     * @return the remaining bytes (int)
+     */
+    public int remaining() {
+        return end - position;
+    }
+
+    //Check that the given amount of bytes can be read
+    private void checkRemaining(int count) {
+        if (count < 0 || count > end - position)
+            throw new IllegalArgumentException();
+    }
+}
@@ -0,0 +1,113 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * This interface represent a binary serde, the compact counterpart of Serde used by the binary protocol.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ *
+ * @param <E> the type value the BinarySerde will be able do serialize/deserialize.
+ */
+public interface BinarySerde<E> {
+    /**
+     * Encode the given element at the end of the writer.
+     *
+     * @param e      the data element we want to serialize
+     * @param writer the writer receiving the bytes
+     */
+    void write(E e, BinaryWriter writer);
+
+    /**
+     * Decode an element from the current position of the reader.
+     *
+     * @param reader the reader providing the bytes
+     * @return the deserialized element (E)
+     */
+    E read(BinaryReader reader);
+
+    /**
+     * Create a new BinarySerde from given encoding and decoding functions.
+     *
+     * @param writing the function that the future serde will use to encode the data
+     * @param reading the function that the future serde will use to decode the data
+     * @param <T>     the type of the data
+     * @return a new BinarySerde (BinarySerde)
+     */
+    static <T> BinarySerde<T> of(BiConsumer<T, BinaryWriter> writing, Function<BinaryReader, T> reading) {
+        return new BinarySerde<>() {
+            @Override
+            public void write(T t, BinaryWriter writer) {
+                writing.accept(t, writer);
+            }
+
+            @Override
+            public T read(BinaryReader reader) {
+                return reading.apply(reader);
+            }
+        };
+    }
+
+    /**
+     * Create a new BinarySerde from a given enumeration of objects,
+     * each object is encoded as a varint of its index plus one, 0 standing for null.
+     *
+     * @param enumList the list of all objects.
+     * @param <T>      the type of the object.
+     * @return the new BinarySerde for the given enum (BinarySerde).
+     * @throws IllegalArgumentException if the enumList is empty
+     *                                  (the encoding also throws it for an element that is not in the list).
+     */
+    static <T> BinarySerde<T> oneOf(List<T> enumList) {
+        Preconditions.checkArgument(!enumList.isEmpty());
+        //index of each element, to avoid a linear search at each encoding
+        Map<T, Integer> indices = new HashMap<>();
+        for (int i = enumList.size() - 1; i >= 0; --i)
+            indices.put(enumList.get(i), i);
+        return of(
+                (T t, BinaryWriter w) -> {
+                    Integer index = (t == null) ? Integer.valueOf(-1) : indices.get(t);
+                    Preconditions.checkArgument(index != null);
+                    w.writeVarInt(index + 1);
+                },
+                (BinaryReader r) -> {
+                    int index = r.readVarInt();
+                    return (index == 0) ? null : enumList.get(index - 1);
+                }
+        );
+    }
+
+    /**
+     * Create a new BinarySerde of lists, encoded as their size followed by their elements.
+     *
+     * @param serde used to encode the elements of the list.
+     * @param <T>   type of the elements.
+     * @return the new BinarySerde (BinarySerde).
+     * @throws IllegalArgumentException if the serde is null.
+     */
+    static <T> BinarySerde<List<T>> listOf(BinarySerde<T> serde) {
+        Preconditions.checkArgument(serde != null);
+        return of(
+                (List<T> l, BinaryWriter w) -> {
+                    w.writeVarInt(l.size());
+                    for (T t : l)
+                        serde.write(t, w);
+                },
+                (BinaryReader r) -> {
+                    int size = r.readVarInt();
+                    List<T> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; ++i)
+                        list.add(serde.read(r));
+                    return list;
+                }
+        );
+    }
+}
@@ -0,0 +1,231 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class contains the BinarySerde used by the binary protocol, one for each Serde of Serdes.
+ * Cards, routes and tickets are encoded by their index in Card.ALL and ChMap,
+ * the face up cards and the ownership of the routes are bit-packed.
+ * The routes of a player are always decoded in the order of ChMap.routes().
+ * It is public, final and not instantiable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class BinarySerdes {
+    //Number of bits used to encode a face up card (enough for Card.COUNT values)
+    private static final int FACE_UP_CARD_BITS = 4;
+    //Number of bytes of a set of routes, one bit per route of ChMap
+    private static final int ROUTE_SET_BYTES = (ChMap.routes().size() + Byte.SIZE - 1) / Byte.SIZE;
+
+    /**
+     * BinarySerde use to (de)serialize some Integer (zigzag varint, so that Constants.DECK_SLOT takes one byte).
+     */
+    public static final BinarySerde<Integer> INTEGER_SERDE = BinarySerde.of(
+            (Integer i, BinaryWriter w) -> w.writeZigZag(i),
+            BinaryReader::readZigZag);
+
+    /**
+     * BinarySerde use to (de)serialize some String (UTF-8 bytes preceded by their count).
+     */
+    public static final BinarySerde<String> STRING_SERDE = BinarySerde.of(
+            (String str, BinaryWriter w) -> {
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                w.writeVarInt(bytes.length).writeBytes(bytes);
+            },
+            (BinaryReader r) -> new String(r.readBytes(r.readVarInt()), StandardCharsets.UTF_8));
+
+    /**
+     * BinarySerde use to (de)serialize some PlayerID (can be null).
+     */
+    public static final BinarySerde<PlayerId> PLAYER_ID_SERDE = BinarySerde.oneOf(PlayerId.ALL);
+
+    /**
+     * BinarySerde use to (de)serialize some TurnKind.
+     */
+    public static final BinarySerde<Player.TurnKind> TURN_KIND_SERDE = BinarySerde.oneOf(Player.TurnKind.ALL);
+
+    /**
+     * BinarySerde use to (de)serialize some Card.
+     */
+    public static final BinarySerde<Card> CARD_SERDE = BinarySerde.oneOf(Card.ALL);
+
+    /**
+     * BinarySerde use to (de)serialize some Route.
+     */
+    public static final BinarySerde<Route> ROUTE_SERDE = BinarySerde.oneOf(ChMap.routes());
+
+    /**
+     * BinarySerde use to (de)serialize some Ticket.
+     */
+    public static final BinarySerde<Ticket> TICKET_SERDE = BinarySerde.oneOf(ChMap.tickets());
+
+    /**
+     * BinarySerde use to (de)serialize some List of String.
+     */
+    public static final BinarySerde<List<String>> LIST_STRING_SERDE = BinarySerde.listOf(STRING_SERDE);
+
+    /**
+     * BinarySerde use to (de)serialize some SortedBag of Card:
+     * a bit mask of the kinds of cards present, followed by the count of each of them.
+     */
+    public static final BinarySerde<SortedBag<Card>> SORTED_BAG_CARD_SERDE = BinarySerde.of(
+            (SortedBag<Card> bag, BinaryWriter w) -> {
+                int mask = 0;
+                for (Card c : bag.toSet())
+                    mask |= 1 << c.ordinal();
+                w.writeVarInt(mask);
+                for (Card c : bag.toSet())
+                    w.writeVarInt(bag.countOf(c));
+            },
+            (BinaryReader r) -> {
+                int mask = r.readVarInt();
+                SortedBag.Builder<Card> builder = new SortedBag.Builder<>();
+                for (Card c : Card.ALL) {
+                    if ((mask & (1 << c.ordinal())) != 0)
+                        builder.add(r.readVarInt(), c);
+                }
+                return builder.build();
+            });
+
+    //Tickets of a bag, in order
+    private static final BinarySerde<List<Ticket>> LIST_TICKET_SERDE = BinarySerde.listOf(TICKET_SERDE);
+
+    /**
+     * BinarySerde use to (de)serialize some SortedBag of Ticket.
+     */
+    public static final BinarySerde<SortedBag<Ticket>> SORTED_BAG_TICKETS_SERDE = BinarySerde.of(
+            (SortedBag<Ticket> bag, BinaryWriter w) -> LIST_TICKET_SERDE.write(bag.toList(), w),
+            (BinaryReader r) -> SortedBag.of(LIST_TICKET_SERDE.read(r)));
+
+    /**
+     * BinarySerde use to (de)serialize some List of SortedBag of Card.
+     */
+    public static final BinarySerde<List<SortedBag<Card>>> LIST_SORTED_BAG_CARD_SERDE = BinarySerde.listOf(SORTED_BAG_CARD_SERDE);
+
+    /**
+     * BinarySerde use to (de)serialize some set of routes of ChMap, one bit per route.
+     */
+    public static final BinarySerde<List<Route>> ROUTE_SET_SERDE = BinarySerde.of(
+            (List<Route> routes, BinaryWriter w) -> w.writeBytes(routeBits(routes)),
+            (BinaryReader r) -> routesOf(r.readBytes(ROUTE_SET_BYTES)));
+
+    /**
+     * BinarySerde use to (de)serialize some PublicCardState, the face up cards are packed on 4 bits each.
+     */
+    public static final BinarySerde<PublicCardState> PUBLIC_CARD_STATE_SERDE = BinarySerde.of(
+            (PublicCardState cardState, BinaryWriter w) -> {
+                int packed = 0;
+                for (int slot : Constants.FACE_UP_CARD_SLOTS)
+                    packed |= cardState.faceUpCard(slot).ordinal() << (slot * FACE_UP_CARD_BITS);
+                for (int i = 0; i < Constants.FACE_UP_CARDS_COUNT * FACE_UP_CARD_BITS; i += Byte.SIZE)
+                    w.writeByte(packed >>> i);
+                w.writeVarInt(cardState.deckSize()).writeVarInt(cardState.discardsSize());
+            },
+            (BinaryReader r) -> {
+                int packed = 0;
+                for (int i = 0; i < Constants.FACE_UP_CARDS_COUNT * FACE_UP_CARD_BITS; i += Byte.SIZE)
+                    packed |= r.readByte() << i;
+                List<Card> faceUpCards = new ArrayList<>(Constants.FACE_UP_CARDS_COUNT);
+                for (int slot : Constants.FACE_UP_CARD_SLOTS)
+                    faceUpCards.add(Card.ALL.get((packed >>> (slot * FACE_UP_CARD_BITS)) & ((1 << FACE_UP_CARD_BITS) - 1)));
+                int deckSize = r.readVarInt();
+                int discardsSize = r.readVarInt();
+                return new PublicCardState(faceUpCards, deckSize, discardsSize);
+            });
+
+    /**
+     * BinarySerde use to (de)serialize some PlayerState.
+     */
+    public static final BinarySerde<PlayerState> PLAYER_STATE_SERDE = BinarySerde.of(
+            (PlayerState player, BinaryWriter w) -> w
+                    .write(SORTED_BAG_TICKETS_SERDE, player.tickets())
+                    .write(SORTED_BAG_CARD_SERDE, player.cards())
+                    .write(ROUTE_SET_SERDE, player.routes()),
+            (BinaryReader r) -> {
+                SortedBag<Ticket> tickets = r.read(SORTED_BAG_TICKETS_SERDE);
+                SortedBag<Card> cards = r.read(SORTED_BAG_CARD_SERDE);
+                List<Route> routes = r.read(ROUTE_SET_SERDE);
+                return new PlayerState(tickets, cards, routes);
+            });
+
+    /**
+     * BinarySerde use to (de)serialize some PublicGameState,
+     * the owner of each route of ChMap is packed on 2 bits (none, first or second player).
+     */
+    public static final BinarySerde<PublicGameState> PUBLIC_GAME_STATE_SERDE = BinarySerde.of(
+            (PublicGameState game, BinaryWriter w) -> {
+                w.writeVarInt(game.ticketsCount())
+                        .write(PUBLIC_CARD_STATE_SERDE, game.cardState())
+                        .write(PLAYER_ID_SERDE, game.currentPlayerId())
+                        .write(PLAYER_ID_SERDE, game.lastPlayer());
+                for (PlayerId id : PlayerId.ALL) {
+                    PublicPlayerState playerState = game.playerState(id);
+                    w.writeVarInt(playerState.ticketCount()).writeVarInt(playerState.cardCount());
+                }
+                byte[] owners = new byte[(ChMap.routes().size() * 2 + Byte.SIZE - 1) / Byte.SIZE];
+                for (PlayerId id : PlayerId.ALL) {
+                    for (Route route : game.playerState(id).routes()) {
+                        int bit = routeIndex(route) * 2;
+                        owners[bit / Byte.SIZE] |= (id.ordinal() + 1) << (bit % Byte.SIZE);
+                    }
+                }
+                w.writeBytes(owners);
+            },
+            (BinaryReader r) -> {
+                int ticketsCount = r.readVarInt();
+                PublicCardState cardState = r.read(PUBLIC_CARD_STATE_SERDE);
+                PlayerId currentPlayerId = r.read(PLAYER_ID_SERDE);
+                PlayerId lastPlayer = r.read(PLAYER_ID_SERDE);
+                int[] counts = new int[PlayerId.COUNT * 2];
+                for (int i = 0; i < counts.length; ++i)
+                    counts[i] = r.readVarInt();
+                byte[] owners = r.readBytes((ChMap.routes().size() * 2 + Byte.SIZE - 1) / Byte.SIZE);
+                Map<PlayerId, List<Route>> routes = new EnumMap<>(PlayerId.class);
+                for (PlayerId id : PlayerId.ALL)
+                    routes.put(id, new ArrayList<>());
+                for (int i = 0; i < ChMap.routes().size(); ++i) {
+                    int owner = (owners[i * 2 / Byte.SIZE] >>> (i * 2 % Byte.SIZE)) & 0b11;
+                    if (owner != 0)
+                        routes.get(PlayerId.ALL.get(owner - 1)).add(ChMap.routes().get(i));
+                }
+                Map<PlayerId, PublicPlayerState> playerState = new EnumMap<>(PlayerId.class);
+                for (PlayerId id : PlayerId.ALL)
+                    playerState.put(id, new PublicPlayerState(counts[id.ordinal() * 2], counts[id.ordinal() * 2 + 1], routes.get(id)));
+                return new PublicGameState(ticketsCount, cardState, currentPlayerId, playerState, lastPlayer);
+            });
+
+    //private constructor
+    private BinarySerdes() {
+        //do nothing, this class isn't instantiable.
+    }
+
+    //Index of a route of ChMap (also used by the delta encoding of the states)
+    static int routeIndex(Route route) {
+        return RouteIndex.indexOf(route);
+    }
+
+    //Set the bit of each of the given routes
+    private static byte[] routeBits(List<Route> routes) {
+        byte[] bits = new byte[ROUTE_SET_BYTES];
+        for (Route route : routes) {
+            int index = routeIndex(route);
+            bits[index / Byte.SIZE] |= 1 << (index % Byte.SIZE);
+        }
+        return bits;
+    }
+
+    //The routes whose bit is set, in the order of ChMap
+    private static List<Route> routesOf(byte[] bits) {
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < ChMap.routes().size(); ++i) {
+            if ((bits[i / Byte.SIZE] & (1 << (i % Byte.SIZE))) != 0)
+                routes.add(ChMap.routes().get(i));
+        }
+        return routes;
+    }
+}
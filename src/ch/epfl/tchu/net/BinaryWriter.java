@@ -0,0 +1,146 @@
+package ch.epfl.tchu.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer used to encode the messages of the binary protocol.
+ * A writer is meant to be reused: <code>reset</code> it before encoding a new message.
+ * It is public, final and not thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class BinaryWriter {
+    //Initial capacity of the buffer (enough for most of the messages)
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Forget the bytes written so far, the buffer is kept.
+     *
+     * @return the writer (<code>this</code>)
+     */
+    public BinaryWriter reset() {
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Write a single byte.
+     *
+     * @param b the byte to write (only the 8 low bits are used)
+     * @return the writer (<code>this</code>)
+     */
+    public BinaryWriter writeByte(int b) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) b;
+        return this;
+    }
+
+    /**
+     * Write a non negative integer as a varint (7 bits per byte, small values take a single byte).
+     *
+     * @param value the value to write
+     * @return the writer (<code>this</code>)
+     * @throws IllegalArgumentException if <code>value</code> is negative
+     */
+    public BinaryWriter writeVarInt(int value) {
+        if (value < 0)
+            throw new IllegalArgumentException();
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Write any integer as a zigzag varint (small negative values take a single byte too).
+     *
+     * @param value the value to write
+     * @return the writer (<code>this</code>)
+     */
+    public BinaryWriter writeZigZag(int value) {
+        ensureCapacity(5);
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        bytes[size++] = (byte) zigzag;
+        return this;
+    }
+
+    /**
+     * Write the given bytes, without their length.
+     *
+     * @param b the bytes to write
+     * @return the writer (<code>this</code>)
+     */
+    public BinaryWriter writeBytes(byte[] b) {
+        ensureCapacity(b.length);
+        System.arraycopy(b, 0, bytes, size, b.length);
+        size += b.length;
+        return this;
+    }
+
+    /**
+     * Write a value with the given serde.
+     *
+     * @param serde the serde used to encode the value
+     * @param value the value to write
+     * @param <E>   the type of the value
+     * @return the writer (<code>this</code>)
+     */
+    public <E> BinaryWriter write(BinarySerde<E> serde, E value) {
+        serde.write(value, this);
+        return this;
+    }
+
+    /**
+     * The amount of bytes written since the last reset.
+     *
+     * @return the size of the content (int)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copy of the bytes written since the last reset.
+     *
+     * @return the content of the writer (byte[])
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Send the content as one frame: its length as a varint, followed by the bytes.
+     * The stream is not flushed.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public void writeFrameTo(OutputStream out) throws IOException {
+        int length = size;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(bytes, 0, size);
+    }
+
+    //Grow the buffer so that the given amount of bytes can be written
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+    }
+}
@@ -0,0 +1,123 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.Player;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class relays the chats between the participants of a room (the players of a game, and later its spectators).
+ * The chats are pushed by the participants (see Player.connectChat) and forwarded to all the other ones,
+ * nothing is polled: a room where nobody writes uses no CPU and no network.
+ * The chats of a room are delivered in order, one at a time, on threads of the given executor.
+ * It is public, final and thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class ChatRoom {
+    //Executor shared by the rooms created without one, its threads die when no chat is sent
+    private static final Executor SHARED_EXECUTOR = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "tchu-chat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor executor;
+    private final List<Player> participants = new CopyOnWriteArrayList<>();
+    //Chats waiting to be delivered, and whether a task is delivering them
+    private final Queue<Runnable> pendingChats = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+
+    /**
+     * Create an empty room delivering the chats on a shared pool of threads.
+     */
+    public ChatRoom() {
+        this(SHARED_EXECUTOR);
+    }
+
+    /**
+     * Create an empty room delivering the chats on the given executor.
+     *
+     * @param executor the executor running the deliveries
+     */
+    public ChatRoom(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Add a participant to the room, he receives the chats sent from now on and his chats are sent to the others.
+     *
+     * @param participant the new participant
+     */
+    public void join(Player participant) {
+        participants.add(Objects.requireNonNull(participant));
+        participant.connectChat(chat -> publish(participant, chat));
+    }
+
+    /**
+     * Remove a participant from the room, he doesn't receive the next chats anymore.
+     *
+     * @param participant the participant leaving the room
+     */
+    public void leave(Player participant) {
+        participants.remove(participant);
+    }
+
+    /**
+     * The amount of participants in the room.
+     *
+     * @return the number of participants (int)
+     */
+    public int participantCount() {
+        return participants.size();
+    }
+
+    /**
+     * Send a chat to all the participants except its sender, without waiting for the deliveries.
+     * A participant whose connection fails is removed from the room.
+     *
+     * @param sender the participant sending the chat (may be null, then everybody receives it)
+     * @param chat   the chat to send
+     */
+    public void publish(Player sender, String chat) {
+        Objects.requireNonNull(chat);
+        pendingChats.add(() -> deliver(sender, chat));
+        scheduleDelivery();
+    }
+
+    //Start a delivery task if none is running
+    private void scheduleDelivery() {
+        if (!pendingChats.isEmpty() && delivering.compareAndSet(false, true))
+            executor.execute(this::deliverPending);
+    }
+
+    //Deliver the pending chats, then let another task start if some arrived meanwhile
+    private void deliverPending() {
+        try {
+            Runnable delivery;
+            while ((delivery = pendingChats.poll()) != null)
+                delivery.run();
+        } finally {
+            delivering.set(false);
+            scheduleDelivery();
+        }
+    }
+
+    //Send the chat to every participant except the sender
+    private void deliver(Player sender, String chat) {
+        for (Player participant : participants) {
+            if (participant == sender)
+                continue;
+            try {
+                participant.receiveChat(chat);
+            } catch (UncheckedIOException e) {
+                participants.remove(participant);
+            }
+        }
+    }
+}
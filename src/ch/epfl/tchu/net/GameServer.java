@@ -0,0 +1,140 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.GameSession;
+
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class schedules many game sessions on a shared pool of threads,
+ * so that a single server process can host a lot of matches at the same time.
+ * It is public and final.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameServer implements AutoCloseable {
+    //The executor running the sessions
+    private final ExecutorService executor;
+
+    //Counters of the sessions
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicLong completedSessions = new AtomicLong();
+    private final AtomicLong failedSessions = new AtomicLong();
+
+    /**
+     * Create a game server running each session on its own pooled thread.
+     * Use it when the players block (GUI or remote players), the threads are reused between sessions.
+     */
+    public GameServer() {
+        this.executor = Executors.newCachedThreadPool(GameServer::newSessionThread);
+    }
+
+    /**
+     * Create a game server running at most the given number of sessions at the same time,
+     * the other ones wait in a queue. Use it when the players never block (in process players).
+     *
+     * @param threadCount the number of sessions that can be played at the same time
+     * @throws IllegalArgumentException if <code>threadCount</code> is not strictly positive
+     */
+    public GameServer(int threadCount) {
+        Preconditions.checkArgument(threadCount > 0);
+        this.executor = Executors.newFixedThreadPool(threadCount, GameServer::newSessionThread);
+    }
+
+    /**
+     * Schedule the given session, it will be played as soon as a thread is available.
+     *
+     * @param session the session to play
+     * @return a future completed when the session is over (Future)
+     * @throws RejectedExecutionException if the server is closed
+     */
+    public Future<?> submit(GameSession session) {
+        return submit(session, () -> {});
+    }
+
+    /**
+     * Schedule the given session, and run the given action once it is over (normally or not),
+     * on the thread that played it.
+     *
+     * @param session  the session to play
+     * @param whenOver the action run at the end of the session
+     * @return a future completed when the session is over and the action has run (Future)
+     * @throws RejectedExecutionException if the server is closed (the action isn't run)
+     */
+    public Future<?> submit(GameSession session, Runnable whenOver) {
+        Objects.requireNonNull(session);
+        Objects.requireNonNull(whenOver);
+        activeSessions.incrementAndGet();
+        try {
+            return executor.submit(() -> {
+                try {
+                    session.play();
+                    completedSessions.incrementAndGet();
+                } catch (RuntimeException | Error e) {
+                    failedSessions.incrementAndGet();
+                    throw e;
+                } finally {
+                    activeSessions.decrementAndGet();
+                    whenOver.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeSessions.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * The amount of sessions submitted and not finished yet (waiting or playing).
+     *
+     * @return the number of active sessions (int)
+     */
+    public int activeSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * The amount of sessions that ended normally.
+     *
+     * @return the number of completed sessions (long)
+     */
+    public long completedSessions() {
+        return completedSessions.get();
+    }
+
+    /**
+     * The amount of sessions that ended with an exception.
+     *
+     * @return the number of failed sessions (long)
+     */
+    public long failedSessions() {
+        return failedSessions.get();
+    }
+
+    /**
+     * Stop accepting new sessions and wait until the running ones are over.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                //keep waiting for the sessions still playing
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Create a daemon thread, so that a session never keeps the JVM alive
+    private static Thread newSessionThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "tchu-session");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
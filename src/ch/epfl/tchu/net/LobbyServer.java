@@ -0,0 +1,368 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Headless server accepting the connections of RemotePlayerClient until it is closed, queuing the players
+ * and pairing them in matches, in the order they arrived. Each match is played by a GameServer.
+ * The connections are handled by a single NioEventLoop: a client waiting in the lobby uses no thread.
+ * A client connects its game socket, then its chat socket: the chat connection is given to the game connection
+ * whose handshake carries the same chat id (a client without chat id can't be paired, it is disconnected).
+ * It is public, final and thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class LobbyServer implements AutoCloseable {
+    //Time between two prints of the counters, in the headless server
+    private static final long REPORT_MILLIS = 10_000;
+    //Connections waiting to be accepted: many clients may connect at the same time (bounded by the system)
+    private static final int BACKLOG = 4096;
+
+    private final ServerSocketChannel gameServerChannel;
+    private final ServerSocketChannel chatServerChannel;
+    private final NioEventLoop loop;
+    private final GameServer gameServer = new GameServer();
+    private final SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+
+    //Clients whose game or chat connection is not paired yet, by chat id
+    private final Map<String, Arrival> unpairedGames = new HashMap<>();
+    private final Map<String, NioEventLoop.Connection> unpairedChats = new HashMap<>();
+    //Players waiting for an opponent, in the order they arrived
+    private final Deque<Waiting> queue = new ArrayDeque<>();
+
+    //Counters of the matchmaking, guarded by this
+    private long matchesStarted;
+    private long matchedPlayers;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private boolean closed;
+
+    /**
+     * Create a lobby accepting the clients on the given ports, and start accepting them.
+     *
+     * @param gamePort the port of the game connections (0 for any free port)
+     * @param chatPort the port of the chat connections (0 for any free port)
+     * @throws IOException if a port can not be bound
+     */
+    public LobbyServer(int gamePort, int chatPort) throws IOException {
+        this.loop = new NioEventLoop();
+        this.gameServerChannel = ServerSocketChannel.open().bind(new InetSocketAddress(gamePort), BACKLOG);
+        this.chatServerChannel = ServerSocketChannel.open().bind(new InetSocketAddress(chatPort), BACKLOG);
+        startAccepting(gameServerChannel, this::gameConnected);
+        startAccepting(chatServerChannel, this::chatConnected);
+    }
+
+    /**
+     * Run a lobby until the process is killed, printing its counters regularly.
+     *
+     * @param args the game port and the chat port
+     * @throws IOException if a port can not be bound
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: LobbyServer gamePort chatPort");
+        try (LobbyServer lobby = new LobbyServer(Integer.parseInt(args[0]), Integer.parseInt(args[1]))) {
+            while (true) {
+                Thread.sleep(REPORT_MILLIS);
+                System.out.printf("queue=%d activeGames=%d completedGames=%d failedGames=%d averageWait=%.0fms maxWait=%.0fms%n",
+                        lobby.queueLength(), lobby.activeGames(), lobby.completedGames(), lobby.failedGames(),
+                        lobby.averageWaitMillis(), lobby.maxWaitMillis());
+            }
+        }
+    }
+
+    /**
+     * The port of the game connections.
+     *
+     * @return the game port (int)
+     */
+    public int gamePort() {
+        return gameServerChannel.socket().getLocalPort();
+    }
+
+    /**
+     * The port of the chat connections.
+     *
+     * @return the chat port (int)
+     */
+    public int chatPort() {
+        return chatServerChannel.socket().getLocalPort();
+    }
+
+    /**
+     * The amount of players waiting for an opponent (a player who left while waiting is counted until
+     * the next match is made).
+     *
+     * @return the length of the queue (int)
+     */
+    public synchronized int queueLength() {
+        return queue.size();
+    }
+
+    /**
+     * The amount of matches being played.
+     *
+     * @return the number of active games (int)
+     */
+    public int activeGames() {
+        return gameServer.activeSessions();
+    }
+
+    /**
+     * The amount of matches that ended normally.
+     *
+     * @return the number of completed games (long)
+     */
+    public long completedGames() {
+        return gameServer.completedSessions();
+    }
+
+    /**
+     * The amount of matches that ended with an exception (a player left, ...).
+     *
+     * @return the number of failed games (long)
+     */
+    public long failedGames() {
+        return gameServer.failedSessions();
+    }
+
+    /**
+     * The amount of matches started since the lobby was created.
+     *
+     * @return the number of matches started (long)
+     */
+    public synchronized long matchesStarted() {
+        return matchesStarted;
+    }
+
+    /**
+     * The average time the matched players waited in the queue.
+     *
+     * @return the average wait time in milliseconds, 0 if no player was matched yet (double)
+     */
+    public synchronized double averageWaitMillis() {
+        return (matchedPlayers == 0) ? 0 : totalWaitNanos / 1e6 / matchedPlayers;
+    }
+
+    /**
+     * The longest time a matched player waited in the queue.
+     *
+     * @return the maximal wait time in milliseconds (double)
+     */
+    public synchronized double maxWaitMillis() {
+        return maxWaitNanos / 1e6;
+    }
+
+    /**
+     * Stop accepting clients, disconnect the waiting ones and wait for the end of the matches
+     * (the clients of the matches are disconnected, so they end quickly).
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            for (Waiting waiting : queue)
+                waiting.proxy.disconnect();
+            queue.clear();
+        }
+        try {
+            gameServerChannel.close();
+            chatServerChannel.close();
+        } catch (IOException e) {
+            //the channels are closed anyway
+        }
+        loop.close();
+        gameServer.close();
+    }
+
+    //Accept the connections of the given channel on a dedicated thread, until the channel is closed
+    private void startAccepting(ServerSocketChannel serverChannel, Consumer<NioEventLoop.Connection> handler) {
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    SocketChannel channel = serverChannel.accept();
+                    try {
+                        handler.accept(loop.register(channel));
+                    } catch (IOException e) {
+                        //the client is already gone
+                        channel.close();
+                    }
+                }
+            } catch (ClosedChannelException e) {
+                //the lobby is closed
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, "tchu-lobby-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    //A game connection was accepted: wait for the name and the chat id of the player
+    private void gameConnected(NioEventLoop.Connection gameConnection) {
+        gameConnection.receiveLater().whenComplete((line, failure) -> {
+            if (failure == null)
+                named(gameConnection, line);
+            else
+                gameConnection.close();
+        });
+    }
+
+    //A chat connection was accepted: wait for the chat id of the player
+    private void chatConnected(NioEventLoop.Connection chatConnection) {
+        chatConnection.receiveLater().whenComplete((line, failure) -> {
+            if (failure == null)
+                identified(chatConnection, line);
+            else
+                chatConnection.close();
+        });
+    }
+
+    //The first line of the game connection was received (on the thread of the loop):
+    //pair it with the chat connection of the same id, or wait for it
+    private void named(NioEventLoop.Connection gameConnection, String line) {
+        Arrival arrival;
+        try {
+            String chatId = NioRemotePlayerProxy.chatId(line);
+            Preconditions.checkArgument(chatId != null);
+            arrival = new Arrival(gameConnection, NioRemotePlayerProxy.playerName(gameConnection, line), chatId);
+        } catch (RuntimeException e) {
+            //not a client of tChu, or a client that can't be paired
+            gameConnection.close();
+            return;
+        }
+
+        NioEventLoop.Connection chatConnection;
+        synchronized (this) {
+            chatConnection = unpairedChats.remove(arrival.chatId);
+            if (chatConnection == null || !chatConnection.isOpen()) {
+                forgetLeftClients();
+                Arrival replaced = unpairedGames.put(arrival.chatId, arrival);
+                if (replaced != null)
+                    replaced.gameConnection.close();
+                return;
+            }
+        }
+        enqueue(arrival, chatConnection);
+    }
+
+    //The first line of the chat connection was received (on the thread of the loop):
+    //pair it with the game connection of the same id, or wait for it
+    private void identified(NioEventLoop.Connection chatConnection, String line) {
+        String[] chatHandshake = line.split(Pattern.quote(" "), -1);
+        if (chatHandshake.length != 2 || !chatHandshake[0].equals(WireFormat.CHAT_HANDSHAKE)) {
+            chatConnection.close();
+            return;
+        }
+
+        String chatId = chatHandshake[1];
+        Arrival arrival;
+        synchronized (this) {
+            arrival = unpairedGames.remove(chatId);
+            if (arrival == null || !arrival.gameConnection.isOpen()) {
+                forgetLeftClients();
+                NioEventLoop.Connection replaced = unpairedChats.put(chatId, chatConnection);
+                if (replaced != null)
+                    replaced.close();
+                return;
+            }
+        }
+        enqueue(arrival, chatConnection);
+    }
+
+    //Forget the unpaired connections whose client left (guarded by this)
+    private void forgetLeftClients() {
+        unpairedGames.values().removeIf(arrival -> !arrival.gameConnection.isOpen());
+        unpairedChats.values().removeIf(chatConnection -> !chatConnection.isOpen());
+    }
+
+    //Queue the player whose connections are paired, and start a match if possible
+    private void enqueue(Arrival arrival, NioEventLoop.Connection chatConnection) {
+        List<Waiting> match = new ArrayList<>(PlayerId.COUNT);
+        synchronized (this) {
+            NioRemotePlayerProxy proxy = new NioRemotePlayerProxy(arrival.gameConnection, chatConnection);
+            if (closed) {
+                proxy.disconnect();
+                return;
+            }
+            queue.add(new Waiting(proxy, arrival.name, System.nanoTime()));
+
+            //the players who left while waiting are forgotten
+            queue.removeIf(waiting -> !waiting.proxy.isConnected());
+            if (queue.size() < PlayerId.COUNT)
+                return;
+            long now = System.nanoTime();
+            for (int i = 0; i < PlayerId.COUNT; ++i) {
+                Waiting waiting = queue.poll();
+                long wait = now - waiting.since;
+                totalWaitNanos += wait;
+                maxWaitNanos = Math.max(maxWaitNanos, wait);
+                match.add(waiting);
+            }
+            matchedPlayers += PlayerId.COUNT;
+            ++matchesStarted;
+        }
+        startMatch(match);
+    }
+
+    //Play a match between the given players, and disconnect them once it is over
+    private void startMatch(List<Waiting> match) {
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        Map<PlayerId, String> playerNames = new EnumMap<>(PlayerId.class);
+        ChatRoom chatRoom = new ChatRoom();
+        for (PlayerId id : PlayerId.ALL) {
+            Waiting waiting = match.get(id.ordinal());
+            players.put(id, waiting.proxy);
+            playerNames.put(id, waiting.name);
+            chatRoom.join(waiting.proxy);
+        }
+        Runnable disconnect = () -> match.forEach(waiting -> waiting.proxy.disconnect());
+        try {
+            gameServer.submit(new GameSession(players, playerNames, tickets, new Random()), disconnect);
+        } catch (RejectedExecutionException e) {
+            //the lobby is closing
+            disconnect.run();
+        }
+    }
+
+    //A client whose game connection waits for its chat connection
+    private static final class Arrival {
+        private final NioEventLoop.Connection gameConnection;
+        private final String name;
+        private final String chatId;
+
+        private Arrival(NioEventLoop.Connection gameConnection, String name, String chatId) {
+            this.gameConnection = gameConnection;
+            this.name = name;
+            this.chatId = chatId;
+        }
+    }
+
+    //A player waiting for an opponent, since the given time (in ns)
+    private static final class Waiting {
+        private final NioRemotePlayerProxy proxy;
+        private final String name;
+        private final long since;
+
+        private Waiting(NioRemotePlayerProxy proxy, String name, long since) {
+            this.proxy = proxy;
+            this.name = name;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package ch.epfl.tchu.net;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffered connection over a socket, keeping the same input and output streams for its whole life.
+ * The messages are lines in US-ASCII or binary frames, the two can follow each other on the same connection.
+ * A message is either a notification, only buffered, or a question, sent at once with the notifications
+ * buffered before it: consecutive notifications and the next question travel in a single write.
+ * The notifications that aren't followed by a question are flushed a short time (LINGER_MILLIS) after the first of them.
+ * Once kept alive, an idle connection sends heartbeats (skipped by the receiving channel),
+ * and a connection receiving nothing, not even a heartbeat, for a few periods considers its peer gone.
+ * It is public, final and thread safe (the writes of several threads don't interleave).
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class MessageChannel implements Closeable {
+    //Time the notifications wait for a question before being flushed alone
+    private static final long LINGER_MILLIS = 2;
+    //Size of the buffers of the streams, a burst of notifications fits in it
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //Amount of heartbeat periods without any message after which the peer is considered gone
+    private static final int MISSED_HEARTBEATS = 3;
+
+    /**
+     * Period of the heartbeats of the connections kept alive by the clients and the server.
+     */
+    public static final long HEARTBEAT_MILLIS = 5_000;
+
+    /**
+     * Deadline of the receptions without deadline.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    //The heartbeat in the text format (a binary heartbeat is an empty frame, no message is empty)
+    private static final String HEARTBEAT_LINE = MessageId.HEARTBEAT.name();
+
+    //Times the linger flushes and the heartbeats of all the connections, only wakes their writers (never blocks)
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tchu-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //Does the writes woken by the flusher, at most one at a time per connection:
+    //a connection whose peer doesn't read blocks its own writer, not the ones of the others
+    private static final ExecutorService WRITERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "tchu-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    //State of the output, guarded by this
+    private boolean pending;
+    private boolean flushScheduled;
+    private IOException flushFailure;
+    private long messages;
+    private long flushes;
+    //true if a message was written since the last heartbeat period
+    private boolean written;
+    private boolean binaryHeartbeats;
+    private ScheduledFuture<?> heartbeats;
+    //Period of the heartbeats, 0 if the connection isn't kept alive
+    private volatile long heartbeatMillis;
+    //true if a heartbeat period ended since the last write of the writer
+    private volatile boolean heartbeatDue;
+    //Amount of wake-ups of the writer not handled yet, the writer runs while it isn't 0
+    private final AtomicInteger writerRequests = new AtomicInteger();
+
+    /**
+     * Create a connection over the given connected socket.
+     *
+     * @param socket the connected socket
+     * @throws IOException if the streams of the socket can't be opened
+     */
+    public MessageChannel(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+    }
+
+    /**
+     * Buffer a notification, it is sent with the next question or after LINGER_MILLIS.
+     *
+     * @param line the line, without its line terminator
+     * @throws UncheckedIOException if the line can't be written
+     */
+    public synchronized void post(String line) {
+        writeLine(line);
+        flushLater();
+    }
+
+    /**
+     * Same as {@link #post(String)}, for a binary frame.
+     *
+     * @param frame the content of the frame
+     * @throws UncheckedIOException if the frame can't be written
+     */
+    public synchronized void post(BinaryWriter frame) {
+        writeFrame(frame);
+        flushLater();
+    }
+
+    /**
+     * Send a line at once, with the notifications buffered before it (a question, or an answer).
+     *
+     * @param line the line, without its line terminator
+     * @throws UncheckedIOException if the line can't be sent
+     */
+    public synchronized void send(String line) {
+        writeLine(line);
+        flush();
+    }
+
+    /**
+     * Same as {@link #send(String)}, for a binary frame.
+     *
+     * @param frame the content of the frame
+     * @throws UncheckedIOException if the frame can't be sent
+     */
+    public synchronized void send(BinaryWriter frame) {
+        writeFrame(frame);
+        flush();
+    }
+
+    /**
+     * Keep the connection alive: send a heartbeat at each period without message,
+     * skip the heartbeats received and consider the peer gone after a few periods without any message.
+     *
+     * @param heartbeatMillis the period of the heartbeats
+     * @param binary          true to send the heartbeats as binary frames, false as lines
+     */
+    public synchronized void keepAlive(long heartbeatMillis, boolean binary) {
+        this.heartbeatMillis = heartbeatMillis;
+        this.binaryHeartbeats = binary;
+        if (heartbeats != null)
+            heartbeats.cancel(false);
+        heartbeats = FLUSHER.scheduleWithFixedDelay(() -> {
+            heartbeatDue = true;
+            wakeWriter();
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Receive a line. Must not be called by several threads at the same time.
+     *
+     * @return the line, without its line terminator, null if the connection is closed (String)
+     * @throws UncheckedIOException if the line can't be read
+     */
+    public String receiveLine() {
+        return receiveLine(NO_DEADLINE);
+    }
+
+    /**
+     * Receive a line before the given deadline. Must not be called by several threads at the same time.
+     *
+     * @param deadline the time (as given by <code>System.nanoTime()</code>) after which the reception fails,
+     *                 or NO_DEADLINE
+     * @return the line, without its line terminator, null if the connection is closed (String)
+     * @throws UncheckedIOException if the line can't be read, if the deadline has passed or if the peer is gone
+     */
+    public String receiveLine(long deadline) {
+        String line;
+        do {
+            setReadTimeout(deadline);
+            line = readLine();
+        } while (line != null && heartbeatMillis > 0 && line.equals(HEARTBEAT_LINE));
+        return line;
+    }
+
+    /**
+     * Receive a binary frame. Must not be called by several threads at the same time.
+     *
+     * @return the content of the frame (BinaryReader)
+     * @throws UncheckedIOException if the frame can't be read, or if the connection is closed
+     */
+    public BinaryReader receiveFrame() {
+        return receiveFrame(NO_DEADLINE);
+    }
+
+    /**
+     * Receive a binary frame before the given deadline. Must not be called by several threads at the same time.
+     *
+     * @param deadline the time (as given by <code>System.nanoTime()</code>) after which the reception fails,
+     *                 or NO_DEADLINE
+     * @return the content of the frame (BinaryReader)
+     * @throws UncheckedIOException if the frame can't be read, if the connection is closed,
+     *                              if the deadline has passed or if the peer is gone
+     */
+    public BinaryReader receiveFrame(long deadline) {
+        try {
+            BinaryReader frame;
+            do {
+                setReadTimeout(deadline);
+                frame = BinaryReader.readFrameFrom(in);
+            } while (heartbeatMillis > 0 && frame.remaining() == 0);
+            return frame;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Read a line from the stream, null at its end
+    private String readLine() {
+        try {
+            StringBuilder line = new StringBuilder();
+            int b = in.read();
+            if (b < 0)
+                return null;
+            while (b >= 0 && b != '\n') {
+                line.append((char) b);
+                b = in.read();
+            }
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r')
+                line.setLength(length - 1);
+            return line.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Bound the next read by the deadline and, if the connection is kept alive, by the silence allowed to the peer
+    private void setReadTimeout(long deadline) {
+        long timeout = MISSED_HEARTBEATS * heartbeatMillis;
+        if (deadline != NO_DEADLINE) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0)
+                throw new UncheckedIOException(new SocketTimeoutException("Deadline passed"));
+            timeout = (timeout == 0) ? remaining : Math.min(timeout, remaining);
+        }
+        try {
+            socket.setSoTimeout((int) Math.min(timeout, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The amount of messages (notifications, questions and answers) sent so far.
+     *
+     * @return the number of messages (long)
+     */
+    public synchronized long messages() {
+        return messages;
+    }
+
+    /**
+     * The amount of writes on the socket so far, each one sending all the messages buffered.
+     *
+     * @return the number of writes (long)
+     */
+    public synchronized long flushes() {
+        return flushes;
+    }
+
+    /**
+     * Send the notifications still buffered and close the socket.
+     *
+     * @throws IOException if the socket can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                if (heartbeats != null)
+                    heartbeats.cancel(false);
+                if (pending && !socket.isClosed())
+                    flush();
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void writeLine(String line) {
+        checkFlushFailure();
+        try {
+            out.write(line.getBytes(StandardCharsets.US_ASCII));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ++messages;
+        pending = true;
+        written = true;
+    }
+
+    private void writeFrame(BinaryWriter frame) {
+        checkFlushFailure();
+        try {
+            frame.writeFrameTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ++messages;
+        pending = true;
+        written = true;
+    }
+
+    //Write the buffered messages on the socket, the pending flush (if any) becomes useless
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ++flushes;
+        pending = false;
+        flushScheduled = false;
+    }
+
+    //Schedule a flush, unless one is already scheduled
+    private void flushLater() {
+        if (flushScheduled)
+            return;
+        flushScheduled = true;
+        FLUSHER.schedule(this::wakeWriter, LINGER_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    //Called by the flusher: hand the write over to the writer of the connection, unless it is already running
+    private void wakeWriter() {
+        if (writerRequests.getAndIncrement() == 0)
+            WRITERS.execute(this::runWriter);
+    }
+
+    //Run by a writer thread: do the writes until no wake-up is left, the wake-ups arriving meanwhile included
+    private void runWriter() {
+        int handled;
+        do {
+            handled = writerRequests.get();
+            writeInBackground();
+        } while (writerRequests.addAndGet(-handled) != 0);
+    }
+
+    //Flush the notifications whose linger expired and send the heartbeat due, if any
+    private synchronized void writeInBackground() {
+        if (flushScheduled) {
+            try {
+                flush();
+            } catch (UncheckedIOException e) {
+                //reported to the next caller, nobody waits for this flush
+                flushFailure = e.getCause();
+                flushScheduled = false;
+            }
+        }
+        if (heartbeatDue) {
+            heartbeatDue = false;
+            heartbeat();
+        }
+    }
+
+    //Send a heartbeat if no message was sent during the last period
+    private void heartbeat() {
+        if (written || flushFailure != null) {
+            written = false;
+            return;
+        }
+        try {
+            if (binaryHeartbeats)
+                new BinaryWriter().writeFrameTo(out);
+            else
+                out.write((HEARTBEAT_LINE + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            pending = false;
+            flushScheduled = false;
+        } catch (IOException e) {
+            //reported to the next caller, the heartbeats stop
+            flushFailure = e;
+            heartbeats.cancel(false);
+        }
+    }
+
+    //Throw the failure of the last flush done by the flusher, if any
+    private void checkFlushFailure() {
+        if (flushFailure != null)
+            throw new UncheckedIOException(flushFailure);
+    }
+}
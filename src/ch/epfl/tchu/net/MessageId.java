@@ -20,6 +20,11 @@ public enum MessageId {
     ROUTE,
     CARDS,
     CHOOSE_ADDITIONAL_CARDS,
+    //no more sent since the chat is pushed by the clients (SEND_CHAT), kept so that the ids don't change
     LAST_CHAT,
-    RECEIVE_CHAT
+    RECEIVE_CHAT,
+    //sent by a client to the server, when its player sends a chat
+    SEND_CHAT,
+    //sent on an idle connection kept alive, in both directions, only to the clients with a session
+    HEARTBEAT
 }
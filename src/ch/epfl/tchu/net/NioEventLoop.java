@@ -0,0 +1,428 @@
+package ch.epfl.tchu.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Selector based event loop multiplexing many line oriented connections on a single thread.
+ * Each connection reuses the same direct buffers for its whole life,
+ * the lines are exchanged in US-ASCII, as in the rest of the protocol.
+ * Already encoded lines can also be sent as buffers, shared by many connections without being copied.
+ * A connection whose peer sends a too long line, or whose listener throws, is closed; the others go on.
+ * It is public and final.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class NioEventLoop implements AutoCloseable {
+    //Size of the read and write buffers of each connection
+    private static final int BUFFER_SIZE = 8 * 1024;
+    //Longest line a peer may send, a longer one closes its connection (a client only sends short answers and chats)
+    private static final int MAX_LINE_LENGTH = 128 * 1024;
+    //Marks the end of the stream in the received lines (compared by reference)
+    private static final String END_OF_STREAM = new String("");
+
+    private final Selector selector;
+    private final Thread thread;
+    //Tasks to run on the loop thread (registrations, pending writes)
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    /**
+     * Create and start a new event loop, with its own (daemon) thread.
+     *
+     * @throws IOException if the selector can not be opened
+     */
+    public NioEventLoop() throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, "tchu-nio-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Register a connected channel in the loop, the channel is switched to the non blocking mode.
+     *
+     * @param channel the connected channel
+     * @return the connection used to send and receive lines over the channel (Connection)
+     * @throws IOException if the channel can not be configured or registered
+     */
+    public Connection register(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        CompletableFuture<Void> registered = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                registered.complete(null);
+            } catch (IOException e) {
+                registered.completeExceptionally(e);
+            }
+        });
+        try {
+            registered.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        return connection;
+    }
+
+    /**
+     * Stop the loop and close all the connections.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Run a task on the loop thread
+    private void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    //Body of the loop thread
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    //a failing task must not stop the loop (the tasks of a connection close it themselves)
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        //ignored
+                    }
+                }
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Connection connection = (Connection) key.attachment();
+                    //a failure, or a listener throwing, closes the connection only
+                    try {
+                        if (key.isValid() && key.isReadable())
+                            connection.read();
+                        if (key.isValid() && key.isWritable())
+                            connection.flush();
+                    } catch (IOException | RuntimeException e) {
+                        connection.closeOnLoop();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            //the loop stops, the connections are closed below
+        } finally {
+            for (SelectionKey key : selector.keys())
+                ((Connection) key.attachment()).closeOnLoop();
+            try {
+                selector.close();
+            } catch (IOException e) {
+                //nothing more can be done
+            }
+        }
+    }
+
+    /**
+     * A connection of the loop, exchanging lines with its peer.
+     * The sending and receiving methods can be called from any thread.
+     */
+    public final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        //Line being received
+        private final StringBuilder currentLine = new StringBuilder();
+        //Lines received and not consumed yet
+        private final BlockingQueue<String> receivedLines = new LinkedBlockingQueue<>();
+        //Receives the lines instead of the queue once set (loop thread only)
+        private Consumer<String> listener;
+        //Receives the next line before the listener and the queue, then is cleared (loop thread only)
+        private CompletableFuture<String> nextLine;
+        //Lines (String) and encoded lines (ByteBuffer) waiting to be written, and progress in the first line
+        private final Queue<Object> outgoing = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingMessages = new AtomicInteger();
+        private int outgoingIndex;
+        private SelectionKey key;
+        private volatile boolean open = true;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+            writeBuffer.flip();
+        }
+
+        /**
+         * Send a line to the peer (the line separator is added), without waiting for the write.
+         *
+         * @param line the line to send, in US-ASCII
+         * @throws UncheckedIOException if the connection is closed
+         */
+        public void send(String line) {
+            if (!open)
+                throw new UncheckedIOException(new EOFException());
+            enqueue(line);
+        }
+
+        /**
+         * Send the remaining bytes of the given buffer to the peer as they are, without copying them
+         * and without waiting for the write. The buffer must contain whole lines and must not be modified
+         * afterwards: to send the same bytes to many connections, give each one a duplicate of the buffer.
+         *
+         * @param lines the encoded lines to send, in US-ASCII
+         * @throws UncheckedIOException if the connection is closed
+         */
+        public void send(ByteBuffer lines) {
+            if (!open)
+                throw new UncheckedIOException(new EOFException());
+            enqueue(Objects.requireNonNull(lines));
+        }
+
+        /**
+         * The amount of messages given to <code>send</code> that are not written yet, used to detect a slow peer.
+         *
+         * @return the number of pending messages (int)
+         */
+        public int pendingMessages() {
+            return pendingMessages.get();
+        }
+
+        /**
+         * Wait for the next line sent by the peer.
+         *
+         * @return the received line, without the line separator (String)
+         * @throws UncheckedIOException if the connection is closed before a line is received
+         */
+        public String receive() {
+            return receive(MessageChannel.NO_DEADLINE);
+        }
+
+        /**
+         * Wait for the next line sent by the peer, until the given deadline.
+         *
+         * @param deadline the time (as given by <code>System.nanoTime()</code>) after which the reception fails,
+         *                 or MessageChannel.NO_DEADLINE
+         * @return the received line, without the line separator (String)
+         * @throws UncheckedIOException if the connection is closed before a line is received,
+         *                              or if the deadline passes
+         */
+        public String receive(long deadline) {
+            try {
+                String line = (deadline == MessageChannel.NO_DEADLINE)
+                        ? receivedLines.take()
+                        : receivedLines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (line == null)
+                    throw new UncheckedIOException(new SocketTimeoutException("Deadline passed"));
+                if (line == END_OF_STREAM) {
+                    //let the other receivers see the end too
+                    receivedLines.add(END_OF_STREAM);
+                    throw new UncheckedIOException(new EOFException());
+                }
+                return line;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException(e));
+            }
+        }
+
+        /**
+         * Receive the next line sent by the peer without blocking the caller.
+         * The future is completed on the thread of the loop (its actions must not block),
+         * exceptionally if the connection is closed before a line is received.
+         *
+         * @return the future of the received line, without the line separator (CompletableFuture)
+         */
+        public CompletableFuture<String> receiveLater() {
+            CompletableFuture<String> line = new CompletableFuture<>();
+            executeOnConnection(() -> {
+                String received = receivedLines.poll();
+                if (received == END_OF_STREAM) {
+                    receivedLines.add(END_OF_STREAM);
+                    line.completeExceptionally(new EOFException());
+                } else if (received != null) {
+                    line.complete(received);
+                } else {
+                    nextLine = line;
+                }
+            });
+            return line;
+        }
+
+        /**
+         * Give the lines received from now on (and the ones not consumed yet) to the given listener
+         * instead of keeping them for <code>receive()</code>. The listener is called on the thread of the loop,
+         * it must not block.
+         *
+         * @param listener the function receiving the lines
+         */
+        public void onReceive(Consumer<String> listener) {
+            Objects.requireNonNull(listener);
+            executeOnConnection(() -> {
+                String line;
+                while ((line = receivedLines.peek()) != null && line != END_OF_STREAM)
+                    listener.accept(receivedLines.poll());
+                this.listener = listener;
+            });
+        }
+
+        /**
+         * Used to know if the connection is still open.
+         *
+         * @return true iff the connection has not been closed (boolean)
+         */
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Close the connection, the lines not written yet are lost.
+         */
+        public void close() {
+            execute(this::closeOnLoop);
+        }
+
+        //Read what is available and split it in lines (loop thread only)
+        private void read() throws IOException {
+            int count;
+            while ((count = channel.read(readBuffer)) > 0) {
+                readBuffer.flip();
+                while (readBuffer.hasRemaining()) {
+                    char c = (char) (readBuffer.get() & 0xFF);
+                    if (c == '\n') {
+                        if (nextLine != null) {
+                            CompletableFuture<String> line = nextLine;
+                            nextLine = null;
+                            line.complete(currentLine.toString());
+                        } else if (listener != null) {
+                            listener.accept(currentLine.toString());
+                        } else {
+                            receivedLines.add(currentLine.toString());
+                        }
+                        currentLine.setLength(0);
+                    } else if (c != '\r') {
+                        if (currentLine.length() == MAX_LINE_LENGTH)
+                            throw new IOException("Line too long");
+                        currentLine.append(c);
+                    }
+                }
+                readBuffer.clear();
+            }
+            if (count < 0)
+                closeOnLoop();
+        }
+
+        //Queue a message and schedule its write
+        private void enqueue(Object message) {
+            pendingMessages.incrementAndGet();
+            outgoing.add(message);
+            executeOnConnection(this::flushQuietly);
+        }
+
+        //Run a task of the connection on the loop thread, closing the connection if the task fails
+        private void executeOnConnection(Runnable task) {
+            execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    closeOnLoop();
+                }
+            });
+        }
+
+        //Write as much as possible of the pending messages (loop thread only)
+        private void flush() throws IOException {
+            while (true) {
+                if (!writeBuffer.hasRemaining() && outgoing.peek() instanceof ByteBuffer) {
+                    //the encoded lines are written from their own buffer
+                    ByteBuffer lines = (ByteBuffer) outgoing.peek();
+                    channel.write(lines);
+                    if (lines.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    outgoing.poll();
+                    pendingMessages.decrementAndGet();
+                    continue;
+                }
+                //fill the buffer with the pending lines
+                if (!writeBuffer.hasRemaining()) {
+                    writeBuffer.clear();
+                    fillWriteBuffer();
+                    writeBuffer.flip();
+                    if (!writeBuffer.hasRemaining())
+                        break;
+                }
+                channel.write(writeBuffer);
+                //the socket is full: wait until it is writable again
+                if (writeBuffer.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        //Encode the pending lines in the write buffer (US-ASCII, one byte per char), up to the next encoded ones
+        private void fillWriteBuffer() {
+            while (writeBuffer.hasRemaining() && outgoing.peek() instanceof String) {
+                String line = (String) outgoing.peek();
+                while (writeBuffer.hasRemaining() && outgoingIndex < line.length())
+                    writeBuffer.put((byte) line.charAt(outgoingIndex++));
+                if (!writeBuffer.hasRemaining())
+                    return;
+                writeBuffer.put((byte) '\n');
+                outgoing.poll();
+                pendingMessages.decrementAndGet();
+                outgoingIndex = 0;
+            }
+        }
+
+        //Flush from a task, closing the connection if it fails (loop thread only)
+        private void flushQuietly() {
+            if (key == null || !key.isValid())
+                return;
+            try {
+                flush();
+            } catch (IOException e) {
+                closeOnLoop();
+            }
+        }
+
+        //Close the channel and wake up the receivers (loop thread only)
+        private void closeOnLoop() {
+            if (!open)
+                return;
+            open = false;
+            if (key != null)
+                key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //already closed
+            }
+            receivedLines.add(END_OF_STREAM);
+            if (nextLine != null)
+                nextLine.completeExceptionally(new EOFException());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * This class represent the player in the eye of the server, like RemotePlayerProxy,
+ * but its sockets are handled by a shared NioEventLoop instead of blocking streams,
+ * so that one thread does the I/O of many remote players.
+ * It speaks the same protocol as RemotePlayerProxy, the clients are unchanged, but opens no session:
+ * a client whose connection is lost can't come back. Each decision must be received before a deadline.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class NioRemotePlayerProxy implements Player {
+    //the connections of the proxy
+    private final NioEventLoop.Connection gameConnection;
+    private final NioEventLoop.Connection chatConnection;
+    //the time given to each decision
+    private final long decisionTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(RemotePlayerProxy.DEFAULT_DECISION_TIMEOUT_MILLIS);
+
+    /**
+     * Create a NioRemotePlayerProxy whose channels are registered in the given loop.
+     *
+     * @param loop        the event loop doing the I/O
+     * @param gameChannel the connected channel for the game messages
+     * @param chatChannel the connected channel for the chat messages
+     * @throws IOException if a channel can not be registered
+     */
+    public NioRemotePlayerProxy(NioEventLoop loop, SocketChannel gameChannel, SocketChannel chatChannel) throws IOException {
+        this(loop.register(gameChannel), loop.register(chatChannel));
+    }
+
+    //Create a proxy on connections already registered (used by the lobby, which reads the first line itself)
+    NioRemotePlayerProxy(NioEventLoop.Connection gameConnection, NioEventLoop.Connection chatConnection) {
+        this.gameConnection = gameConnection;
+        this.chatConnection = chatConnection;
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        List<String> players = List.of(playerNames.get(PlayerId.PLAYER_1), playerNames.get(PlayerId.PLAYER_2));
+        gameConnection.send(message(MessageId.INIT_PLAYERS,
+                Serdes.PLAYER_ID_SERDE.serialize(ownId),
+                Serdes.LIST_STRING_SERDE.serialize(players)));
+    }
+
+    /**
+     * Listen to the chats pushed by the client, they are received by the event loop (no thread is blocked).
+     *
+     * @param chatSender the function receiving the chats of the player
+     */
+    @Override
+    public void connectChat(Consumer<String> chatSender) {
+        chatConnection.onReceive(line -> {
+            String[] message = line.split(Pattern.quote(" "), -1);
+            if (message.length < 2 || !message[0].equals(MessageId.SEND_CHAT.name()))
+                return;
+            //a malformed chat is ignored, nothing may be thrown on the thread of the loop
+            try {
+                chatSender.accept(Serdes.STRING_SERDE.deserialize(message[1]));
+            } catch (IllegalArgumentException e) {
+                //ignored
+            }
+        });
+    }
+
+    @Override
+    public void receiveChat(String chat) {
+        chatConnection.send(message(MessageId.RECEIVE_CHAT, Serdes.STRING_SERDE.serialize(chat)));
+    }
+
+    @Override
+    public void receiveInfo(String info) {
+        gameConnection.send(message(MessageId.RECEIVE_INFO, Serdes.STRING_SERDE.serialize(info)));
+    }
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        gameConnection.send(message(MessageId.UPDATE_STATE,
+                Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState),
+                Serdes.PLAYER_STATE_SERDE.serialize(ownState)));
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        gameConnection.send(message(MessageId.SET_INITIAL_TICKETS, Serdes.SORTED_BAG_TICKETS_SERDE.serialize(tickets)));
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(request(message(MessageId.CHOOSE_INITIAL_TICKETS)));
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        return Serdes.TURN_KIND_SERDE.deserialize(request(message(MessageId.NEXT_TURN)));
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        String msg = message(MessageId.CHOOSE_TICKETS, Serdes.SORTED_BAG_TICKETS_SERDE.serialize(options));
+        return Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(request(msg));
+    }
+
+    @Override
+    public int drawSlot() {
+        return Serdes.INTEGER_SERDE.deserialize(request(message(MessageId.DRAW_SLOT)));
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return Serdes.ROUTE_SERDE.deserialize(request(message(MessageId.ROUTE)));
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return Serdes.SORTED_BAG_CARD_SERDE.deserialize(request(message(MessageId.CARDS)));
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        String msg = message(MessageId.CHOOSE_ADDITIONAL_CARDS, Serdes.LIST_SORTED_BAG_CARD_SERDE.serialize(options));
+        return Serdes.SORTED_BAG_CARD_SERDE.deserialize(request(msg));
+    }
+
+    /**
+     * Receive the name of the player. If the client asks for a format of the game messages,
+     * this proxy always answers with the text format (the only one it speaks).
+     *
+     * @return the name of the player
+     */
+    @Override
+    public String receivePlayerName() {
+        return playerName(gameConnection, gameConnection.receive());
+    }
+
+    /**
+     * Read the name of the player in the first line sent by its client, answering the handshake if there is one
+     * (a session asked by the client is not opened).
+     *
+     * @param gameConnection the game connection of the client
+     * @param line           the first line of the client
+     * @return the name of the player (String)
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    static String playerName(NioEventLoop.Connection gameConnection, String line) {
+        String[] firstLine = line.split(Pattern.quote(" "), -1);
+        if (!firstLine[0].equals(WireFormat.HANDSHAKE))
+            return Serdes.STRING_SERDE.deserialize(firstLine[0]);
+
+        Preconditions.checkArgument(firstLine.length == 3
+                || (3 < firstLine.length && firstLine.length <= 5 && firstLine[3].equals(WireFormat.NEW_SESSION)));
+        gameConnection.send(WireFormat.TEXT.name());
+        return Serdes.STRING_SERDE.deserialize(firstLine[2]);
+    }
+
+    /**
+     * Read the chat id in the first line sent by a client, the same id is sent on its chat socket.
+     *
+     * @param line the first line of the client
+     * @return the chat id of the client, null if the line has none (String)
+     */
+    static String chatId(String line) {
+        String[] firstLine = line.split(Pattern.quote(" "), -1);
+        return (firstLine.length == 5 && firstLine[0].equals(WireFormat.HANDSHAKE) && !firstLine[4].isEmpty())
+                ? firstLine[4]
+                : null;
+    }
+
+    //Tells if the client is still connected
+    boolean isConnected() {
+        return gameConnection.isOpen();
+    }
+
+    //Close the connections with the client, the lines not sent yet are lost
+    void disconnect() {
+        gameConnection.close();
+        chatConnection.close();
+    }
+
+    //Send a question on the game connection and wait for the answer of the client
+    private String request(String msg) {
+        gameConnection.send(msg);
+        return gameConnection.receive(System.nanoTime() + decisionTimeoutNanos);
+    }
+
+    //Build a message from its id and its serialized arguments
+    private static String message(MessageId id, String... serializedArgs) {
+        StringBuilder msg = new StringBuilder(id.name());
+        for (String arg : serializedArgs)
+            msg.append(' ').append(arg);
+        return msg.toString();
+    }
+}
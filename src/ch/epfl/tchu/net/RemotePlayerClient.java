@@ -6,21 +6,34 @@ import ch.epfl.tchu.game.*;
 import java.io.*;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 /**
  * Class representing a distant player's client,
  * in fact this class is used to dialog with the server proxy and do the right actions with the player.
+ * The client always asks for a session: if the server opens one, the connection
+ * is kept alive by heartbeats and, once lost, the client connects again and resumes the game.
+ * It sends a random chat id on both its sockets, so that the server pairs them even if many clients
+ * share the same address.
  * It is final and
  *
  * @author Selien Wicki (314357)
  * @author Theo Vasarino (313191)
  */
 public final class RemotePlayerClient {
+    //Time given to the server to accept the client again, after the loss of the connection
+    private static final long RECONNECT_NANOS = TimeUnit.SECONDS.toNanos(30);
+    //Time between two attempts to connect again
+    private static final long RETRY_MILLIS = 500;
+    //Size of the chat id, in bytes
+    private static final int CHAT_ID_BYTES = 16;
 
     //The player that is not on the same machine than the server
     private final Player player;
@@ -36,13 +49,27 @@ public final class RemotePlayerClient {
     private Socket gameSocket;
     private Socket chatSocket;
 
-    //BufferReader
-    private BufferedReader gameReceiver;
-    private BufferedReader chatReceiver;
+    //The connection of the game (lines and binary frames)
+    private MessageChannel gameChannel;
 
-    //BufferWriter
-    private BufferedWriter gameSender;
-    private BufferedWriter chatSender;
+    //BufferReader and BufferWriter of the chat (replaced when the client connects again)
+    private volatile BufferedReader chatReceiver;
+    private volatile BufferedWriter chatSender;
+
+    //The format of the game messages asked by the client, and the one accepted by the server
+    private final WireFormat requestedFormat;
+    private WireFormat format;
+    //The token of the session opened by the server, null without session
+    private volatile String sessionToken;
+    //The id sent on both sockets, pairing the chat connection with the game connection
+    private final String chatId = newChatId();
+    //Reusable buffer of the binary format
+    private final BinaryWriter binaryWriter = new BinaryWriter();
+    //decoder of the states, in the format BINARY_DELTA
+    private StateDeltaDecoder stateDecoder;
+    private PlayerId ownId;
+    //true once runGame is over
+    private volatile boolean gameOver;
 
 
     /**
@@ -59,32 +86,113 @@ public final class RemotePlayerClient {
                               int gamePort,
                               int chatPort,
                               String playerName)  throws IOException{
+        this(player, serverName, gamePort, chatPort, playerName, WireFormat.TEXT);
+    }
+
+    /**
+     * Construct a RemotePlayerClient and connect him to the server, asking for the given format of the game messages.
+     * The server may answer with another format, the client then speaks the one of the server.
+     *
+     * @param player represented by the client
+     * @param serverName of the server
+     * @param gamePort to connect to properly communicate with the proxy
+     * @param chatPort to connect to properly communicate with the proxy
+     * @param playerName the name of the player that will be send to the server just after the connection
+     * @param format the format of the game messages the client would like to use
+     */
+    public RemotePlayerClient(Player player,
+                              String serverName,
+                              int gamePort,
+                              int chatPort,
+                              String playerName,
+                              WireFormat format)  throws IOException{
         this.player = player;
         this.serverName = serverName;
         this.gamePort = gamePort;
         this.chatPort = chatPort;
         this.playerName = playerName;
+        this.requestedFormat = format;
 
         //Connect to the server
         connect();
+        //Push the chats of the player to the server
+        player.connectChat(chat -> sendMessage(
+                String.join(" ", MessageId.SEND_CHAT.name(), Serdes.STRING_SERDE.serialize(chat)), chatSender));
     }
 
     /**
      * Used to communicate with the server.
      * This method : - Wait a message from the proxy
      *               - In function of the type of the message, do the proper actions with the player.
+     * It stops when the server closes the connection. If the connection is lost, the client of a session
+     * connects again and continues the game.
+     *
+     * @throws UncheckedIOException if the connection is lost and the game can't be resumed
      */
     public void runGame(){
-        while (gameSocket.isConnected()){
-            String receivedMessage = receiveMessage(gameReceiver);
-            if (!receivedMessage.isEmpty())
-                handleReceivedMessage(receivedMessage);
+        try {
+            while (true) {
+                try {
+                    if (format.isBinary())
+                        runBinaryGame();
+                    else
+                        runTextGame();
+                    return;
+                } catch (UncheckedIOException e) {
+                    if (!reconnect())
+                        throw e;
+                }
+            }
+        } finally {
+            gameOver = true;
         }
     }
 
+    /**
+     * Receive the chats of the other participants, until the server closes the connection.
+     * The chats of the player are pushed to the server as soon as he sends them (see Player.connectChat).
+     */
     public void runChat(){
-        while (chatSocket.isConnected()){
-            String receivedMessage = receiveMessage(chatReceiver);
+        BufferedReader receiver = chatReceiver;
+        while (receiver != null) {
+            IOException failure = null;
+            try {
+                String receivedMessage;
+                while ((receivedMessage = receiver.readLine()) != null){
+                    if (!receivedMessage.isEmpty())
+                        handleReceivedMessage(receivedMessage);
+                }
+            }catch (IOException e){
+                failure = e;
+            }
+            //continue on the new connection if the client connects again
+            receiver = nextChatReceiver(receiver);
+            if (receiver == null && failure != null)
+                throw new UncheckedIOException(failure);
+        }
+    }
+
+    //Wait for the chat connection replacing the given one once the client connects again,
+    //null if there is no session or if the game is over
+    private BufferedReader nextChatReceiver(BufferedReader receiver){
+        long end = System.nanoTime() + RECONNECT_NANOS;
+        while (sessionToken != null && !gameOver && System.nanoTime() - end < 0) {
+            if (chatReceiver != receiver)
+                return chatReceiver;
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    //Loop of the game in the text format, stops when the server closes the connection
+    private void runTextGame(){
+        String receivedMessage;
+        while ((receivedMessage = gameChannel.receiveLine()) != null){
             if (!receivedMessage.isEmpty())
                 handleReceivedMessage(receivedMessage);
         }
@@ -118,36 +226,33 @@ public final class RemotePlayerClient {
                 break;
             case CHOOSE_INITIAL_TICKETS:
                 SortedBag<Ticket> chosenTickets = player.chooseInitialTickets();
-                sendMessage(Serdes.SORTED_BAG_TICKETS_SERDE.serialize(chosenTickets), gameSender);
+                gameChannel.send(Serdes.SORTED_BAG_TICKETS_SERDE.serialize(chosenTickets));
                 break;
             case NEXT_TURN:
                 Player.TurnKind turnKind = player.nextTurn();
-                sendMessage(Serdes.TURN_KIND_SERDE.serialize(turnKind), gameSender);
+                gameChannel.send(Serdes.TURN_KIND_SERDE.serialize(turnKind));
                 break;
             case CHOOSE_TICKETS:
                 SortedBag<Ticket> options = Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(listOfData.next());
                 SortedBag<Ticket> chosenOptions = player.chooseTickets(options);
-                sendMessage(Serdes.SORTED_BAG_TICKETS_SERDE.serialize(chosenOptions), gameSender);
+                gameChannel.send(Serdes.SORTED_BAG_TICKETS_SERDE.serialize(chosenOptions));
                 break;
             case DRAW_SLOT:
                 int drawSlot = player.drawSlot();
-                sendMessage(Serdes.INTEGER_SERDE.serialize(drawSlot), gameSender);
+                gameChannel.send(Serdes.INTEGER_SERDE.serialize(drawSlot));
                 break;
             case ROUTE:
                 Route route = player.claimedRoute();
-                sendMessage(Serdes.ROUTE_SERDE.serialize(route), gameSender);
+                gameChannel.send(Serdes.ROUTE_SERDE.serialize(route));
                 break;
             case CARDS:
                 SortedBag<Card> cards = player.initialClaimCards();
-                sendMessage(Serdes.SORTED_BAG_CARD_SERDE.serialize(cards), gameSender);
+                gameChannel.send(Serdes.SORTED_BAG_CARD_SERDE.serialize(cards));
                 break;
             case CHOOSE_ADDITIONAL_CARDS:
                 List<SortedBag<Card>> option = Serdes.LIST_SORTED_BAG_CARD_SERDE.deserialize(listOfData.next());
                 SortedBag<Card> chosenOption = player.chooseAdditionalCards(option);
-                sendMessage(Serdes.SORTED_BAG_CARD_SERDE.serialize(chosenOption), gameSender);
-                break;
-            case LAST_CHAT:
-                sendMessage(Serdes.STRING_SERDE.serialize(player.lastChat()), chatSender);
+                gameChannel.send(Serdes.SORTED_BAG_CARD_SERDE.serialize(chosenOption));
                 break;
             case RECEIVE_CHAT:
                 String chat = Serdes.STRING_SERDE.deserialize(listOfData.next());
@@ -159,31 +264,165 @@ public final class RemotePlayerClient {
         }
     }
 
+    //Loop of the game in the binary format, stops when the server closes the connection
+    private void runBinaryGame(){
+        try {
+            while (true)
+                handleReceivedFrame(gameChannel.receiveFrame());
+        } catch (UncheckedIOException e) {
+            //the game is over when the server closes the connection
+            if (!(e.getCause() instanceof EOFException))
+                throw e;
+        }
+    }
+
+    //Same as handleReceivedMessage, for a message in the binary format.
+    private void handleReceivedFrame(BinaryReader frame){
+        switch (MessageId.values()[frame.readByte()]){
+            case INIT_PLAYERS :
+                ownId = frame.read(BinarySerdes.PLAYER_ID_SERDE);
+                List<String> players = frame.read(BinarySerdes.LIST_STRING_SERDE);
+                if (format.hasDeltas())
+                    stateDecoder = new StateDeltaDecoder(ownId);
+                player.initPlayers(ownId, Map.of(
+                        PlayerId.PLAYER_1, players.get(0),
+                        PlayerId.PLAYER_2, players.get(1)));
+                break;
+            case RECEIVE_INFO :
+                player.receiveInfo(frame.read(BinarySerdes.STRING_SERDE));
+                break;
+            case UPDATE_STATE:
+                if (format.hasDeltas()) {
+                    stateDecoder.read(frame);
+                    player.updateState(stateDecoder.state(), stateDecoder.ownState());
+                    break;
+                }
+                PublicGameState newState = frame.read(BinarySerdes.PUBLIC_GAME_STATE_SERDE);
+                PlayerState ownState = frame.read(BinarySerdes.PLAYER_STATE_SERDE);
+                player.updateState(newState, ownState);
+                break;
+            case SET_INITIAL_TICKETS:
+                player.setInitialTicketChoice(frame.read(BinarySerdes.SORTED_BAG_TICKETS_SERDE));
+                break;
+            case CHOOSE_INITIAL_TICKETS:
+                sendFrame(answerTo(frame).write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, player.chooseInitialTickets()));
+                break;
+            case NEXT_TURN:
+                sendFrame(answerTo(frame).write(BinarySerdes.TURN_KIND_SERDE, player.nextTurn()));
+                break;
+            case CHOOSE_TICKETS:
+                BinaryWriter ticketsAnswer = answerTo(frame);
+                SortedBag<Ticket> options = frame.read(BinarySerdes.SORTED_BAG_TICKETS_SERDE);
+                sendFrame(ticketsAnswer.write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, player.chooseTickets(options)));
+                break;
+            case DRAW_SLOT:
+                sendFrame(answerTo(frame).write(BinarySerdes.INTEGER_SERDE, player.drawSlot()));
+                break;
+            case ROUTE:
+                sendFrame(answerTo(frame).write(BinarySerdes.ROUTE_SERDE, player.claimedRoute()));
+                break;
+            case CARDS:
+                sendFrame(answerTo(frame).write(BinarySerdes.SORTED_BAG_CARD_SERDE, player.initialClaimCards()));
+                break;
+            case CHOOSE_ADDITIONAL_CARDS:
+                BinaryWriter cardsAnswer = answerTo(frame);
+                List<SortedBag<Card>> option = frame.read(BinarySerdes.LIST_SORTED_BAG_CARD_SERDE);
+                sendFrame(cardsAnswer.write(BinarySerdes.SORTED_BAG_CARD_SERDE, player.chooseAdditionalCards(option)));
+                break;
+            default:
+                //do nothing, the chat never uses the binary format
+                break;
+        }
+    }
+
+    //start the answer to a binary question, repeating its correlation id if the format has some
+    private BinaryWriter answerTo(BinaryReader question){
+        BinaryWriter answer = binaryWriter.reset();
+        return format.hasCorrelationIds() ? answer.writeVarInt(question.readVarInt()) : answer;
+    }
+
+    //send a binary answer to the server.
+    private void sendFrame(BinaryWriter frame){
+        gameChannel.send(frame);
+    }
+
     //connect the client to the server.
     private void connect() throws IOException{
         gameSocket = new Socket(serverName, gamePort);
         chatSocket = new Socket(serverName, chatPort);
 
-        gameReceiver = new BufferedReader(
-                        new InputStreamReader(gameSocket.getInputStream(), StandardCharsets.US_ASCII));
+        gameChannel = new MessageChannel(gameSocket);
         chatReceiver = new BufferedReader(
                         new InputStreamReader(chatSocket.getInputStream(), StandardCharsets.US_ASCII));
-
-        gameSender = new BufferedWriter(
-                        new OutputStreamWriter(gameSocket.getOutputStream(), StandardCharsets.US_ASCII));
         chatSender = new BufferedWriter(
                         new OutputStreamWriter(chatSocket.getOutputStream(), StandardCharsets.US_ASCII));
-        //Send player name
-        sendMessage(Serdes.STRING_SERDE.serialize(playerName), gameSender);
+        //Send player name, asking for a format and a session
+        //a client coming back asks for its session, in the format of the session
+        gameChannel.send(String.join(" ", WireFormat.HANDSHAKE, (format == null) ? requestedFormat.name() : format.name(),
+                Serdes.STRING_SERDE.serialize(playerName), (sessionToken == null) ? WireFormat.NEW_SESSION : sessionToken,
+                chatId));
+        sendMessage(String.join(" ", WireFormat.CHAT_HANDSHAKE, chatId), chatSender);
+        String answer = gameChannel.receiveLine();
+        if (answer == null)
+            throw new EOFException();
+        String[] formatAndToken = answer.split(Pattern.quote(" "), -1);
+        format = WireFormat.valueOf(formatAndToken[0]);
+        if (formatAndToken.length > 1) {
+            sessionToken = formatAndToken[1];
+            gameChannel.keepAlive(MessageChannel.HEARTBEAT_MILLIS, format.isBinary());
+        }
     }
 
-    //receive a message from the server.
-    private String receiveMessage(BufferedReader receiver){
+    //build a new random chat id, which never contains a space
+    private static String newChatId(){
+        byte[] bytes = new byte[CHAT_ID_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    //connect again after the loss of the connection, to resume the session (the server resends the last state)
+    //false if there is no session, or if the server doesn't accept the client again in time
+    private boolean reconnect(){
+        if (sessionToken == null)
+            return false;
+        closeQuietly();
+        long end = System.nanoTime() + RECONNECT_NANOS;
+        while (System.nanoTime() - end < 0) {
+            try {
+                connect();
+                if (format.hasDeltas() && ownId != null)
+                    stateDecoder = new StateDeltaDecoder(ownId);
+                return true;
+            } catch (EOFException e) {
+                //the server doesn't know the session anymore
+                closeQuietly();
+                return false;
+            } catch (IOException | UncheckedIOException e) {
+                closeQuietly();
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    //close the sockets of the client, which may already be closed
+    private void closeQuietly(){
         try {
-            String message = receiver.readLine();
-            return (message == null) ? "" : message;
-        }catch (IOException e){
-            throw new UncheckedIOException(e);
+            if (gameChannel != null)
+                gameChannel.close();
+        } catch (IOException | UncheckedIOException e) {
+            //already closed
+        }
+        try {
+            if (chatSocket != null)
+                chatSocket.close();
+        } catch (IOException e) {
+            //already closed
         }
     }
 
@@ -191,8 +430,11 @@ public final class RemotePlayerClient {
     private  void sendMessage(String msg, BufferedWriter sender){
         try {
             msg = new StringBuilder(msg).append("\n").toString();
-            sender.write(msg);
-            sender.flush();
+            //the chats are sent from the thread of the player, the writes on a sender must not interleave
+            synchronized (sender) {
+                sender.write(msg);
+                sender.flush();
+            }
         }catch (IOException e){
             throw new UncheckedIOException(e);
         }
@@ -1,65 +1,134 @@
 package ch.epfl.tchu.net;
 
+import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
 
 import java.io.*;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  *This class represent the player in the eye of the server, is used to communicate with the distant player.
+ * The notifications (infos, states, ...) are buffered and sent with the next question (see MessageChannel),
+ * so that a turn costs a single write per player.
+ * Each decision of the player must be received before a deadline, otherwise the game fails.
+ * A client asking for a session (through a SessionRegistry) is kept alive by heartbeats, and if its connection
+ * is lost it can come back with its session token: the last state and the pending question are then resent.
  *
  * @author Selien Wicki (314357)
  * @author Theo Vasarino (313191)
  */
 public final class RemotePlayerProxy implements Player {
-    //the socket of the proxy
-    private final Socket gameSocket;
-    private final Socket chatSocket;
+    /**
+     * Time given by default to the player for each decision, in milliseconds.
+     */
+    public static final long DEFAULT_DECISION_TIMEOUT_MILLIS = 5 * 60_000;
+    //Time given to a client whose connection was lost to come back with its session token
+    private static final long RECONNECT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    //the connections of the proxy, null if no socket is given for the chat (replaced when the client comes back)
+    private volatile MessageChannel gameChannel;
+    private volatile MessageChannel chatChannel;
+    //the time given to each decision
+    private final long decisionTimeoutNanos;
+
+    //the first line of the client, if already read by the registry
+    private String firstLine;
+    //the registry of the sessions and the token of this one, null without session
+    private final SessionRegistry registry;
+    private String sessionToken;
+    //connections given by the registry when the client comes back
+    private final BlockingQueue<MessageChannel[]> resumedChannels = new LinkedBlockingQueue<>(1);
+    //what is resent to a client coming back
+    private PlayerId ownId;
+    private PublicGameState lastState;
+    private PlayerState lastOwnState;
+    private Consumer<String> chatSender;
+
+    //the format of the game messages, negotiated in receivePlayerName
+    private WireFormat format = WireFormat.TEXT;
+    //reusable buffers of the binary format (the question is kept apart, to be resent to a client coming back)
+    private final BinaryWriter binaryWriter = new BinaryWriter();
+    private final BinaryWriter questionWriter = new BinaryWriter();
+    //encoder of the states, in the formats with deltas
+    private StateDeltaEncoder stateEncoder;
+    //correlation id of the last question, in the formats with correlation ids
+    private int lastQuestionId;
 
     /**
      * Create a RemotePlayerProxy with connected to a given Socket.
      *
      * @param gameSocket the socket for the connection with the client.
      * @param chatSocket the socket for the connection with the client.
-     *
+     * @throws UncheckedIOException if the streams of the sockets can't be opened
      */
     public RemotePlayerProxy(Socket gameSocket, Socket chatSocket){
-        this.gameSocket = gameSocket;
-        this.chatSocket = chatSocket;
+        this(gameSocket, chatSocket, DEFAULT_DECISION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Create a RemotePlayerProxy with connected to a given Socket, giving the player the given time for each decision.
+     *
+     * @param gameSocket            the socket for the connection with the client.
+     * @param chatSocket            the socket for the connection with the client.
+     * @param decisionTimeoutMillis the time given to each decision of the player, in milliseconds
+     * @throws UncheckedIOException if the streams of the sockets can't be opened
+     */
+    public RemotePlayerProxy(Socket gameSocket, Socket chatSocket, long decisionTimeoutMillis){
+        this(channel(gameSocket), (chatSocket == null) ? null : channel(chatSocket), null, null, decisionTimeoutMillis);
+    }
+
+    //Create a proxy on opened connections, whose first line may already be read (used by the registry)
+    RemotePlayerProxy(MessageChannel gameChannel, MessageChannel chatChannel, String firstLine,
+                      SessionRegistry registry, long decisionTimeoutMillis) {
+        Preconditions.checkArgument(decisionTimeoutMillis > 0);
+        this.gameChannel = gameChannel;
+        this.chatChannel = chatChannel;
+        this.firstLine = firstLine;
+        this.registry = registry;
+        this.decisionTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(decisionTimeoutMillis);
     }
 
     @Override
     public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
-        //Send message
-        String msgIdString = MessageId.INIT_PLAYERS.name();
-        String ownIdSerialized = Serdes.PLAYER_ID_SERDE.serialize(ownId);
         List<String> players = List.of(playerNames.get(PlayerId.PLAYER_1), playerNames.get(PlayerId.PLAYER_2));
-        String dataPlayers = Serdes.LIST_STRING_SERDE.serialize(players);
-        List<String> dataList = List.of(msgIdString, ownIdSerialized, dataPlayers, "\n");
+        this.ownId = ownId;
+        if (format.hasDeltas())
+            stateEncoder = new StateDeltaEncoder(ownId);
+        if (format.isBinary()) {
+            post(frame(MessageId.INIT_PLAYERS)
+                    .write(BinarySerdes.PLAYER_ID_SERDE, ownId)
+                    .write(BinarySerdes.LIST_STRING_SERDE, players));
+            return;
+        }
 
-        String sendMessage = String.join(" ", dataList);
-        sendMessage(sendMessage, gameSocket);
+        post(message(MessageId.INIT_PLAYERS,
+                Serdes.PLAYER_ID_SERDE.serialize(ownId),
+                Serdes.LIST_STRING_SERDE.serialize(players)));
     }
 
     /**
-     * get the lastChat that the player send.
+     * Listen to the chats pushed by the client, on a thread blocked on the chat socket until it is closed.
      *
-     * @return the chat. (String)
+     * @param chatSender the function receiving the chats of the player
      */
     @Override
-    public String lastChat() {
-        //ask the client the new chat
-        List<String> dataList = List.of(MessageId.LAST_CHAT.name(), "\n");
-        String sendMessage = String.join(" ", dataList);
-        sendMessage(sendMessage, chatSocket);
-
-        //get the answer
-        String data = receiveMessage(chatSocket);
-        return Serdes.STRING_SERDE.deserialize(data);
+    public void connectChat(Consumer<String> chatSender) {
+        this.chatSender = chatSender;
+        MessageChannel channel = chatChannel;
+        //a proxy without chat connection has no chat to listen to
+        if (channel == null)
+            return;
+        Thread reader = new Thread(() -> listenChat(channel, chatSender), "tchu-chat-reader");
+        reader.setDaemon(true);
+        reader.start();
     }
 
     /**
@@ -69,162 +138,349 @@ public final class RemotePlayerProxy implements Player {
      */
     @Override
     public void receiveChat(String chat) {
-        //send the chat to the client
-        List<String> dataList = List.of(MessageId.RECEIVE_CHAT.name(), Serdes.STRING_SERDE.serialize(chat), "\n");
-        String sendMessage = String.join(" ", dataList);
-        sendMessage(sendMessage, chatSocket);
+        MessageChannel channel = chatChannel;
+        if (channel == null)
+            return;
+        channel.post(message(MessageId.RECEIVE_CHAT, Serdes.STRING_SERDE.serialize(chat)));
     }
 
     @Override
     public void receiveInfo(String info) {
-        //Send message
-        String msgIdString = MessageId.RECEIVE_INFO.name();
-        String infoSerialized = Serdes.STRING_SERDE.serialize(info);
-        List<String> dataList = List.of(msgIdString, infoSerialized, "\n");
+        if (format.isBinary()) {
+            post(frame(MessageId.RECEIVE_INFO).write(BinarySerdes.STRING_SERDE, info));
+            return;
+        }
 
-        String sendMessage = String.join(" ", dataList);
-        sendMessage(sendMessage, gameSocket);
+        post(message(MessageId.RECEIVE_INFO, Serdes.STRING_SERDE.serialize(info)));
     }
 
     @Override
     public void updateState(PublicGameState newState, PlayerState ownState) {
-        //Send message
-        String msgIdString = MessageId.UPDATE_STATE.name();
-        String newStateSerialized = Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState);
-        String ownStateSerialized = Serdes.PLAYER_STATE_SERDE.serialize(ownState);
-        List<String> dataList = List.of(msgIdString, newStateSerialized, ownStateSerialized, "\n");
+        lastState = newState;
+        lastOwnState = ownState;
+        if (format.hasDeltas()) {
+            BinaryWriter frame = frame(MessageId.UPDATE_STATE);
+            stateEncoder.write(newState, ownState, frame);
+            post(frame);
+            return;
+        }
+        if (format.isBinary()) {
+            post(frame(MessageId.UPDATE_STATE)
+                    .write(BinarySerdes.PUBLIC_GAME_STATE_SERDE, newState)
+                    .write(BinarySerdes.PLAYER_STATE_SERDE, ownState));
+            return;
+        }
 
-        String sendMessage = String.join(" ", dataList);
-        sendMessage(sendMessage, gameSocket);
+        post(message(MessageId.UPDATE_STATE,
+                Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState),
+                Serdes.PLAYER_STATE_SERDE.serialize(ownState)));
     }
 
     @Override
     public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
-        //Send message
-        String msgIdString = MessageId.SET_INITIAL_TICKETS.name();
-        String ticketsSerialized = Serdes.SORTED_BAG_TICKETS_SERDE.serialize(tickets);
-        List<String> dataList = List.of(msgIdString, ticketsSerialized, "\n");
+        if (format.isBinary()) {
+            post(frame(MessageId.SET_INITIAL_TICKETS).write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, tickets));
+            return;
+        }
 
-        String sendMessage = String.join(" ", dataList);
-        sendMessage(sendMessage, gameSocket);
+        post(message(MessageId.SET_INITIAL_TICKETS, Serdes.SORTED_BAG_TICKETS_SERDE.serialize(tickets)));
     }
 
     @Override
     public SortedBag<Ticket> chooseInitialTickets() {
-        //Send message
-        String sendMessage = String.join(" ", List.of(MessageId.CHOOSE_INITIAL_TICKETS.name(), "\n"));
-        sendMessage(sendMessage, gameSocket);
-
-        //Receive message
-        String receivedMessage = receiveMessage(gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.CHOOSE_INITIAL_TICKETS)).read(BinarySerdes.SORTED_BAG_TICKETS_SERDE);
 
-        return Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(receivedMessage);
+        return Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(request(message(MessageId.CHOOSE_INITIAL_TICKETS)));
     }
 
     @Override
     public TurnKind nextTurn() {
-        //Send message
-        String sendMessage = String.join(" ", List.of(MessageId.NEXT_TURN.name(), "\n"));
-        sendMessage(sendMessage, gameSocket);
-
-        //Receive message
-        String receiveMessage = receiveMessage(gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.NEXT_TURN)).read(BinarySerdes.TURN_KIND_SERDE);
 
-        return Serdes.TURN_KIND_SERDE.deserialize(receiveMessage);
+        return Serdes.TURN_KIND_SERDE.deserialize(request(message(MessageId.NEXT_TURN)));
     }
 
     @Override
     public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
-        //Send message
-        String msgIdString = MessageId.CHOOSE_TICKETS.name();
-        String optionsSerialized = Serdes.SORTED_BAG_TICKETS_SERDE.serialize(options);
-        String sendMessage = String.join(" ", List.of(msgIdString, optionsSerialized, "\n"));
-        sendMessage(sendMessage, gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.CHOOSE_TICKETS).write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, options))
+                    .read(BinarySerdes.SORTED_BAG_TICKETS_SERDE);
 
-        //Receive message
-        String receivedMessage = receiveMessage(gameSocket);
-
-        return Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(receivedMessage);
+        String msg = message(MessageId.CHOOSE_TICKETS, Serdes.SORTED_BAG_TICKETS_SERDE.serialize(options));
+        return Serdes.SORTED_BAG_TICKETS_SERDE.deserialize(request(msg));
     }
 
     @Override
     public int drawSlot() {
-        //Send message
-        String sendMessage = String.join(" ", List.of(MessageId.DRAW_SLOT.name(), "\n"));
-        sendMessage(sendMessage, gameSocket);
-
-        //Receive message
-        String receivedMessage = receiveMessage(gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.DRAW_SLOT)).read(BinarySerdes.INTEGER_SERDE);
 
-        return Serdes.INTEGER_SERDE.deserialize(receivedMessage);
+        return Serdes.INTEGER_SERDE.deserialize(request(message(MessageId.DRAW_SLOT)));
     }
 
     @Override
     public Route claimedRoute() {
-        //Send message
-        String sendMessage = String.join(" ", MessageId.ROUTE.name(), "\n");
-        sendMessage(sendMessage, gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.ROUTE)).read(BinarySerdes.ROUTE_SERDE);
 
-        //Receive message
-        String receivedMessage = receiveMessage(gameSocket);
-
-        return Serdes.ROUTE_SERDE.deserialize(receivedMessage);
+        return Serdes.ROUTE_SERDE.deserialize(request(message(MessageId.ROUTE)));
     }
 
     @Override
     public SortedBag<Card> initialClaimCards() {
-        //Send message
-        String sendMessage = String.join(" ", MessageId.CARDS.name(), "\n");
-        sendMessage(sendMessage, gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.CARDS)).read(BinarySerdes.SORTED_BAG_CARD_SERDE);
 
-        //Receive message
-        String receivedMessage = receiveMessage(gameSocket);
-        return Serdes.SORTED_BAG_CARD_SERDE.deserialize(receivedMessage);
+        return Serdes.SORTED_BAG_CARD_SERDE.deserialize(request(message(MessageId.CARDS)));
     }
 
     @Override
     public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
-        //send message
-        String msgIdString = MessageId.CHOOSE_ADDITIONAL_CARDS.name();
-        String optionsSerialized = Serdes.LIST_SORTED_BAG_CARD_SERDE.serialize(options);
-        String sendMessage = String.join(" ", msgIdString, optionsSerialized, "\n");
-        sendMessage(sendMessage, gameSocket);
-
-        //Receive message
-        String receiveMessage = receiveMessage(gameSocket);
+        if (format.isBinary())
+            return request(question(MessageId.CHOOSE_ADDITIONAL_CARDS).write(BinarySerdes.LIST_SORTED_BAG_CARD_SERDE, options))
+                    .read(BinarySerdes.SORTED_BAG_CARD_SERDE);
 
-        return Serdes.SORTED_BAG_CARD_SERDE.deserialize(receiveMessage);
+        String msg = message(MessageId.CHOOSE_ADDITIONAL_CARDS, Serdes.LIST_SORTED_BAG_CARD_SERDE.serialize(options));
+        return Serdes.SORTED_BAG_CARD_SERDE.deserialize(request(msg));
     }
 
+    /**
+     * Receive the name of the player, and negotiate the format of the game messages if the client asks for one
+     * (the binary formats are accepted, the chat always stays in the text format).
+     * If the client asks for a session and the proxy was created by a SessionRegistry, the session is opened.
+     *
+     * @return the name of the player
+     * @throws IllegalArgumentException if the first line of the client is malformed
+     */
     @Override
     public String receivePlayerName(){
-        return Serdes.STRING_SERDE.deserialize(receiveMessage(gameSocket));
+        String line = (firstLine != null) ? firstLine : receiveLine();
+        firstLine = null;
+        String name = playerName(line);
+        String[] handshake = line.split(Pattern.quote(" "), -1);
+        if (!handshake[0].equals(WireFormat.HANDSHAKE))
+            return name;
+
+        //the client asked for a format: accept it and answer with the chosen one (and the session token, if any)
+        format = WireFormat.valueOf(handshake[1]);
+        if (handshake.length > 3 && handshake[3].equals(WireFormat.NEW_SESSION) && registry != null) {
+            sessionToken = registry.open(this);
+            gameChannel.send(String.join(" ", format.name(), sessionToken));
+            gameChannel.keepAlive(MessageChannel.HEARTBEAT_MILLIS, format.isBinary());
+        } else {
+            gameChannel.send(format.name());
+        }
+        return name;
+    }
+
+    /**
+     * Read the name of the player in the first line sent by its client, checking the handshake if there is one
+     * (its fields, and the format asked for).
+     *
+     * @param line the first line of the client
+     * @return the name of the player (String)
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    static String playerName(String line) {
+        String[] firstLine = line.split(Pattern.quote(" "), -1);
+        if (!firstLine[0].equals(WireFormat.HANDSHAKE))
+            return Serdes.STRING_SERDE.deserialize(firstLine[0]);
+
+        Preconditions.checkArgument(3 <= firstLine.length && firstLine.length <= 5);
+        //an unknown format is rejected too
+        WireFormat.valueOf(firstLine[1]);
+        return Serdes.STRING_SERDE.deserialize(firstLine[2]);
+    }
+
+    /**
+     * The game connection with the client, to measure what is sent.
+     *
+     * @return the game connection (MessageChannel)
+     */
+    public MessageChannel gameChannel() {
+        return gameChannel;
+    }
+
+    /**
+     * The token of the session of the client.
+     *
+     * @return the session token, null if the client has no session (String)
+     */
+    public String sessionToken() {
+        return sessionToken;
+    }
+
+    //The client came back with the token of the session: answer the handshake and give the connections
+    //to the thread of the game, which resends the last state (called by the registry)
+    void resume(MessageChannel newGameChannel, MessageChannel newChatChannel) {
+        newGameChannel.send(String.join(" ", format.name(), sessionToken));
+        newGameChannel.keepAlive(MessageChannel.HEARTBEAT_MILLIS, format.isBinary());
+        //read before giving the new connections, the thread of the game may take them at once
+        MessageChannel oldGameChannel = gameChannel;
+        MessageChannel oldChatChannel = chatChannel;
+        MessageChannel[] stale = resumedChannels.poll();
+        if (stale != null)
+            closeQuietly(stale);
+        resumedChannels.add(new MessageChannel[]{newGameChannel, newChatChannel});
+        //wake the thread of the game up if it still waits on the old connections
+        closeQuietly(oldGameChannel, oldChatChannel);
     }
 
-    //Send a message to the player that isn't on the same machine as the server
-    //parameter is the serialized message (instruction) to send
-    private void sendMessage(String msg, Socket socket) {
+    //Give the chats received on the chat socket to the sender, until the socket is closed
+    private static void listenChat(MessageChannel chatChannel, Consumer<String> chatSender) {
         try {
-            BufferedWriter sender = new BufferedWriter(
-                                        new OutputStreamWriter(socket.getOutputStream(),
-                                                                StandardCharsets.US_ASCII));
-            sender.write(msg);
-            sender.flush();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            String line;
+            while ((line = chatChannel.receiveLine()) != null) {
+                String[] message = line.split(Pattern.quote(" "), -1);
+                if (message.length < 2 || !message[0].equals(MessageId.SEND_CHAT.name()))
+                    continue;
+                //a malformed chat is ignored, the next ones are still received
+                try {
+                    chatSender.accept(Serdes.STRING_SERDE.deserialize(message[1]));
+                } catch (IllegalArgumentException e) {
+                    //ignored
+                }
+            }
+        } catch (UncheckedIOException e) {
+            //the client is gone, he doesn't chat anymore
+        }
+    }
+
+    //Start a binary frame for the given message
+    private BinaryWriter frame(MessageId id) {
+        return binaryWriter.reset().writeByte(id.ordinal());
+    }
+
+    //Start a binary frame for the given question, with a new correlation id if the format has some
+    private BinaryWriter question(MessageId id) {
+        BinaryWriter frame = questionWriter.reset().writeByte(id.ordinal());
+        return format.hasCorrelationIds() ? frame.writeVarInt(++lastQuestionId) : frame;
+    }
+
+    //Buffer a text notification, dropped if the client is gone and comes back (it then receives the last state)
+    private void post(String msg) {
+        try {
+            gameChannel.post(msg);
+        } catch (UncheckedIOException e) {
+            reconnect(e, System.nanoTime() + RECONNECT_NANOS);
+        }
+    }
+
+    //Same as post(String), for a binary notification
+    private void post(BinaryWriter frame) {
+        try {
+            gameChannel.post(frame);
+        } catch (UncheckedIOException e) {
+            reconnect(e, System.nanoTime() + RECONNECT_NANOS);
+        }
+    }
+
+    //Send a binary question to the player, with the notifications buffered before it, and wait for the answer
+    private BinaryReader request(BinaryWriter frame) {
+        long deadline = System.nanoTime() + decisionTimeoutNanos;
+        BinaryReader answer = null;
+        while (answer == null) {
+            try {
+                gameChannel.send(frame);
+                answer = gameChannel.receiveFrame(deadline);
+            } catch (UncheckedIOException e) {
+                reconnect(e, deadline);
+            }
+        }
+        if (format.hasCorrelationIds()) {
+            int answerId = answer.readVarInt();
+            if (answerId != lastQuestionId)
+                throw new UncheckedIOException(new IOException(
+                        "Answer to the question " + answerId + " instead of " + lastQuestionId));
+        }
+        return answer;
+    }
+
+    //Send a text question to the player, with the notifications buffered before it, and wait for the answer
+    private String request(String msg) {
+        long deadline = System.nanoTime() + decisionTimeoutNanos;
+        while (true) {
+            try {
+                gameChannel.send(msg);
+                return receiveLine(deadline);
+            } catch (UncheckedIOException e) {
+                reconnect(e, deadline);
+            }
+        }
+    }
+
+    //Receive a line of the player, who must still be connected
+    private String receiveLine() {
+        return receiveLine(MessageChannel.NO_DEADLINE);
+    }
+
+    //Receive a line of the player before the deadline, who must still be connected
+    private String receiveLine(long deadline) {
+        String line = gameChannel.receiveLine(deadline);
+        if (line == null)
+            throw new UncheckedIOException(new EOFException());
+        return line;
+    }
+
+    //The connection with the client failed: without session (or once the deadline has passed) the failure is thrown,
+    //otherwise wait for the client to come back before the deadline and resend it the last state
+    private void reconnect(UncheckedIOException failure, long deadline) {
+        long waitNanos = Math.min(RECONNECT_NANOS, deadline - System.nanoTime());
+        if (sessionToken == null || waitNanos <= 0)
+            throw failure;
+        closeQuietly(gameChannel, chatChannel);
+
+        MessageChannel[] channels;
+        try {
+            channels = resumedChannels.poll(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+        if (channels == null) {
+            //the client is not coming back
+            registry.close(sessionToken);
+            throw failure;
+        }
+        gameChannel = channels[0];
+        chatChannel = channels[1];
+        if (chatSender != null)
+            connectChat(chatSender);
+        if (lastState != null) {
+            if (format.hasDeltas())
+                stateEncoder = new StateDeltaEncoder(ownId);
+            updateState(lastState, lastOwnState);
         }
     }
 
-    //Receive a message from the player
-    //returns the serialization of the message (instruction) received
-    private String receiveMessage(Socket socket) {
+    //Open a connection over a socket
+    private static MessageChannel channel(Socket socket) {
         try {
-            BufferedReader receiver = new BufferedReader(
-                                          new InputStreamReader(socket.getInputStream(),
-                                                                StandardCharsets.US_ASCII));
-            return receiver.readLine();
+            return new MessageChannel(socket);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
+
+    //Close connections that may already be closed
+    private static void closeQuietly(MessageChannel... channels) {
+        for (MessageChannel channel : channels) {
+            try {
+                if (channel != null)
+                    channel.close();
+            } catch (IOException | UncheckedIOException e) {
+                //already closed
+            }
+        }
+    }
+
+    //Build a message from its id and its serialized arguments
+    private static String message(MessageId id, String... serializedArgs) {
+        StringBuilder msg = new StringBuilder(id.name());
+        for (String arg : serializedArgs)
+            msg.append(' ').append(arg);
+        return msg.toString();
+    }
 }
@@ -0,0 +1,136 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the sessions of the remote players of a server, used to give a client coming back after the loss
+ * of its connection to the RemotePlayerProxy of its player. The token of a session is random and can't be guessed.
+ * It is public, final and thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class SessionRegistry {
+    //Amount of random bytes in a session token
+    private static final int TOKEN_BYTES = 16;
+    //Time given by default to a client to send its first line once connected
+    private static final long DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+
+    private final Map<String, RemotePlayerProxy> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long decisionTimeoutMillis;
+    private final long handshakeTimeoutNanos;
+
+    /**
+     * Create a registry without sessions, whose players have the default time for each decision.
+     */
+    public SessionRegistry() {
+        this(RemotePlayerProxy.DEFAULT_DECISION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Create a registry without sessions, whose players have the given time for each decision.
+     *
+     * @param decisionTimeoutMillis the time given to each decision of the players, in milliseconds
+     * @throws IllegalArgumentException if the time is not strictly positive
+     */
+    public SessionRegistry(long decisionTimeoutMillis) {
+        this(decisionTimeoutMillis, DEFAULT_HANDSHAKE_TIMEOUT_MILLIS);
+    }
+
+    //Create a registry giving the clients the given time to send their first line (used by the tests)
+    SessionRegistry(long decisionTimeoutMillis, long handshakeTimeoutMillis) {
+        Preconditions.checkArgument(decisionTimeoutMillis > 0 && handshakeTimeoutMillis > 0);
+        this.decisionTimeoutMillis = decisionTimeoutMillis;
+        this.handshakeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(handshakeTimeoutMillis);
+    }
+
+    /**
+     * Handle the connections of a client, reading its first line.
+     * A client coming back with the token of a session is given to the proxy of its player,
+     * a client giving an unknown token or a malformed first line is disconnected. A client not sending its first line in time is
+     * disconnected too, so that a silent client doesn't block the server.
+     *
+     * @param gameSocket the socket of the game connection
+     * @param chatSocket the socket of the chat connection
+     * @return the proxy of a new player (whose name is then received by <code>receivePlayerName</code>),
+     * empty if the client came back or was disconnected (Optional)
+     * @throws IOException if the first line can't be read before the deadline of the handshake
+     *                     (the connections are then closed)
+     */
+    public Optional<RemotePlayerProxy> accept(Socket gameSocket, Socket chatSocket) throws IOException {
+        MessageChannel gameChannel = new MessageChannel(gameSocket);
+        MessageChannel chatChannel = new MessageChannel(chatSocket);
+        String firstLine;
+        try {
+            firstLine = gameChannel.receiveLine(System.nanoTime() + handshakeTimeoutNanos);
+        } catch (UncheckedIOException e) {
+            gameChannel.close();
+            chatChannel.close();
+            throw e.getCause();
+        }
+        if (firstLine == null) {
+            gameChannel.close();
+            chatChannel.close();
+            throw new EOFException();
+        }
+
+        String[] handshake = firstLine.split(Pattern.quote(" "), -1);
+        if (handshake.length < 4 || !handshake[0].equals(WireFormat.HANDSHAKE)
+                || handshake[3].equals(WireFormat.NEW_SESSION)) {
+            //the name is received later by the proxy, which can't fail on it anymore
+            try {
+                RemotePlayerProxy.playerName(firstLine);
+            } catch (IllegalArgumentException e) {
+                gameChannel.close();
+                chatChannel.close();
+                return Optional.empty();
+            }
+            return Optional.of(new RemotePlayerProxy(gameChannel, chatChannel, firstLine, this, decisionTimeoutMillis));
+        }
+
+        RemotePlayerProxy proxy = sessions.get(handshake[3]);
+        if (proxy != null) {
+            proxy.resume(gameChannel, chatChannel);
+        } else {
+            gameChannel.close();
+            chatChannel.close();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The amount of sessions opened and not closed yet.
+     *
+     * @return the number of sessions (int)
+     */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    //Open a session for the given proxy, returning its token
+    String open(RemotePlayerProxy proxy) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, proxy);
+        return token;
+    }
+
+    //Close a session, its client can't come back anymore
+    void close(String token) {
+        sessions.remove(token);
+    }
+}
@@ -0,0 +1,133 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.game.PublicGameState;
+import ch.epfl.tchu.game.Spectator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spectator of a game forwarding the public state and the infos to remote spectators, connected by sockets.
+ * Each event is serialized once, in the text format of the protocol ("UPDATE_STATE publicState" or
+ * "RECEIVE_INFO info", the private states are never sent), and the same bytes are written to all the sockets
+ * by a NioEventLoop: the thread playing the game never waits for a spectator.
+ * A spectator too slow to read the messages is disconnected, so that its messages don't accumulate.
+ * It is public, final and thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class SpectatorBroadcast implements Spectator {
+    //Default amount of messages a spectator can have in late before being disconnected
+    private static final int DEFAULT_MAX_PENDING_MESSAGES = 256;
+
+    private final NioEventLoop loop;
+    private final int maxPendingMessages;
+    private final List<NioEventLoop.Connection> spectators = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedSpectators = new AtomicLong();
+    //The last state sent, given to the spectators when they join (null before the first one), guarded by this
+    private ByteBuffer lastState;
+
+    /**
+     * Create a broadcast without spectators, whose sockets are handled by the given loop.
+     *
+     * @param loop the loop writing to the spectators
+     */
+    public SpectatorBroadcast(NioEventLoop loop) {
+        this(loop, DEFAULT_MAX_PENDING_MESSAGES);
+    }
+
+    /**
+     * Create a broadcast without spectators, whose sockets are handled by the given loop.
+     *
+     * @param loop               the loop writing to the spectators
+     * @param maxPendingMessages the amount of messages a spectator can have in late before being disconnected
+     * @throws IllegalArgumentException if <code>maxPendingMessages</code> is not strictly positive
+     */
+    public SpectatorBroadcast(NioEventLoop loop, int maxPendingMessages) {
+        Preconditions.checkArgument(maxPendingMessages > 0);
+        this.loop = loop;
+        this.maxPendingMessages = maxPendingMessages;
+    }
+
+    /**
+     * Add a remote spectator: it receives the last state of the game, if any, then the next messages.
+     * What the spectator sends is ignored.
+     *
+     * @param channel the connected socket of the spectator
+     * @throws IOException if the socket can not be registered in the loop
+     */
+    public void add(SocketChannel channel) throws IOException {
+        NioEventLoop.Connection connection = loop.register(channel);
+        connection.onReceive(line -> {});
+        //no state can be broadcast between the last state and the first message of the spectator
+        synchronized (this) {
+            if (lastState != null)
+                connection.send(lastState.duplicate());
+            spectators.add(connection);
+        }
+    }
+
+    /**
+     * The amount of spectators connected.
+     *
+     * @return the number of spectators (int)
+     */
+    public int spectatorCount() {
+        return (int) spectators.stream().filter(NioEventLoop.Connection::isOpen).count();
+    }
+
+    /**
+     * The amount of spectators disconnected because they were too slow.
+     *
+     * @return the number of dropped spectators (long)
+     */
+    public long droppedSpectators() {
+        return droppedSpectators.get();
+    }
+
+    @Override
+    public void receiveInfo(String info) {
+        broadcast(encode(MessageId.RECEIVE_INFO, Serdes.STRING_SERDE.serialize(info)));
+    }
+
+    @Override
+    public void updateState(PublicGameState newState) {
+        ByteBuffer state = encode(MessageId.UPDATE_STATE, Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState));
+        synchronized (this) {
+            lastState = state;
+            broadcast(state);
+        }
+    }
+
+    //Encode a message once, in a read only buffer shared by all the spectators
+    private static ByteBuffer encode(MessageId id, String argument) {
+        return ByteBuffer.wrap(String.join(" ", id.name(), argument).concat("\n").getBytes(StandardCharsets.US_ASCII))
+                .asReadOnlyBuffer();
+    }
+
+    //Give the message to every spectator, without copying it, and forget the closed or slow ones
+    private synchronized void broadcast(ByteBuffer message) {
+        for (NioEventLoop.Connection spectator : spectators) {
+            if (spectator.isOpen() && spectator.pendingMessages() >= maxPendingMessages) {
+                droppedSpectators.incrementAndGet();
+                spectator.close();
+                spectators.remove(spectator);
+                continue;
+            }
+            try {
+                spectator.send(message.duplicate());
+            } catch (UncheckedIOException e) {
+                //the spectator left
+                spectators.remove(spectator);
+            }
+        }
+    }
+}
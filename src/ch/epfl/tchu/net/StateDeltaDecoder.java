@@ -0,0 +1,131 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+import static ch.epfl.tchu.net.StateDeltaEncoder.*;
+
+/**
+ * Rebuild the states received by a player from the deltas written by a StateDeltaEncoder.
+ * The routes of the players are rebuilt in the order of ChMap.routes().
+ * It is public, final and not thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class StateDeltaDecoder {
+    private final PlayerId ownId;
+
+    //The current value of each part of the states
+    private int ticketsCount;
+    private final Card[] faceUpCards = new Card[Constants.FACE_UP_CARDS_COUNT];
+    private int deckSize;
+    private int discardsSize;
+    private PlayerId currentPlayerId;
+    private PlayerId lastPlayer;
+    private final int[] ticketCounts = new int[PlayerId.COUNT];
+    private final int[] cardCounts = new int[PlayerId.COUNT];
+    //The owner of each route of ChMap (0 for none, 1 + ordinal of the player)
+    private final byte[] owners = new byte[ChMap.routes().size()];
+    private SortedBag<Ticket> ownTickets = SortedBag.of();
+    private SortedBag<Card> ownCards = SortedBag.of();
+
+    //The states rebuilt from the last delta
+    private PublicGameState state;
+    private PlayerState ownState;
+
+    /**
+     * Create a decoder for the states sent to the given player.
+     *
+     * @param ownId the player receiving the states
+     */
+    public StateDeltaDecoder(PlayerId ownId) {
+        this.ownId = Objects.requireNonNull(ownId);
+    }
+
+    /**
+     * Read a delta and rebuild the new states, available with <code>state()</code> and <code>ownState()</code>.
+     *
+     * @param reader the reader providing the delta
+     * @throws IllegalArgumentException if the delta is truncated or if the first delta isn't complete
+     */
+    public void read(BinaryReader reader) {
+        int mask = reader.readVarInt();
+        if ((mask & TICKETS_COUNT) != 0)
+            ticketsCount = reader.readVarInt();
+        if ((mask & FACE_UP_CARDS) != 0) {
+            int slots = reader.readByte();
+            for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+                if ((slots & (1 << slot)) != 0)
+                    faceUpCards[slot] = reader.read(BinarySerdes.CARD_SERDE);
+            }
+        }
+        if ((mask & DECK_SIZE) != 0)
+            deckSize = reader.readVarInt();
+        if ((mask & DISCARDS_SIZE) != 0)
+            discardsSize = reader.readVarInt();
+        if ((mask & CURRENT_PLAYER) != 0)
+            currentPlayerId = reader.read(BinarySerdes.PLAYER_ID_SERDE);
+        if ((mask & LAST_PLAYER) != 0)
+            lastPlayer = reader.read(BinarySerdes.PLAYER_ID_SERDE);
+        if ((mask & PLAYER_COUNTS) != 0) {
+            for (PlayerId id : PlayerId.ALL) {
+                ticketCounts[id.ordinal()] = reader.readVarInt();
+                cardCounts[id.ordinal()] = reader.readVarInt();
+            }
+        }
+        if ((mask & ROUTE_OWNERS) != 0) {
+            int changedRoutes = reader.readVarInt();
+            for (int i = 0; i < changedRoutes; ++i) {
+                int change = reader.readVarInt();
+                owners[change >>> 2] = (byte) (change & 0b11);
+            }
+        }
+        if ((mask & OWN_TICKETS) != 0)
+            ownTickets = reader.read(BinarySerdes.SORTED_BAG_TICKETS_SERDE);
+        if ((mask & OWN_CARDS) != 0)
+            ownCards = reader.read(BinarySerdes.SORTED_BAG_CARD_SERDE);
+
+        //Rebuild the states
+        Map<PlayerId, List<Route>> routes = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL)
+            routes.put(id, new ArrayList<>());
+        for (int i = 0; i < owners.length; ++i) {
+            if (owners[i] != 0)
+                routes.get(PlayerId.ALL.get(owners[i] - 1)).add(ChMap.routes().get(i));
+        }
+        Map<PlayerId, PublicPlayerState> playerStates = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL)
+            playerStates.put(id, new PublicPlayerState(ticketCounts[id.ordinal()], cardCounts[id.ordinal()], routes.get(id)));
+        for (Card c : faceUpCards)
+            if (c == null)
+                throw new IllegalArgumentException();
+
+        state = new PublicGameState(ticketsCount, new PublicCardState(Arrays.asList(faceUpCards), deckSize, discardsSize),
+                currentPlayerId, playerStates, lastPlayer);
+        List<Route> ownRoutes = ((mask & OWN_ROUTES) != 0)
+                ? reader.read(BinarySerdes.ROUTE_SET_SERDE)
+                : routes.get(ownId);
+        ownState = new PlayerState(ownTickets, ownCards, ownRoutes);
+    }
+
+    /**
+     * The public state of the game rebuilt from the last delta.
+     *
+     * @return the public state of the game (PublicGameState)
+     */
+    public PublicGameState state() {
+        return state;
+    }
+
+    /**
+     * The state of the player rebuilt from the last delta.
+     *
+     * @return the state of the player (PlayerState)
+     */
+    public PlayerState ownState() {
+        return ownState;
+    }
+}
@@ -0,0 +1,157 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.*;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Encode the states sent to one player as deltas of the previous ones (format WireFormat.BINARY_DELTA).
+ * A delta starts with a mask of the changed parts, followed by the new value of each of them;
+ * the ownership of the routes is sent as a list of changed routes only.
+ * The connection being ordered and reliable, the last state sent is the one the client knows,
+ * so no acknowledgement is needed. StateDeltaDecoder does the reverse operation.
+ * It is public, final and not thread safe (one per player).
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class StateDeltaEncoder {
+    //The parts of a delta, one bit each in its mask
+    static final int TICKETS_COUNT = 1;
+    static final int FACE_UP_CARDS = 1 << 1;
+    static final int DECK_SIZE = 1 << 2;
+    static final int DISCARDS_SIZE = 1 << 3;
+    static final int CURRENT_PLAYER = 1 << 4;
+    static final int LAST_PLAYER = 1 << 5;
+    static final int PLAYER_COUNTS = 1 << 6;
+    static final int ROUTE_OWNERS = 1 << 7;
+    static final int OWN_TICKETS = 1 << 8;
+    static final int OWN_CARDS = 1 << 9;
+    //set only if the routes of the player differ from its public ones (never in a real game)
+    static final int OWN_ROUTES = 1 << 10;
+
+    private final PlayerId ownId;
+    //The last states sent, null before the first one
+    private PublicGameState lastState;
+    private PlayerState lastOwnState;
+    //The owner of each route of ChMap in the last state sent (0 for none, 1 + ordinal of the player)
+    private final byte[] owners = new byte[ChMap.routes().size()];
+    private final byte[] newOwners = new byte[ChMap.routes().size()];
+
+    /**
+     * Create an encoder for the states sent to the given player.
+     *
+     * @param ownId the player receiving the states
+     */
+    public StateDeltaEncoder(PlayerId ownId) {
+        this.ownId = Objects.requireNonNull(ownId);
+    }
+
+    /**
+     * Write the delta between the last states written and the given ones, and remember the given ones.
+     *
+     * @param newState the new public state of the game
+     * @param ownState the new state of the player
+     * @param writer   the writer receiving the delta
+     */
+    public void write(PublicGameState newState, PlayerState ownState, BinaryWriter writer) {
+        PublicCardState cards = newState.cardState();
+        PublicCardState lastCards = (lastState == null) ? null : lastState.cardState();
+
+        //Compute the owner of each route
+        Arrays.fill(newOwners, (byte) 0);
+        for (PlayerId id : PlayerId.ALL) {
+            for (Route route : newState.playerState(id).routes())
+                newOwners[BinarySerdes.routeIndex(route)] = (byte) (id.ordinal() + 1);
+        }
+        int changedRoutes = 0;
+        for (int i = 0; i < owners.length; ++i) {
+            if (owners[i] != newOwners[i])
+                ++changedRoutes;
+        }
+
+        //Mask of the changed parts
+        int mask = 0;
+        if (lastState == null || lastState.ticketsCount() != newState.ticketsCount())
+            mask |= TICKETS_COUNT;
+        if (lastCards == null || !lastCards.faceUpCards().equals(cards.faceUpCards()))
+            mask |= FACE_UP_CARDS;
+        if (lastCards == null || lastCards.deckSize() != cards.deckSize())
+            mask |= DECK_SIZE;
+        if (lastCards == null || lastCards.discardsSize() != cards.discardsSize())
+            mask |= DISCARDS_SIZE;
+        if (lastState == null || lastState.currentPlayerId() != newState.currentPlayerId())
+            mask |= CURRENT_PLAYER;
+        if (lastState == null || lastState.lastPlayer() != newState.lastPlayer())
+            mask |= LAST_PLAYER;
+        if (lastState == null || countsChanged(lastState, newState))
+            mask |= PLAYER_COUNTS;
+        if (changedRoutes != 0)
+            mask |= ROUTE_OWNERS;
+        if (lastOwnState == null || !lastOwnState.tickets().equals(ownState.tickets()))
+            mask |= OWN_TICKETS;
+        if (lastOwnState == null || !lastOwnState.cards().equals(ownState.cards()))
+            mask |= OWN_CARDS;
+        if (!ownState.routes().equals(newState.playerState(ownId).routes()))
+            mask |= OWN_ROUTES;
+
+        //Content of the changed parts
+        writer.writeVarInt(mask);
+        if ((mask & TICKETS_COUNT) != 0)
+            writer.writeVarInt(newState.ticketsCount());
+        if ((mask & FACE_UP_CARDS) != 0) {
+            int slots = 0;
+            for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+                if (lastCards == null || lastCards.faceUpCard(slot) != cards.faceUpCard(slot))
+                    slots |= 1 << slot;
+            }
+            writer.writeByte(slots);
+            for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+                if ((slots & (1 << slot)) != 0)
+                    writer.write(BinarySerdes.CARD_SERDE, cards.faceUpCard(slot));
+            }
+        }
+        if ((mask & DECK_SIZE) != 0)
+            writer.writeVarInt(cards.deckSize());
+        if ((mask & DISCARDS_SIZE) != 0)
+            writer.writeVarInt(cards.discardsSize());
+        if ((mask & CURRENT_PLAYER) != 0)
+            writer.write(BinarySerdes.PLAYER_ID_SERDE, newState.currentPlayerId());
+        if ((mask & LAST_PLAYER) != 0)
+            writer.write(BinarySerdes.PLAYER_ID_SERDE, newState.lastPlayer());
+        if ((mask & PLAYER_COUNTS) != 0) {
+            for (PlayerId id : PlayerId.ALL)
+                writer.writeVarInt(newState.playerState(id).ticketCount()).writeVarInt(newState.playerState(id).cardCount());
+        }
+        if ((mask & ROUTE_OWNERS) != 0) {
+            //each changed route as (index << 2 | owner)
+            writer.writeVarInt(changedRoutes);
+            for (int i = 0; i < owners.length; ++i) {
+                if (owners[i] != newOwners[i])
+                    writer.writeVarInt((i << 2) | newOwners[i]);
+            }
+            System.arraycopy(newOwners, 0, owners, 0, owners.length);
+        }
+        if ((mask & OWN_TICKETS) != 0)
+            writer.write(BinarySerdes.SORTED_BAG_TICKETS_SERDE, ownState.tickets());
+        if ((mask & OWN_CARDS) != 0)
+            writer.write(BinarySerdes.SORTED_BAG_CARD_SERDE, ownState.cards());
+        if ((mask & OWN_ROUTES) != 0)
+            writer.write(BinarySerdes.ROUTE_SET_SERDE, ownState.routes());
+
+        lastState = newState;
+        lastOwnState = ownState;
+    }
+
+    //Check whether the number of tickets or cards of a player changed
+    private static boolean countsChanged(PublicGameState before, PublicGameState after) {
+        for (PlayerId id : PlayerId.ALL) {
+            PublicPlayerState b = before.playerState(id);
+            PublicPlayerState a = after.playerState(id);
+            if (b.ticketCount() != a.ticketCount() || b.cardCount() != a.cardCount())
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package ch.epfl.tchu.net;
+
+import java.util.List;
+
+/**
+ * This enumeration contains the formats in which the game messages can travel between a client and the server.
+ * The client asks for a format when it connects, the server answers with the format it accepts.
+ * A client asking for nothing (older clients) speaks TEXT.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public enum WireFormat {
+    //The elements of the enumeration
+    TEXT,
+    BINARY,
+    //binary, with the states of UPDATE_STATE sent as deltas of the previous ones
+    BINARY_DELTA,
+    //binary with deltas, each question carrying a correlation id repeated by its answer
+    BINARY_PIPELINED;
+
+    /**
+     * All the values of the enumeration
+     */
+    public final static List<WireFormat> ALL = List.of(WireFormat.values());
+
+    /**
+     * First word of the line sent by a client asking for a format,
+     * followed by the name of the format and the serialized name of the player.
+     * A serialized name never contains a space, so the server can not mistake it for a plain name.
+     */
+    public final static String HANDSHAKE = "WIRE";
+
+    /**
+     * Optional last word of the handshake, asking the server for a session: the server then answers with
+     * the format followed by a session token, and the connection is kept alive by heartbeats.
+     * A client whose connection was lost gives its token instead, to resume its session.
+     * A server without sessions answers with the format only.
+     * It may be followed by the chat id of the client, a random word the client also sends on its chat socket
+     * (after CHAT_HANDSHAKE), so that the server knows which chat connection goes with which game connection.
+     */
+    public final static String NEW_SESSION = "SESSION";
+
+    /**
+     * First word of the first line sent by a client on its chat socket, followed by the chat id
+     * of its handshake.
+     */
+    public final static String CHAT_HANDSHAKE = "CHAT";
+
+    /**
+     * Check whether the game messages are sent in binary frames.
+     *
+     * @return true if the format is binary (boolean)
+     */
+    public boolean isBinary() {
+        return this != TEXT;
+    }
+
+    /**
+     * Check whether the states of UPDATE_STATE are sent as deltas of the previous ones.
+     *
+     * @return true if the states are sent as deltas (boolean)
+     */
+    public boolean hasDeltas() {
+        return this == BINARY_DELTA || this == BINARY_PIPELINED;
+    }
+
+    /**
+     * Check whether the questions carry a correlation id, repeated by their answers.
+     *
+     * @return true if the questions carry a correlation id (boolean)
+     */
+    public boolean hasCorrelationIds() {
+        return this == BINARY_PIPELINED;
+    }
+}
@@ -0,0 +1,95 @@
+package ch.epfl.tchu.replay;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Card;
+import ch.epfl.tchu.game.CardBag;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.game.RouteIndex;
+import ch.epfl.tchu.game.Ticket;
+
+/**
+ * Encoding of the decisions of the players in the bytes of a GameRecord:
+ * a kind of turn is its ordinal, a slot is the slot + 1, a route its index in ChMap.routes(),
+ * the tickets kept are a mask of the tickets offered, and the cards of a claim and the additional cards
+ * (none to refuse) are two bytes: the kind of cars, then the amount of cars (4 high bits) and of locomotives
+ * (4 low bits).
+ * It is package private, final and non instantiable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+final class Decisions {
+    //The tickets of the games recorded
+    static final SortedBag<Ticket> TICKETS = SortedBag.of(ChMap.tickets());
+
+    private static final Card[] CARDS = Card.ALL.toArray(new Card[0]);
+    private static final int NIBBLE_MASK = 0xF;
+    private static final int BYTE_MASK = 0xFF;
+
+    static {
+        //A route must fit in a byte
+        Preconditions.checkArgument(RouteIndex.count() <= BYTE_MASK + 1);
+    }
+
+    //this class is non instantiable
+    private Decisions() {}
+
+    static int slot(int slot) {
+        return slot + 1;
+    }
+
+    static int slotOf(int b) {
+        return (b & BYTE_MASK) - 1;
+    }
+
+    static int route(Route route) {
+        return RouteIndex.indexOf(route);
+    }
+
+    static Route routeOf(int b) {
+        return RouteIndex.route(b & BYTE_MASK);
+    }
+
+    //The mask of the tickets kept among the options, in the order of the options (the first ones of equal tickets)
+    static int tickets(SortedBag<Ticket> options, SortedBag<Ticket> kept) {
+        Preconditions.checkArgument(options.size() <= Byte.SIZE);
+        int mask = 0;
+        int taken = 0;
+        for (int i = 0; i < options.size(); ++i) {
+            if (i > 0 && options.get(i).compareTo(options.get(i - 1)) != 0)
+                taken = 0;
+            if (taken < kept.countOf(options.get(i))) {
+                mask |= 1 << i;
+                ++taken;
+            }
+        }
+        Preconditions.checkArgument(Integer.bitCount(mask) == kept.size());
+        return mask;
+    }
+
+    static SortedBag<Ticket> ticketsOf(int b, SortedBag<Ticket> options) {
+        SortedBag.Builder<Ticket> kept = new SortedBag.Builder<>();
+        for (int i = 0; i < options.size(); ++i) {
+            if ((b & 1 << i) != 0)
+                kept.add(options.get(i));
+        }
+        return kept.build();
+    }
+
+    //The cards of a claim or the additional cards (empty to refuse): the kind of cars in the high byte,
+    //the amount of cars and of locomotives in the low one
+    static int cards(SortedBag<Card> cards) {
+        int locomotives = cards.countOf(Card.LOCOMOTIVE);
+        int cars = cards.size() - locomotives;
+        Card car = (cars == 0) ? CARDS[0] : cards.get(0);
+        Preconditions.checkArgument(cards.countOf(car) == cars && cars <= NIBBLE_MASK && locomotives <= NIBBLE_MASK);
+        return car.ordinal() << Byte.SIZE | cars << 4 | locomotives;
+    }
+
+    static CardBag cardsOf(int s) {
+        CardBag cars = CardBag.of((s >>> 4) & NIBBLE_MASK, CARDS[(s >>> Byte.SIZE) & BYTE_MASK]);
+        return cars.union(CardBag.of(s & NIBBLE_MASK, Card.LOCOMOTIVE));
+    }
+}
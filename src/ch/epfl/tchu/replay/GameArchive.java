@@ -0,0 +1,165 @@
+package ch.epfl.tchu.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Append only file of game records: a header (the magic number and the version of the format), then the records
+ * one after the other, each one being the size of its decisions (4 bytes), its seed (8 bytes) and its decisions.
+ * The records are read from a memory mapping of the file, so a huge archive is scanned without being
+ * loaded in the heap: the decisions of the records read are views on the mapping.
+ * A record cut by the end of the file (a writer stopped while appending) is ignored, and overwritten by the
+ * next record appended.
+ * It is public, final and non instantiable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameArchive {
+    /**
+     * The magic number at the beginning of an archive ("tChu").
+     */
+    public static final int MAGIC = 0x74436875;
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 1;
+
+    //The size of the header of the file and of the header of a record
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    //The maximal size of a mapping
+    private static final long MAX_MAPPING_BYTES = Integer.MAX_VALUE;
+
+    //this class is non instantiable
+    private GameArchive() {}
+
+    /**
+     * Open the archive to append records, creating it if it doesn't exist.
+     *
+     * @param path the path of the archive
+     * @return the writer of the archive, to close once the records are written (Writer)
+     * @throws IOException if the file can't be opened, or isn't an archive
+     */
+    public static Writer append(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining())
+                    channel.write(header);
+            } else {
+                //Append after the last whole record, a cut one is overwritten
+                checkHeader(channel);
+                channel.truncate(scan(channel, record -> {}));
+                channel.position(channel.size());
+            }
+            return new Writer(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Give each record of the archive to the consumer, in the order they were appended.
+     * The decisions of the records are views on the mapping of the file: they can be kept after the call,
+     * but not while the file is rewritten.
+     *
+     * @param path    the path of the archive
+     * @param records the consumer of the records
+     * @return the amount of records read (long)
+     * @throws IOException if the file can't be read, or isn't an archive
+     */
+    public static long forEach(Path path, Consumer<GameRecord> records) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            checkHeader(channel);
+            long[] count = new long[1];
+            scan(channel, record -> {
+                records.accept(record);
+                ++count[0];
+            });
+            return count[0];
+        }
+    }
+
+    //Give the whole records of the archive to the consumer, and return the position of the end of the last one
+    private static long scan(FileChannel channel, Consumer<GameRecord> records) throws IOException {
+        long size = channel.size();
+        long position = HEADER_BYTES;
+        while (size - position >= RECORD_HEADER_BYTES) {
+            //Map the rest of the file, as much as a mapping can hold
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(size - position, MAX_MAPPING_BYTES));
+            while (mapping.remaining() >= RECORD_HEADER_BYTES) {
+                int recordSize = mapping.getInt(mapping.position());
+                if (recordSize < 0)
+                    throw new IOException("Corrupted record at " + (position + mapping.position()));
+                if (mapping.remaining() - RECORD_HEADER_BYTES < recordSize)
+                    break;
+                mapping.position(mapping.position() + Integer.BYTES);
+                long seed = mapping.getLong();
+                int end = mapping.position() + recordSize;
+                records.accept(new GameRecord(seed, mapping.duplicate().limit(end)));
+                mapping.position(end);
+            }
+
+            //Stop if no record was read from this mapping: the last one is cut, or too large for a mapping
+            if (mapping.position() == 0) {
+                if (size - position >= MAX_MAPPING_BYTES)
+                    throw new IOException("Record too large at " + position);
+                break;
+            }
+            position += mapping.position();
+        }
+        return position;
+    }
+
+    //Check the header of the archive
+    private static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.read(header, 0) < HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION)
+            throw new IOException("Not a game archive of version " + VERSION);
+    }
+
+    /**
+     * Writer of an archive, appending records at its end.
+     * It is public, final and not thread safe.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Append the record at the end of the archive.
+         *
+         * @param record the record
+         * @throws IOException if the record can't be written
+         */
+        public void append(GameRecord record) throws IOException {
+            int size = RECORD_HEADER_BYTES + record.size();
+            if (buffer.capacity() < size)
+                buffer = ByteBuffer.allocate(Math.max(size, 2 * buffer.capacity()));
+            buffer.clear();
+            buffer.putInt(record.size()).putLong(record.seed()).put(record.decisions()).flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ch.epfl.tchu.replay;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The record of a game: the seed of the random number generator of the session and the decisions of the
+ * players, in the order the session asked for them. A game is played with all the tickets of ChMap, so that
+ * the seed and the decisions are enough to rebuild every state of the game (see {@link GameReplayer}).
+ * Each decision takes one byte, the cards played on a route two: a whole game takes a few hundred bytes.
+ * The decisions may be a view on a memory mapped archive (see {@link GameArchive}), they are never copied.
+ * It is public, final and immutable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameRecord {
+    //The seed of the session and its decisions, from position 0 to the limit
+    private final long seed;
+    private final ByteBuffer decisions;
+
+    /**
+     * Create a record.
+     *
+     * @param seed      the seed of the random number generator of the session
+     * @param decisions the decisions, from the position to the limit of the buffer (the buffer isn't modified)
+     */
+    public GameRecord(long seed, ByteBuffer decisions) {
+        this.seed = seed;
+        ByteBuffer slice = decisions.slice();
+        this.decisions = slice.isReadOnly() ? slice : slice.asReadOnlyBuffer();
+    }
+
+    /**
+     * Getter for the seed of the random number generator of the session.
+     *
+     * @return the seed (long)
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * The size of the decisions.
+     *
+     * @return the amount of bytes of the decisions (int)
+     */
+    public int size() {
+        return decisions.limit();
+    }
+
+    /**
+     * The decisions of the players.
+     *
+     * @return a read only buffer of the decisions, from position 0 to its limit (ByteBuffer)
+     */
+    public ByteBuffer decisions() {
+        return decisions.duplicate();
+    }
+
+    /**
+     * Builder of a record, appending the decisions of the players one after the other.
+     * It is public, final and not thread safe (the decisions of a session are taken one after the other).
+     */
+    public static final class Builder {
+        //Initial capacity of the buffer (enough for most of the games)
+        private static final int INITIAL_CAPACITY = 512;
+
+        private final long seed;
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Create a builder of the record of a game.
+         *
+         * @param seed the seed of the random number generator of the session
+         */
+        public Builder(long seed) {
+            this.seed = seed;
+        }
+
+        /**
+         * Build the record of the decisions appended so far.
+         *
+         * @return the record (GameRecord)
+         */
+        public GameRecord build() {
+            return new GameRecord(seed, ByteBuffer.wrap(Arrays.copyOf(bytes, size)));
+        }
+
+        //Append a decision of one byte
+        void appendByte(int b) {
+            if (size == bytes.length)
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            bytes[size++] = (byte) b;
+        }
+
+        //Append a decision of two bytes
+        void appendShort(int s) {
+            appendByte(s >>> Byte.SIZE);
+            appendByte(s);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package ch.epfl.tchu.replay;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Replay of a recorded game: the states are rebuilt with the same transitions and the same random number
+ * generator as in GameSession, the decisions being read from the record instead of being asked to the players.
+ * The game is replayed on a MutableGameState, the immutable states are only built when they are asked for.
+ * Nothing is sent to the players, and no info is generated.
+ * It is public, final and non instantiable.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GameReplayer {
+
+    //this class is non instantiable
+    private GameReplayer() {}
+
+    /**
+     * Replay a game.
+     *
+     * @param record the record of the game
+     * @return the state at the end of the game (GameState)
+     * @throws IllegalArgumentException if the record isn't the record of a whole game
+     */
+    public static GameState replay(GameRecord record) {
+        return replayMutable(record, state -> {}).toGameState();
+    }
+
+    /**
+     * Replay a game, giving its states to the consumer: the initial state, the state at the beginning of
+     * each turn, and the state at the end of the game.
+     *
+     * @param record the record of the game
+     * @param states the consumer of the states
+     * @return the state at the end of the game (GameState)
+     * @throws IllegalArgumentException if the record isn't the record of a whole game
+     */
+    public static GameState replay(GameRecord record, Consumer<GameState> states) {
+        GameState[] lastState = new GameState[1];
+        replayMutable(record, state -> {
+            lastState[0] = state.toGameState();
+            states.accept(lastState[0]);
+        });
+        return lastState[0];
+    }
+
+    /**
+     * Replay a game without building the immutable states, giving the mutable state to the consumer at the
+     * same moments as {@link #replay(GameRecord, Consumer)}: it must not be modified, nor kept.
+     *
+     * @param record the record of the game
+     * @param states the consumer of the state
+     * @return the state at the end of the game (MutableGameState)
+     * @throws IllegalArgumentException if the record isn't the record of a whole game
+     */
+    public static MutableGameState replayMutable(GameRecord record, Consumer<MutableGameState> states) {
+        ByteBuffer decisions = record.decisions();
+        Random rng = new Random(record.seed());
+        try {
+            //Init the game, the same initial tickets are offered to both players
+            MutableGameState gameState = MutableGameState.initial(Decisions.TICKETS, rng);
+            states.accept(gameState);
+            SortedBag<Ticket> initialTickets = gameState.topTickets(Constants.INITIAL_TICKETS_COUNT);
+            for (PlayerId id : PlayerId.ALL) {
+                gameState.chooseInitialTickets(id, Decisions.ticketsOf(decisions.get(), initialTickets));
+                gameState.removeTopTickets(Constants.INITIAL_TICKETS_COUNT);
+            }
+
+            //Play the turns
+            boolean endGame = false;
+            while (!endGame) {
+                if (gameState.lastPlayer() == gameState.currentPlayerId())
+                    endGame = true;
+                states.accept(gameState);
+                playTurn(gameState, decisions, rng);
+                gameState.nextTurn();
+            }
+            states.accept(gameState);
+
+            Preconditions.checkArgument(!decisions.hasRemaining());
+            return gameState;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    //Play a turn of the current player, same transitions as GameSession
+    private static void playTurn(MutableGameState gameState, ByteBuffer decisions, Random rng) {
+        switch (Player.TurnKind.ALL.get(decisions.get())) {
+            case DRAW_TICKETS:
+                SortedBag<Ticket> drawnTickets = gameState.topTickets(Constants.IN_GAME_TICKETS_COUNT);
+                gameState.chooseAdditionalTickets(drawnTickets, Decisions.ticketsOf(decisions.get(), drawnTickets));
+                break;
+            case DRAW_CARDS:
+                for (int i = 0; i < 2 && gameState.canDrawCards(); ++i) {
+                    gameState.recreateDeckIfNeeded(rng);
+                    int cardSlot = Decisions.slotOf(decisions.get());
+                    if (cardSlot == Constants.DECK_SLOT)
+                        gameState.drawBlindCard();
+                    else
+                        gameState.drawFaceUpCard(cardSlot);
+                }
+                break;
+            case CLAIM_ROUTE:
+                Route claimRoute = Decisions.routeOf(decisions.get());
+                CardBag claimCards = Decisions.cardsOf(decisions.getShort());
+                if (claimCards.isEmpty())
+                    break;
+                if (claimRoute.level() == Route.Level.OVERGROUND)
+                    gameState.claimRoute(claimRoute, claimCards);
+                else
+                    claimTunnel(gameState, claimRoute, claimCards, decisions, rng);
+                break;
+            default:
+                throw new Error();
+        }
+    }
+
+    //Attempt to claim a tunnel, same transitions as GameSession
+    private static void claimTunnel(MutableGameState gameState, Route claimRoute, CardBag claimCards,
+                                    ByteBuffer decisions, Random rng) {
+        //Take the three first cards of the deck
+        CardBag drawnCards = CardBag.EMPTY;
+        for (int i = 0; i < Constants.ADDITIONAL_TUNNEL_CARDS && gameState.canDrawCards(); ++i) {
+            gameState.recreateDeckIfNeeded(rng);
+            drawnCards = drawnCards.with(gameState.topDeckCard());
+            gameState.removeTopDeckCard();
+        }
+        int additionalCardsCount = (drawnCards.size() > 0)
+                ? claimRoute.additionalClaimCardsCount(claimCards, drawnCards)
+                : 0;
+
+        //The additional cards chosen, if the player was asked
+        CardBag additionalCardsPlayed = (additionalCardsCount > 0
+                && canPlayAdditionalCards(gameState, claimCards, additionalCardsCount))
+                ? Decisions.cardsOf(decisions.getShort())
+                : CardBag.EMPTY;
+
+        if (additionalCardsPlayed.size() > 0 || additionalCardsCount == 0)
+            gameState.claimRoute(claimRoute, claimCards.union(additionalCardsPlayed));
+        gameState.discardCards(drawnCards);
+    }
+
+    //Tells if the current player has enough cards to play the additional cards, i.e. if the options of
+    //PlayerState.possibleAdditionalCards are not empty: the locomotives and the cars of the claim can be played
+    private static boolean canPlayAdditionalCards(MutableGameState gameState, CardBag claimCards, int count) {
+        PlayerId id = gameState.currentPlayerId();
+        int playableCount = 0;
+        for (Card card : Card.ALL) {
+            if (card == Card.LOCOMOTIVE || claimCards.contains(card))
+                playableCount += gameState.cardCount(id, card) - claimCards.countOf(card);
+        }
+        return playableCount >= count;
+    }
+}
@@ -0,0 +1,146 @@
+package ch.epfl.tchu.replay;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Decorator of a player appending each of its decisions to the record of the game.
+ * The two players of a session share the same builder: the session asks them one after the other,
+ * so the decisions are appended in the order the session takes them.
+ * It is public and final.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class RecordingPlayer implements Player {
+    //The player recorded and the record of the game
+    private final Player player;
+    private final GameRecord.Builder record;
+
+    //The initial tickets offered to the player
+    private SortedBag<Ticket> initialTickets;
+
+    /**
+     * Create a recording player.
+     *
+     * @param player the player whose decisions are recorded
+     * @param record the record of the game, shared by the two players of the session
+     */
+    public RecordingPlayer(Player player, GameRecord.Builder record) {
+        this.player = player;
+        this.record = record;
+    }
+
+    /**
+     * Play a session with all the tickets of ChMap, the random number generator created from the seed,
+     * and record it.
+     *
+     * @param players     the two players of the game
+     * @param playerNames the names of the two players
+     * @param seed        the seed of the random number generator of the session
+     * @param sendInfos   true iff the players receive the infos of the game
+     * @return the record of the game (GameRecord)
+     * @throws IllegalArgumentException if the <code>players</code> and <code>playerNames</code>
+     *                                  does not contain exactly 2 players, or if a player took a decision
+     *                                  that can't be recorded
+     */
+    public static GameRecord record(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames,
+                                    long seed, boolean sendInfos) {
+        GameRecord.Builder record = new GameRecord.Builder(seed);
+        Map<PlayerId, Player> recordingPlayers = new EnumMap<>(PlayerId.class);
+        players.forEach((id, player) -> recordingPlayers.put(id, new RecordingPlayer(player, record)));
+        new GameSession(recordingPlayers, playerNames, Decisions.TICKETS, new Random(seed), sendInfos).play();
+        return record.build();
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        player.initPlayers(ownId, playerNames);
+    }
+
+    @Override
+    public void connectChat(Consumer<String> chatSender) {
+        player.connectChat(chatSender);
+    }
+
+    @Override
+    public void receiveChat(String chat) {
+        player.receiveChat(chat);
+    }
+
+    @Override
+    public void receiveInfo(String info) {
+        player.receiveInfo(info);
+    }
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        player.updateState(newState, ownState);
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        initialTickets = tickets;
+        player.setInitialTicketChoice(tickets);
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        SortedBag<Ticket> tickets = player.chooseInitialTickets();
+        record.appendByte(Decisions.tickets(initialTickets, tickets));
+        return tickets;
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        TurnKind turnKind = player.nextTurn();
+        record.appendByte(turnKind.ordinal());
+        return turnKind;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        SortedBag<Ticket> tickets = player.chooseTickets(options);
+        record.appendByte(Decisions.tickets(options, tickets));
+        return tickets;
+    }
+
+    @Override
+    public int drawSlot() {
+        int slot = player.drawSlot();
+        record.appendByte(Decisions.slot(slot));
+        return slot;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        Route route = player.claimedRoute();
+        record.appendByte(Decisions.route(route));
+        return route;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        SortedBag<Card> cards = player.initialClaimCards();
+        record.appendShort(Decisions.cards(cards));
+        return cards;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        SortedBag<Card> cards = player.chooseAdditionalCards(options);
+        record.appendShort(Decisions.cards(cards));
+        return cards;
+    }
+
+    @Override
+    public String receivePlayerName() {
+        return player.receivePlayerName();
+    }
+}
@@ -0,0 +1,189 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * In process player playing without any GUI or socket, used to simulate games between programs.
+ * It keeps the states received from the game, and finds the routes it can claim;
+ * the decisions themselves are left to the strategies extending it.
+ * The infos and the chat are ignored.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public abstract class BotPlayer implements Player {
+    /**
+     * The maximal amount of turns played by a bot in a game, to stop a game that would never end.
+     */
+    public static final int TURN_LIMIT = 1_000;
+
+    //The enumeration of the legal moves, and its buffer
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final List<Route> claimableRoutes = new ArrayList<>();
+
+    //The random number generator of the decisions
+    private final Random rng;
+
+    //The last states received
+    private PublicGameState gameState;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+    private int turnCount;
+
+    //Decision taken in nextTurn, used by the next calls
+    private Route routeToClaim;
+    private SortedBag<Card> claimCards;
+
+    /**
+     * Create a bot.
+     *
+     * @param seed the seed of its random decisions
+     */
+    protected BotPlayer(long seed) {
+        this.rng = new Random(seed);
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {}
+
+    @Override
+    public void receiveChat(String chat) {}
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.gameState = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        initialTickets = tickets;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return keptTickets(initialTickets, Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return keptTickets(options, 1);
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        if (++turnCount > TURN_LIMIT)
+            throw new TurnLimitException();
+
+        //Claim a route if the strategy wants to
+        routeToClaim = chosenRoute(claimableRoutes());
+        if (routeToClaim != null) {
+            claimCards = chosenClaimCards(ownState.possibleClaimCards(routeToClaim));
+            return TurnKind.CLAIM_ROUTE;
+        }
+
+        //Else draw cards, or tickets when the cards can't be drawn
+        if (gameState.canDrawTickets() && (wantsTickets() || !gameState.canDrawCards()))
+            return TurnKind.DRAW_TICKETS;
+        return TurnKind.DRAW_CARDS;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return routeToClaim;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return claimCards;
+    }
+
+    @Override
+    public String receivePlayerName() {
+        return null;
+    }
+
+    /**
+     * Choose the tickets to keep among the given ones.
+     *
+     * @param options  the tickets the bot can keep
+     * @param minCount the minimal amount of tickets to keep
+     * @return the kept tickets (SortedBag< Ticket >)
+     */
+    protected abstract SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount);
+
+    /**
+     * Choose the route to claim.
+     *
+     * @param claimableRoutes the routes the bot can claim now, may be empty
+     * @return the route to claim, null to draw cards or tickets instead, and always null if claimableRoutes is empty
+     * (Route)
+     */
+    protected abstract Route chosenRoute(List<Route> claimableRoutes);
+
+    /**
+     * Choose the cards used to claim the route chosen by {@link #chosenRoute(List)}.
+     *
+     * @param options the cards the bot can use, never empty
+     * @return the cards to use (SortedBag< Card >)
+     */
+    protected abstract SortedBag<Card> chosenClaimCards(List<SortedBag<Card>> options);
+
+    /**
+     * Tells if the bot draws tickets rather than cards, when it doesn't claim a route.
+     *
+     * @return true iff the bot wants to draw tickets (boolean)
+     */
+    protected boolean wantsTickets() {
+        return false;
+    }
+
+    /**
+     * The random number generator of the decisions.
+     *
+     * @return the random number generator (Random)
+     */
+    protected final Random rng() {
+        return rng;
+    }
+
+    /**
+     * The last public state of the game received.
+     *
+     * @return the public state of the game (PublicGameState)
+     */
+    protected final PublicGameState gameState() {
+        return gameState;
+    }
+
+    /**
+     * The last state of the bot received.
+     *
+     * @return the state of the bot (PlayerState)
+     */
+    protected final PlayerState ownState() {
+        return ownState;
+    }
+
+    //The routes not claimed yet (only one route of a double route can be claimed) the bot can pay for
+    private List<Route> claimableRoutes() {
+        //The moves claiming the same route are consecutive
+        int count = moveGenerator.generate(gameState, ownState, moves);
+        claimableRoutes.clear();
+        Route last = null;
+        for (int i = 0; i < count; ++i) {
+            if (MoveGenerator.kind(moves[i]) == MoveGenerator.CLAIM_ROUTE && MoveGenerator.route(moves[i]) != last) {
+                last = MoveGenerator.route(moves[i]);
+                claimableRoutes.add(last);
+            }
+        }
+        return (claimableRoutes.isEmpty()) ? List.of() : Collections.unmodifiableList(claimableRoutes);
+    }
+}
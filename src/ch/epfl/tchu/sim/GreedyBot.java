@@ -0,0 +1,85 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bot taking the decisions that look the best right now: it claims the longest route it can,
+ * spending as few locomotives as possible, draws the face up cards of the colors it collects,
+ * and keeps the tickets that cost the least if they are not completed.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class GreedyBot extends BotPlayer {
+
+    /**
+     * Create a greedy bot.
+     *
+     * @param seed the seed of its random decisions
+     */
+    public GreedyBot(long seed) {
+        super(seed);
+    }
+
+    @Override
+    protected SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount) {
+        //The points of each ticket with the routes already claimed
+        StationPartition.Builder builder = new StationPartition.Builder(ChMap.stations().size());
+        if (ownState() != null) {
+            for (Route route : ownState().routes())
+                builder.connect(route.station1(), route.station2());
+        }
+        StationConnectivity connectivity = builder.build();
+
+        //Keep all the completed tickets, and at least the cheapest ones to fail
+        List<Ticket> tickets = new ArrayList<>(options.toList());
+        tickets.sort(Comparator.comparingInt((Ticket t) -> t.points(connectivity)).reversed());
+        int count = minCount;
+        while (count < tickets.size() && tickets.get(count).points(connectivity) > 0)
+            ++count;
+        return SortedBag.of(tickets.subList(0, count));
+    }
+
+    @Override
+    protected Route chosenRoute(List<Route> claimableRoutes) {
+        Route longest = null;
+        for (Route route : claimableRoutes) {
+            if (longest == null || route.length() > longest.length())
+                longest = route;
+        }
+        return longest;
+    }
+
+    @Override
+    protected SortedBag<Card> chosenClaimCards(List<SortedBag<Card>> options) {
+        //The options are sorted by increasing amount of locomotives
+        return options.get(0);
+    }
+
+    @Override
+    public int drawSlot() {
+        //Take a locomotive, else the face up card of the color the bot has the most
+        List<Card> faceUpCards = gameState().cardState().faceUpCards();
+        int bestSlot = Constants.DECK_SLOT;
+        int bestCount = 0;
+        for (int slot : Constants.FACE_UP_CARD_SLOTS) {
+            Card card = faceUpCards.get(slot);
+            int count = (card == Card.LOCOMOTIVE) ? Integer.MAX_VALUE : ownState().cardBag().countOf(card);
+            if (count > bestCount) {
+                bestSlot = slot;
+                bestCount = count;
+            }
+        }
+        return bestSlot;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return options.get(0);
+    }
+}
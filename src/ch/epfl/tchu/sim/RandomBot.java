@@ -0,0 +1,60 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.List;
+
+/**
+ * Bot taking random legal decisions: it claims a random route whenever it can, else draws random cards,
+ * and sometimes draws tickets.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class RandomBot extends BotPlayer {
+    //Probability to draw tickets instead of cards
+    private static final double TICKETS_PROBABILITY = 0.05;
+
+    /**
+     * Create a random bot.
+     *
+     * @param seed the seed of its random decisions
+     */
+    public RandomBot(long seed) {
+        super(seed);
+    }
+
+    @Override
+    protected SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount) {
+        int count = minCount + rng().nextInt(options.size() - minCount + 1);
+        return SortedBag.of(options.toList().subList(0, count));
+    }
+
+    @Override
+    protected Route chosenRoute(List<Route> claimableRoutes) {
+        return claimableRoutes.isEmpty() ? null : claimableRoutes.get(rng().nextInt(claimableRoutes.size()));
+    }
+
+    @Override
+    protected SortedBag<Card> chosenClaimCards(List<SortedBag<Card>> options) {
+        return options.get(rng().nextInt(options.size()));
+    }
+
+    @Override
+    protected boolean wantsTickets() {
+        return rng().nextDouble() < TICKETS_PROBABILITY;
+    }
+
+    @Override
+    public int drawSlot() {
+        return rng().nextInt(Constants.FACE_UP_CARDS_COUNT + 1) - 1;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        //Give up the route once in a while
+        int choice = rng().nextInt(options.size() + 1);
+        return (choice == options.size()) ? SortedBag.of() : options.get(choice);
+    }
+}
@@ -0,0 +1,135 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Headless simulation of many games between two strategies, played in parallel on a pool of threads.
+ * The games don't generate any info text, and each game only depends on the seed of the simulation
+ * and on its number, so the statistics don't depend on the amount of threads.
+ * Usage: Simulation [games] [threads] [strategy1] [strategy2] [seed]
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class Simulation {
+    //The amount of games played by a task of the pool
+    private static final int GAMES_PER_TASK = 256;
+    //The tickets and the names of the players, the same for all games
+    private static final SortedBag<Ticket> TICKETS = SortedBag.of(ChMap.tickets());
+    private static final Map<PlayerId, String> PLAYER_NAMES = Map.of(
+            PlayerId.PLAYER_1, "Bot 1",
+            PlayerId.PLAYER_2, "Bot 2");
+
+    private final Strategy strategy1;
+    private final Strategy strategy2;
+    private final long seed;
+
+    /**
+     * Create a simulation.
+     *
+     * @param strategy1 the strategy of the first player
+     * @param strategy2 the strategy of the second player
+     * @param seed      the seed of the simulation
+     */
+    public Simulation(Strategy strategy1, Strategy strategy2, long seed) {
+        this.strategy1 = strategy1;
+        this.strategy2 = strategy2;
+        this.seed = seed;
+    }
+
+    /**
+     * Play the given game of the simulation.
+     *
+     * @param game the number of the game
+     * @return the result of the game (GameResult)
+     * @throws TurnLimitException if the game didn't end after {@link BotPlayer#TURN_LIMIT} turns of a bot
+     */
+    public GameResult play(long game) {
+        long gameSeed = mix(seed + game);
+        Map<PlayerId, Player> players = Map.of(
+                PlayerId.PLAYER_1, strategy1.newPlayer(mix(gameSeed + 1)),
+                PlayerId.PLAYER_2, strategy2.newPlayer(mix(gameSeed + 2)));
+        GameSession session = new GameSession(players, PLAYER_NAMES, TICKETS, new Random(gameSeed), false);
+        session.play();
+        return session.result();
+    }
+
+    /**
+     * Play the given amount of games on the given amount of threads.
+     *
+     * @param games   the amount of games
+     * @param threads the amount of threads
+     * @return the statistics of the games (SimulationStats)
+     * @throws IllegalArgumentException if <code>games</code> is negative or <code>threads</code> isn't positive
+     * @throws IllegalStateException    if a game failed otherwise than by reaching the limit of turns
+     * @throws InterruptedException     if the current thread is interrupted while waiting for the games
+     */
+    public SimulationStats run(long games, int threads) throws InterruptedException {
+        //Check correctness of the arguments
+        Preconditions.checkArgument(games >= 0 && threads > 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SimulationStats>> tasks = new ArrayList<>();
+            for (long first = 0; first < games; first += GAMES_PER_TASK) {
+                long from = first;
+                long to = Math.min(games, first + GAMES_PER_TASK);
+                tasks.add(executor.submit(() -> playAll(from, to)));
+            }
+
+            SimulationStats stats = new SimulationStats();
+            for (Future<SimulationStats> task : tasks)
+                stats.merge(task.get());
+            return stats;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //Play the games numbered from (included) to (excluded), the games reaching the limit of turns are aborted
+    private SimulationStats playAll(long from, long to) {
+        SimulationStats stats = new SimulationStats();
+        for (long game = from; game < to; ++game) {
+            try {
+                stats.add(play(game));
+            } catch (TurnLimitException e) {
+                stats.addAborted();
+            }
+        }
+        return stats;
+    }
+
+    //Spread the bits of a seed (finalizer of SplitMix64), so that close seeds give unrelated games
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long games = (args.length > 0) ? Long.parseLong(args[0]) : 100_000;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String name1 = (args.length > 2) ? args[2] : "greedy";
+        String name2 = (args.length > 3) ? args[3] : "random";
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : 2021;
+
+        Simulation simulation = new Simulation(Strategy.of(name1), Strategy.of(name2), seed);
+        long start = System.nanoTime();
+        SimulationStats stats = simulation.run(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%s (PLAYER_1) vs %s (PLAYER_2), seed %d, %d threads%n", name1, name2, seed, threads);
+        System.out.printf("%d games in %.1f s: %.0f games/s%n", games, seconds, games / seconds);
+        System.out.print(stats);
+    }
+}
@@ -0,0 +1,234 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.game.GameResult;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Statistics of simulated games: wins, draws and distribution of the points of each player.
+ * Each thread of a simulation fills its own statistics, they are merged at the end.
+ * It is not thread safe.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class SimulationStats {
+    /**
+     * The width of the buckets of the histograms of the points.
+     */
+    public static final int BUCKET_WIDTH = 10;
+    //The points of the first and last buckets, the points outside of them are counted in these buckets
+    private static final int MIN_BUCKET_POINTS = -100;
+    private static final int MAX_BUCKET_POINTS = 290;
+    private static final int BUCKET_COUNT = (MAX_BUCKET_POINTS - MIN_BUCKET_POINTS) / BUCKET_WIDTH + 1;
+
+    //The amount of played games, of draws and of games stopped by the turn limit
+    private long games;
+    private long draws;
+    private long abortedGames;
+    //The sum of the amount of turns of the games
+    private long turns;
+    //The statistics of each player
+    private final Map<PlayerId, PlayerStats> playerStats = new EnumMap<>(PlayerId.class);
+
+    /**
+     * Create empty statistics.
+     */
+    public SimulationStats() {
+        for (PlayerId id : PlayerId.ALL)
+            playerStats.put(id, new PlayerStats());
+    }
+
+    /**
+     * Add the result of a game.
+     *
+     * @param result the result of the game
+     */
+    public void add(GameResult result) {
+        ++games;
+        turns += result.turnCount();
+        PlayerId winner = result.winner();
+        if (winner == null)
+            ++draws;
+        for (PlayerId id : PlayerId.ALL)
+            playerStats.get(id).add(result.points(id), id == winner);
+    }
+
+    /**
+     * Count a game stopped because it didn't end after {@link BotPlayer#TURN_LIMIT} turns.
+     */
+    public void addAborted() {
+        ++abortedGames;
+    }
+
+    /**
+     * Add the statistics of other games.
+     *
+     * @param that the other statistics
+     */
+    public void merge(SimulationStats that) {
+        games += that.games;
+        draws += that.draws;
+        abortedGames += that.abortedGames;
+        turns += that.turns;
+        for (PlayerId id : PlayerId.ALL)
+            playerStats.get(id).merge(that.playerStats.get(id));
+    }
+
+    /**
+     * @return the amount of finished games (long)
+     */
+    public long games() {
+        return games;
+    }
+
+    /**
+     * @return the amount of finished games that ended in a draw (long)
+     */
+    public long draws() {
+        return draws;
+    }
+
+    /**
+     * @return the amount of games stopped by the turn limit (long)
+     */
+    public long abortedGames() {
+        return abortedGames;
+    }
+
+    /**
+     * @return the mean amount of turns of a game (double)
+     */
+    public double meanTurns() {
+        return (double) turns / games;
+    }
+
+    /**
+     * The amount of games won by the given player.
+     *
+     * @param id the player
+     * @return the amount of wins (long)
+     */
+    public long wins(PlayerId id) {
+        return playerStats.get(id).wins;
+    }
+
+    /**
+     * The proportion of the finished games won by the given player.
+     *
+     * @param id the player
+     * @return the win rate, between 0 and 1 (double)
+     */
+    public double winRate(PlayerId id) {
+        return (double) wins(id) / games;
+    }
+
+    /**
+     * @param id the player
+     * @return the mean points of the player (double)
+     */
+    public double meanPoints(PlayerId id) {
+        return (double) playerStats.get(id).pointsSum / games;
+    }
+
+    /**
+     * @param id the player
+     * @return the standard deviation of the points of the player (double)
+     */
+    public double pointsStandardDeviation(PlayerId id) {
+        double mean = meanPoints(id);
+        return Math.sqrt(Math.max(0, (double) playerStats.get(id).squaredPointsSum / games - mean * mean));
+    }
+
+    /**
+     * @param id the player
+     * @return the minimal points of the player (int)
+     */
+    public int minPoints(PlayerId id) {
+        return playerStats.get(id).minPoints;
+    }
+
+    /**
+     * @param id the player
+     * @return the maximal points of the player (int)
+     */
+    public int maxPoints(PlayerId id) {
+        return playerStats.get(id).maxPoints;
+    }
+
+    /**
+     * The histogram of the points of the given player: bucket i counts the games where the player got
+     * between i * BUCKET_WIDTH + minHistogramPoints() and the next bucket, the first and last buckets
+     * also count the points outside of the histogram.
+     *
+     * @param id the player
+     * @return a copy of the histogram (long[])
+     */
+    public long[] pointsHistogram(PlayerId id) {
+        return playerStats.get(id).histogram.clone();
+    }
+
+    /**
+     * @return the points of the first bucket of the histograms (int)
+     */
+    public static int minHistogramPoints() {
+        return MIN_BUCKET_POINTS;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("games %d (draws %.2f%%, aborted %d), mean turns %.1f%n",
+                games, 100.0 * draws / games, abortedGames, meanTurns()));
+        for (PlayerId id : PlayerId.ALL) {
+            text.append(String.format("%s: wins %.2f%%, points mean %.1f sd %.1f min %d max %d%n",
+                    id, 100 * winRate(id), meanPoints(id), pointsStandardDeviation(id), minPoints(id), maxPoints(id)));
+        }
+        text.append(String.format("%10s", "points"));
+        for (PlayerId id : PlayerId.ALL)
+            text.append(String.format("%12s", id));
+        text.append(System.lineSeparator());
+        for (int b = 0; b < BUCKET_COUNT; ++b) {
+            if (playerStats.get(PlayerId.PLAYER_1).histogram[b] + playerStats.get(PlayerId.PLAYER_2).histogram[b] == 0)
+                continue;
+            text.append(String.format("%10d", MIN_BUCKET_POINTS + b * BUCKET_WIDTH));
+            for (PlayerId id : PlayerId.ALL)
+                text.append(String.format("%12d", playerStats.get(id).histogram[b]));
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    //The statistics of one player
+    private static final class PlayerStats {
+        private long wins;
+        private long pointsSum;
+        private long squaredPointsSum;
+        private int minPoints = Integer.MAX_VALUE;
+        private int maxPoints = Integer.MIN_VALUE;
+        private final long[] histogram = new long[BUCKET_COUNT];
+
+        private void add(int points, boolean won) {
+            if (won)
+                ++wins;
+            pointsSum += points;
+            squaredPointsSum += (long) points * points;
+            minPoints = Math.min(minPoints, points);
+            maxPoints = Math.max(maxPoints, points);
+            int bucket = Math.floorDiv(points - MIN_BUCKET_POINTS, BUCKET_WIDTH);
+            ++histogram[Math.max(0, Math.min(BUCKET_COUNT - 1, bucket))];
+        }
+
+        private void merge(PlayerStats that) {
+            wins += that.wins;
+            pointsSum += that.pointsSum;
+            squaredPointsSum += that.squaredPointsSum;
+            minPoints = Math.min(minPoints, that.minPoints);
+            maxPoints = Math.max(maxPoints, that.maxPoints);
+            for (int b = 0; b < BUCKET_COUNT; ++b)
+                histogram[b] += that.histogram[b];
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.ai.MctsPlayer;
+import ch.epfl.tchu.game.Player;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Strategy of a simulated player: creates a new player for each simulated game.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+@FunctionalInterface
+public interface Strategy {
+    /**
+     * The time and the random games given to each decision of the "mcts" strategy:
+     * one thread, as the simulation already plays a game per core.
+     */
+    long MCTS_BUDGET_MILLIS = 50;
+    int MCTS_ITERATIONS = 2_000;
+
+    /**
+     * The strategies known by name, to choose them from the command line.
+     */
+    Map<String, Strategy> ALL = Map.of(
+            "random", RandomBot::new,
+            "greedy", GreedyBot::new,
+            "mcts", seed -> new MctsPlayer(1, MCTS_BUDGET_MILLIS, MCTS_ITERATIONS, seed));
+
+    /**
+     * Create a new player for a game.
+     *
+     * @param seed the seed of the random decisions of the player
+     * @return the player (Player)
+     */
+    Player newPlayer(long seed);
+
+    /**
+     * Gives the strategy of the given name.
+     *
+     * @param name the name of the strategy
+     * @return the strategy (Strategy)
+     * @throws IllegalArgumentException if no strategy has this name
+     */
+    static Strategy of(String name) {
+        Strategy strategy = ALL.get(Objects.requireNonNull(name));
+        if (strategy == null)
+            throw new IllegalArgumentException("Unknown strategy " + name + ", expected one of " + ALL.keySet());
+        return strategy;
+    }
+}
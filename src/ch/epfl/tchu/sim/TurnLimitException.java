@@ -0,0 +1,20 @@
+package ch.epfl.tchu.sim;
+
+/**
+ * Exception thrown by a bot that played more than {@link BotPlayer#TURN_LIMIT} turns in a game,
+ * to stop a game that would never end. The simulations count such a game as aborted.
+ * It is public and final.
+ *
+ * @author Selien Wicki (314357)
+ * @author Theo Vasarino (313191)
+ */
+public final class TurnLimitException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Create the exception of a bot that reached the limit of turns.
+     */
+    public TurnLimitException() {
+        super("The bot played more than " + BotPlayer.TURN_LIMIT + " turns");
+    }
+}
@@ -0,0 +1,62 @@
+package ch.epfl.tchu;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedBagTest {
+    //The sub-multisets of the given size, by the recursive definition
+    private static Set<SortedBag<Integer>> recursiveSubsets(SortedBag<Integer> bag, int size) {
+        if (size == 0)
+            return Set.of(SortedBag.of());
+        var result = new HashSet<SortedBag<Integer>>();
+        for (var e : bag.toSet()) {
+            var s = SortedBag.of(e);
+            recursiveSubsets(bag.difference(s), size - 1).forEach(subset -> result.add(s.union(subset)));
+        }
+        return result;
+    }
+
+    @Test
+    void subsetsOfSizeGivesEachSubsetOnce() {
+        var bags = List.of(
+                SortedBag.<Integer>of(),
+                SortedBag.of(1, 1, 2, 2),
+                SortedBag.of(List.of(1, 2, 3, 4, 5)),
+                SortedBag.of(List.of(1, 1, 1, 2, 3, 3, 4, 4, 4, 4)),
+                SortedBag.of(List.of(7, 7, 7, 7, 7)));
+        for (var bag : bags) {
+            for (var size = 0; size <= bag.size(); ++size) {
+                var subsets = bag.subsetsOfSizeStream(size).collect(Collectors.toList());
+                assertEquals(recursiveSubsets(bag, size), Set.copyOf(subsets));
+                assertEquals(subsets.size(), Set.copyOf(subsets).size());
+                assertEquals(recursiveSubsets(bag, size), bag.subsetsOfSize(size));
+            }
+        }
+    }
+
+    @Test
+    void subsetsOfSizeIteratorStartsWithTheSmallestElements() {
+        var iterator = SortedBag.of(List.of(1, 2, 2, 3)).subsetsOfSizeIterator(2);
+        assertEquals(SortedBag.of(1, 1, 1, 2), iterator.next());
+        assertEquals(SortedBag.of(1, 1, 1, 3), iterator.next());
+        assertEquals(SortedBag.of(2, 2), iterator.next());
+        assertEquals(SortedBag.of(1, 2, 1, 3), iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void subsetsOfSizeFailsWithWrongSize() {
+        var bag = SortedBag.of(2, "a");
+        assertThrows(IllegalArgumentException.class, () -> bag.subsetsOfSizeIterator(-1));
+        assertThrows(IllegalArgumentException.class, () -> bag.subsetsOfSizeIterator(3));
+        assertThrows(IllegalArgumentException.class, () -> bag.subsetsOfSize(3));
+    }
+}
@@ -0,0 +1,63 @@
+package ch.epfl.tchu.ai;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.GreedyBot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MctsPlayerTest {
+    private static final Map<PlayerId, String> PLAYER_NAMES = Map.of(
+            PlayerId.PLAYER_1, "Mcts",
+            PlayerId.PLAYER_2, "Greedy");
+
+    private static GameResult play(int threads, long seed) {
+        try (MctsPlayer mcts = new MctsPlayer(threads, 10_000, 100, seed)) {
+            GameSession session = new GameSession(Map.of(PlayerId.PLAYER_1, mcts, PlayerId.PLAYER_2, new GreedyBot(seed)),
+                    PLAYER_NAMES, SortedBag.of(ChMap.tickets()), new Random(seed), false);
+            session.play();
+            assertTrue(mcts.iterations() > 0);
+            return session.result();
+        }
+    }
+
+    @Test
+    void mctsPlayerPlaysWholeGames() {
+        for (var seed = 0; seed < 3; ++seed) {
+            var result = play(1, seed);
+            assertTrue(result.turnCount() > 0);
+        }
+        assertTrue(play(2, 2021).turnCount() > 0);
+    }
+
+    @Test
+    void mctsPlayerFailsWithWrongArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MctsPlayer(0, 100, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MctsPlayer(1, 0, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MctsPlayer(1, 100, 0, 0));
+    }
+
+    @Test
+    void movesClaimCardsArePossibleClaimCards() {
+        var rng = new Random(2021);
+        for (var game = 0; game < 20; ++game) {
+            var state = MutableGameState.of(GameState.initial(SortedBag.of(ChMap.tickets()), rng));
+            var buffer = new int[Moves.MAX_MOVES];
+            for (var turn = 0; turn < 60; ++turn) {
+                var playerState = state.playerState(state.currentPlayerId());
+                for (var route : Moves.ROUTES) {
+                    if (state.canClaimRoute(route)) {
+                        var cards = Moves.claimCards(state, route).toSortedBag();
+                        assertTrue(playerState.possibleClaimCards(route).contains(cards));
+                    }
+                }
+                if (Moves.playTurn(state, Moves.rolloutMove(state, buffer, rng), rng))
+                    break;
+            }
+        }
+    }
+}
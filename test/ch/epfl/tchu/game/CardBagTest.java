@@ -0,0 +1,73 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardBagTest {
+    private static SortedBag<Card> randomBag(Random rng, int maxCount) {
+        SortedBag.Builder<Card> builder = new SortedBag.Builder<>();
+        for (Card c : Card.ALL)
+            builder.add(rng.nextInt(maxCount + 1), c);
+        return builder.build();
+    }
+
+    @Test
+    void cardBagConvertsFromAndToSortedBag() {
+        Random rng = new Random(2021);
+        for (int i = 0; i < 1_000; ++i) {
+            SortedBag<Card> bag = randomBag(rng, 14);
+            CardBag cardBag = CardBag.of(bag);
+            assertEquals(bag, cardBag.toSortedBag());
+            assertEquals(bag.size(), cardBag.size());
+            assertEquals(bag.isEmpty(), cardBag.isEmpty());
+            for (Card c : Card.ALL) {
+                assertEquals(bag.countOf(c), cardBag.countOf(c));
+                assertEquals(bag.contains(c), cardBag.contains(c));
+            }
+            assertEquals(cardBag, CardBag.ofPacked(cardBag.packed()));
+        }
+    }
+
+    @Test
+    void cardBagOperationsMatchSortedBag() {
+        Random rng = new Random(2022);
+        for (int i = 0; i < 1_000; ++i) {
+            SortedBag<Card> a = randomBag(rng, 6);
+            SortedBag<Card> b = randomBag(rng, 3);
+            CardBag packedA = CardBag.of(a);
+            CardBag packedB = CardBag.of(b);
+
+            assertEquals(a.union(b), packedA.union(packedB).toSortedBag());
+            assertEquals(a.difference(b), packedA.difference(packedB).toSortedBag());
+            assertEquals(b.difference(a), packedB.difference(packedA).toSortedBag());
+            assertEquals(a.contains(b), packedA.contains(packedB));
+            assertEquals(b.contains(a), packedB.contains(packedA));
+        }
+    }
+
+    @Test
+    void cardBagWithAddsOneCard() {
+        CardBag bag = CardBag.EMPTY;
+        for (int i = 0; i < 5; ++i)
+            bag = bag.with(Card.LOCOMOTIVE).with(Card.BLACK);
+        assertEquals(SortedBag.of(5, Card.BLACK, 5, Card.LOCOMOTIVE), bag.toSortedBag());
+        assertTrue(bag.contains(CardBag.of(5, Card.LOCOMOTIVE)));
+        assertFalse(bag.contains(CardBag.of(6, Card.LOCOMOTIVE)));
+        assertTrue(bag.contains(CardBag.EMPTY));
+    }
+
+    @Test
+    void cardBagFailsOnOverflow() {
+        CardBag full = CardBag.of(CardBag.MAX_COUNT, Card.WHITE);
+        assertThrows(IllegalArgumentException.class, () -> full.with(Card.WHITE));
+        assertThrows(IllegalArgumentException.class, () -> full.union(CardBag.of(Card.WHITE)));
+        assertThrows(IllegalArgumentException.class, () -> CardBag.of(CardBag.MAX_COUNT + 1, Card.RED));
+        assertThrows(IllegalArgumentException.class, () -> CardBag.of(-1, Card.RED));
+        assertThrows(IllegalArgumentException.class, () -> CardBag.ofPacked(-1L));
+        assertEquals(full.with(Card.RED), full.union(CardBag.of(Card.RED)));
+    }
+}
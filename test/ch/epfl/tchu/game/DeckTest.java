@@ -120,6 +120,21 @@ class DeckTest {
         assertEquals(cards, actualCardsBuilder.build());
     }
 
+    @Test
+    void deckWithoutTopCardsLeavesOriginalDeckUnchanged() {
+        var cards = SortedBag.of(listOfSize(50));
+        var deck = Deck.of(cards, TestRandomizer.newRandom());
+        var deckList = deckToList(deck);
+
+        var smallerDeck = deck.withoutTopCards(10);
+        var smallerDeckList = deckToList(smallerDeck);
+        assertEquals(deckList.subList(10, 50), smallerDeckList);
+        assertEquals(deckList.subList(10, 50), deckToList(smallerDeck.withoutTopCards(0)));
+        assertEquals(deckList, deckToList(deck));
+        assertEquals(50, deck.size());
+        assertEquals(40, smallerDeck.size());
+    }
+
     private static <E extends Comparable<E>> List<E> deckToList(Deck<E> deck) {
         var list = new ArrayList<E>(deck.size());
         while (!deck.isEmpty()) {
@@ -83,15 +83,6 @@ public class GameTest {
             playerInfo = new Info(ownName);
         }
 
-        /**
-         * get the lastChat that the player send.
-         *
-         * @return the chat. (String)
-         */
-        @Override public String lastChat() {
-            return null;
-        }
-
         /**
          * used to inform the player he receive a new chat.
          *
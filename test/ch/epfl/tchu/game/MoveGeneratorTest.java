@@ -0,0 +1,118 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+    //The moves of the current player, from the methods of GameState and PlayerState
+    private static List<String> expectedMoves(GameState state) {
+        var moves = new ArrayList<String>();
+        if (state.canDrawTickets())
+            moves.add("tickets");
+        if (state.canDrawCards()) {
+            for (var slot = Constants.DECK_SLOT; slot < Constants.FACE_UP_CARDS_COUNT; ++slot)
+                moves.add("slot " + slot);
+        }
+        var claimed = new ArrayList<Route>();
+        for (var id : PlayerId.ALL)
+            claimed.addAll(state.playerState(id).routes());
+        var player = state.currentPlayerState();
+        for (var route : ChMap.routes()) {
+            var blocked = false;
+            for (var r : claimed)
+                blocked |= r.stations().equals(route.stations());
+            if (!blocked && player.canClaimRoute(route)) {
+                for (var cards : player.possibleClaimCards(route))
+                    moves.add(route.id() + " " + cards);
+            }
+        }
+        return moves;
+    }
+
+    private static List<String> decodedMoves(int[] moves, int count) {
+        var decoded = new ArrayList<String>();
+        for (var i = 0; i < count; ++i) {
+            var move = moves[i];
+            switch (MoveGenerator.kind(move)) {
+                case MoveGenerator.DRAW_TICKETS:
+                    decoded.add("tickets");
+                    break;
+                case MoveGenerator.DRAW_CARD:
+                    decoded.add("slot " + MoveGenerator.slot(move));
+                    break;
+                default:
+                    decoded.add(MoveGenerator.route(move).id() + " " + MoveGenerator.claimCards(move));
+            }
+        }
+        return decoded;
+    }
+
+    @Test
+    void moveGeneratorGivesTheLegalMoves() {
+        var generator = new MoveGenerator();
+        var moves = new int[MoveGenerator.MAX_MOVES];
+        var rng = new Random(2021);
+        for (var game = 0; game < 10; ++game) {
+            var state = GameState.initial(SortedBag.of(ChMap.tickets()), rng);
+            for (var turn = 0; turn < 200 && state.currentPlayerState().carCount() > 2; ++turn) {
+                var expected = expectedMoves(state);
+                assertEquals(expected, decodedMoves(moves, generator.generate(state, moves)));
+                assertEquals(expected, decodedMoves(moves, generator.generate(MutableGameState.of(state), moves)));
+
+                //Claim a route if possible, else draw cards
+                var count = generator.generate(state, moves);
+                var move = moves[rng.nextInt(count)];
+                if (MoveGenerator.kind(move) == MoveGenerator.CLAIM_ROUTE) {
+                    state = state.withClaimedRoute(MoveGenerator.route(move), MoveGenerator.claimCards(move));
+                } else if (state.canDrawCards()) {
+                    state = state.withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard()
+                            .withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard();
+                }
+                state = state.forNextTurn();
+            }
+        }
+    }
+
+    @Test
+    void moveGeneratorClaimableRoutesAreTheRoutesOfTheClaimMoves() {
+        var generator = new MoveGenerator();
+        var moves = new int[MoveGenerator.MAX_MOVES];
+        var routes = new int[ChMap.routes().size()];
+        var state = MutableGameState.of(GameState.initial(SortedBag.of(ChMap.tickets()), new Random(1)));
+        var rng = new Random(1);
+        for (var turn = 0; turn < 100 && state.canDrawCards(); ++turn) {
+            var expected = new ArrayList<Integer>();
+            var count = generator.generate(state, moves);
+            for (var i = 0; i < count; ++i) {
+                if (MoveGenerator.kind(moves[i]) == MoveGenerator.CLAIM_ROUTE
+                        && !expected.contains(MoveGenerator.routeIndex(moves[i])))
+                    expected.add(MoveGenerator.routeIndex(moves[i]));
+            }
+            var actual = new ArrayList<Integer>();
+            var routeCount = MoveGenerator.claimableRoutes(state, routes);
+            for (var i = 0; i < routeCount; ++i)
+                actual.add(routes[i]);
+            assertEquals(expected, actual);
+
+            state.recreateDeckIfNeeded(rng);
+            state.drawBlindCard();
+            state.nextTurn();
+        }
+    }
+
+    @Test
+    void moveGeneratorDecodersFailOnOtherKinds() {
+        var moves = new int[MoveGenerator.MAX_MOVES];
+        new MoveGenerator().generate(GameState.initial(SortedBag.of(ChMap.tickets()), new Random(1)), moves);
+        var ticketsMove = moves[0];
+        assertEquals(MoveGenerator.DRAW_TICKETS, MoveGenerator.kind(ticketsMove));
+        assertThrows(IllegalArgumentException.class, () -> MoveGenerator.slot(ticketsMove));
+        assertThrows(IllegalArgumentException.class, () -> MoveGenerator.route(ticketsMove));
+    }
+}
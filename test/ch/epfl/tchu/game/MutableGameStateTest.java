@@ -0,0 +1,156 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutableGameStateTest {
+    private static void assertSameState(GameState expected, MutableGameState actual) {
+        var converted = actual.toGameState();
+        assertEquals(expected.currentPlayerId(), actual.currentPlayerId());
+        assertEquals(expected.lastPlayer(), actual.lastPlayer());
+        assertEquals(expected.ticketDeck().toList(), converted.ticketDeck().toList());
+        assertEquals(expected.cardState().faceUpCards(), converted.cardState().faceUpCards());
+        assertEquals(expected.privateCardState().deck().toList(), converted.privateCardState().deck().toList());
+        assertEquals(expected.privateCardState().discard(), converted.privateCardState().discard());
+        assertEquals(expected.canDrawCards(), actual.canDrawCards());
+        for (var id : PlayerId.ALL) {
+            var expectedPlayer = expected.playerState(id);
+            var actualPlayer = converted.playerState(id);
+            assertEquals(expectedPlayer.tickets(), actualPlayer.tickets());
+            assertEquals(expectedPlayer.cardBag(), actualPlayer.cardBag());
+            assertEquals(expectedPlayer.cardBag(), actual.cards(id));
+            assertEquals(expectedPlayer.routes(), actualPlayer.routes());
+            assertEquals(expectedPlayer.carCount(), actual.carCount(id));
+            assertEquals(expectedPlayer.finalPoints(), actualPlayer.finalPoints());
+        }
+    }
+
+    //Apply a random legal move on both states, the same one
+    private static GameState playRandomMove(GameState state, MutableGameState mutable, Random rng, long shuffleSeed) {
+        var player = state.currentPlayerState();
+        var claimable = new ArrayList<Route>();
+        for (var route : ChMap.routes()) {
+            if (mutable.canClaimRoute(route))
+                claimable.add(route);
+        }
+        if (!claimable.isEmpty() && rng.nextBoolean()) {
+            var route = claimable.get(rng.nextInt(claimable.size()));
+            assertTrue(player.canClaimRoute(route));
+            var options = player.possibleClaimCards(route);
+            var cards = options.get(rng.nextInt(options.size()));
+            mutable.claimRoute(route, cards);
+            return state.withClaimedRoute(route, cards);
+        }
+        if (state.canDrawTickets() && rng.nextInt(10) == 0) {
+            var drawn = state.topTickets(Math.min(Constants.IN_GAME_TICKETS_COUNT, state.ticketsCount()));
+            var chosen = SortedBag.of(drawn.get(0));
+            assertEquals(drawn, mutable.topTickets(drawn.size()));
+            mutable.chooseAdditionalTickets(drawn, chosen);
+            return state.withChosenAdditionalTickets(drawn, chosen);
+        }
+        if (state.canDrawCards()) {
+            state = state.withCardsDeckRecreatedIfNeeded(new Random(shuffleSeed));
+            mutable.recreateDeckIfNeeded(new Random(shuffleSeed));
+            var slot = rng.nextInt(Constants.FACE_UP_CARDS_COUNT + 1) - 1;
+            if (slot == Constants.DECK_SLOT) {
+                mutable.drawBlindCard();
+                return state.withBlindlyDrawnCard();
+            }
+            mutable.drawFaceUpCard(slot);
+            return state.withDrawnFaceUpCard(slot);
+        }
+        mutable.nextTurn();
+        return state.forNextTurn();
+    }
+
+    @Test
+    void mutableGameStateMovesMatchGameState() {
+        for (var seed = 0; seed < 20; ++seed) {
+            var rng = new Random(seed);
+            var state = GameState.initial(SortedBag.of(ChMap.tickets()), rng);
+            for (var id : PlayerId.ALL) {
+                var chosen = state.topTickets(Constants.INITIAL_TICKETS_COUNT - Constants.DISCARDABLE_TICKETS_COUNT);
+                state = state.withInitiallyChosenTickets(id, chosen).withoutTopTickets(chosen.size());
+            }
+            var mutable = MutableGameState.of(state);
+            assertSameState(state, mutable);
+
+            var history = new ArrayList<GameState>(List.of(state));
+            for (var i = 0; i < 2_000 && (state.lastPlayer() == null || state.currentPlayerId() != state.lastPlayer()); ++i) {
+                state = playRandomMove(state, mutable, rng, rng.nextLong());
+                if (rng.nextBoolean()) {
+                    mutable.nextTurn();
+                    state = state.forNextTurn();
+                }
+                history.add(state);
+                assertSameState(state, mutable);
+            }
+
+            //Undo everything, back to the initial state
+            mutable.undoTo(0);
+            assertSameState(history.get(0), mutable);
+            assertThrows(IllegalStateException.class, mutable::undo);
+        }
+    }
+
+    @Test
+    void mutableGameStateUndoRestoresEachState() {
+        var rng = new Random(2021);
+        var state = GameState.initial(SortedBag.of(ChMap.tickets()), rng);
+        var mutable = MutableGameState.of(state);
+        var states = new ArrayList<GameState>();
+        var moveCounts = new ArrayList<Integer>();
+        for (var i = 0; i < 200; ++i) {
+            states.add(state);
+            moveCounts.add(mutable.moveCount());
+            state = playRandomMove(state, mutable, rng, rng.nextLong());
+            mutable.nextTurn();
+            state = state.forNextTurn();
+        }
+        for (var i = states.size() - 1; i >= 0; --i) {
+            mutable.undoTo(moveCounts.get(i));
+            assertSameState(states.get(i), mutable);
+        }
+    }
+
+    @Test
+    void mutableGameStateCanClaimRouteChecksTheOtherRoute() {
+        var state = GameState.initial(SortedBag.of(ChMap.tickets()), new Random(1));
+        var mutable = MutableGameState.of(state);
+        var routes = ChMap.routes();
+        Route route = null, twin = null;
+        for (var r1 : routes) {
+            for (var r2 : routes) {
+                if (r1 != r2 && r1.stations().equals(r2.stations()) && r1.level() == Route.Level.OVERGROUND) {
+                    route = r1;
+                    twin = r2;
+                }
+            }
+        }
+        assertNotNull(route);
+
+        var current = mutable.currentPlayerId();
+        mutable.claimRoute(twin, SortedBag.of());
+        assertEquals(current, mutable.routeOwner(twin));
+        assertFalse(mutable.canClaimRoute(route));
+        mutable.undo();
+        assertNull(mutable.routeOwner(twin));
+    }
+
+    @Test
+    void mutableGameStateInitialMatchesGameState() {
+        var tickets = SortedBag.of(ChMap.tickets());
+        for (long seed = 0; seed < 20; ++seed) {
+            var rng = new Random(seed);
+            var mutableRng = new Random(seed);
+            assertSameState(GameState.initial(tickets, rng), MutableGameState.initial(tickets, mutableRng));
+            assertEquals(rng.nextLong(), mutableRng.nextLong());
+        }
+    }
+}
@@ -366,6 +366,17 @@ class PlayerStateTest {
         }
     }
 
+    @Test
+    void playerStatePossibleAdditionalCardsCountsTheLocomotivesOnce() {
+        var playerState = new PlayerState(SortedBag.of(),
+                SortedBag.of(1, Card.ORANGE, 1, Card.WHITE).union(SortedBag.of(2, Card.LOCOMOTIVE)), List.of());
+        var initialCards = SortedBag.of(1, Card.ORANGE, 1, Card.LOCOMOTIVE);
+        var drawnCards = SortedBag.of(1, Card.BLACK, 1, Card.ORANGE).union(SortedBag.of(Card.LOCOMOTIVE));
+        assertEquals(List.of(), playerState.possibleAdditionalCards(2, initialCards, drawnCards));
+        assertEquals(List.of(SortedBag.of(Card.LOCOMOTIVE)),
+                playerState.possibleAdditionalCards(1, initialCards, drawnCards));
+    }
+
     @Test
     void playerStateWithClaimedRouteWorks() {
         var chMap = new ChMap();
@@ -427,6 +438,26 @@ class PlayerStateTest {
         assertEquals(14 - 7, s5.ticketPoints());
     }
 
+    @Test
+    void playerStateTicketPointsIsUpdatedByClaimedRoutes() {
+        var chMap = new ChMap();
+
+        var routes = List.of(
+                chMap.FR2_GEN_1, chMap.GEN_LAU_1, chMap.LAU_MAR_1,
+                chMap.MAR_SIO_1, chMap.BRI_SIO_1, chMap.BRI_IT5_1, chMap.LAU_NEU_1,
+                chMap.FRI_LAU_1, chMap.BER_FRI_1, chMap.BER_LUC_1, chMap.LUC_ZOU_1,
+                chMap.ZOU_ZUR_1, chMap.STG_ZUR_1, chMap.DE5_STG_1, chMap.STG_VAD_1);
+        var tickets = SortedBag.of(1, chMap.GEN_ZUR, 1, chMap.INT_WIN);
+
+        var playerState = new PlayerState(tickets, SortedBag.of(), List.of());
+        for (Route r : routes) {
+            playerState = playerState.withClaimedRoute(r, SortedBag.of());
+            var rebuilt = new PlayerState(tickets, SortedBag.of(), playerState.routes());
+            assertEquals(rebuilt.ticketPoints(), playerState.ticketPoints());
+        }
+        assertEquals(14 - 7, playerState.withAddedCard(Card.RED).ticketPoints());
+    }
+
     @Test
     void playerStateTicketPointsWorksOnKnownExample2() {
         var chMap = new ChMap();
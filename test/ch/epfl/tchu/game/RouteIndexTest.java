@@ -0,0 +1,70 @@
+package ch.epfl.tchu.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteIndexTest {
+    @Test
+    void routeIndexIndexesTheRoutesOfChMap() {
+        assertEquals(ChMap.routes().size(), RouteIndex.count());
+        for (var i = 0; i < ChMap.routes().size(); ++i) {
+            assertEquals(i, RouteIndex.indexOf(ChMap.routes().get(i)));
+            assertSame(ChMap.routes().get(i), RouteIndex.route(i));
+        }
+        var other = new Route("X", ChMap.stations().get(0), ChMap.stations().get(1), 1, Route.Level.OVERGROUND, null);
+        assertThrows(IllegalArgumentException.class, () -> RouteIndex.indexOf(other));
+    }
+
+    @Test
+    void routeIndexNeighborIsTheOtherRouteBetweenTheSameStations() {
+        var doubleRoutes = 0;
+        for (var route : ChMap.routes()) {
+            Route expected = null;
+            for (var r : ChMap.routes()) {
+                if (r != route && r.stations().equals(route.stations()))
+                    expected = r;
+            }
+            assertSame(expected, RouteIndex.neighbor(route));
+            var index = RouteIndex.indexOf(route);
+            if (expected == null) {
+                assertEquals(RouteIndex.NO_ROUTE, RouteIndex.neighborIndex(index));
+            } else {
+                ++doubleRoutes;
+                assertEquals(index, RouteIndex.neighborIndex(RouteIndex.neighborIndex(index)));
+            }
+        }
+        assertTrue(doubleRoutes > 0);
+    }
+
+    @Test
+    void routeIndexRoutesOfStationsAndColors() {
+        for (var station : ChMap.stations()) {
+            var expected = new ArrayList<Route>();
+            for (var route : ChMap.routes()) {
+                if (route.stations().contains(station))
+                    expected.add(route);
+            }
+            assertEquals(expected, RouteIndex.routesOf(station));
+        }
+
+        var all = new HashSet<Route>();
+        var colors = new ArrayList<Color>(Color.ALL);
+        colors.add(null);
+        for (var color : colors) {
+            for (var level : Route.Level.values()) {
+                for (var route : RouteIndex.routesOf(color, level)) {
+                    assertEquals(color, route.color());
+                    assertEquals(level, route.level());
+                    assertTrue(all.add(route));
+                }
+            }
+        }
+        assertEquals(new HashSet<>(ChMap.routes()), all);
+        assertThrows(UnsupportedOperationException.class,
+                () -> RouteIndex.routesOf(ChMap.stations().get(0)).add(ChMap.routes().get(0)));
+    }
+}
@@ -305,6 +305,7 @@ class RouteTest {
                         drawnB.add(3 - m, nonMatchingCard);
                         var drawn = drawnB.build();
                         assertEquals(m, r.additionalClaimCardsCount(claimCards, drawn));
+                        assertEquals(m, r.additionalClaimCardsCount(CardBag.of(claimCards), CardBag.of(drawn)));
                     }
                 }
             }
@@ -333,6 +334,7 @@ class RouteTest {
                         drawnB.add(3 - m, nonMatchingCard);
                         var drawn = drawnB.build();
                         assertEquals(locomotives, r.additionalClaimCardsCount(claimCards, drawn));
+                        assertEquals(locomotives, r.additionalClaimCardsCount(CardBag.of(claimCards), CardBag.of(drawn)));
                     }
                 }
             }
@@ -364,6 +366,7 @@ class RouteTest {
                             drawnB.add(3 - m, nonMatchingCard);
                             var drawn = drawnB.build();
                             assertEquals(m, r.additionalClaimCardsCount(claimCards, drawn));
+                            assertEquals(m, r.additionalClaimCardsCount(CardBag.of(claimCards), CardBag.of(drawn)));
                         }
                     }
                 }
@@ -383,4 +386,33 @@ class RouteTest {
             assertEquals(expectedClaimPoints.get(l), r.claimPoints());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void routePossibleClaimCardsIsSharedAndImmutable() {
+        for (Route r : ChMap.routes()) {
+            assertSame(r.possibleClaimCards(), r.possibleClaimCards());
+            assertThrows(UnsupportedOperationException.class, () -> r.possibleClaimCards().clear());
+            assertEquals(r.possibleClaimCards().size(), r.possibleClaimCardBags().size());
+            for (int i = 0; i < r.possibleClaimCards().size(); ++i)
+                assertEquals(CardBag.of(r.possibleClaimCards().get(i)), r.possibleClaimCardBags().get(i));
+        }
+    }
+
+    @Test
+    void routeCanBeClaimedWithMatchesPossibleClaimCards() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            var builder = new SortedBag.Builder<Card>();
+            for (Card c : Card.ALL)
+                builder.add(rng.nextInt(5), c);
+            var cards = builder.build();
+            var cardBag = CardBag.of(cards);
+            for (Route r : ChMap.routes()) {
+                var expected = false;
+                for (SortedBag<Card> claimCards : r.possibleClaimCards())
+                    expected |= cards.contains(claimCards);
+                assertEquals(expected, r.canBeClaimedWith(cardBag));
+            }
+        }
+    }
+}
@@ -154,6 +154,53 @@ class StationPartitionTest {
         }
     }
 
+    @Test
+    void stationPartitionWithConnectedMatchesBuilder() {
+        var rng = TestRandomizer.newRandom();
+        var stations = new ArrayList<Station>();
+        for (int i = 0; i < 60; ++i)
+            stations.add(new Station(i, "S" + i));
+
+        for (int i = 0; i < 100; ++i) {
+            var builder = new StationPartition.Builder(0);
+            var partition = builder.build();
+            var connectionCount = rng.nextInt(40);
+            var connections = new ArrayList<Station>();
+            for (int c = 0; c < connectionCount; ++c) {
+                var s1 = stations.get(rng.nextInt(stations.size()));
+                var s2 = stations.get(rng.nextInt(stations.size()));
+                connections.add(s1);
+                connections.add(s2);
+                partition = partition.withConnected(s1, s2);
+            }
+            var fullBuilder = new StationPartition.Builder(stations.size());
+            for (int c = 0; c < connections.size(); c += 2)
+                fullBuilder.connect(connections.get(c), connections.get(c + 1));
+            var expected = fullBuilder.build();
+
+            for (var s1 : stations) {
+                for (var s2 : stations)
+                    assertEquals(expected.connected(s1, s2), partition.connected(s1, s2));
+            }
+        }
+    }
+
+    @Test
+    void stationPartitionBuilderWorksOnLongLines() {
+        var stations = new ArrayList<Station>();
+        for (int i = 0; i < 100_000; ++i)
+            stations.add(new Station(i, "S" + i));
+        var builder = new StationPartition.Builder(stations.size());
+        for (int i = 0; i + 1 < stations.size(); i += 2)
+            builder.connect(stations.get(i), stations.get(i + 1));
+        for (int i = 1; i + 1 < stations.size(); i += 2)
+            builder.connect(stations.get(i), stations.get(i + 1));
+        var partition = builder.build();
+
+        assertTrue(partition.connected(stations.get(0), stations.get(stations.size() - 1)));
+        assertTrue(partition.connected(stations.get(stations.size() / 2), stations.get(7)));
+    }
+
     private static List<Station> reducedChStations() {
         return List.of(
                 new Station(0, "Berne"),
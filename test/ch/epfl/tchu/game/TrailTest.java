@@ -1,7 +1,10 @@
 package ch.epfl.tchu.game;
 
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -480,4 +483,44 @@ class TrailTest {
         final Route ZOU_ZUR_1 = new Route("ZOU_ZUR_1", ZOU, ZUR, 1, Route.Level.OVERGROUND, Color.GREEN);
         final Route ZOU_ZUR_2 = new Route("ZOU_ZUR_2", ZOU, ZUR, 1, Route.Level.OVERGROUND, Color.RED);
     }
+
+    @Test
+    void trailLongestMatchesExhaustiveSearchOnRandomMaps() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < 200; ++i) {
+            var stationCount = 2 + rng.nextInt(6);
+            var routeCount = 1 + rng.nextInt(10);
+            var stations = new ArrayList<Station>();
+            for (int s = 0; s < stationCount; ++s)
+                stations.add(new Station(s, "S" + s));
+            var routes = new ArrayList<Route>();
+            while (routes.size() < routeCount) {
+                var s1 = stations.get(rng.nextInt(stations.size()));
+                var s2 = stations.get(rng.nextInt(stations.size()));
+                if (s1 != s2)
+                    routes.add(new Route("R" + routes.size(), s1, s2, 1 + rng.nextInt(6), Route.Level.OVERGROUND, null));
+            }
+
+            var longest = Trail.longest(routes);
+            var expected = 0;
+            for (Station s : stations)
+                expected = Math.max(expected, exhaustiveLongest(routes, s, new HashSet<>()));
+            assertEquals(expected, longest.length());
+            if (expected > 0)
+                assertTrue(longest.toString().startsWith(longest.station1().name() + " - "));
+        }
+    }
+
+    //Longest trail length from the station by trying all the trails, taking one route per pair of stations
+    private static int exhaustiveLongest(List<Route> routes, Station station, Set<Set<Station>> usedPairs) {
+        var longest = 0;
+        for (Route r : routes) {
+            var pair = Set.copyOf(r.stations());
+            if (pair.contains(station) && usedPairs.add(pair)) {
+                longest = Math.max(longest, r.length() + exhaustiveLongest(routes, r.stationOpposite(station), usedPairs));
+                usedPairs.remove(pair);
+            }
+        }
+        return longest;
+    }
 }
@@ -0,0 +1,70 @@
+package ch.epfl.tchu.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionChannelTest {
+    //The prompts given to the JavaFX thread, run by hand
+    private final List<Runnable> prompts = new ArrayList<>();
+    private final DecisionChannel channel = new DecisionChannel(prompts::add);
+
+    private void runPrompts() {
+        var toRun = new ArrayList<>(prompts);
+        prompts.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    @Test
+    void decisionChannelCompletesEachDecisionOnce() {
+        var callbacks = new ArrayList<Consumer<String>>();
+        CompletableFuture<String> decision = channel.<String>ask(callbacks::add);
+        assertFalse(decision.isDone());
+        assertTrue(callbacks.isEmpty());
+
+        //the prompt is shown on the JavaFX thread, the player decides later
+        runPrompts();
+        assertEquals(1, callbacks.size());
+        assertFalse(decision.isDone());
+        callbacks.get(0).accept("first");
+        callbacks.get(0).accept("second");
+        assertEquals("first", decision.join());
+        assertEquals(1, channel.decisions());
+    }
+
+    @Test
+    void decisionChannelParksTheGameThreadUntilThePlayerDecides() throws Exception {
+        var fxPrompts = new LinkedBlockingQueue<Runnable>();
+        var fxChannel = new DecisionChannel(fxPrompts::add);
+        var game = CompletableFuture.supplyAsync(() -> fxChannel.<Integer>decide(slot -> slot.accept(3)));
+
+        //the game thread waits until the prompt is run (there is no JavaFX thread in the test)
+        var prompt = fxPrompts.poll(10, TimeUnit.SECONDS);
+        assertNotNull(prompt);
+        assertFalse(game.isDone());
+        prompt.run();
+        assertEquals(3, game.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void decisionChannelMeasuresTheLatencyOfTheDecisions() throws Exception {
+        var callbacks = new ArrayList<Consumer<String>>();
+        assertEquals(0, channel.averageLatencyMillis());
+        for (var i = 0; i < 2; ++i) {
+            channel.<String>ask(callbacks::add);
+            runPrompts();
+        }
+        Thread.sleep(20);
+        callbacks.forEach(callback -> callback.accept("decided"));
+        assertEquals(2, channel.decisions());
+        assertTrue(channel.averageLatencyMillis() >= 20);
+        assertTrue(channel.maxLatencyMillis() >= channel.averageLatencyMillis());
+    }
+}
@@ -0,0 +1,78 @@
+package ch.epfl.tchu.gui;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.GameState;
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxDispatcherTest {
+    //The pulses given to the JavaFX thread, run by hand, and what they showed
+    private final List<Runnable> pulses = new ArrayList<>();
+    private final List<String> shown = new ArrayList<>();
+    private final FxDispatcher dispatcher = new FxDispatcher(pulses::add,
+            (gameState, playerState) -> shown.add("state " + gameState.ticketsCount()),
+            info -> shown.add("info " + info));
+
+    private static GameState stateWithTickets(int ticketsCount) {
+        var tickets = SortedBag.of(ChMap.tickets().subList(0, ticketsCount));
+        return GameState.initial(tickets, new Random(ticketsCount));
+    }
+
+    private void runPulses() {
+        var toRun = new ArrayList<>(pulses);
+        pulses.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    @Test
+    void fxDispatcherShowsOnlyTheLatestState() {
+        for (var count = 1; count <= 3; ++count) {
+            var state = stateWithTickets(count);
+            dispatcher.postState(state, state.playerState(PlayerId.PLAYER_1));
+        }
+        assertEquals(1, pulses.size());
+        assertEquals(1, dispatcher.queueDepth());
+        runPulses();
+        assertEquals(List.of("state 3"), shown);
+        assertEquals(2, dispatcher.droppedStates());
+        assertEquals(0, dispatcher.queueDepth());
+        assertEquals(1, dispatcher.pulses());
+    }
+
+    @Test
+    void fxDispatcherBatchesInfosAndKeepsTheOrderOfTasks() {
+        dispatcher.post(() -> shown.add("request 1"));
+        dispatcher.postInfo("a");
+        dispatcher.postInfo("b");
+        var state = stateWithTickets(5);
+        dispatcher.postState(state, state.playerState(PlayerId.PLAYER_1));
+        dispatcher.post(() -> shown.add("request 2"));
+        dispatcher.postInfo("c");
+        assertEquals(1, pulses.size());
+        assertEquals(4, dispatcher.maxQueueDepth());
+        runPulses();
+        assertEquals(List.of("request 1", "info a", "info b", "info c", "state 5", "request 2"), shown);
+
+        //A new pulse once the previous one ran
+        dispatcher.postInfo("d");
+        assertEquals(1, pulses.size());
+        runPulses();
+        assertEquals("info d", shown.get(shown.size() - 1));
+        assertEquals(2, dispatcher.pulses());
+        assertEquals(0, dispatcher.droppedStates());
+    }
+
+    @Test
+    void fxDispatcherRunsTheTasksPostedDuringAPulse() {
+        dispatcher.post(() -> dispatcher.post(() -> shown.add("posted by a task")));
+        runPulses();
+        assertEquals(List.of("posted by a task"), shown);
+    }
+}
@@ -23,7 +23,7 @@ public class Stage10Test extends Application {
     public void start(Stage primaryStage) {
         Map<PlayerId, String> playerNames =
                 Map.of(PLAYER_1, "Ada", PLAYER_2, "Charles");
-        GraphicalPlayer p = new GraphicalPlayer(PLAYER_1, playerNames);
+        GraphicalPlayer p = new GraphicalPlayer(PLAYER_1, playerNames, chat -> {});
         setState(p);
 
         ActionHandler.DrawTicketsHandler drawTicketsH =
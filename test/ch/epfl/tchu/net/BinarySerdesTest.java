@@ -0,0 +1,141 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySerdesTest {
+    //Encode then decode the given value
+    private static <E> E roundTrip(BinarySerde<E> serde, E value) {
+        BinaryReader reader = new BinaryReader(new BinaryWriter().write(serde, value).toByteArray());
+        E result = reader.read(serde);
+        assertEquals(0, reader.remaining());
+        return result;
+    }
+
+    @Test
+    void integerSerdeRoundTrips() {
+        for (int i : new int[]{0, 1, -1, Constants.DECK_SLOT, 2021, -2021, Integer.MAX_VALUE, Integer.MIN_VALUE})
+            assertEquals(i, roundTrip(BinarySerdes.INTEGER_SERDE, i));
+    }
+
+    @Test
+    void integerSerdeEncodesDeckSlotOnOneByte() {
+        assertEquals(1, new BinaryWriter().write(BinarySerdes.INTEGER_SERDE, Constants.DECK_SLOT).size());
+    }
+
+    @Test
+    void stringSerdeRoundTrips() {
+        for (String s : List.of("", "Charles", "Théo à Zürich"))
+            assertEquals(s, roundTrip(BinarySerdes.STRING_SERDE, s));
+    }
+
+    @Test
+    void oneOfSerdesRoundTripAndAcceptNull() {
+        for (Card c : Card.ALL)
+            assertEquals(c, roundTrip(BinarySerdes.CARD_SERDE, c));
+        for (Route r : ChMap.routes())
+            assertEquals(r, roundTrip(BinarySerdes.ROUTE_SERDE, r));
+        assertNull(roundTrip(BinarySerdes.PLAYER_ID_SERDE, null));
+    }
+
+    @Test
+    void oneOfSerdeFailsOnUnknownElement() {
+        BinarySerde<String> serde = BinarySerde.oneOf(List.of("a", "b"));
+        assertThrows(IllegalArgumentException.class, () -> new BinaryWriter().write(serde, "c"));
+        assertThrows(IllegalArgumentException.class, () -> BinarySerde.oneOf(List.of()));
+    }
+
+    @Test
+    void sortedBagCardSerdeRoundTrips() {
+        SortedBag<Card> cards = SortedBag.of(3, Card.RED, 2, Card.LOCOMOTIVE).union(SortedBag.of(Card.BLACK));
+        assertEquals(cards, roundTrip(BinarySerdes.SORTED_BAG_CARD_SERDE, cards));
+        assertEquals(SortedBag.of(), roundTrip(BinarySerdes.SORTED_BAG_CARD_SERDE, SortedBag.<Card>of()));
+    }
+
+    @Test
+    void sortedBagTicketsSerdeRoundTrips() {
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets().subList(0, 5));
+        assertEquals(tickets, roundTrip(BinarySerdes.SORTED_BAG_TICKETS_SERDE, tickets));
+    }
+
+    @Test
+    void listSortedBagCardSerdeRoundTrips() {
+        List<SortedBag<Card>> options = List.of(SortedBag.of(Card.BLUE), SortedBag.of(2, Card.LOCOMOTIVE), SortedBag.of());
+        assertEquals(options, roundTrip(BinarySerdes.LIST_SORTED_BAG_CARD_SERDE, options));
+    }
+
+    @Test
+    void publicCardStateSerdeRoundTrips() {
+        List<Card> faceUp = List.of(Card.LOCOMOTIVE, Card.BLACK, Card.WHITE, Card.LOCOMOTIVE, Card.ORANGE);
+        PublicCardState cardState = roundTrip(BinarySerdes.PUBLIC_CARD_STATE_SERDE, new PublicCardState(faceUp, 31, 12));
+        assertEquals(faceUp, cardState.faceUpCards());
+        assertEquals(31, cardState.deckSize());
+        assertEquals(12, cardState.discardsSize());
+    }
+
+    @Test
+    void playerStateSerdeRoundTripsWithRoutesInMapOrder() {
+        List<Route> routes = List.of(ChMap.routes().get(40), ChMap.routes().get(3), ChMap.routes().get(ChMap.routes().size() - 1));
+        PlayerState state = new PlayerState(SortedBag.of(ChMap.tickets().subList(2, 4)), SortedBag.of(4, Card.GREEN), routes);
+        PlayerState result = roundTrip(BinarySerdes.PLAYER_STATE_SERDE, state);
+
+        assertEquals(state.tickets(), result.tickets());
+        assertEquals(state.cards(), result.cards());
+        assertEquals(List.of(routes.get(1), routes.get(0), routes.get(2)), result.routes());
+    }
+
+    @Test
+    void publicGameStateSerdeRoundTrips() {
+        List<Card> faceUp = List.of(Card.RED, Card.WHITE, Card.BLUE, Card.BLACK, Card.RED);
+        PublicCardState cardState = new PublicCardState(faceUp, 30, 31);
+        Map<PlayerId, PublicPlayerState> playerStates = new EnumMap<>(PlayerId.class);
+        playerStates.put(PlayerId.PLAYER_1, new PublicPlayerState(10, 11, ChMap.routes().subList(0, 2)));
+        playerStates.put(PlayerId.PLAYER_2, new PublicPlayerState(20, 21, ChMap.routes().subList(5, 8)));
+
+        for (PlayerId last : Arrays.asList(null, PlayerId.PLAYER_1)) {
+            PublicGameState state = new PublicGameState(40, cardState, PlayerId.PLAYER_2, playerStates, last);
+            PublicGameState result = roundTrip(BinarySerdes.PUBLIC_GAME_STATE_SERDE, state);
+
+            assertEquals(40, result.ticketsCount());
+            assertEquals(faceUp, result.cardState().faceUpCards());
+            assertEquals(30, result.cardState().deckSize());
+            assertEquals(31, result.cardState().discardsSize());
+            assertEquals(PlayerId.PLAYER_2, result.currentPlayerId());
+            assertEquals(last, result.lastPlayer());
+            for (PlayerId id : PlayerId.ALL) {
+                assertEquals(playerStates.get(id).ticketCount(), result.playerState(id).ticketCount());
+                assertEquals(playerStates.get(id).cardCount(), result.playerState(id).cardCount());
+                assertEquals(playerStates.get(id).routes(), result.playerState(id).routes());
+            }
+        }
+    }
+
+    @Test
+    void framesAreReadBackFromAStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryWriter writer = new BinaryWriter();
+        writer.write(BinarySerdes.STRING_SERDE, "x".repeat(300)).writeFrameTo(out);
+        writer.reset().write(BinarySerdes.INTEGER_SERDE, -1).writeFrameTo(out);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals("x".repeat(300), BinaryReader.readFrameFrom(in).read(BinarySerdes.STRING_SERDE));
+        assertEquals(-1, BinaryReader.readFrameFrom(in).read(BinarySerdes.INTEGER_SERDE));
+        assertThrows(EOFException.class, () -> BinaryReader.readFrameFrom(in));
+    }
+
+    @Test
+    void readerFailsOnTruncatedInput() {
+        byte[] bytes = new BinaryWriter().write(BinarySerdes.STRING_SERDE, "Charles").toByteArray();
+        BinaryReader reader = new BinaryReader(Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class, () -> reader.read(BinarySerdes.STRING_SERDE));
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatRoomTest {
+    //A participant only able to chat
+    private static class ChatPlayer implements Player {
+        private final List<String> received = new ArrayList<>();
+        private Consumer<String> chatSender;
+
+        @Override public void connectChat(Consumer<String> chatSender) { this.chatSender = chatSender; }
+        @Override public void receiveChat(String chat) { received.add(chat); }
+        @Override public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) { throw new UnsupportedOperationException(); }
+        @Override public void receiveInfo(String info) { throw new UnsupportedOperationException(); }
+        @Override public void updateState(PublicGameState newState, PlayerState ownState) { throw new UnsupportedOperationException(); }
+        @Override public void setInitialTicketChoice(SortedBag<Ticket> tickets) { throw new UnsupportedOperationException(); }
+        @Override public SortedBag<Ticket> chooseInitialTickets() { throw new UnsupportedOperationException(); }
+        @Override public TurnKind nextTurn() { throw new UnsupportedOperationException(); }
+        @Override public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) { throw new UnsupportedOperationException(); }
+        @Override public int drawSlot() { throw new UnsupportedOperationException(); }
+        @Override public Route claimedRoute() { throw new UnsupportedOperationException(); }
+        @Override public SortedBag<Card> initialClaimCards() { throw new UnsupportedOperationException(); }
+        @Override public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) { throw new UnsupportedOperationException(); }
+        @Override public String receivePlayerName() { throw new UnsupportedOperationException(); }
+    }
+
+    @Test
+    void chatsAreRelayedToAllTheOtherParticipants() {
+        ChatRoom room = new ChatRoom(Runnable::run);
+        ChatPlayer ada = new ChatPlayer(), charles = new ChatPlayer(), spectator = new ChatPlayer();
+        room.join(ada);
+        room.join(charles);
+        room.join(spectator);
+        assertEquals(3, room.participantCount());
+
+        ada.chatSender.accept("salut");
+        charles.chatSender.accept("hello");
+        spectator.chatSender.accept("bonne partie");
+
+        assertEquals(List.of("hello", "bonne partie"), ada.received);
+        assertEquals(List.of("salut", "bonne partie"), charles.received);
+        assertEquals(List.of("salut", "hello"), spectator.received);
+    }
+
+    @Test
+    void participantLeavingOrFailingStopsReceiving() {
+        ChatRoom room = new ChatRoom(Runnable::run);
+        ChatPlayer ada = new ChatPlayer(), charles = new ChatPlayer();
+        ChatPlayer gone = new ChatPlayer() {
+            @Override public void receiveChat(String chat) { throw new UncheckedIOException(new EOFException()); }
+        };
+        room.join(ada);
+        room.join(charles);
+        room.join(gone);
+
+        ada.chatSender.accept("un");
+        assertEquals(2, room.participantCount());
+        room.leave(charles);
+        ada.chatSender.accept("deux");
+
+        assertEquals(List.of("un"), charles.received);
+        assertEquals(1, room.participantCount());
+    }
+
+    @Test
+    void chatsOfARoomAreDeliveredInOrderByThePool() throws InterruptedException {
+        ChatRoom room = new ChatRoom();
+        ChatPlayer ada = new ChatPlayer();
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> received = new ArrayList<>();
+        ChatPlayer charles = new ChatPlayer() {
+            @Override public void receiveChat(String chat) {
+                received.add(chat);
+                if (received.size() == 1_000)
+                    done.countDown();
+            }
+        };
+        room.join(ada);
+        room.join(charles);
+
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 1_000; ++i) {
+            sent.add(Integer.toString(i));
+            room.publish(ada, Integer.toString(i));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(sent, received);
+    }
+}
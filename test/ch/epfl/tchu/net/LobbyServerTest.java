@@ -0,0 +1,135 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.sim.RandomBot;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LobbyServerTest {
+
+    //Wait until the condition holds, failing after a few seconds
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void lobbyPairsTheClientsAndPlaysTheirMatches() throws Exception {
+        try (LobbyServer lobby = new LobbyServer(0, 0)) {
+            List<Thread> clients = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                long seed = i;
+                WireFormat format = (i % 2 == 0) ? WireFormat.TEXT : WireFormat.BINARY_PIPELINED;
+                Thread client = new Thread(() -> {
+                    try {
+                        new RemotePlayerClient(new RandomBot(seed), "localhost", lobby.gamePort(), lobby.chatPort(),
+                                "Player" + seed, format).runGame();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                client.setDaemon(true);
+                client.start();
+                clients.add(client);
+            }
+
+            //the clients stop once their match is over
+            for (Thread client : clients) {
+                client.join(60_000);
+                assertFalse(client.isAlive());
+            }
+            awaitTrue(() -> lobby.completedGames() == 2);
+            assertEquals(2, lobby.matchesStarted());
+            assertEquals(0, lobby.queueLength());
+            assertEquals(0, lobby.activeGames());
+            assertEquals(0, lobby.failedGames());
+            assertTrue(lobby.maxWaitMillis() >= lobby.averageWaitMillis());
+        }
+    }
+
+    //Send the handshake of a client on its game socket
+    private static void sendHandshake(Socket game, String name, String chatId) throws IOException {
+        Writer w = new OutputStreamWriter(game.getOutputStream(), StandardCharsets.US_ASCII);
+        w.write(String.join(" ", WireFormat.HANDSHAKE, WireFormat.BINARY.name(),
+                Serdes.STRING_SERDE.serialize(name), WireFormat.NEW_SESSION, chatId) + "\n");
+        w.flush();
+    }
+
+    //Send the chat id of a client on its chat socket
+    private static void sendChatId(Socket chat, String chatId) throws IOException {
+        Writer w = new OutputStreamWriter(chat.getOutputStream(), StandardCharsets.US_ASCII);
+        w.write(String.join(" ", WireFormat.CHAT_HANDSHAKE, chatId) + "\n");
+        w.flush();
+    }
+
+    @Test
+    void lobbyKeepsALonePlayerWaitingAndForgetsHimWhenHeLeaves() throws Exception {
+        try (LobbyServer lobby = new LobbyServer(0, 0)) {
+            Socket game = new Socket(InetAddress.getLoopbackAddress(), lobby.gamePort());
+            Socket chat = new Socket(InetAddress.getLoopbackAddress(), lobby.chatPort());
+            sendHandshake(game, "Ada", "ada");
+            sendChatId(chat, "ada");
+            awaitTrue(() -> lobby.queueLength() == 1);
+            assertEquals(0, lobby.matchesStarted());
+            game.close();
+            chat.close();
+
+            //the next player doesn't play against the one who left
+            try (Socket game2 = new Socket(InetAddress.getLoopbackAddress(), lobby.gamePort());
+                 Socket chat2 = new Socket(InetAddress.getLoopbackAddress(), lobby.chatPort())) {
+                sendHandshake(game2, "Charles", "charles");
+                sendChatId(chat2, "charles");
+                BufferedReader r2 = new BufferedReader(new InputStreamReader(game2.getInputStream(), StandardCharsets.US_ASCII));
+                assertEquals(WireFormat.TEXT.name(), r2.readLine());
+                awaitTrue(() -> lobby.queueLength() == 1);
+                assertEquals(0, lobby.matchesStarted());
+            }
+        }
+    }
+
+    @Test
+    void lobbyPairsTheConnectionsOfTheSameAddressByTheirChatId() throws Exception {
+        try (LobbyServer lobby = new LobbyServer(0, 0);
+             Socket gameA = new Socket(InetAddress.getLoopbackAddress(), lobby.gamePort());
+             Socket chatB = new Socket(InetAddress.getLoopbackAddress(), lobby.chatPort());
+             Socket chatA = new Socket(InetAddress.getLoopbackAddress(), lobby.chatPort());
+             Socket gameB = new Socket(InetAddress.getLoopbackAddress(), lobby.gamePort())) {
+            //the first chat connection is not the one of the first game connection
+            sendHandshake(gameA, "Ada", "a");
+            sendChatId(chatB, "b");
+            BufferedReader rA = new BufferedReader(new InputStreamReader(gameA.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals(WireFormat.TEXT.name(), rA.readLine());
+            assertEquals(0, lobby.queueLength());
+
+            sendChatId(chatA, "a");
+            awaitTrue(() -> lobby.queueLength() == 1);
+            sendHandshake(gameB, "Charles", "b");
+            awaitTrue(() -> lobby.matchesStarted() == 1);
+            assertEquals(0, lobby.queueLength());
+        }
+    }
+
+    @Test
+    void lobbyDisconnectsAClientWithoutChatId() throws Exception {
+        try (LobbyServer lobby = new LobbyServer(0, 0);
+             Socket game = new Socket(InetAddress.getLoopbackAddress(), lobby.gamePort())) {
+            Writer w = new OutputStreamWriter(game.getOutputStream(), StandardCharsets.US_ASCII);
+            w.write(Serdes.STRING_SERDE.serialize("Ada") + "\n");
+            w.flush();
+            BufferedReader r = new BufferedReader(new InputStreamReader(game.getInputStream(), StandardCharsets.US_ASCII));
+            assertNull(r.readLine());
+            assertEquals(0, lobby.queueLength());
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageChannelTest {
+    //Period of the heartbeats in the tests, long enough for a loaded machine not to miss three of them
+    private static final long HEARTBEAT_MILLIS = 300;
+    //Silence much longer than the time allowed without message (three periods)
+    private static final long SILENCE_MILLIS = 3_000;
+
+    //Player of the client, recording the notifications it receives
+    private static final class RecordingPlayer implements Player {
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        @Override public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) { received.add("init " + ownId); }
+        @Override public void connectChat(Consumer<String> chatSender) {}
+        @Override public void receiveChat(String chat) {}
+        @Override public void receiveInfo(String info) { received.add(info); }
+        @Override public void updateState(PublicGameState newState, PlayerState ownState) { received.add("state"); }
+        @Override public void setInitialTicketChoice(SortedBag<Ticket> tickets) { received.add("tickets"); }
+        @Override public SortedBag<Ticket> chooseInitialTickets() { throw new UnsupportedOperationException(); }
+        @Override public TurnKind nextTurn() { return TurnKind.DRAW_CARDS; }
+        @Override public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) { return SortedBag.of(options.get(1)); }
+        @Override public int drawSlot() { return 3; }
+        @Override public Route claimedRoute() { throw new UnsupportedOperationException(); }
+        @Override public SortedBag<Card> initialClaimCards() { throw new UnsupportedOperationException(); }
+        @Override public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) { throw new UnsupportedOperationException(); }
+        @Override public String receivePlayerName() { throw new UnsupportedOperationException(); }
+    }
+
+    private static String poll(BlockingQueue<String> queue) throws InterruptedException {
+        String element = queue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(element);
+        return element;
+    }
+
+    //Play a few questions between a proxy and a client, counting the writes of the proxy
+    private static void assertNotificationsTravelWithTheQuestions(WireFormat format) throws Exception {
+        try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            RecordingPlayer player = new RecordingPlayer();
+            RemotePlayerClient[] client = new RemotePlayerClient[1];
+            Thread clientThread = new Thread(() -> {
+                try {
+                    client[0] = new RemotePlayerClient(player, "localhost", gameServer.getLocalPort(),
+                            chatServer.getLocalPort(), "Ada", format);
+                    client[0].runGame();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            clientThread.setDaemon(true);
+            clientThread.start();
+
+            try (Socket gameSocket = gameServer.accept(); Socket chatSocket = chatServer.accept()) {
+                RemotePlayerProxy proxy = new RemotePlayerProxy(gameSocket, chatSocket);
+                assertEquals("Ada", proxy.receivePlayerName());
+                long flushes = proxy.gameChannel().flushes();
+                long messages = proxy.gameChannel().messages();
+
+                proxy.initPlayers(PlayerId.PLAYER_2, Map.of(PlayerId.PLAYER_1, "Charles", PlayerId.PLAYER_2, "Ada"));
+                for (int i = 0; i < 3; ++i)
+                    proxy.receiveInfo("info " + i);
+                assertEquals(Player.TurnKind.DRAW_CARDS, proxy.nextTurn());
+                SortedBag<Ticket> options = SortedBag.of(ChMap.tickets().subList(0, 3));
+                assertEquals(SortedBag.of(options.get(1)), proxy.chooseTickets(options));
+                assertEquals(3, proxy.drawSlot());
+
+                //the notifications were sent with the first question (unless a slow machine let the linger expire)
+                long writes = proxy.gameChannel().flushes() - flushes;
+                assertEquals(7, proxy.gameChannel().messages() - messages);
+                assertTrue(3 <= writes && writes < 7);
+                assertEquals("init PLAYER_2", poll(player.received));
+                for (int i = 0; i < 3; ++i)
+                    assertEquals("info " + i, poll(player.received));
+            }
+            clientThread.join(5_000);
+            assertFalse(clientThread.isAlive());
+        }
+    }
+
+    @Test
+    void notificationsTravelWithTheNextQuestionInTheTextFormat() throws Exception {
+        assertNotificationsTravelWithTheQuestions(WireFormat.TEXT);
+    }
+
+    @Test
+    void notificationsTravelWithTheNextQuestionInThePipelinedFormat() throws Exception {
+        assertNotificationsTravelWithTheQuestions(WireFormat.BINARY_PIPELINED);
+    }
+
+    @Test
+    void notificationsWithoutQuestionAreSentAfterAShortTime() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            MessageChannel channel = new MessageChannel(accepted);
+            BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+
+            channel.post("RECEIVE_INFO a");
+            channel.post("RECEIVE_INFO b");
+            assertEquals("RECEIVE_INFO a", r.readLine());
+            assertEquals("RECEIVE_INFO b", r.readLine());
+            assertEquals(2, channel.messages());
+            //a single flush, unless a slow machine let the linger expire between the two notifications
+            assertTrue(1 <= channel.flushes() && channel.flushes() <= 2);
+        }
+    }
+
+    @Test
+    void peerNotReadingDoesntDelayTheFlushesOfTheOtherConnections() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+             Socket stuckClient = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket stuckAccepted = server.accept();
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            MessageChannel stuck = new MessageChannel(stuckAccepted);
+            MessageChannel channel = new MessageChannel(accepted);
+            stuck.keepAlive(HEARTBEAT_MILLIS, false);
+            channel.keepAlive(HEARTBEAT_MILLIS, false);
+
+            //the peer of stuckClient never reads: the writes on its connection end up blocked
+            AtomicLong filled = new AtomicLong();
+            Thread filler = new Thread(() -> {
+                try {
+                    while (stuckClient.isConnected()) {
+                        stuck.post("RECEIVE_INFO " + "x".repeat(1024));
+                        filled.incrementAndGet();
+                    }
+                } catch (UncheckedIOException e) {
+                    //the connection was closed at the end of the test
+                }
+            });
+            filler.setDaemon(true);
+            filler.start();
+            //wait until the socket is full: the filler no longer gets its notifications written
+            long posted;
+            do {
+                posted = filled.get();
+                Thread.sleep(HEARTBEAT_MILLIS);
+            } while (filled.get() != posted);
+
+            channel.post("RECEIVE_INFO a");
+            client.setSoTimeout(10_000);
+            BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+            String line;
+            do {
+                line = r.readLine();
+            } while (line.equals(MessageId.HEARTBEAT.name()));
+            assertEquals("RECEIVE_INFO a", line);
+            //and the heartbeats of the connection go on
+            assertEquals(MessageId.HEARTBEAT.name(), r.readLine());
+        }
+    }
+
+    @Test
+    void channelReadsLinesAndFramesOnTheSameConnection() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            MessageChannel channel = new MessageChannel(accepted);
+            OutputStream out = client.getOutputStream();
+            out.write("WIRE BINARY\r\n".getBytes(StandardCharsets.US_ASCII));
+            new BinaryWriter().writeVarInt(300).writeByte(7).writeFrameTo(out);
+            out.write("last".getBytes(StandardCharsets.US_ASCII));
+            client.shutdownOutput();
+
+            assertEquals("WIRE BINARY", channel.receiveLine());
+            BinaryReader frame = channel.receiveFrame();
+            assertEquals(300, frame.readVarInt());
+            assertEquals(7, frame.readByte());
+            assertEquals("last", channel.receiveLine());
+            assertNull(channel.receiveLine());
+        }
+    }
+
+    @Test
+    void heartbeatsKeepAnIdleConnectionAliveAndAreSkipped() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            MessageChannel clientChannel = new MessageChannel(client);
+            MessageChannel serverChannel = new MessageChannel(accepted);
+            clientChannel.keepAlive(HEARTBEAT_MILLIS, true);
+            serverChannel.keepAlive(HEARTBEAT_MILLIS, true);
+
+            //the silence lasts much longer than the time allowed without message, but the heartbeats fill it
+            Thread sender = new Thread(() -> {
+                try {
+                    Thread.sleep(SILENCE_MILLIS);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                clientChannel.send(new BinaryWriter().writeByte(42));
+            });
+            sender.start();
+            BinaryReader frame = serverChannel.receiveFrame();
+            assertEquals(42, frame.readByte());
+            assertEquals(1, clientChannel.messages());
+            sender.join();
+        }
+    }
+
+    @Test
+    void silentPeerOfAConnectionKeptAliveIsConsideredGone() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            MessageChannel channel = new MessageChannel(accepted);
+            channel.keepAlive(HEARTBEAT_MILLIS, false);
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, channel::receiveLine);
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+            //the peer received the heartbeats of the channel
+            BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals(MessageId.HEARTBEAT.name(), r.readLine());
+        }
+    }
+
+    @Test
+    void receptionFailsOnceItsDeadlineHasPassed() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            MessageChannel channel = new MessageChannel(accepted);
+            //the peer starts a frame of 5 bytes but never sends them
+            OutputStream out = client.getOutputStream();
+            out.write(5);
+            out.flush();
+            long start = System.nanoTime();
+            assertThrows(UncheckedIOException.class,
+                    () -> channel.receiveFrame(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100)));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        }
+    }
+
+    @Test
+    void proxyFailsOnAnAnswerToAnotherQuestion() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(accepted, null);
+            MessageChannel clientChannel = new MessageChannel(client);
+            clientChannel.send(String.join(" ", WireFormat.HANDSHAKE, WireFormat.BINARY_PIPELINED.name(),
+                    Serdes.STRING_SERDE.serialize("Ada")));
+            assertEquals("Ada", proxy.receivePlayerName());
+            assertEquals(WireFormat.BINARY_PIPELINED.name(), clientChannel.receiveLine());
+
+            Thread answerer = new Thread(() -> {
+                BinaryReader question = clientChannel.receiveFrame();
+                assertEquals(MessageId.NEXT_TURN.ordinal(), question.readByte());
+                clientChannel.send(new BinaryWriter()
+                        .writeVarInt(question.readVarInt() + 1)
+                        .write(BinarySerdes.TURN_KIND_SERDE, Player.TurnKind.DRAW_CARDS));
+            });
+            answerer.start();
+            assertThrows(UncheckedIOException.class, proxy::nextTurn);
+            answerer.join();
+        }
+    }
+
+    @Test
+    void proxyIgnoresTheMalformedChats() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+             Socket gameClient = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket gameAccepted = server.accept();
+             Socket chatClient = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket chatAccepted = server.accept()) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(gameAccepted, chatAccepted);
+            new MessageChannel(gameClient).send(Serdes.STRING_SERDE.serialize("Ada"));
+            assertEquals("Ada", proxy.receivePlayerName());
+            BlockingQueue<String> chats = new LinkedBlockingQueue<>();
+            proxy.connectChat(chats::add);
+
+            Writer w = new OutputStreamWriter(chatClient.getOutputStream(), StandardCharsets.US_ASCII);
+            w.write(MessageId.SEND_CHAT.name() + "\n");
+            w.write(MessageId.SEND_CHAT.name() + " !not base64!\n");
+            w.write(String.join(" ", MessageId.SEND_CHAT.name(), Serdes.STRING_SERDE.serialize("hello")) + "\n");
+            w.flush();
+            assertEquals("hello", poll(chats));
+        }
+    }
+
+    @Test
+    void proxyWithoutChatConnectionIgnoresTheChats() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(accepted, null);
+            proxy.connectChat(chat -> fail());
+            proxy.receiveChat("hello");
+            proxy.receiveInfo("info");
+            BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+            assertEquals(String.join(" ", MessageId.RECEIVE_INFO.name(), Serdes.STRING_SERDE.serialize("info")), r.readLine());
+        }
+    }
+}
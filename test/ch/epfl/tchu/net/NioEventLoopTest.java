@@ -0,0 +1,160 @@
+package ch.epfl.tchu.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioEventLoopTest {
+
+    @Test
+    void connectionExchangesLinesInBothDirections() throws IOException {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                SocketChannel accepted = server.accept();
+                NioEventLoop.Connection connection = loop.register(accepted);
+
+                BufferedWriter w = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII));
+                BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+
+                w.write("first\nsecond\n");
+                w.flush();
+                assertEquals("first", connection.receive());
+                assertEquals("second", connection.receive());
+
+                connection.send("NEXT_TURN");
+                connection.send("");
+                assertEquals("NEXT_TURN", r.readLine());
+                assertEquals("", r.readLine());
+            }
+        }
+    }
+
+    @Test
+    void connectionSendsLinesLongerThanItsBuffers() throws IOException {
+        String longLine = "a".repeat(100_000);
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                NioEventLoop.Connection connection = loop.register(server.accept());
+                BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                BufferedWriter w = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII));
+
+                for (int i = 0; i < 3; ++i)
+                    connection.send(longLine);
+                for (int i = 0; i < 3; ++i)
+                    assertEquals(longLine, r.readLine());
+
+                w.write(longLine + "\n");
+                w.flush();
+                assertEquals(longLine, connection.receive());
+            }
+        }
+    }
+
+    @Test
+    void connectionReceiveFailsOnceThePeerIsGone() throws IOException {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+            NioEventLoop.Connection connection = loop.register(server.accept());
+            client.close();
+
+            assertThrows(UncheckedIOException.class, connection::receive);
+            assertThrows(UncheckedIOException.class, connection::receive);
+            assertFalse(connection.isOpen());
+        }
+    }
+
+    @Test
+    void listenerReceivesPendingAndNewLines() throws Exception {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                NioEventLoop.Connection connection = loop.register(server.accept());
+                BufferedWriter w = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII));
+
+                w.write("first\n");
+                w.flush();
+                assertEquals("first", connection.receive());
+                w.write("second\n");
+                w.flush();
+
+                BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+                connection.onReceive(lines::add);
+                w.write("third\n");
+                w.flush();
+                assertEquals("second", lines.poll(5, TimeUnit.SECONDS));
+                assertEquals("third", lines.poll(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    void connectionIsClosedWhenThePeerSendsATooLongLine() throws IOException {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                NioEventLoop.Connection connection = loop.register(server.accept());
+                OutputStream out = client.getOutputStream();
+                byte[] chunk = "a".repeat(64 * 1024).getBytes(StandardCharsets.US_ASCII);
+                try {
+                    for (int i = 0; i < 4; ++i)
+                        out.write(chunk);
+                } catch (IOException e) {
+                    //the connection was closed by the loop
+                }
+
+                assertThrows(UncheckedIOException.class, connection::receive);
+                assertFalse(connection.isOpen());
+            }
+        }
+    }
+
+    @Test
+    void failingListenerClosesItsConnectionOnly() throws Exception {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try (Socket failingClient = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+                 Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                NioEventLoop.Connection failing = loop.register(server.accept());
+                NioEventLoop.Connection connection = loop.register(server.accept());
+                failing.onReceive(line -> {
+                    throw new IllegalArgumentException(line);
+                });
+                BufferedWriter failingWriter = new BufferedWriter(
+                        new OutputStreamWriter(failingClient.getOutputStream(), StandardCharsets.US_ASCII));
+                failingWriter.write("boom\n");
+                failingWriter.flush();
+                BufferedReader failingReader = new BufferedReader(
+                        new InputStreamReader(failingClient.getInputStream(), StandardCharsets.US_ASCII));
+                assertNull(failingReader.readLine());
+                assertFalse(failing.isOpen());
+
+                //the loop goes on with the other connection
+                BufferedWriter w = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII));
+                w.write("still here\n");
+                w.flush();
+                assertEquals("still here", connection.receive());
+                assertTrue(connection.isOpen());
+            }
+        }
+    }
+}
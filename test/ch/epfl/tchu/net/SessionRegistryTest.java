@@ -0,0 +1,173 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+    private static final Map<PlayerId, String> NAMES = Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+
+    //Connect a client (game socket first, then chat socket) and accept it in the registry
+    private static Optional<RemotePlayerProxy> connect(SessionRegistry registry, ServerSocket gameServer, ServerSocket chatServer,
+                                                       Socket[] clientSockets, String firstLine) throws Exception {
+        clientSockets[0] = new Socket(InetAddress.getLoopbackAddress(), gameServer.getLocalPort());
+        clientSockets[1] = new Socket(InetAddress.getLoopbackAddress(), chatServer.getLocalPort());
+        new MessageChannel(clientSockets[0]).send(firstLine);
+        return registry.accept(gameServer.accept(), chatServer.accept());
+    }
+
+    private static String handshake(String session) {
+        return String.join(" ", WireFormat.HANDSHAKE, WireFormat.BINARY_PIPELINED.name(),
+                Serdes.STRING_SERDE.serialize("Charles"), session);
+    }
+
+    @Test
+    void clientComingBackResumesItsSession() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket[] sockets = new Socket[2];
+            RemotePlayerProxy proxy = connect(registry, gameServer, chatServer, sockets, handshake(WireFormat.NEW_SESSION)).orElseThrow();
+            MessageChannel client = new MessageChannel(sockets[0]);
+            assertEquals("Charles", proxy.receivePlayerName());
+            String token = proxy.sessionToken();
+            assertNotNull(token);
+            assertEquals(1, registry.sessionCount());
+            assertEquals(WireFormat.BINARY_PIPELINED.name() + " " + token, client.receiveLine());
+
+            GameState state = GameState.initial(SortedBag.of(ChMap.tickets()), new Random(1));
+            proxy.initPlayers(PlayerId.PLAYER_2, NAMES);
+            proxy.updateState(state, state.playerState(PlayerId.PLAYER_2));
+            CompletableFuture<Player.TurnKind> turn = CompletableFuture.supplyAsync(proxy::nextTurn);
+
+            assertEquals(MessageId.INIT_PLAYERS.ordinal(), client.receiveFrame().readByte());
+            assertEquals(MessageId.UPDATE_STATE.ordinal(), client.receiveFrame().readByte());
+            BinaryReader question = client.receiveFrame();
+            assertEquals(MessageId.NEXT_TURN.ordinal(), question.readByte());
+            int questionId = question.readVarInt();
+
+            //the connection is lost before the answer
+            sockets[0].close();
+            sockets[1].close();
+            assertTrue(connect(registry, gameServer, chatServer, sockets, handshake(token)).isEmpty());
+            MessageChannel resumed = new MessageChannel(sockets[0]);
+            assertEquals(WireFormat.BINARY_PIPELINED.name() + " " + token, resumed.receiveLine());
+
+            //the whole state is sent again, then the pending question
+            BinaryReader update = resumed.receiveFrame();
+            assertEquals(MessageId.UPDATE_STATE.ordinal(), update.readByte());
+            StateDeltaDecoder decoder = new StateDeltaDecoder(PlayerId.PLAYER_2);
+            decoder.read(update);
+            assertEquals(state.ticketsCount(), decoder.state().ticketsCount());
+            assertEquals(state.playerState(PlayerId.PLAYER_2).cards(), decoder.ownState().cards());
+            BinaryReader again = resumed.receiveFrame();
+            assertEquals(MessageId.NEXT_TURN.ordinal(), again.readByte());
+            assertEquals(questionId, again.readVarInt());
+
+            resumed.send(new BinaryWriter().writeVarInt(questionId).write(BinarySerdes.TURN_KIND_SERDE, Player.TurnKind.DRAW_CARDS));
+            assertEquals(Player.TurnKind.DRAW_CARDS, turn.get(10, TimeUnit.SECONDS));
+            sockets[0].close();
+            sockets[1].close();
+        }
+    }
+
+    @Test
+    void clientGivingAnUnknownTokenIsDisconnected() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket[] sockets = new Socket[2];
+            assertTrue(connect(registry, gameServer, chatServer, sockets, handshake("unknown")).isEmpty());
+            assertNull(new MessageChannel(sockets[0]).receiveLine());
+            assertEquals(0, registry.sessionCount());
+            sockets[0].close();
+            sockets[1].close();
+        }
+    }
+
+    @Test
+    void clientSendingAMalformedHandshakeIsDisconnected() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        String name = Serdes.STRING_SERDE.serialize("Charles");
+        for (String firstLine : List.of(WireFormat.HANDSHAKE, String.join(" ", WireFormat.HANDSHAKE, "UNKNOWN", name),
+                String.join(" ", WireFormat.HANDSHAKE, WireFormat.BINARY.name()), "!not base64!")) {
+            try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                 ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                Socket[] sockets = new Socket[2];
+                assertTrue(connect(registry, gameServer, chatServer, sockets, firstLine).isEmpty());
+                assertNull(new MessageChannel(sockets[0]).receiveLine());
+                assertEquals(0, registry.sessionCount());
+                sockets[0].close();
+                sockets[1].close();
+            }
+        }
+    }
+
+    @Test
+    void proxyFailsOnAMalformedHandshake() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(accepted, null);
+            new MessageChannel(client).send(WireFormat.HANDSHAKE);
+            assertThrows(IllegalArgumentException.class, proxy::receivePlayerName);
+        }
+    }
+
+    @Test
+    void silentClientIsDisconnectedOnceTheHandshakeDeadlineHasPassed() throws Exception {
+        SessionRegistry registry = new SessionRegistry(RemotePlayerProxy.DEFAULT_DECISION_TIMEOUT_MILLIS, 200);
+        try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket game = new Socket(InetAddress.getLoopbackAddress(), gameServer.getLocalPort());
+             Socket chat = new Socket(InetAddress.getLoopbackAddress(), chatServer.getLocalPort())) {
+            //the client never sends its first line
+            assertThrows(SocketTimeoutException.class, () -> registry.accept(gameServer.accept(), chatServer.accept()));
+            assertNull(new MessageChannel(game).receiveLine());
+            assertNull(new MessageChannel(chat).receiveLine());
+        }
+    }
+
+    @Test
+    void proxyFailsOnceTheDecisionDeadlineHasPassed() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            RemotePlayerProxy proxy = new RemotePlayerProxy(accepted, null, 100);
+            new MessageChannel(client).send(Serdes.STRING_SERDE.serialize("Ada"));
+            assertEquals("Ada", proxy.receivePlayerName());
+            //the client never answers
+            assertThrows(UncheckedIOException.class, proxy::nextTurn);
+        }
+    }
+
+    @Test
+    void registryWithoutSessionRequestGivesAProxyWithoutToken() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        try (ServerSocket gameServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             ServerSocket chatServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket[] sockets = new Socket[2];
+            RemotePlayerProxy proxy = connect(registry, gameServer, chatServer, sockets,
+                    Serdes.STRING_SERDE.serialize("Ada")).orElseThrow();
+            assertEquals("Ada", proxy.receivePlayerName());
+            assertNull(proxy.sessionToken());
+            assertEquals(0, registry.sessionCount());
+            sockets[0].close();
+            sockets[1].close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.RandomBot;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorBroadcastTest {
+
+    //Spectator recording the messages it would receive over the network
+    private static final class RecordingSpectator implements Spectator {
+        private final List<String> messages = new ArrayList<>();
+        private final List<PublicGameState> states = new ArrayList<>();
+
+        @Override
+        public void receiveInfo(String info) {
+            messages.add("RECEIVE_INFO " + Serdes.STRING_SERDE.serialize(info));
+        }
+
+        @Override
+        public void updateState(PublicGameState newState) {
+            states.add(newState);
+            messages.add("UPDATE_STATE " + Serdes.PUBLIC_GAME_STATE_SERDE.serialize(newState));
+        }
+    }
+
+    @Test
+    void spectatorsReceiveThePublicStateAndTheInfosOfTheGame() throws IOException {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SpectatorBroadcast broadcast = new SpectatorBroadcast(loop, 100_000);
+            List<Socket> clients = new ArrayList<>();
+            for (int i = 0; i < 3; ++i) {
+                clients.add(new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort()));
+                broadcast.add(server.accept());
+            }
+            assertEquals(3, broadcast.spectatorCount());
+
+            RecordingSpectator recording = new RecordingSpectator();
+            GameSession session = new GameSession(
+                    Map.of(PlayerId.PLAYER_1, new RandomBot(1), PlayerId.PLAYER_2, new RandomBot(2)),
+                    Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles"),
+                    SortedBag.of(ChMap.tickets()), new Random(3));
+            session.addSpectator(recording);
+            session.addSpectator(broadcast);
+            session.play();
+
+            //the spectators never get the private state of the players
+            assertFalse(recording.states.isEmpty());
+            for (PublicGameState state : recording.states)
+                assertEquals(PublicGameState.class, state.getClass());
+
+            for (Socket client : clients) {
+                BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                for (String message : recording.messages)
+                    assertEquals(message, r.readLine());
+                client.close();
+            }
+            assertEquals(0, broadcast.droppedSpectators());
+        }
+    }
+
+    @Test
+    void lateSpectatorsReceiveTheLastState() throws IOException {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SpectatorBroadcast broadcast = new SpectatorBroadcast(loop);
+            PublicGameState state = GameState.initial(SortedBag.of(ChMap.tickets()), new Random(1));
+            broadcast.receiveInfo("not seen");
+            broadcast.updateState(state);
+
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                broadcast.add(server.accept());
+                broadcast.receiveInfo("seen");
+                BufferedReader r = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                assertEquals("UPDATE_STATE " + Serdes.PUBLIC_GAME_STATE_SERDE.serialize(state), r.readLine());
+                assertEquals("RECEIVE_INFO " + Serdes.STRING_SERDE.serialize("seen"), r.readLine());
+            }
+        }
+    }
+
+    @Test
+    void slowSpectatorsAreDroppedWithoutBlockingTheGame() throws IOException {
+        try (NioEventLoop loop = new NioEventLoop();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SpectatorBroadcast broadcast = new SpectatorBroadcast(loop, 8);
+            //the client never reads: the socket buffers fill up, then the messages wait in the loop
+            try (Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort())) {
+                client.setReceiveBufferSize(1024);
+                broadcast.add(server.accept());
+                String info = "x".repeat(64 * 1024);
+                for (int i = 0; i < 1000 && broadcast.droppedSpectators() == 0; ++i)
+                    broadcast.receiveInfo(info);
+                assertEquals(1, broadcast.droppedSpectators());
+                broadcast.receiveInfo(info);
+                assertEquals(0, broadcast.spectatorCount());
+            }
+        }
+    }
+}
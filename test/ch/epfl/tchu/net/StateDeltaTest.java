@@ -0,0 +1,98 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateDeltaTest {
+    private static final List<Route> ROUTES = ChMap.routes();
+
+    private static PublicGameState gameState(List<Card> faceUp, int deckSize, PlayerId current, PlayerId last,
+                                             List<Route> routes1, List<Route> routes2, int cards1) {
+        Map<PlayerId, PublicPlayerState> players = new EnumMap<>(PlayerId.class);
+        players.put(PlayerId.PLAYER_1, new PlayerState(SortedBag.of(ChMap.tickets().subList(0, 3)), SortedBag.of(cards1, Card.RED), routes1));
+        players.put(PlayerId.PLAYER_2, new PublicPlayerState(5, 4, routes2));
+        return new PublicGameState(30, new PublicCardState(faceUp, deckSize, 7), current, players, last);
+    }
+
+    private static void assertSameState(PublicGameState expected, PublicGameState actual) {
+        assertEquals(expected.ticketsCount(), actual.ticketsCount());
+        assertEquals(expected.cardState().faceUpCards(), actual.cardState().faceUpCards());
+        assertEquals(expected.cardState().deckSize(), actual.cardState().deckSize());
+        assertEquals(expected.cardState().discardsSize(), actual.cardState().discardsSize());
+        assertEquals(expected.currentPlayerId(), actual.currentPlayerId());
+        assertEquals(expected.lastPlayer(), actual.lastPlayer());
+        for (PlayerId id : PlayerId.ALL) {
+            assertEquals(expected.playerState(id).ticketCount(), actual.playerState(id).ticketCount());
+            assertEquals(expected.playerState(id).cardCount(), actual.playerState(id).cardCount());
+            assertEquals(new HashSet<>(expected.playerState(id).routes()), new HashSet<>(actual.playerState(id).routes()));
+        }
+    }
+
+    //Send the states through an encoder and a decoder, returning the size of the delta
+    private static int send(StateDeltaEncoder encoder, StateDeltaDecoder decoder, PublicGameState state) {
+        PlayerState own = (PlayerState) state.playerState(PlayerId.PLAYER_1);
+        BinaryWriter writer = new BinaryWriter();
+        encoder.write(state, own, writer);
+        byte[] delta = writer.toByteArray();
+        BinaryReader reader = new BinaryReader(delta);
+        decoder.read(reader);
+        assertEquals(0, reader.remaining());
+
+        assertSameState(state, decoder.state());
+        assertEquals(own.tickets(), decoder.ownState().tickets());
+        assertEquals(own.cards(), decoder.ownState().cards());
+        assertEquals(new HashSet<>(own.routes()), new HashSet<>(decoder.ownState().routes()));
+        return delta.length;
+    }
+
+    @Test
+    void deltasRebuildTheStates() {
+        StateDeltaEncoder encoder = new StateDeltaEncoder(PlayerId.PLAYER_1);
+        StateDeltaDecoder decoder = new StateDeltaDecoder(PlayerId.PLAYER_1);
+        List<Card> faceUp = List.of(Card.RED, Card.BLUE, Card.RED, Card.LOCOMOTIVE, Card.WHITE);
+        List<Card> newFaceUp = List.of(Card.RED, Card.BLUE, Card.BLACK, Card.LOCOMOTIVE, Card.WHITE);
+
+        send(encoder, decoder, gameState(faceUp, 40, PlayerId.PLAYER_1, null, List.of(), List.of(), 4));
+        send(encoder, decoder, gameState(newFaceUp, 39, PlayerId.PLAYER_2, null, List.of(ROUTES.get(3)), List.of(), 2));
+        send(encoder, decoder, gameState(newFaceUp, 38, PlayerId.PLAYER_1, PlayerId.PLAYER_2,
+                List.of(ROUTES.get(3), ROUTES.get(60)), List.of(ROUTES.get(10)), 2));
+        send(encoder, decoder, gameState(faceUp, 38, PlayerId.PLAYER_1, PlayerId.PLAYER_2, List.of(), List.of(ROUTES.get(10)), 2));
+    }
+
+    @Test
+    void unchangedStateIsSentAsOneByte() {
+        StateDeltaEncoder encoder = new StateDeltaEncoder(PlayerId.PLAYER_1);
+        StateDeltaDecoder decoder = new StateDeltaDecoder(PlayerId.PLAYER_1);
+        PublicGameState state = gameState(List.of(Card.RED, Card.BLUE, Card.RED, Card.LOCOMOTIVE, Card.WHITE),
+                40, PlayerId.PLAYER_1, null, ROUTES.subList(0, 20), ROUTES.subList(20, 40), 4);
+
+        assertTrue(send(encoder, decoder, state) > 1);
+        assertEquals(1, send(encoder, decoder, state));
+    }
+
+    @Test
+    void claimingARouteSendsOnlyThatRoute() {
+        StateDeltaEncoder encoder = new StateDeltaEncoder(PlayerId.PLAYER_1);
+        StateDeltaDecoder decoder = new StateDeltaDecoder(PlayerId.PLAYER_1);
+        List<Card> faceUp = List.of(Card.RED, Card.BLUE, Card.RED, Card.LOCOMOTIVE, Card.WHITE);
+        List<Route> routes = new ArrayList<>(ROUTES.subList(0, 30));
+
+        send(encoder, decoder, gameState(faceUp, 40, PlayerId.PLAYER_1, null, routes, ROUTES.subList(40, 70), 4));
+        routes.add(ROUTES.get(80));
+        int delta = send(encoder, decoder, gameState(faceUp, 40, PlayerId.PLAYER_1, null, routes, ROUTES.subList(40, 70), 4));
+        //mask (2 bytes) + count + one route (2 bytes)
+        assertEquals(5, delta);
+    }
+
+    @Test
+    void decoderFailsOnIncompleteFirstDelta() {
+        StateDeltaDecoder decoder = new StateDeltaDecoder(PlayerId.PLAYER_1);
+        BinaryReader reader = new BinaryReader(new BinaryWriter().writeVarInt(0).toByteArray());
+        assertThrows(IllegalArgumentException.class, () -> decoder.read(reader));
+    }
+}
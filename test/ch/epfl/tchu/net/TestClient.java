@@ -35,15 +35,6 @@ public class TestClient {
             System.out.printf("playerNames: %s\n", names);
         }
 
-        /**
-         * get the lastChat that the player send.
-         *
-         * @return the chat. (String)
-         */
-        @Override public String lastChat() {
-            return null;
-        }
-
         /**
          * used to inform the player he receive a new chat.
          *
@@ -0,0 +1,122 @@
+package ch.epfl.tchu.replay;
+
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.GreedyBot;
+import ch.epfl.tchu.sim.RandomBot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameReplayerTest {
+    private static final Map<PlayerId, String> PLAYER_NAMES = Map.of(
+            PlayerId.PLAYER_1, "Ada",
+            PlayerId.PLAYER_2, "Charles");
+
+    //Play a game between a greedy and a random bot, recording it
+    private static GameResult play(long seed, GameRecord.Builder record) {
+        Map<PlayerId, Player> players = Map.of(
+                PlayerId.PLAYER_1, new RecordingPlayer(new GreedyBot(seed + 1), record),
+                PlayerId.PLAYER_2, new RecordingPlayer(new RandomBot(seed + 2), record));
+        GameSession session = new GameSession(players, PLAYER_NAMES, Decisions.TICKETS, new Random(seed), false);
+        session.play();
+        return session.result();
+    }
+
+    @Test
+    void gameReplayerRebuildsTheRecordedGames() {
+        for (long seed = 0; seed < 200; ++seed) {
+            GameRecord.Builder builder = new GameRecord.Builder(seed);
+            GameResult result = play(seed, builder);
+            GameRecord record = builder.build();
+
+            List<GameState> states = new ArrayList<>();
+            GameState finalState = GameReplayer.replay(record, states::add);
+            assertEquals(result.turnCount() + 2, states.size());
+            assertSame(finalState, states.get(states.size() - 1));
+
+            Map<PlayerId, Integer> lengths = new EnumMap<>(PlayerId.class);
+            for (PlayerId id : PlayerId.ALL)
+                lengths.put(id, Trail.longest(finalState.playerState(id).routes()).length());
+            for (PlayerId id : PlayerId.ALL) {
+                int bonus = (lengths.get(id) >= lengths.get(id.next())) ? Constants.LONGEST_TRAIL_BONUS_POINTS : 0;
+                assertEquals(result.points(id), finalState.playerState(id).finalPoints() + bonus);
+                assertEquals(result.longestTrailLength(id), lengths.get(id));
+            }
+        }
+    }
+
+    @Test
+    void recordingPlayerRecordsTheWholeGame() {
+        Map<PlayerId, Player> players = Map.of(
+                PlayerId.PLAYER_1, new GreedyBot(1),
+                PlayerId.PLAYER_2, new GreedyBot(2));
+        GameRecord record = RecordingPlayer.record(players, PLAYER_NAMES, 2021, true);
+        assertEquals(2021, record.seed());
+        assertTrue(record.size() > 0);
+        GameReplayer.replay(record);
+    }
+
+    @Test
+    void gameReplayerFailsOnTruncatedOrTooLongRecords() {
+        GameRecord.Builder builder = new GameRecord.Builder(7);
+        play(7, builder);
+        GameRecord record = builder.build();
+        ByteBuffer decisions = record.decisions();
+
+        ByteBuffer truncated = decisions.duplicate().limit(decisions.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> GameReplayer.replay(new GameRecord(7, truncated)));
+        ByteBuffer tooLong = ByteBuffer.allocate(decisions.limit() + 1).put(decisions.duplicate()).put((byte) 0).flip();
+        assertThrows(IllegalArgumentException.class, () -> GameReplayer.replay(new GameRecord(7, tooLong)));
+    }
+
+    @Test
+    void gameArchiveReadsTheRecordsAppended(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("games.tchu");
+        List<GameRecord> records = new ArrayList<>();
+        for (long seed = 0; seed < 10; ++seed) {
+            GameRecord.Builder builder = new GameRecord.Builder(seed);
+            play(seed, builder);
+            records.add(builder.build());
+        }
+        try (GameArchive.Writer writer = GameArchive.append(path)) {
+            for (GameRecord record : records.subList(0, 5))
+                writer.append(record);
+        }
+        try (GameArchive.Writer writer = GameArchive.append(path)) {
+            for (GameRecord record : records.subList(5, 10))
+                writer.append(record);
+        }
+
+        List<GameRecord> read = new ArrayList<>();
+        assertEquals(10, GameArchive.forEach(path, read::add));
+        for (int i = 0; i < records.size(); ++i) {
+            assertEquals(records.get(i).seed(), read.get(i).seed());
+            assertEquals(records.get(i).decisions(), read.get(i).decisions());
+            GameReplayer.replay(read.get(i));
+        }
+
+        //A record cut at the end is ignored, then overwritten
+        Files.write(path, new byte[]{0, 0, 1, 0, 0}, StandardOpenOption.APPEND);
+        assertEquals(10, GameArchive.forEach(path, record -> {}));
+        try (GameArchive.Writer writer = GameArchive.append(path)) {
+            writer.append(records.get(0));
+        }
+        assertEquals(11, GameArchive.forEach(path, record -> {}));
+    }
+
+    @Test
+    void gameArchiveFailsOnOtherFiles(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("other");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> GameArchive.forEach(path, record -> {}));
+        assertThrows(IOException.class, () -> GameArchive.append(path));
+    }
+}
@@ -0,0 +1,115 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTest {
+    //Bot counting the infos it receives
+    private static final class CountingBot extends BotPlayer {
+        private int infoCount;
+
+        private CountingBot(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            ++infoCount;
+        }
+
+        @Override
+        protected SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount) {
+            return SortedBag.of(options.toList().subList(0, minCount));
+        }
+
+        @Override
+        protected Route chosenRoute(List<Route> claimableRoutes) {
+            return claimableRoutes.isEmpty() ? null : claimableRoutes.get(0);
+        }
+
+        @Override
+        protected SortedBag<Card> chosenClaimCards(List<SortedBag<Card>> options) {
+            return options.get(0);
+        }
+
+        @Override
+        public int drawSlot() {
+            return Constants.DECK_SLOT;
+        }
+
+        @Override
+        public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            return options.get(0);
+        }
+    }
+
+    private static int playWithCountingBots(boolean sendInfos) {
+        CountingBot bot1 = new CountingBot(1);
+        CountingBot bot2 = new CountingBot(2);
+        GameSession session = new GameSession(
+                Map.of(PlayerId.PLAYER_1, bot1, PlayerId.PLAYER_2, bot2),
+                Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles"),
+                SortedBag.of(ChMap.tickets()), new Random(2021), sendInfos);
+        session.play();
+        assertTrue(session.result().turnCount() > 0);
+        return bot1.infoCount + bot2.infoCount;
+    }
+
+    @Test
+    void gameSessionWithoutInfosSendsNoInfo() {
+        assertTrue(playWithCountingBots(true) > 0);
+        assertEquals(0, playWithCountingBots(false));
+    }
+
+    @Test
+    void gameSessionResultFailsBeforePlay() {
+        GameSession session = new GameSession(
+                Map.of(PlayerId.PLAYER_1, new CountingBot(1), PlayerId.PLAYER_2, new CountingBot(2)),
+                Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles"),
+                SortedBag.of(ChMap.tickets()), new Random(2021), false);
+        assertThrows(IllegalStateException.class, session::result);
+    }
+
+    @Test
+    void simulationDoesNotDependOnThreadCount() throws InterruptedException {
+        Simulation simulation = new Simulation(Strategy.of("greedy"), Strategy.of("random"), 2021);
+        SimulationStats oneThread = simulation.run(600, 1);
+        SimulationStats threeThreads = simulation.run(600, 3);
+        assertEquals(oneThread.toString(), threeThreads.toString());
+    }
+
+    @Test
+    void simulationStatsCountEveryGame() throws InterruptedException {
+        SimulationStats stats = new Simulation(Strategy.of("random"), Strategy.of("random"), 7).run(300, 2);
+        assertEquals(300, stats.games() + stats.abortedGames());
+        assertEquals(stats.games(), stats.wins(PlayerId.PLAYER_1) + stats.wins(PlayerId.PLAYER_2) + stats.draws());
+
+        long histogramCount = 0;
+        for (long count : stats.pointsHistogram(PlayerId.PLAYER_1))
+            histogramCount += count;
+        assertEquals(stats.games(), histogramCount);
+        assertTrue(stats.minPoints(PlayerId.PLAYER_1) <= stats.meanPoints(PlayerId.PLAYER_1));
+        assertTrue(stats.meanPoints(PlayerId.PLAYER_1) <= stats.maxPoints(PlayerId.PLAYER_1));
+    }
+
+    @Test
+    void strategyOfFailsOnUnknownName() {
+        assertThrows(IllegalArgumentException.class, () -> Strategy.of("clever"));
+    }
+
+    @Test
+    void simulationFailsOnAnotherFailureThanTheTurnLimit() {
+        Strategy broken = seed -> {
+            throw new IllegalStateException("broken strategy");
+        };
+        Simulation simulation = new Simulation(broken, Strategy.of("random"), 2021);
+        assertThrows(IllegalStateException.class, () -> simulation.run(3, 1));
+    }
+}